@@ -23,20 +23,32 @@ import org.apache.ignite.IgniteCache;
 import org.apache.ignite.IgniteDataStreamer;
 import org.apache.ignite.cache.CacheAtomicityMode;
 import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
 import org.apache.ignite.ci.issue.Issue;
 import org.apache.ignite.ci.issue.IssueKey;
+import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
 import org.apache.ignite.tcbot.engine.issue.IssuesStorage;
 import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.tcbot.common.conf.TcBotSystemProperties;
+import org.apache.ignite.tcignited.build.BuildStartDateIndex;
+import org.apache.ignite.tcignited.build.BuildTimelineIndex;
+import org.apache.ignite.tcignited.build.FatBuildDao;
 import org.apache.ignite.tcservice.model.result.Build;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.ignite.migrate.GridIntListMigrator;
+import org.apache.ignite.migrate.PartitionedMigration;
 
 import javax.cache.Cache;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Migrations to be applied to each TC related caches.
@@ -114,8 +126,37 @@ public class DbMigrations {
 
     private IgniteCache<String, Object> doneMigrations;
 
+    /** Count of partitions processed in parallel by partitioned migrations. */
+    private final int threads;
+
+    /** Progress listener, replaced for migrations applied in background. */
+    private volatile Consumer<String> progressLsnr;
+
+    /** Migrations to be applied in background: code -> migration. */
+    private final Map<String, Runnable> lazyMigrations = new LinkedHashMap<>();
+
     public DbMigrations(Ignite ignite ) {
+        this(ignite, msg -> { });
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param progressLsnr Progress listener.
+     */
+    public DbMigrations(Ignite ignite, Consumer<String> progressLsnr) {
+        this(ignite, Integer.getInteger(TcBotSystemProperties.TEAMCITY_BOT_MIGRATION_THREADS,
+            Runtime.getRuntime().availableProcessors()), progressLsnr);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param threads Count of partitions processed in parallel by partitioned migrations.
+     * @param progressLsnr Progress listener.
+     */
+    public DbMigrations(Ignite ignite, int threads, Consumer<String> progressLsnr) {
         this.ignite = ignite;
+        this.threads = threads;
+        this.progressLsnr = progressLsnr;
     }
 
     public String dataMigration() {
@@ -132,28 +173,38 @@ public class DbMigrations {
 
 
         Cache<IssueKey, Issue> issuesCache = IssuesStorage.botDetectedIssuesCache(ignite);
-        applyMigration(Old.ISSUES + "-to-" + issuesCache.getName() + "V2", () -> {
+        applyPartitionedMigration(Old.ISSUES + "-to-" + issuesCache.getName() + "V2", migration -> {
             String cacheName = Old.ISSUES;
             IgniteCache<IssueKey, Issue> issuesOldCache = ignite.getOrCreateCache(cacheName);
 
             int size = issuesOldCache.size();
             if (size > 0) {
-                int i = 0;
+                AtomicInteger cnt = new AtomicInteger();
+
+                migration.run(Collections.singletonList(cacheName), (cache, part) -> {
+                    int i = 0;
 
-                Map<IssueKey, Issue> batch = new HashMap<>();
+                    Map<IssueKey, Issue> batch = new HashMap<>();
 
-                IgniteDataStreamer<IssueKey, Issue> streamer = ignite.dataStreamer(issuesCache.getName());
-                for (Cache.Entry<IssueKey, Issue> entry : issuesOldCache) {
-                    batch.put(entry.getKey(), entry.getValue());
+                    // Closing the streamer flushes data before the partition is checkpointed.
+                    try (IgniteDataStreamer<IssueKey, Issue> streamer = ignite.dataStreamer(issuesCache.getName());
+                         QueryCursor<Cache.Entry<IssueKey, Issue>> cursor
+                             = issuesOldCache.query(new ScanQuery<IssueKey, Issue>().setPartition(part))) {
+                        for (Cache.Entry<IssueKey, Issue> entry : cursor) {
+                            batch.put(entry.getKey(), entry.getValue());
 
-                    i++;
+                            i++;
 
-                    if (batch.size() >= 300)
-                        saveOneBatch(cacheName, size, i, batch, streamer);
-                }
+                            if (batch.size() >= 300)
+                                saveOneBatch(cacheName, size, cnt.addAndGet(batch.size()), batch, streamer);
+                        }
 
-                if (!batch.isEmpty())
-                    saveOneBatch(cacheName, size, i, batch, streamer);
+                        if (!batch.isEmpty())
+                            saveOneBatch(cacheName, size, cnt.addAndGet(batch.size()), batch, streamer);
+                    }
+
+                    return i;
+                });
 
                 System.err.println("Removing data from old cache " + issuesOldCache.getName());
 
@@ -235,9 +286,70 @@ public class DbMigrations {
 
         applyGridIntListMigration();
 
+        applyPartitionedMigration("fill-" + BuildStartDateIndex.BUILD_START_DATE_IDX_CACHE_NAME, migration -> {
+            long cnt = migration.run(Collections.singletonList(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME),
+                (cache, part) -> BuildStartDateIndex.fillPartition(ignite, part));
+
+            logger.info("Build start date index filled for {} builds", cnt);
+        });
+
+        applyPartitionedMigration("split-" + FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME, migration -> {
+            long cnt = migration.run(Collections.singletonList(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME),
+                (cache, part) -> FatBuildDao.splitPartition(ignite, part));
+
+            logger.info("Tests, parameters and problems moved to separate caches for {} builds", cnt);
+        });
+
+        applyPartitionedMigration("fill-" + BuildTimelineIndex.BUILD_TIMELINE_IDX_CACHE_NAME, migration -> {
+            long cnt = migration.run(Collections.singletonList(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME),
+                (cache, part) -> BuildTimelineIndex.fillPartition(ignite, part));
+
+            logger.info("Build timeline index filled for {} builds", cnt);
+        });
+
+        applyPartitionedMigration("fill-" + IssuesStorage.BOT_DETECTED_ISSUES_BY_HOUR, migration -> {
+            long cnt = migration.run(Collections.singletonList(issuesCache.getName()),
+                (cache, part) -> IssuesStorage.fillDetectedIndexPartition(ignite, part));
+
+            logger.info("Issues detected time index filled for {} issues", cnt);
+        });
+
+        applyMigration("fill-" + VisasHistoryStorage.VISA_REQUESTS_CACHE_NAME, () -> {
+            long cnt = VisasHistoryStorage.migrate(ignite);
+
+            logger.info("Visas history moved to per-request storage for {} requests", cnt);
+        });
+
+        applyDestroyCacheMigration(VisasHistoryStorage.VISAS_CACHE_NAME);
+
         int sizeAfter = doneMigrations.size();
-        return (sizeAfter - sizeBefore) + " Migrations done from " + sizeAfter;
+        return (sizeAfter - sizeBefore) + " Migrations done from " + sizeAfter
+            + (lazyMigrations.isEmpty() ? "" : ", " + lazyMigrations.size() + " to be done in background");
+
+    }
+
+    /**
+     * Applies migrations registered by {@link #dataMigration()} to be done in background. Readers of actual data are
+     * not affected by these migrations, so they are applied while the bot is working.
+     *
+     * @param progressLsnr Progress listener of background task, replaces listener provided to constructor.
+     * @return Printable result.
+     */
+    public String lazyDataMigration(Consumer<String> progressLsnr) {
+        this.progressLsnr = progressLsnr;
+
+        int cnt = 0;
+
+        for (Map.Entry<String, Runnable> entry : lazyMigrations.entrySet()) {
+            progressLsnr.accept("Migration [" + entry.getKey() + "], " + cnt + " of " + lazyMigrations.size() +
+                " done");
 
+            applyMigration(entry.getKey(), entry.getValue());
+
+            cnt++;
+        }
+
+        return cnt + " Migrations done in background";
     }
 
     private void applyDestroyIgnCacheMigration(String cacheName, String srvId) {
@@ -250,7 +362,7 @@ public class DbMigrations {
     }
 
     private void applyDestroyCacheMigration(String dispCacheName, String cacheNme) {
-        applyMigration("destroy-" + cacheNme, () -> {
+        applyLazyMigration("destroy-" + cacheNme, () -> {
             IgniteCache<Object, Object> cache = ignite.cache(cacheNme);
 
             if (cache == null) {
@@ -288,7 +400,7 @@ public class DbMigrations {
      * @param cacheNme Cache nme.
      */
     private void applyRemoveCache(String cacheNme) {
-        applyMigration("remove" + cacheNme, () -> {
+        applyLazyMigration("remove" + cacheNme, () -> {
             if (ignite.cacheNames().contains(cacheNme)) {
                 IgniteCache<Object, Object> oldBuilds = ignite.cache(cacheNme);
 
@@ -315,7 +427,7 @@ public class DbMigrations {
      * Applies the GridIntList migration from ignite.internal to tcbot-common realization
      */
     private void applyGridIntListMigration() {
-        applyMigration("migrate-GridIntList", () -> {
+        applyPartitionedMigration("migrate-GridIntList", migration -> {
             try {
                 logger.info("Starting GridIntList type migration");
 
@@ -329,7 +441,8 @@ public class DbMigrations {
                     cacheFilter,
                     apply,
                     verbose,
-                    reportEvery
+                    reportEvery,
+                    migration
                 );
 
                 logger.info("GridIntList migration completed. Updated {} entries", updated);
@@ -343,6 +456,29 @@ public class DbMigrations {
         });
     }
 
+    /**
+     * Applies migration processing caches partition by partition in several threads. Processed partitions are
+     * checkpointed into done migrations cache, so an interrupted migration is resumed from unprocessed partitions.
+     *
+     * @param code Migration code.
+     * @param migration Migration, should run partition processing using provided {@link PartitionedMigration}.
+     */
+    private void applyPartitionedMigration(String code, Consumer<PartitionedMigration> migration) {
+        applyMigration(code,
+            () -> migration.accept(new PartitionedMigration(ignite, code, doneMigrations, threads, progressLsnr)));
+    }
+
+    /**
+     * Registers migration to be applied in background by {@link #lazyDataMigration(Consumer)}.
+     *
+     * @param code Migration code.
+     * @param runnable Migration.
+     */
+    private void applyLazyMigration(String code, Runnable runnable) {
+        if (!doneMigrations.containsKey(code))
+            lazyMigrations.putIfAbsent(code, runnable);
+    }
+
     private void applyMigration(String code, Runnable runnable) {
         if (doneMigrations.containsKey(code))
             return;
@@ -354,11 +490,14 @@ public class DbMigrations {
             String msg = "Running migration procedure [" + code + "]";
             System.err.println(msg);
             logger.warn(msg);
+            progressLsnr.accept(msg);
 
             runnable.run();
 
             doneMigrations.put(code, true);
 
+            PartitionedMigration.clearCheckpoints(doneMigrations, code);
+
             String msgComp = "Completed migration procedure [" + code + "]";
             System.err.println(msgComp);
             logger.warn(msgComp);
@@ -29,6 +29,7 @@ import org.apache.ignite.Ignition;
 import org.apache.ignite.tcbot.common.conf.TcBotWorkDir;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
 import org.apache.ignite.tcbot.common.interceptor.MonitoredTask;
+import org.apache.ignite.tcbot.common.interceptor.MonitoredTaskInterceptor;
 import org.apache.ignite.ci.web.model.Version;
 import org.apache.ignite.cluster.BaselineNode;
 import org.apache.ignite.configuration.DataRegionConfiguration;
@@ -51,6 +52,9 @@ public class Ignite1Init {
      */
     private Ignite ignite;
 
+    /** Migrations, some of them are applied in background after start. */
+    private DbMigrations migrations;
+
     public Ignite1Init() {
     }
 
@@ -65,6 +69,11 @@ public class Ignite1Init {
 
         dataMigrations();
 
+        Thread thread = new Thread(this::lazyDataMigrations, "ignite-lazy-migrations");
+
+        thread.setDaemon(true);
+        thread.start();
+
         return ignite;
     }
 
@@ -72,7 +81,16 @@ public class Ignite1Init {
     @MonitoredTask(name = "Data Migrations")
     @AutoProfiling
     public String dataMigrations() {
-        return new DbMigrations(ignite).dataMigration();
+        migrations = new DbMigrations(ignite, MonitoredTaskInterceptor.progressReporter());
+
+        return migrations.dataMigration();
+    }
+
+    @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
+    @MonitoredTask(name = "Lazy Data Migrations")
+    @AutoProfiling
+    public String lazyDataMigrations() {
+        return migrations.lazyDataMigration(MonitoredTaskInterceptor.progressReporter());
     }
 
     @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
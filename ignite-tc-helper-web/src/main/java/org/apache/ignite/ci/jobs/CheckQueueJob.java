@@ -34,6 +34,7 @@ import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TriggeredCompacted;
 import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.apache.ignite.internal.util.typedef.T2;
 import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
@@ -51,8 +52,6 @@ import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
 import org.apache.ignite.tcservice.model.Property;
 import org.apache.ignite.tcservice.model.agent.Agent;
 import org.apache.ignite.tcservice.model.result.Build;
-import org.apache.ignite.tcservice.model.result.Triggered;
-import org.apache.ignite.tcservice.model.user.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -294,46 +293,56 @@ public class CheckQueueJob implements Runnable {
         String agentStatus) {
         List<BuildRefCompacted> buildsForBr = tcIgn.getQueuedAndRunningBuildsCompacted(tcBranch);
 
+        Map<Integer, TriggeredCompacted> triggeredById = tcIgn.getTriggered(buildsForBr.stream()
+            .map(BuildRefCompacted::getId)
+            .filter(Objects::nonNull)
+            .collect(toList()));
+
         for (BuildRefCompacted refComp : buildsForBr) {
             Integer buildId = refComp.getId();
             if (buildId == null)
                 continue; // should not occur;
 
-            FatBuildCompacted fatBuild;
+            TriggeredCompacted triggered = triggeredById.get(buildId);
+            String buildTypeIdExisting;
 
-            try {
-                fatBuild = tcIgn.getFatBuild(buildId);
-            }
-            catch (Exception e) {
-                continue;
-            }
+            if (triggered != null)
+                buildTypeIdExisting = refComp.buildTypeId(compactor);
+            else {
+                // Build was not saved yet, full build loading is required.
+                FatBuildCompacted fatBuild;
+
+                try {
+                    fatBuild = tcIgn.getFatBuild(buildId);
+                }
+                catch (Exception e) {
+                    continue;
+                }
 
-            Build build = fatBuild.toBuild(compactor);
-            Triggered triggered = build.getTriggered();
+                triggered = fatBuild.triggered();
+                buildTypeIdExisting = fatBuild.buildTypeId(compactor);
+            }
 
             if (triggered == null) {
-                logger.info("Unable to get triggering info for queued build {} (type={}).", buildId, build.buildTypeId);
+                logger.info("Unable to get triggering info for queued build {} (type={}).", buildId, buildTypeIdExisting);
 
                 continue;
             }
 
-            User user = build.getTriggered().getUser();
+            String login = triggered.username(compactor);
 
-            if (user == null) {
-                logger.info("Unable to get username for queued build {} (type={}). Possibly VCS triggered", buildId, build.buildTypeId);
+            if (login == null) {
+                logger.info("Unable to get username for queued build {} (type={}). Possibly VCS triggered", buildId, buildTypeIdExisting);
 
                 continue;
             }
 
-            String buildTypeIdExisting = build.buildTypeId();
             if (buildTypeIdExisting == null) {
-                logger.info("Unable to get buildTypeId for queued build {} (type={}).", buildId, build.buildTypeId);
+                logger.info("Unable to get buildTypeId for queued build {} (type={}).", buildId, buildTypeIdExisting);
 
                 continue;
             }
 
-            String login = user.username;
-
             if (selfLogin.equalsIgnoreCase(login)
                 && buildTypeIdExisting.trim().equals(Strings.nullToEmpty(buildTypeId).trim())) {
                 String msg
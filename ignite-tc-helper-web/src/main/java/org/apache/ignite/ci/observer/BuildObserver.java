@@ -74,6 +74,8 @@ public class BuildObserver {
      */
     public void stop() {
         timer.cancel();
+
+        observerTask.stop();
     }
 
     /**
@@ -121,7 +123,7 @@ public class BuildObserver {
 
         if (Objects.nonNull(buildsInfo)) {
             sb.append(buildsInfo.ticket).append(" to be commented, waiting for builds. ");
-            sb.append(buildsInfo.finishedBuildsCount(teamcity, strCompactor));
+            sb.append(buildsInfo.getBuildsStatus(teamcity, strCompactor).finishedCount());
             sb.append(" builds done from ");
             sb.append(buildsInfo.buildsCount());
         }
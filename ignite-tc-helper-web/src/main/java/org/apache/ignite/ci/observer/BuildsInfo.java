@@ -23,9 +23,10 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.annotation.Nullable;
-import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
 import org.apache.ignite.ci.web.model.ContributionKey;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
@@ -112,19 +113,50 @@ public class BuildsInfo {
      * @return One of {@link #FINISHED_STATUS}, {@link #CANCELLED_STATUS} or {@link #RUNNING_STATUS} statuses.
      */
     public String getStatus(ITeamcityIgnited teamcity, IStringCompactor strCompactor) {
+        return getBuildsStatus(teamcity, strCompactor).status();
+    }
+
+    /**
+     * Requests state of all observed builds in one lookup.
+     *
+     * @param teamcity Teamcity.
+     * @param strCompactor {@link IStringCompactor} instance.
+     */
+    public BuildsStatus getBuildsStatus(ITeamcityIgnited teamcity, IStringCompactor strCompactor) {
+        return getBuildsStatus(teamcity.getBuildRefs(builds), strCompactor);
+    }
+
+    /**
+     * @param refs Actual references of builds, may contain builds of other observations. Missing build is considered
+     * as cancelled.
+     * @param strCompactor {@link IStringCompactor} instance.
+     */
+    public BuildsStatus getBuildsStatus(Map<Integer, ? extends BuildRefCompacted> refs, IStringCompactor strCompactor) {
+        boolean cancelled = false;
         boolean isFinished = true;
+        int finishedCnt = 0;
 
         for (Integer id : builds) {
-            FatBuildCompacted build = teamcity.getFatBuild(id);
+            BuildRefCompacted build = refs.get(id);
 
-            if (build.isFakeStub() || build.isCancelled(strCompactor))
-                return CANCELLED_STATUS;
+            if (build == null || build.isFakeStub()) {
+                cancelled = true;
 
-            if (!build.isFinished(strCompactor))
+                continue;
+            }
+
+            if (build.isCancelled(strCompactor))
+                cancelled = true;
+
+            if (build.isFinished(strCompactor))
+                ++finishedCnt;
+            else
                 isFinished = false;
         }
 
-        return isFinished ? FINISHED_STATUS : RUNNING_STATUS;
+        String status = cancelled ? CANCELLED_STATUS : isFinished ? FINISHED_STATUS : RUNNING_STATUS;
+
+        return new BuildsStatus(status, finishedCnt);
     }
 
     /**
@@ -132,7 +164,7 @@ public class BuildsInfo {
      * @param strCompactor {@link IStringCompactor} instance.
      */
     public boolean isFinished(ITeamcityIgnited teamcity, IStringCompactor strCompactor) {
-        return FINISHED_STATUS.equals(getStatus(teamcity, strCompactor));
+        return getBuildsStatus(teamcity, strCompactor).isFinished();
     }
 
     /**
@@ -140,7 +172,7 @@ public class BuildsInfo {
      * @param strCompactor {@link IStringCompactor} instance.
      */
     public boolean isCancelled(ITeamcityIgnited teamcity, IStringCompactor strCompactor) {
-        return CANCELLED_STATUS.equals(getStatus(teamcity, strCompactor));
+        return getBuildsStatus(teamcity, strCompactor).isCancelled();
     }
 
     /**
@@ -154,16 +186,7 @@ public class BuildsInfo {
      * Return finished builds count.
      */
     public int finishedBuildsCount(ITeamcityIgnited teamcity, IStringCompactor strCompactor) {
-        int finishedCnt = 0;
-
-        for (Integer id : builds) {
-            FatBuildCompacted build = teamcity.getFatBuild(id);
-
-            if (!build.isFakeStub() && build.isFinished(strCompactor))
-                ++finishedCnt;
-        }
-
-        return finishedCnt;
+        return getBuildsStatus(teamcity, strCompactor).finishedCount();
     }
 
     /** */
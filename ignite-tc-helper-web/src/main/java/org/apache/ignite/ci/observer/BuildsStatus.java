@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.observer;
+
+/**
+ * Status of observed builds of one contribution, computed once per check.
+ */
+public class BuildsStatus {
+    /** One of {@link BuildsInfo#FINISHED_STATUS}, {@link BuildsInfo#CANCELLED_STATUS} or {@link BuildsInfo#RUNNING_STATUS}. */
+    private final String status;
+
+    /** Finished builds count. */
+    private final int finishedCnt;
+
+    /**
+     * @param status Status.
+     * @param finishedCnt Finished builds count.
+     */
+    BuildsStatus(String status, int finishedCnt) {
+        this.status = status;
+        this.finishedCnt = finishedCnt;
+    }
+
+    /** */
+    public String status() {
+        return status;
+    }
+
+    /** */
+    public int finishedCount() {
+        return finishedCnt;
+    }
+
+    /** */
+    public boolean isFinished() {
+        return BuildsInfo.FINISHED_STATUS.equals(status);
+    }
+
+    /** */
+    public boolean isCancelled() {
+        return BuildsInfo.CANCELLED_STATUS.equals(status);
+    }
+}
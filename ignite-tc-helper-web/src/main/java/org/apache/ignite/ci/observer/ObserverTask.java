@@ -17,28 +17,41 @@
 
 package org.apache.ignite.ci.observer;
 
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
-import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
-import org.apache.ignite.tcbot.common.interceptor.MonitoredTask;
 import org.apache.ignite.ci.tcbot.ITcBotBgAuth;
 import org.apache.ignite.ci.tcbot.visa.TcBotTriggerAndSignOffService;
-import org.apache.ignite.tcbot.persistence.IStringCompactor;
-import org.apache.ignite.tcignited.ITeamcityIgnited;
-import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
 import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.apache.ignite.ci.web.model.ContributionKey;
 import org.apache.ignite.ci.web.model.Visa;
 import org.apache.ignite.ci.web.model.VisaRequest;
 import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
+import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
+import org.apache.ignite.tcbot.common.interceptor.MonitoredTask;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,11 +60,23 @@ import org.slf4j.LoggerFactory;
  * Checks observed builds for finished status and comments JIRA ticket. All observations are mapped with {@link
  * ContributionKey} which are produced from BuildsInfo and used as a key for specific observation. It interacts with
  * {@link VisasHistoryStorage} as persistent storage. For more information see package-info.
+ *
+ * Each observation has its own state, so a slow JIRA commenting for one contribution doesn't block checking or
+ * removing of other observations. Visa history of a contribution is updated under lock striped by contribution key.
  */
 public class ObserverTask extends TimerTask {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(ObserverTask.class);
 
+    /** Threads commenting JIRA. */
+    private static final int NOTIFY_THREADS = 4;
+
+    /** Max JIRA commenting tasks waiting for a thread. */
+    private static final int NOTIFY_QUEUE_SIZE = 64;
+
+    /** Default time to wait for JIRA commenting in one pass, milliseconds. */
+    private static final long DFLT_NOTIFY_TIMEOUT_MS = 5 * 60 * 1000;
+
     /** Helper. */
     @Inject private ITcBotBgAuth tcBotBgAuth;
 
@@ -61,16 +86,25 @@ public class ObserverTask extends TimerTask {
     /** */
     @Inject private VisasHistoryStorage visasHistStorage;
 
+    /** */
     @Inject private TcBotTriggerAndSignOffService visaIssuer;
 
     /** */
-    private ReentrantLock observationLock = new ReentrantLock();
+    @Inject private IStringCompactor strCompactor;
 
-    /** */
-    private Map<ContributionKey, BuildsInfo> infos = new ConcurrentHashMap<>();
+    /** Locks protecting visa history updates, striped by contribution key. */
+    private final Striped<Lock> keyLocks = Striped.lock(64);
 
-    /** */
-    @Inject private IStringCompactor strCompactor;
+    /** Observations. */
+    private final Map<ContributionKey, Observation> observations = new ConcurrentHashMap<>();
+
+    /** Executor commenting JIRA. */
+    private final ThreadPoolExecutor notifyExecutor = new ThreadPoolExecutor(NOTIFY_THREADS, NOTIFY_THREADS,
+        0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(NOTIFY_QUEUE_SIZE),
+        new ThreadFactoryBuilder().setNameFormat("observer-notify-%d").setDaemon(true).build());
+
+    /** Time to wait for JIRA commenting in one pass, milliseconds. */
+    private volatile long notifyTimeoutMs = DFLT_NOTIFY_TIMEOUT_MS;
 
     /**
      */
@@ -84,17 +118,33 @@ public class ObserverTask extends TimerTask {
     public void init() {
         visasHistStorage.getLastVisas().stream()
             .filter(req -> req.isObserving())
-            .forEach(req -> infos.put(req.getInfo().getContributionKey(), req.getInfo()));
+            .forEach(req -> observations.put(req.getInfo().getContributionKey(), new Observation(req.getInfo())));
+    }
+
+    /**
+     * Stops JIRA commenting.
+     */
+    public void stop() {
+        notifyExecutor.shutdownNow();
+    }
+
+    /**
+     * @param timeoutMs Time to wait for JIRA commenting in one pass, milliseconds.
+     */
+    void notifyTimeout(long timeoutMs) {
+        notifyTimeoutMs = timeoutMs;
     }
 
     /** */
     @Nullable public BuildsInfo getInfo(ContributionKey key) {
-        return infos.get(key);
+        Observation obs = observations.get(key);
+
+        return obs == null ? null : obs.info;
     }
 
     /** */
     public Collection<BuildsInfo> getInfos() {
-        return infos.values();
+        return observations.values().stream().map(obs -> obs.info).collect(Collectors.toList());
     }
 
     /**
@@ -102,29 +152,58 @@ public class ObserverTask extends TimerTask {
      * overwritten.
      */
     public void addInfo(BuildsInfo info) {
-        visasHistStorage.updateLastVisaRequest(info.getContributionKey(), req -> req.setObservingStatus(false));
+        ContributionKey key = info.getContributionKey();
+
+        Lock lock = keyLocks.get(key);
+
+        lock.lock();
+
+        try {
+            visasHistStorage.updateLastVisaRequest(key, req -> req.setObservingStatus(false));
+
+            visasHistStorage.put(new VisaRequest(info).setObservingStatus(true));
 
-        visasHistStorage.put(new VisaRequest(info).setObservingStatus(true));
+            Observation prev = observations.put(key, new Observation(info));
 
-        infos.put(info.getContributionKey(), info);
+            if (prev != null)
+                prev.state.set(ObservationState.REMOVED);
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     /** */
     public boolean removeBuildInfo(ContributionKey key) {
-        observationLock.lock();
+        Observation obs = observations.get(key);
+
+        return obs != null && stopObservation(key, obs);
+    }
+
+    /**
+     * Removes observation if it is still actual for the key.
+     *
+     * @param key Key.
+     * @param obs Observation.
+     * @return {@code True} if observation was removed by this call.
+     */
+    private boolean stopObservation(ContributionKey key, Observation obs) {
+        Lock lock = keyLocks.get(key);
+
+        lock.lock();
 
         try {
-            if (!infos.containsKey(key))
+            if (!observations.remove(key, obs))
                 return false;
 
-            infos.remove(key);
+            obs.state.set(ObservationState.REMOVED);
 
             visasHistStorage.updateLastVisaRequest(key, req -> req.setObservingStatus(false));
 
             return true;
         }
         finally {
-            observationLock.unlock();
+            lock.unlock();
         }
     }
 
@@ -144,29 +223,41 @@ public class ObserverTask extends TimerTask {
     @AutoProfiling
     @MonitoredTask(name = "Build Observer")
     protected String runObserverTask() {
-        observationLock.lock();
+        if (!tcBotBgAuth.isServerAuthorized())
+            return "Server authorization required.";
 
-        try {
-            if (!tcBotBgAuth.isServerAuthorized())
-                return "Server authorization required.";
+        ITcBotUserCreds creds = tcBotBgAuth.getServerAuthorizerCreds();
+
+        int checkedBuilds = 0;
+        int notFinishedBuilds = 0;
+        Set<String> ticketsNotified = ConcurrentHashMap.newKeySet();
+
+        Map<String, List<Observation>> bySrv = new LinkedHashMap<>();
 
-            ITcBotUserCreds creds = tcBotBgAuth.getServerAuthorizerCreds();
+        observations.values().stream()
+            .filter(obs -> obs.state.get() == ObservationState.OBSERVING)
+            .forEach(obs -> bySrv.computeIfAbsent(obs.info.srvId, k -> new ArrayList<>()).add(obs));
 
-            int checkedBuilds = 0;
-            int notFinishedBuilds = 0;
-            Set<String> ticketsNotified = new HashSet<>();
+        Map<Observation, Future<?>> notifications = new LinkedHashMap<>();
 
-            List<ContributionKey> rmv = new ArrayList<>();
+        for (Map.Entry<String, List<Observation>> e : bySrv.entrySet()) {
+            ITeamcityIgnited teamcity = teamcityIgnitedProvider.server(e.getKey(), creds);
 
-            for (ContributionKey key : infos.keySet()) {
-                BuildsInfo info = infos.get(key);
+            Set<Integer> buildIds = new HashSet<>();
 
-                ITeamcityIgnited teamcity = teamcityIgnitedProvider.server(info.srvId, creds);
+            e.getValue().forEach(obs -> buildIds.addAll(obs.info.getBuilds()));
+
+            Map<Integer, BuildRefCompacted> refs = teamcity.getBuildRefs(buildIds);
+
+            for (Observation obs : e.getValue()) {
+                BuildsInfo info = obs.info;
+                ContributionKey key = info.getContributionKey();
+                BuildsStatus status = info.getBuildsStatus(refs, strCompactor);
 
                 checkedBuilds += info.buildsCount();
 
-                if (info.isCancelled(teamcity, strCompactor)) {
-                    rmv.add(key);
+                if (status.isCancelled()) {
+                    stopObservation(key, obs);
 
                     logger.error("JIRA will not be commented." +
                         " [ticket: " + info.ticket + ", branch:" + info.branchForTc + "] : " +
@@ -175,42 +266,151 @@ public class ObserverTask extends TimerTask {
                     continue;
                 }
 
-                if (!info.isFinished(teamcity, strCompactor)) {
-                    notFinishedBuilds += info.buildsCount() - info.finishedBuildsCount(teamcity, strCompactor);
+                if (!status.isFinished()) {
+                    notFinishedBuilds += info.buildsCount() - status.finishedCount();
 
                     continue;
                 }
 
-                Visa visa = visasHistStorage.getLastVisaRequest(info.getContributionKey()).getResult();
-
-                if (!visa.isSuccess()) {
-                    String baseBranchForTc = info.baseBranchForTc;
+                Visa visa = visasHistStorage.getLastVisaRequest(key).getResult();
 
-                    Visa updatedVisa = visaIssuer.notifyJira(info.srvId, creds, info.buildTypeId,
-                        info.branchForTc, info.ticket, baseBranchForTc);
+                if (visa.isSuccess()) {
+                    stopObservation(key, obs);
 
-                    visasHistStorage.updateLastVisaRequest(info.getContributionKey(), (req -> req.setResult(updatedVisa)));
+                    continue;
+                }
 
-                    if (updatedVisa.isSuccess())
-                        ticketsNotified.add(info.ticket);
+                if (!obs.state.compareAndSet(ObservationState.OBSERVING, ObservationState.QUEUED))
+                    continue;
 
-                    visa = updatedVisa;
+                try {
+                    notifications.put(obs, notifyExecutor.submit(() -> notifyJira(obs, creds, ticketsNotified)));
                 }
+                catch (RejectedExecutionException ignored) {
+                    obs.state.compareAndSet(ObservationState.QUEUED, ObservationState.OBSERVING);
+                }
+            }
+        }
+
+        int notifyPending = awaitNotifications(notifications);
+
+        return "Checked " + checkedBuilds + " not finished " + notFinishedBuilds + " notified: " + ticketsNotified +
+            (notifyPending > 0 ? " pending: " + notifyPending : "");
+    }
 
-                if (visa.isSuccess())
-                    rmv.add(key);
+    /**
+     * Waits for JIRA commenting. Tasks not started before timeout are returned to observation, running tasks are
+     * interrupted.
+     *
+     * @param notifications Notification futures.
+     * @return Count of notifications not completed in time.
+     */
+    private int awaitNotifications(Map<Observation, Future<?>> notifications) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(notifyTimeoutMs);
+        int pending = 0;
+
+        for (Map.Entry<Observation, Future<?>> e : notifications.entrySet()) {
+            Observation obs = e.getKey();
+            Future<?> fut = e.getValue();
+
+            try {
+                fut.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
             }
+            catch (TimeoutException ignored) {
+                pending++;
 
-            rmv.forEach(key -> {
-                infos.remove(key);
+                if (obs.state.compareAndSet(ObservationState.QUEUED, ObservationState.OBSERVING))
+                    fut.cancel(false);
+                else
+                    fut.cancel(true);
 
-                visasHistStorage.updateLastVisaRequest(key, req -> req.setObservingStatus(false));
-            });
+                logger.warn("JIRA commenting timed out [ticket: " + obs.info.ticket + ", branch:" +
+                    obs.info.branchForTc + "]");
+            }
+            catch (ExecutionException ex) {
+                logger.error("JIRA commenting failed: " + ex.getMessage(), ex);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
 
-            return "Checked " + checkedBuilds + " not finished " + notFinishedBuilds + " notified: " + ticketsNotified;
+                break;
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * Comments JIRA ticket for observation with finished builds and saves visa.
+     *
+     * @param obs Observation.
+     * @param creds Credentials.
+     * @param ticketsNotified Tickets commented successfully.
+     */
+    private void notifyJira(Observation obs, ITcBotUserCreds creds, Set<String> ticketsNotified) {
+        if (!obs.state.compareAndSet(ObservationState.QUEUED, ObservationState.NOTIFYING))
+            return;
+
+        BuildsInfo info = obs.info;
+        ContributionKey key = info.getContributionKey();
+
+        try {
+            Visa updatedVisa = visaIssuer.notifyJira(info.srvId, creds, info.buildTypeId,
+                info.branchForTc, info.ticket, info.baseBranchForTc);
+
+            Lock lock = keyLocks.get(key);
+
+            lock.lock();
+
+            try {
+                if (observations.get(key) != obs)
+                    return;
+
+                visasHistStorage.updateLastVisaRequest(key, (req -> req.setResult(updatedVisa)));
+            }
+            finally {
+                lock.unlock();
+            }
+
+            if (updatedVisa.isSuccess()) {
+                ticketsNotified.add(info.ticket);
+
+                stopObservation(key, obs);
+            }
         }
         finally {
-            observationLock.unlock();
+            obs.state.compareAndSet(ObservationState.NOTIFYING, ObservationState.OBSERVING);
+        }
+    }
+
+    /** State of contribution observation. */
+    private enum ObservationState {
+        /** Waiting for builds. */
+        OBSERVING,
+
+        /** Builds are finished, JIRA commenting is submitted. */
+        QUEUED,
+
+        /** JIRA is being commented. */
+        NOTIFYING,
+
+        /** Observation is finished or cancelled. */
+        REMOVED
+    }
+
+    /** Observation of one contribution. */
+    private static class Observation {
+        /** Info. */
+        private final BuildsInfo info;
+
+        /** State. */
+        private final AtomicReference<ObservationState> state = new AtomicReference<>(ObservationState.OBSERVING);
+
+        /**
+         * @param info Info.
+         */
+        Observation(BuildsInfo info) {
+            this.info = info;
         }
     }
 }
@@ -31,6 +31,7 @@ import org.apache.ignite.ci.observer.ObserverTask;
 import org.apache.ignite.ci.tcbot.conf.LocalFilesBasedConfig;
 import org.apache.ignite.ci.tcbot.issue.IssueDetector;
 import org.apache.ignite.ci.tcbot.trends.MasterTrendsService;
+import org.apache.ignite.ci.tcbot.visa.TcBotTriggerAndSignOffService;
 import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
 import org.apache.ignite.githubignited.GitHubIgnitedModule;
 import org.apache.ignite.jiraignited.JiraIgnitedModule;
@@ -79,6 +80,7 @@ public class TcBotWebAppModule extends AbstractModule {
         bind(ObserverTask.class).in(new SingletonScope());
         bind(BuildObserver.class).in(new SingletonScope());
         bind(VisasHistoryStorage.class).in(new SingletonScope());
+        bind(TcBotTriggerAndSignOffService.class).in(new SingletonScope());
         bind(Cleaner.class).in(new SingletonScope());
 
         install(new TcBotPersistenceModule());
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.builds;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.tcignited.build.ITest;
+
+/**
+ * Tests of a build sorted by test name string ID, with status and duration of each test. Names are not decoded, so
+ * builds are compared by {@link BuildsDiff} without strings sorting.
+ */
+public class BuildTests {
+    /** Unknown duration. */
+    public static final int UNKNOWN_DURATION = -1;
+
+    /** Empty tests. */
+    private static final BuildTests EMPTY = new BuildTests(new int[0], new int[0], new int[0]);
+
+    /** Test name string IDs, sorted ascending, may contain duplicates for merged builds. */
+    private final int[] names;
+
+    /** Status string ID of each test. */
+    private final int[] statuses;
+
+    /** Duration (milliseconds) of each test, {@link #UNKNOWN_DURATION} if unknown. */
+    private final int[] durations;
+
+    /**
+     * @param names Names.
+     * @param statuses Statuses.
+     * @param durations Durations.
+     */
+    private BuildTests(int[] names, int[] statuses, int[] durations) {
+        this.names = names;
+        this.statuses = statuses;
+        this.durations = durations;
+    }
+
+    /**
+     * @return Tests of build without tests.
+     */
+    public static BuildTests empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param build Build, tests of a composite build are empty.
+     * @return Distinct by name tests of build, the first occurrence of test is used.
+     */
+    public static BuildTests of(FatBuildCompacted build) {
+        List<ITest> tests = build.isComposite()
+            ? Collections.emptyList()
+            : build.getAllTests().collect(Collectors.toList());
+
+        int[] names = new int[tests.size()];
+        int[] statuses = new int[tests.size()];
+        int[] durations = new int[tests.size()];
+
+        for (int i = 0; i < tests.size(); i++) {
+            ITest test = tests.get(i);
+            Integer duration = test.getDuration();
+
+            names[i] = test.testName();
+            statuses[i] = test.status();
+            durations[i] = duration == null ? UNKNOWN_DURATION : duration;
+        }
+
+        return sorted(names, statuses, durations, true);
+    }
+
+    /**
+     * @param names Test name string IDs.
+     * @param statuses Status string ID of each test.
+     * @param durations Duration (milliseconds) of each test, {@link #UNKNOWN_DURATION} if unknown.
+     * @return Tests sorted by name, duplicates are kept.
+     */
+    public static BuildTests of(int[] names, int[] statuses, int[] durations) {
+        return sorted(names, statuses, durations, false);
+    }
+
+    /**
+     * @param builds Tests of builds, e.g. of all suites of a chain.
+     * @return Tests of all builds sorted by name, tests with the same name in several builds are kept.
+     */
+    public static BuildTests merge(Collection<BuildTests> builds) {
+        int size = builds.stream().mapToInt(BuildTests::size).sum();
+
+        int[] names = new int[size];
+        int[] statuses = new int[size];
+        int[] durations = new int[size];
+        int pos = 0;
+
+        for (BuildTests build : builds) {
+            System.arraycopy(build.names, 0, names, pos, build.size());
+            System.arraycopy(build.statuses, 0, statuses, pos, build.size());
+            System.arraycopy(build.durations, 0, durations, pos, build.size());
+
+            pos += build.size();
+        }
+
+        return sorted(names, statuses, durations, false);
+    }
+
+    /**
+     * @return Count of tests.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param idx Position of test.
+     * @return Test name string ID.
+     */
+    public int name(int idx) {
+        return names[idx];
+    }
+
+    /**
+     * @param idx Position of test.
+     * @return Status string ID.
+     */
+    public int status(int idx) {
+        return statuses[idx];
+    }
+
+    /**
+     * @param idx Position of test.
+     * @return Duration (milliseconds), {@link #UNKNOWN_DURATION} if unknown.
+     */
+    public int duration(int idx) {
+        return durations[idx];
+    }
+
+    /**
+     * Sorts tests by name, tests with equal names keep their order.
+     *
+     * @param names Names.
+     * @param statuses Statuses.
+     * @param durations Durations.
+     * @param distinct Skip tests with name equal to name of previous test.
+     */
+    private static BuildTests sorted(int[] names, int[] statuses, int[] durations, boolean distinct) {
+        long[] keys = new long[names.length];
+
+        for (int i = 0; i < names.length; i++)
+            keys[i] = (long)names[i] << 32 | i;
+
+        Arrays.sort(keys);
+
+        int[] resNames = new int[names.length];
+        int[] resStatuses = new int[names.length];
+        int[] resDurations = new int[names.length];
+        int cnt = 0;
+
+        for (long key : keys) {
+            int pos = (int)key;
+
+            if (distinct && cnt > 0 && resNames[cnt - 1] == names[pos])
+                continue;
+
+            resNames[cnt] = names[pos];
+            resStatuses[cnt] = statuses[pos];
+            resDurations[cnt] = durations[pos];
+
+            cnt++;
+        }
+
+        if (cnt == names.length)
+            return new BuildTests(resNames, resStatuses, resDurations);
+
+        return new BuildTests(Arrays.copyOf(resNames, cnt), Arrays.copyOf(resStatuses, cnt),
+            Arrays.copyOf(resDurations, cnt));
+    }
+}
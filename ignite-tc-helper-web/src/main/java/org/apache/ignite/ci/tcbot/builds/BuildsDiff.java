@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.builds;
+
+import java.util.Arrays;
+
+/**
+ * Difference of tests of two builds computed by linear merge of tests sorted by name string ID. Tests with the same
+ * name are matched one to one, the same way as {@link org.apache.ignite.ci.util.Diff} does for sorted lists.
+ * Matched tests are available to compare statuses and durations.
+ */
+public class BuildsDiff {
+    /** Tests of original build. */
+    private final BuildTests tests1;
+
+    /** Tests of modified build. */
+    private final BuildTests tests2;
+
+    /** Positions of tests existing only in modified build. */
+    private final int[] added;
+
+    /** Positions of tests existing only in original build. */
+    private final int[] rmvd;
+
+    /** Positions of matched tests in original build. */
+    private final int[] same1;
+
+    /** Positions of matched tests in modified build. */
+    private final int[] same2;
+
+    /**
+     * @param tests1 Tests of original build.
+     * @param tests2 Tests of modified build.
+     */
+    public BuildsDiff(BuildTests tests1, BuildTests tests2) {
+        this.tests1 = tests1;
+        this.tests2 = tests2;
+
+        int[] added = new int[tests2.size()];
+        int[] rmvd = new int[tests1.size()];
+        int[] same1 = new int[Math.min(tests1.size(), tests2.size())];
+        int[] same2 = new int[same1.length];
+
+        int addedCnt = 0;
+        int rmvdCnt = 0;
+        int sameCnt = 0;
+
+        int i = 0;
+        int j = 0;
+
+        while (i < tests1.size() && j < tests2.size()) {
+            int cmp = Integer.compare(tests1.name(i), tests2.name(j));
+
+            if (cmp < 0)
+                rmvd[rmvdCnt++] = i++;
+            else if (cmp > 0)
+                added[addedCnt++] = j++;
+            else {
+                same1[sameCnt] = i++;
+                same2[sameCnt++] = j++;
+            }
+        }
+
+        while (i < tests1.size())
+            rmvd[rmvdCnt++] = i++;
+
+        while (j < tests2.size())
+            added[addedCnt++] = j++;
+
+        this.added = Arrays.copyOf(added, addedCnt);
+        this.rmvd = Arrays.copyOf(rmvd, rmvdCnt);
+        this.same1 = Arrays.copyOf(same1, sameCnt);
+        this.same2 = Arrays.copyOf(same2, sameCnt);
+    }
+
+    /**
+     * @return Name string IDs of tests existing only in modified build, sorted ascending.
+     */
+    public int[] addedNames() {
+        return Arrays.stream(added).map(tests2::name).toArray();
+    }
+
+    /**
+     * @return Name string IDs of tests existing only in original build, sorted ascending.
+     */
+    public int[] removedNames() {
+        return Arrays.stream(rmvd).map(tests1::name).toArray();
+    }
+
+    /**
+     * @return Count of tests existing in both builds.
+     */
+    public int sameCount() {
+        return same1.length;
+    }
+
+    /**
+     * @param idx Index of matched test, [0..{@link #sameCount()}).
+     * @return Test name string ID.
+     */
+    public int sameName(int idx) {
+        return tests1.name(same1[idx]);
+    }
+
+    /**
+     * @param idx Index of matched test.
+     * @return Status string ID in original build.
+     */
+    public int status1(int idx) {
+        return tests1.status(same1[idx]);
+    }
+
+    /**
+     * @param idx Index of matched test.
+     * @return Status string ID in modified build.
+     */
+    public int status2(int idx) {
+        return tests2.status(same2[idx]);
+    }
+
+    /**
+     * @param idx Index of matched test.
+     * @return Duration in original build, {@link BuildTests#UNKNOWN_DURATION} if unknown.
+     */
+    public int duration1(int idx) {
+        return tests1.duration(same1[idx]);
+    }
+
+    /**
+     * @param idx Index of matched test.
+     * @return Duration in modified build, {@link BuildTests#UNKNOWN_DURATION} if unknown.
+     */
+    public int duration2(int idx) {
+        return tests2.duration(same2[idx]);
+    }
+
+    /**
+     * @return Indexes of matched tests with different status.
+     */
+    public int[] statusChanges() {
+        int[] res = new int[same1.length];
+        int cnt = 0;
+
+        for (int k = 0; k < same1.length; k++) {
+            if (status1(k) != status2(k))
+                res[cnt++] = k;
+        }
+
+        return Arrays.copyOf(res, cnt);
+    }
+
+    /**
+     * @param minDelta Minimal absolute change of duration (milliseconds).
+     * @return Indexes of matched tests with known durations changed at least by given delta.
+     */
+    public int[] durationChanges(long minDelta) {
+        int[] res = new int[same1.length];
+        int cnt = 0;
+
+        for (int k = 0; k < same1.length; k++) {
+            int d1 = duration1(k);
+            int d2 = duration2(k);
+
+            if (d1 != BuildTests.UNKNOWN_DURATION && d2 != BuildTests.UNKNOWN_DURATION
+                && Math.abs((long)d2 - d1) >= minDelta)
+                res[cnt++] = k;
+        }
+
+        return Arrays.copyOf(res, cnt);
+    }
+}
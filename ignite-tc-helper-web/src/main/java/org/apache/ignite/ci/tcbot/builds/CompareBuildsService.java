@@ -18,23 +18,34 @@
 package org.apache.ignite.ci.tcbot.builds;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
-import org.apache.ignite.tcbot.engine.chain.MultBuildRunCtx;
-import org.apache.ignite.tcbot.engine.chain.BuildChainProcessor;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.user.ITcBotUserCreds;
+import org.apache.ignite.ci.util.Diff;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
 import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
-import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
-import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Compares tests of builds. Tests are compared by name string IDs using {@link BuildsDiff}, names are decoded only
+ * for tests existing in one of the builds.
+ */
 public class CompareBuildsService {
     /** */
     private static final Logger logger = LoggerFactory.getLogger(CompareBuildsService.class);
 
-    @Inject BuildChainProcessor bcp;
     @Inject ITeamcityIgnitedProvider tcIgnitedProv;
     @Inject IStringCompactor compactor;
 
@@ -42,19 +53,114 @@ public class CompareBuildsService {
      * @param srvId Server id.
      * @param buildId Build id.
      * @param prov Credentials provider.
-     * @return List of build tests.
+     * @return Sorted names of tests of all suites of build, without suite name.
+     */
+    public List<String> testNames(String srvId, Integer buildId, ITcBotUserCreds prov) {
+        BuildTests tests = tests(tcIgnitedProv.server(srvId, prov), buildId);
+
+        int[] names = new int[tests.size()];
+
+        for (int i = 0; i < names.length; i++)
+            names[i] = tests.name(i);
+
+        return decodeSorted(names, compactor);
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param build1 Original build id.
+     * @param build2 Modified build id.
+     * @param prov Credentials provider.
+     * @return Difference of tests of all suites of builds.
      */
-    public List<String> tests0(String srvId, Integer buildId, ITcBotUserCreds prov) {
+    public TestNamesDiff compareTests(String srvId, Integer build1, Integer build2, ITcBotUserCreds prov) {
         ITeamcityIgnited srv = tcIgnitedProv.server(srvId, prov);
 
-        return tests0(srv, buildId, bcp);
+        return compareTestNames(tests(srv, build1), tests(srv, build2), compactor);
     }
 
-    /** */
-    private List<String> tests0(ITeamcityIgnited tcIgnited,
-        Integer buildId, BuildChainProcessor bcp) {
-        List<String> tests = new ArrayList<>();
+    /**
+     * @param srvId Server id.
+     * @param build1 Original chain build id.
+     * @param build2 Modified chain build id.
+     * @param prov Credentials provider.
+     * @return Suite build type ID -> difference of tests of the suite. Suite existing only in one chain is compared
+     * with empty tests.
+     */
+    public SortedMap<String, BuildsDiff> compareSuites(String srvId, Integer build1, Integer build2,
+        ITcBotUserCreds prov) {
+        ITeamcityIgnited srv = tcIgnitedProv.server(srvId, prov);
+
+        Map<Integer, BuildTests> suites1 = suiteTests(srv, build1);
+        Map<Integer, BuildTests> suites2 = suiteTests(srv, build2);
+
+        TreeSet<Integer> buildTypes = new TreeSet<>(suites1.keySet());
+        buildTypes.addAll(suites2.keySet());
+
+        SortedMap<String, BuildsDiff> res = new TreeMap<>();
+
+        for (Integer buildType : buildTypes) {
+            res.put(compactor.getStringFromId(buildType),
+                new BuildsDiff(suites1.getOrDefault(buildType, BuildTests.empty()),
+                    suites2.getOrDefault(buildType, BuildTests.empty())));
+        }
+
+        return res;
+    }
+
+    /**
+     * Compares test names without suite name, result is the same as {@link Diff} of sorted lists of names.
+     *
+     * @param tests1 Tests of original build.
+     * @param tests2 Tests of modified build.
+     * @param compactor Compactor.
+     * @return Difference of test names.
+     */
+    public static TestNamesDiff compareTestNames(BuildTests tests1, BuildTests tests2, IStringCompactor compactor) {
+        BuildsDiff diff = new BuildsDiff(tests1, tests2);
+
+        // Tests with different full names may have equal names without suite name, these are matched by decoded names.
+        Diff<String> names = new Diff<>(decodeSorted(diff.removedNames(), compactor),
+            decodeSorted(diff.addedNames(), compactor));
+
+        return new TestNamesDiff(diff.sameCount() + names.same().size(), names.added(), names.removed());
+    }
+
+    /**
+     * @param tcIgnited Server.
+     * @param buildId Build id.
+     * @return Tests of all suites of build.
+     */
+    private BuildTests tests(ITeamcityIgnited tcIgnited, Integer buildId) {
+        List<BuildTests> tests = new ArrayList<>();
+
+        collectTests(tcIgnited, buildId, (buildType, suiteTests) -> tests.add(suiteTests));
+
+        return BuildTests.merge(tests);
+    }
+
+    /**
+     * @param tcIgnited Server.
+     * @param buildId Build id.
+     * @return Suite build type string ID -> tests of suite.
+     */
+    private Map<Integer, BuildTests> suiteTests(ITeamcityIgnited tcIgnited, Integer buildId) {
+        Map<Integer, List<BuildTests>> tests = new HashMap<>();
+
+        collectTests(tcIgnited, buildId,
+            (buildType, suiteTests) -> tests.computeIfAbsent(buildType, k -> new ArrayList<>()).add(suiteTests));
 
+        return tests.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, e -> BuildTests.merge(e.getValue())));
+    }
+
+    /**
+     * @param tcIgnited Server.
+     * @param buildId Build id.
+     * @param consumer Consumer of suite build type string ID and tests of each suite build.
+     */
+    private void collectTests(ITeamcityIgnited tcIgnited, Integer buildId,
+        BiConsumer<Integer, BuildTests> consumer) {
         FatBuildCompacted fatBuild = tcIgnited.getFatBuild(buildId);
 
         if (fatBuild.isComposite()) {
@@ -63,20 +169,29 @@ public class CompareBuildsService {
             logger.info("Build {} is composite ({}).", fatBuild.getId(), deps.length);
 
             for (int ref0 : deps)
-                tests.addAll(tests0(tcIgnited, ref0, bcp));
+                collectTests(tcIgnited, ref0, consumer);
         }
         else {
             logger.info("Loading tests for build {}.", fatBuild.getId());
 
-            MultBuildRunCtx buildCtx = new MultBuildRunCtx(fatBuild.toBuildRef(compactor), compactor);
-
-            buildCtx.addBuild(bcp.loadChanges(fatBuild, tcIgnited));
-
-            for (String testName : buildCtx.tests())
-                tests.add(extractTestName(testName));
+            consumer.accept(fatBuild.buildTypeId(), BuildTests.of(fatBuild));
         }
+    }
 
-        return tests;
+    /**
+     * @param names Test name string IDs.
+     * @param compactor Compactor.
+     * @return Sorted names without suite name.
+     */
+    private static List<String> decodeSorted(int[] names, IStringCompactor compactor) {
+        if (names.length == 0)
+            return Collections.emptyList();
+
+        return Arrays.stream(names)
+            .mapToObj(compactor::getStringFromId)
+            .map(CompareBuildsService::extractTestName)
+            .sorted()
+            .collect(Collectors.toList());
     }
 
     /**
@@ -85,7 +200,7 @@ public class CompareBuildsService {
      * @param testFullName Test full name.
      * @return Test name.
      */
-    private String extractTestName(String testFullName) {
+    private static String extractTestName(String testFullName) {
         int pos = testFullName.indexOf(": ");
 
         return pos >= 0 ? testFullName.substring(pos + 2) : testFullName;
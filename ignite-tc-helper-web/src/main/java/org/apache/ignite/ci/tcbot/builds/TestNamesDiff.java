@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.builds;
+
+import java.util.List;
+
+/**
+ * Difference of test names (without suite name) of two builds: count of tests existing in both builds and sorted
+ * names of tests existing only in one build.
+ */
+public class TestNamesDiff {
+    /** Count of tests existing in both builds. */
+    private final int sameCnt;
+
+    /** Names of tests existing only in modified build, sorted. */
+    private final List<String> added;
+
+    /** Names of tests existing only in original build, sorted. */
+    private final List<String> rmvd;
+
+    /**
+     * @param sameCnt Count of tests existing in both builds.
+     * @param added Names of tests existing only in modified build, sorted.
+     * @param rmvd Names of tests existing only in original build, sorted.
+     */
+    public TestNamesDiff(int sameCnt, List<String> added, List<String> rmvd) {
+        this.sameCnt = sameCnt;
+        this.added = added;
+        this.rmvd = rmvd;
+    }
+
+    /**
+     * @return Count of tests existing in both builds.
+     */
+    public int sameCount() {
+        return sameCnt;
+    }
+
+    /**
+     * @return Names of tests existing only in modified build, sorted.
+     */
+    public List<String> added() {
+        return added;
+    }
+
+    /**
+     * @return Names of tests existing only in original build, sorted.
+     */
+    public List<String> removed() {
+        return rmvd;
+    }
+}
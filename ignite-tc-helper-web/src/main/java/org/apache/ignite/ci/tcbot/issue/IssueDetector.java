@@ -19,12 +19,17 @@ package org.apache.ignite.ci.tcbot.issue;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -32,6 +37,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.ci.issue.Issue;
@@ -65,6 +71,7 @@ import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
 import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
 import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcignited.history.DetectionWatermark;
 import org.apache.ignite.tcignited.history.IRunHistory;
 import org.apache.ignite.tcignited.history.InvocationData;
 import org.jetbrains.annotations.NotNull;
@@ -116,6 +123,22 @@ public class IssueDetector {
     /** Send notification guard. */
     private final AtomicBoolean sndNotificationGuard = new AtomicBoolean();
 
+    /** Notification routing table from last notifications pass. */
+    private volatile NotificationRouting routing;
+
+    /**
+     * Watermarks of test and suite histories taken at last completed check: WatermarkKey(ServerId||Suite||Test
+     * name||BranchId)->Watermark with templates detected. Allows to skip unchanged histories and to check only new
+     * invocations.
+     */
+    private final Cache<WatermarkKey, DetectionWatermark> watermarks = CacheBuilder.newBuilder()
+        .maximumSize(100_000)
+        .expireAfterAccess(1, TimeUnit.DAYS)
+        .build();
+
+    /** Detection settings watermarks were taken with, watermarks are dropped if settings are changed. */
+    private volatile String watermarksSettings;
+
     private String registerIssuesAndNotifyLater(DsSummaryUi res,
                                                 ITcBotUserCreds creds) {
 
@@ -145,10 +168,18 @@ public class IssueDetector {
         }
     }
 
-    @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
-    @AutoProfiling
-    @MonitoredTask(name = "Send Notifications")
-    protected String sendNewNotificationsEx() {
+    /**
+     * @return Notification routing table, rebuilt if notifications config or users were changed since last pass.
+     */
+    private NotificationRouting notificationRouting() {
+        NotificationsConfig notifications = cfg.notifications();
+        long usersModCnt = userStorage.usersModificationCount();
+
+        NotificationRouting routing = this.routing;
+
+        if (routing != null && routing.isActual(notifications, usersModCnt))
+            return routing;
+
         List<INotificationChannel> channels = new ArrayList<>();
 
         userStorage.allUsers()
@@ -156,7 +187,18 @@ public class IssueDetector {
             .filter(TcHelperUser::hasSubscriptions)
             .forEach(channels::add);
 
-        channels.addAll(cfg.notifications().channels());
+        channels.addAll(notifications.channels());
+
+        this.routing = routing = new NotificationRouting(notifications, usersModCnt, channels);
+
+        return routing;
+    }
+
+    @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
+    @AutoProfiling
+    @MonitoredTask(name = "Send Notifications")
+    protected String sendNewNotificationsEx() {
+        NotificationRouting routing = notificationRouting();
 
         Map<String, Notification> toBeSent = new HashMap<>();
 
@@ -167,7 +209,10 @@ public class IssueDetector {
         AtomicInteger hasSubscriptions = new AtomicInteger();
         AtomicInteger neverSentBefore = new AtomicInteger();
 
-        issuesStorage.allIssues()
+        long maxDetectedAge = TimeUnit.HOURS.toMillis(Math.max(TcBotConst.NOTIFY_MAX_AGE_SINCE_DETECT_HOURS,
+            TcBotConst.NOTIFY_MAX_AGE_SINCE_DETECT_FOR_NOTIFIED_ISSUE_HOURS));
+
+        issuesStorage.issuesDetectedSince(System.currentTimeMillis() - maxDetectedAge)
             .peek(issue -> issuesChecked.incrementAndGet())
             .filter(issue -> {
                 long detected = issue.detectedTs == null ? 0 : issue.detectedTs;
@@ -209,34 +254,21 @@ public class IssueDetector {
 
                 final String srvCode = issue.issueKey().server;
 
-                AtomicInteger ctnSrvAllowed = new AtomicInteger();
-                AtomicInteger cntSubscibed = new AtomicInteger();
-                AtomicInteger cntTagsFilterPassed = new AtomicInteger();
-
-                channels.stream()
-                    .filter(ch -> ch.isServerAllowed(srvCode))
-                    .peek(ch -> ctnSrvAllowed.incrementAndGet())
-                    .filter(ch -> ch.isSubscribedToBranch(issue.trackedBranchName))
-                    .peek(ch -> cntSubscibed.incrementAndGet())
-                    .filter(ch -> {
-                        if (ch.hasTagFilter())
-                            return issue.buildTags().stream().anyMatch(ch::isSubscribedToTag);
-
-                        return true;
-                    })
-                    .peek(ch -> cntTagsFilterPassed.incrementAndGet())
-                    .forEach(channel -> {
-                        String email = channel.email();
-                        String slack = channel.slack();
-                        logger.info("User/channel " + channel + " is candidate for notification " + email
-                            + " , " + slack + " for " + issue);
-
-                        if (!Strings.isNullOrEmpty(email))
-                            addrs.add(email);
-
-                        if (!Strings.isNullOrEmpty(slack))
-                            addrs.add(SLACK + slack);
-                    });
+                NotificationRouting.Candidates candidates
+                    = routing.candidates(srvCode, issue.trackedBranchName, issue.buildTags());
+
+                for (INotificationChannel channel : candidates.channels) {
+                    String email = channel.email();
+                    String slack = channel.slack();
+                    logger.info("User/channel " + channel + " is candidate for notification " + email
+                        + " , " + slack + " for " + issue);
+
+                    if (!Strings.isNullOrEmpty(email))
+                        addrs.add(email);
+
+                    if (!Strings.isNullOrEmpty(slack))
+                        addrs.add(SLACK + slack);
+                }
 
                 if(!addrs.isEmpty())
                     hasSubscriptions.incrementAndGet();
@@ -258,9 +290,9 @@ public class IssueDetector {
 
                 if (!nonNotifedChFound) {
                     issuesStorage.saveIssueSubscribersStat(issue.issueKey,
-                        ctnSrvAllowed.get(),
-                        cntSubscibed.get(),
-                        cntTagsFilterPassed.get());
+                        candidates.srvAllowed,
+                        candidates.subscribed,
+                        candidates.tagsFilterPassed);
                 }
                 else
                     neverSentBefore.incrementAndGet();
@@ -289,17 +321,23 @@ public class IssueDetector {
 
                     List<String> messages = next.toSlackMarkup();
 
-                    for (String msg : messages) {
-                        slackSender.sendMessage(slackUser, msg, notifications);
+                    CompletableFuture<?>[] futs = new CompletableFuture<?>[messages.size()];
+
+                    for (int i = 0; i < messages.size(); i++) {
+                        futs[i] = slackSender.sendMessageAsync(slackUser, messages.get(i), notifications);
 
                         sndStat.computeIfAbsent(addr, k -> new AtomicInteger()).incrementAndGet();
                     }
+
+                    rollbackNotifiedOnFailure(CompletableFuture.allOf(futs), next);
                 }
                 else {
                     String builds = next.buildIdToIssue.keySet().toString();
                     String subj = "[MTCGA]: " + next.countIssues() + " new failures in builds " + builds + " needs to be handled";
 
-                    emailSender.sendEmail(addr, subj, next.toHtml(), next.toPlainText(), notifications.email());
+                    rollbackNotifiedOnFailure(
+                        emailSender.sendEmailAsync(addr, subj, next.toHtml(), next.toPlainText(), notifications.email()),
+                        next);
 
                     sndStat.computeIfAbsent(addr, k -> new AtomicInteger()).incrementAndGet();
                 }
@@ -321,6 +359,29 @@ public class IssueDetector {
         return "Send " + sndStat.toString() + "; Statistics: " + stat;
     }
 
+    /**
+     * Marks issues of notification as not notified if sending failed.
+     *
+     * @param fut Notification sending future.
+     * @param notification Notification.
+     */
+    private void rollbackNotifiedOnFailure(CompletableFuture<?> fut, Notification notification) {
+        String addr = notification.addr;
+
+        fut.whenComplete((res, e) -> {
+            if (e == null)
+                return;
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Exception err = cause instanceof Exception ? (Exception)cause : new Exception(cause);
+
+            logger.warn("Unable to notify address [" + addr + "] about build failures", err);
+
+            // rollback successfull notification
+            notification.allIssues().forEach(issue -> issuesStorage.getIsNewAndSetNotified(issue.issueKey(), addr, err));
+        });
+    }
+
     /**
      * @param res summary of failures in test
      * @param creds Credentials provider.
@@ -330,6 +391,8 @@ public class IssueDetector {
     @AutoProfiling
     @MonitoredTask(name = "Register new issues")
     protected String registerNewIssues(DsSummaryUi res, ITcBotUserCreds creds) {
+        invalidateWatermarksIfSettingsChanged();
+
         int newIssues = 0;
 
         for (DsChainUi next : res.servers) {
@@ -384,9 +447,14 @@ public class IssueDetector {
         if (runStat == null)
             return false;
 
+        WatermarkKey histKey = historyKey(srvCode, btId, null, brNormId);
+        DetectionWatermark prevWatermark = histKey == null ? null : watermarks.getIfPresent(histKey);
+        DetectionWatermark watermark = runStat.watermark();
+
         boolean issueFound = false;
 
-        Integer firstFailedBuildId = runStat.detectTemplate(EventTemplates.newCriticalFailure);
+        Integer firstFailedBuildId = runStat.detectTemplate(EventTemplates.newCriticalFailure, prevWatermark,
+            watermark);
 
         if (firstFailedBuildId != null && Boolean.TRUE.equals(suiteFailure.hasCriticalProblem)) {
             IssueKey issueKey = new IssueKey(srvCode, firstFailedBuildId, suiteId);
@@ -401,7 +469,8 @@ public class IssueDetector {
 
         if (cfg.getTeamcityConfig(srvCode).trustedSuites().contains(suiteId)
             || tcIgnited.config().trustedSuites().contains(suiteId)) {
-            Integer firstTrustedSuiteFailue = runStat.detectTemplate(EventTemplates.newFailure);
+            Integer firstTrustedSuiteFailue = runStat.detectTemplate(EventTemplates.newFailure, prevWatermark,
+                watermark);
 
             if (firstTrustedSuiteFailue != null) {
                 IssueKey issueKey = new IssueKey(srvCode, firstTrustedSuiteFailue, suiteId);
@@ -415,9 +484,41 @@ public class IssueDetector {
             }
         }
 
+        if (histKey != null)
+            watermarks.put(histKey, watermark);
+
         return issueFound;
     }
 
+    /**
+     * @param srvCode Server code.
+     * @param btId Suite ID.
+     * @param testName Test name, or null for history of suite.
+     * @param brNormId Normalized branch ID.
+     * @return Key for history watermark, or null if ids were not yet registered in compactor.
+     */
+    private static WatermarkKey historyKey(String srvCode, Integer btId, Integer testName, Integer brNormId) {
+        if (btId == null || brNormId == null)
+            return null;
+
+        return new WatermarkKey(ITeamcityIgnited.serverIdToInt(srvCode), btId, testName, brNormId);
+    }
+
+    /**
+     * Drops all history watermarks if detection settings were changed since watermarks were taken: histories skipped
+     * as unchanged have to be checked with new settings.
+     */
+    private void invalidateWatermarksIfSettingsChanged() {
+        String settings = cfg.alwaysFailedTestDetection() + ":" + cfg.flakyRate() + ":" + cfg.confidence();
+
+        if (settings.equals(watermarksSettings))
+            return;
+
+        watermarks.invalidateAll();
+
+        watermarksSettings = settings;
+    }
+
     @NotNull
     private Issue createIssueForSuite(ITeamcityIgnited tcIgnited, DsSuiteUi suiteFailure, String trackedBranch,
                                       IssueKey issueKey, IssueType issType) {
@@ -462,22 +563,61 @@ public class IssueDetector {
         if (runStat == null)
             return false;
 
+        WatermarkKey histKey = historyKey(srvCode, btId, tname, brNormId);
+        DetectionWatermark prevWatermark = histKey == null ? null : watermarks.getIfPresent(histKey);
+        DetectionWatermark watermark = runStat.watermark();
+
+        // No new invocations since last completed check and nothing was detected. Detected issues are always
+        // re-checked against the issues storage.
+        if (watermark.sameHistory(prevWatermark) && !prevWatermark.anyDetected())
+            return false;
+
+        boolean issueFound = registerTestHistoryIssues(tcIgnited, srvCode, testFailure, trackedBranch, suiteTags,
+            runStat, prevWatermark, watermark);
+
+        if (histKey != null)
+            watermarks.put(histKey, watermark);
+
+        return issueFound;
+    }
+
+    /**
+     * @param tcIgnited Tc ignited.
+     * @param srvCode Server code.
+     * @param testFailure Test failure.
+     * @param trackedBranch Tracked branch.
+     * @param suiteTags Suite tags.
+     * @param runStat Test run history.
+     * @param prevWatermark Test history watermark from the previous check, or null.
+     * @param watermark Current test history watermark.
+     */
+    private boolean registerTestHistoryIssues(ITeamcityIgnited tcIgnited,
+        String srvCode,
+        DsTestFailureUi testFailure,
+        String trackedBranch,
+        @Nonnull Set<String> suiteTags,
+        IRunHistory runStat,
+        DetectionWatermark prevWatermark,
+        DetectionWatermark watermark) {
+        String name = testFailure.name;
+
         IssueType type = null;
 
-        Integer firstFailedBuildId = runStat.detectTemplate(EventTemplates.newContributedTestFailure);
+        Integer firstFailedBuildId = runStat.detectTemplate(EventTemplates.newContributedTestFailure, prevWatermark,
+            watermark);
 
         if (firstFailedBuildId != null)
             type = IssueType.newContributedTestFailure;
 
         if (firstFailedBuildId == null) {
-            firstFailedBuildId = runStat.detectTemplate(EventTemplates.newFailure);
+            firstFailedBuildId = runStat.detectTemplate(EventTemplates.newFailure, prevWatermark, watermark);
 
             if (firstFailedBuildId != null) {
                 type = IssueType.newFailure;
                 final String flakyComments = runStat.getFlakyComments();
 
                 if (!Strings.isNullOrEmpty(flakyComments) &&
-                    runStat.detectTemplate(EventTemplates.newFailureForFlakyTest) != null)
+                    runStat.detectTemplate(EventTemplates.newFailureForFlakyTest, prevWatermark, watermark) != null)
                         type = IssueType.newFailureForFlakyTest;
             }
         }
@@ -529,7 +669,7 @@ public class IssueDetector {
         }
 
         if (firstFailedBuildId == null && cfg.alwaysFailedTestDetection()) {
-            firstFailedBuildId = runStat.detectTemplate(EventTemplates.alwaysFailure);
+            firstFailedBuildId = runStat.detectTemplate(EventTemplates.alwaysFailure, prevWatermark, watermark);
 
             if (firstFailedBuildId != null)
                 type = IssueType.newAlwaysFailure;
@@ -659,4 +799,52 @@ public class IssueDetector {
             executorService.shutdownNow();
 
     }
+
+    /**
+     * Key of test or suite history watermark: the same test may run in several suites with separate histories.
+     */
+    private static class WatermarkKey {
+        /** Server ID. */
+        private final int srvId;
+
+        /** Suite build type ID. */
+        private final int btId;
+
+        /** Test name, or null for history of suite. */
+        @Nullable private final Integer testName;
+
+        /** Normalized branch ID. */
+        private final int branch;
+
+        /**
+         * @param srvId Server ID.
+         * @param btId Suite build type ID.
+         * @param testName Test name, or null for history of suite.
+         * @param branch Normalized branch ID.
+         */
+        WatermarkKey(int srvId, int btId, @Nullable Integer testName, int branch) {
+            this.srvId = srvId;
+            this.btId = btId;
+            this.testName = testName;
+            this.branch = branch;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            WatermarkKey key = (WatermarkKey)o;
+            return srvId == key.srvId &&
+                btId == key.btId &&
+                Objects.equals(testName, key.testName) &&
+                branch == key.branch;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int hashCode() {
+            return Objects.hash(srvId, btId, testName, branch);
+        }
+    }
 }
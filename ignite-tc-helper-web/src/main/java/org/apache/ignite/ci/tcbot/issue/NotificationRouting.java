@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.issue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.ignite.tcbot.engine.conf.INotificationChannel;
+import org.apache.ignite.tcbot.engine.conf.NotificationsConfig;
+
+/**
+ * Routing table from (server, tracked branch, build tag) to notification channels. Routes are computed lazily and
+ * memoized, so channels filters are evaluated once per route instead of once per issue. Table is valid for particular
+ * notifications config and users modification count, and should be rebuilt if any of these was changed.
+ *
+ * Not thread safe, is used by single notifications sending pass.
+ */
+class NotificationRouting {
+    /** Notifications config the table was built for. */
+    private final NotificationsConfig cfg;
+
+    /** Users modification count the table was built for. */
+    private final long usersModCnt;
+
+    /** All channels: users with subscriptions and channels from config. */
+    private final List<INotificationChannel> channels;
+
+    /** Routes by server and tracked branch. */
+    private final Map<RouteKey, Route> routes = new HashMap<>();
+
+    /**
+     * @param cfg Notifications config.
+     * @param usersModCnt Users modification count.
+     * @param channels Channels in notification order.
+     */
+    NotificationRouting(NotificationsConfig cfg, long usersModCnt, List<INotificationChannel> channels) {
+        this.cfg = cfg;
+        this.usersModCnt = usersModCnt;
+        this.channels = channels;
+    }
+
+    /**
+     * @param cfg Current notifications config.
+     * @param usersModCnt Current users modification count.
+     * @return {@code True} if table was built for the same channels.
+     */
+    boolean isActual(NotificationsConfig cfg, long usersModCnt) {
+        return this.cfg == cfg && this.usersModCnt == usersModCnt;
+    }
+
+    /**
+     * @param srvCode Server code.
+     * @param trackedBranch Tracked branch name.
+     * @param buildTags Build tags of issue.
+     * @return Candidate channels for notification, in the same order as channels are checked by full filtering.
+     */
+    Candidates candidates(String srvCode, String trackedBranch, Collection<String> buildTags) {
+        Route route = routes.computeIfAbsent(new RouteKey(srvCode, trackedBranch), this::buildRoute);
+
+        if (!route.hasTagFilter)
+            return new Candidates(route.subscribed, route.srvAllowed, route.subscribed.size());
+
+        BitSet passed = (BitSet)route.noTagFilter.clone();
+
+        for (String tag : buildTags)
+            passed.or(route.byTag.computeIfAbsent(tag, route::buildTagRoute));
+
+        List<INotificationChannel> res = new ArrayList<>(passed.cardinality());
+
+        for (int i = passed.nextSetBit(0); i >= 0; i = passed.nextSetBit(i + 1))
+            res.add(route.subscribed.get(i));
+
+        return new Candidates(res, route.srvAllowed, route.subscribed.size());
+    }
+
+    /**
+     * @param key Route key.
+     */
+    private Route buildRoute(RouteKey key) {
+        int srvAllowed = 0;
+        List<INotificationChannel> subscribed = new ArrayList<>();
+
+        for (INotificationChannel ch : channels) {
+            if (!ch.isServerAllowed(key.srvCode))
+                continue;
+
+            srvAllowed++;
+
+            if (ch.isSubscribedToBranch(key.trackedBranch))
+                subscribed.add(ch);
+        }
+
+        return new Route(srvAllowed, subscribed);
+    }
+
+    /**
+     * Channels for particular server and tracked branch.
+     */
+    private static class Route {
+        /** Count of channels allowed for server. */
+        private final int srvAllowed;
+
+        /** Channels allowed for server and subscribed to branch. */
+        private final List<INotificationChannel> subscribed;
+
+        /** Indexes in {@link #subscribed} of channels without tag filter. */
+        private final BitSet noTagFilter = new BitSet();
+
+        /** At least one of subscribed channels has tag filter. */
+        private final boolean hasTagFilter;
+
+        /** Indexes in {@link #subscribed} of channels having filter passed by tag. */
+        private final Map<String, BitSet> byTag = new HashMap<>();
+
+        /**
+         * @param srvAllowed Server allowed.
+         * @param subscribed Subscribed.
+         */
+        Route(int srvAllowed, List<INotificationChannel> subscribed) {
+            this.srvAllowed = srvAllowed;
+            this.subscribed = subscribed;
+
+            for (int i = 0; i < subscribed.size(); i++) {
+                if (!subscribed.get(i).hasTagFilter())
+                    noTagFilter.set(i);
+            }
+
+            hasTagFilter = noTagFilter.cardinality() != subscribed.size();
+        }
+
+        /**
+         * @param tag Build tag.
+         */
+        private BitSet buildTagRoute(@Nullable String tag) {
+            BitSet res = new BitSet();
+
+            for (int i = 0; i < subscribed.size(); i++) {
+                INotificationChannel ch = subscribed.get(i);
+
+                if (ch.hasTagFilter() && ch.isSubscribedToTag(tag))
+                    res.set(i);
+            }
+
+            return res;
+        }
+    }
+
+    /**
+     * Route key.
+     */
+    private static class RouteKey {
+        /** Server code. */
+        private final String srvCode;
+
+        /** Tracked branch. */
+        private final String trackedBranch;
+
+        /**
+         * @param srvCode Server code.
+         * @param trackedBranch Tracked branch.
+         */
+        RouteKey(String srvCode, String trackedBranch) {
+            this.srvCode = srvCode;
+            this.trackedBranch = trackedBranch;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            RouteKey key = (RouteKey)o;
+
+            return Objects.equals(srvCode, key.srvCode) && Objects.equals(trackedBranch, key.trackedBranch);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int hashCode() {
+            return Objects.hash(srvCode, trackedBranch);
+        }
+    }
+
+    /**
+     * Candidate channels for issue and filtering statistics.
+     */
+    static class Candidates {
+        /** Channels passed all filters. */
+        final List<INotificationChannel> channels;
+
+        /** Count of channels allowed for server. */
+        final int srvAllowed;
+
+        /** Count of channels subscribed to branch. */
+        final int subscribed;
+
+        /** Count of channels passed tags filter. */
+        final int tagsFilterPassed;
+
+        /**
+         * @param channels Channels.
+         * @param srvAllowed Server allowed.
+         * @param subscribed Subscribed.
+         */
+        Candidates(List<INotificationChannel> channels, int srvAllowed, int subscribed) {
+            this.channels = Collections.unmodifiableList(channels);
+            this.srvAllowed = srvAllowed;
+            this.subscribed = subscribed;
+            this.tagsFilterPassed = channels.size();
+        }
+    }
+}
@@ -18,21 +18,27 @@
 package org.apache.ignite.ci.tcbot.trends;
 
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.UncheckedIOException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -40,9 +46,13 @@ import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
-import org.apache.ignite.tcbot.common.interceptor.GuavaCached;
 import org.apache.ignite.tcbot.engine.chain.BuildChainProcessor;
 import org.apache.ignite.tcbot.engine.conf.ITcBotConfig;
+import org.apache.ignite.tcbot.engine.trends.BuildStatisticsCompacted;
+import org.apache.ignite.tcbot.engine.trends.BuildStatisticsStorage;
+import org.apache.ignite.tcbot.engine.trends.ChainTestsIndex;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsCompacted;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsMatrix;
 import org.apache.ignite.tcservice.model.hist.BuildRef;
 import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
 import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
@@ -56,7 +66,6 @@ import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.apache.ignite.tcbot.common.util.FutureUtil;
 import org.apache.ignite.ci.web.model.trends.BuildStatisticsSummary;
 import org.apache.ignite.ci.web.model.trends.BuildsHistory;
-import org.apache.ignite.internal.util.typedef.T2;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -67,6 +76,10 @@ import org.slf4j.LoggerFactory;
  */
 public class MasterTrendsService {
     public static final boolean DEBUG = false;
+
+    /** Threads computing statistics of chains not found in the storage. */
+    public static final int STAT_THREADS = 8;
+
     @Inject private IStringCompactor compactor;
 
     @Inject private BuildChainProcessor bcp;
@@ -77,25 +90,70 @@ public class MasterTrendsService {
 
     @Inject private ITcBotConfig cfg;
 
+    /** Statistics of finished chains. */
+    @Inject private BuildStatisticsStorage statStorage;
+
+    /** Pool computing statistics of chains not found in the storage. */
+    private final ExecutorService statPool = Executors.newFixedThreadPool(STAT_THREADS,
+        new ThreadFactoryBuilder().setNameFormat("trends-stat-%d").setDaemon(true).build());
+
     /** */
     private static final Logger logger = LoggerFactory.getLogger(MasterTrendsService.class);
 
+    /**
+     * Returns saved statistics of the chain or computes statistics using all builds of the chain.
+     *
+     * @param ignited Ignited.
+     * @param buildId Chain build ID.
+     */
     @NotNull
-    @GuavaCached(maximumSize = 500, softValues = true)
     @AutoProfiling
     public BuildStatisticsSummary getBuildSummary(ITeamcityIgnited ignited, int buildId) {
+        int srvId = ITeamcityIgnited.serverIdToInt(ignited.serverCode());
+
+        BuildStatisticsCompacted saved = statStorage.getAll(srvId, Collections.singletonList(buildId)).get(buildId);
+
+        if (saved != null)
+            return BuildStatisticsSummary.of(saved);
+
+        List<BuildStatisticsCompacted> toSave = new ArrayList<>();
+
+        BuildStatisticsSummary res = computeSummary(ignited, buildId, toSave);
+
+        statStorage.putAll(srvId, toSave);
+
+        return res;
+    }
+
+    /**
+     * @param ignited Ignited.
+     * @param buildId Chain build ID.
+     * @param toSave Output: statistics of finished chain to be saved.
+     */
+    private BuildStatisticsSummary computeSummary(ITeamcityIgnited ignited, int buildId,
+        Collection<BuildStatisticsCompacted> toSave) {
         String msg = "Loading build [" + buildId + "] summary";
 
         if (DEBUG)
             System.out.println(msg);
 
         BuildStatisticsSummary buildsStatistic = new BuildStatisticsSummary(buildId);
-        initialize(buildsStatistic, ignited);
+
+        BuildStatisticsCompacted finished = initialize(buildsStatistic, ignited);
+
+        if (finished != null)
+            toSave.add(finished);
+
         return buildsStatistic;
     }
 
-    /** Initialize build statistics. */
-    public void initialize(BuildStatisticsSummary s, @Nonnull final ITeamcityIgnited tcIgn) {
+    /**
+     * Initialize build statistics.
+     *
+     * @return Statistics to be saved if all builds of the chain are finished, {@code null} otherwise.
+     */
+    @Nullable public BuildStatisticsCompacted initialize(BuildStatisticsSummary s,
+        @Nonnull final ITeamcityIgnited tcIgn) {
         BuildStatisticsSummary.initStrings(compactor);
 
         FatBuildCompacted build = tcIgn.getFatBuild(s.buildId);
@@ -103,7 +161,7 @@ public class MasterTrendsService {
         s.isFakeStub = build.isFakeStub();
 
         if (s.isFakeStub)
-            return;
+            return null;
 
         Map<Integer, Future<FatBuildCompacted>> builds = bcp.loadAllBuildsInChains(
             Collections.singletonList(s.buildId), SyncMode.RELOAD_QUEUED, tcIgn);
@@ -112,17 +170,20 @@ public class MasterTrendsService {
 
         if (chainBuilds.stream().allMatch(b -> build.isFakeStub())) {
             s.isFakeStub = true;
-            return;
+            return null;
         }
 
         Date startDate = build.getStartDate();
 
-        DateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy'T'HH:mm:ss");
+        DateFormat dateFormat = new SimpleDateFormat(BuildStatisticsSummary.START_DATE_FORMAT);
 
         s.startDate = dateFormat.format(startDate);
 
         int[] arr = new int[4];
 
+        // Suite build type and test name string IDs combined -> (test ID, count of failures).
+        Map<Long, long[]> failures = new LinkedHashMap<>();
+
         chainBuilds.stream().filter(b -> !b.isComposite())
             .forEach(b -> {
                 b.getAllTests().forEach(t -> {
@@ -137,16 +198,15 @@ public class MasterTrendsService {
 
                     if (t.status() == BuildStatisticsSummary.getStringId(TestOccurrence.STATUS_FAILURE)
                         && !t.isIgnoredTest() && !t.isMutedTest()) {
-                        Map<Integer, T2<Long, Integer>> btTests = s.failedTests().computeIfAbsent(b.buildTypeId(), k -> new HashMap<>());
+                        long key = (long)b.buildTypeId() << 32 | t.testName() & 0xFFFFFFFFL;
 
-                        btTests.merge(t.testName(), new T2<>(t.getTestId(), 1), (v, x) -> {
-                            int cnt = (x == null ? 0 : x.get2()) + (v == null ? 0 : v.get2());
-                            return new T2<>(t.getTestId(), cnt);
-                        });
+                        failures.computeIfAbsent(key, k -> new long[] {t.getTestId(), 0})[1]++;
                     }
                 });
             });
 
+        s.failedTests(indexFailedTests(tcIgn, build.buildTypeId(), failures));
+
         s.testOccurrences.ignored = arr[0];
         s.testOccurrences.muted = arr[1];
         s.testOccurrences.failed = arr[2];
@@ -168,6 +228,41 @@ public class MasterTrendsService {
         List<ProblemCompacted> problems = s.getProblems(snapshotDependenciesWithProblems);
 
         s.totalProblems = s.getBuildTypeProblemsCount(problems);
+
+        boolean chainFinished = chainBuilds.stream().allMatch(b -> !b.isFakeStub() && b.isFinished(compactor));
+
+        return chainFinished ? s.toCompacted(build.getStartDateTs()) : null;
+    }
+
+    /**
+     * @param tcIgn Ignited.
+     * @param chainBuildTypeId Chain build type string ID.
+     * @param failures Suite build type and test name string IDs combined -> (test ID, count of failures).
+     * @return Failed tests of the chain as indexes in tests index of the chain build type.
+     */
+    private FailedTestsCompacted indexFailedTests(ITeamcityIgnited tcIgn, int chainBuildTypeId,
+        Map<Long, long[]> failures) {
+        int[] suites = new int[failures.size()];
+        int[] names = new int[failures.size()];
+        long[] testIds = new long[failures.size()];
+        int[] cnts = new int[failures.size()];
+        int i = 0;
+
+        for (Map.Entry<Long, long[]> e : failures.entrySet()) {
+            suites[i] = (int)(e.getKey() >>> 32);
+            names[i] = (int)(long)e.getKey();
+            testIds[i] = e.getValue()[0];
+            cnts[i] = (int)e.getValue()[1];
+
+            i++;
+        }
+
+        int srvId = ITeamcityIgnited.serverIdToInt(tcIgn.serverCode());
+
+        int[] idxs = failures.isEmpty() ? new int[0]
+            : statStorage.indexTests(srvId, chainBuildTypeId, suites, names, testIds);
+
+        return FailedTestsCompacted.of(chainBuildTypeId, idxs, cnts);
     }
 
     /**
@@ -240,13 +335,40 @@ public class MasterTrendsService {
             .collect(Collectors.toList());
 
         if (!skipTests)
-            buildsHist.initFailedTests(validBuilds, buildIdsWithConditions, compactor);
+            initFailedTests(buildsHist, ignitedTeamcity, validBuilds);
 
         if (DEBUG)
             System.out.println("Preparing response");
     }
 
 
+    /**
+     * Merges failed tests of valid builds: failures are counted using bitmaps of tests indexes, names are decoded only
+     * for tests failed in any build.
+     *
+     * @param buildsHist Output.
+     * @param ignited Ignited.
+     * @param validBuilds Valid builds.
+     */
+    private void initFailedTests(BuildsHistory buildsHist, ITeamcityIgnited ignited, List<Integer> validBuilds) {
+        Set<Integer> valid = new HashSet<>(validBuilds);
+
+        Map<Integer, List<FailedTestsCompacted>> byChainBuildType = buildsHist.buildsStatistics.stream()
+            .filter(stat -> valid.contains(stat.buildId) && stat.failedTests() != null)
+            .map(BuildStatisticsSummary::failedTests)
+            .collect(Collectors.groupingBy(FailedTestsCompacted::chainBuildTypeId));
+
+        int srvId = ITeamcityIgnited.serverIdToInt(ignited.serverCode());
+
+        byChainBuildType.forEach((chainBuildTypeId, failedTests) -> {
+            FailedTestsMatrix matrix = new FailedTestsMatrix(failedTests);
+
+            ChainTestsIndex testsIdx = statStorage.testsIndex(srvId, chainBuildTypeId, matrix.indexSize());
+
+            buildsHist.initFailedTests(matrix, testsIdx, validBuilds.size(), compactor);
+        });
+    }
+
     /**
      * Initialize {@link BuildsHistory#buildsStatistics} property with list of {@link BuildStatisticsSummary} produced for each valid
      * build.
@@ -258,29 +380,36 @@ public class MasterTrendsService {
     private void initStatistics(BuildsHistory buildsHist,
         ITeamcityIgnited ignited,
         Map<Integer, Boolean> buildIdsWithConditions) {
-        List<Future<BuildStatisticsSummary>> buildStaticsFutures = new ArrayList<>();
+        int srvId = ITeamcityIgnited.serverIdToInt(ignited.serverCode());
 
-        for (int buildId : buildIdsWithConditions.keySet()) {
-            Future<BuildStatisticsSummary> buildFut = CompletableFuture.supplyAsync(() -> {
-                BuildStatisticsSummary buildsStatistic = getBuildSummary(ignited, buildId);
+        Map<Integer, BuildStatisticsCompacted> saved = statStorage.getAll(srvId, buildIdsWithConditions.keySet());
 
-                buildsStatistic.isValid = buildIdsWithConditions.get(buildId);
+        Collection<BuildStatisticsCompacted> toSave = new ConcurrentLinkedQueue<>();
 
-                return buildsStatistic;
-            });
+        Map<Integer, Future<BuildStatisticsSummary>> buildStaticsFutures = new LinkedHashMap<>();
+
+        for (int buildId : buildIdsWithConditions.keySet()) {
+            BuildStatisticsCompacted stat = saved.get(buildId);
 
-            buildStaticsFutures.add(buildFut);
+            Future<BuildStatisticsSummary> buildFut = stat != null
+                ? CompletableFuture.completedFuture(BuildStatisticsSummary.of(stat))
+                : statPool.submit(() -> computeSummary(ignited, buildId, toSave));
+
+            buildStaticsFutures.put(buildId, buildFut);
         }
 
         if (MasterTrendsService.DEBUG)
             System.out.println("Waiting for stat to collect");
 
-        buildStaticsFutures.forEach(fut -> {
+        buildStaticsFutures.forEach((buildId, fut) -> {
             try {
                 BuildStatisticsSummary buildsStatistic = fut.get();
 
-                if (buildsStatistic != null && !buildsStatistic.isFakeStub)
+                if (buildsStatistic != null && !buildsStatistic.isFakeStub) {
+                    buildsStatistic.isValid = buildIdsWithConditions.get(buildId);
+
                     buildsHist.buildsStatistics.add(buildsStatistic);
+                }
             }
             catch (ExecutionException e) {
                 if (e.getCause() instanceof UncheckedIOException)
@@ -293,5 +422,7 @@ public class MasterTrendsService {
                 throw new RuntimeException(e);
             }
         });
+
+        statStorage.putAll(srvId, toSave);
     }
 }
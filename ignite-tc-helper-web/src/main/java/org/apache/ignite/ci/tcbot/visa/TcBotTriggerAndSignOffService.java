@@ -20,6 +20,8 @@ package org.apache.ignite.ci.tcbot.visa;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Provider;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -31,8 +33,16 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -57,7 +67,6 @@ import org.apache.ignite.ci.web.model.VisaRequest;
 import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
 import org.apache.ignite.githubignited.IGitHubConnIgnited;
 import org.apache.ignite.githubignited.IGitHubConnIgnitedProvider;
-import org.apache.ignite.internal.util.typedef.F;
 import org.apache.ignite.internal.util.typedef.T2;
 import org.apache.ignite.jiraignited.IJiraIgnited;
 import org.apache.ignite.jiraignited.IJiraIgnitedProvider;
@@ -66,15 +75,19 @@ import org.apache.ignite.jiraservice.Ticket;
 import org.apache.ignite.tcbot.common.conf.IGitHubConfig;
 import org.apache.ignite.tcbot.common.conf.IJiraServerConfig;
 import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
+import org.apache.ignite.tcbot.common.exeption.ExceptionUtil;
 import org.apache.ignite.tcbot.engine.conf.ITcBotConfig;
+import org.apache.ignite.tcbot.engine.pool.TcUpdatePool;
 import org.apache.ignite.tcbot.engine.pr.BranchTicketMatcher;
 import org.apache.ignite.tcbot.engine.pr.PrChainsProcessor;
+import org.apache.ignite.tcbot.engine.pr.TicketIndex;
 import org.apache.ignite.tcbot.engine.ui.ShortSuiteNewTestsUi;
 import org.apache.ignite.tcbot.engine.ui.ShortSuiteUi;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
 import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
 import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcignited.mute.MuteSnapshot;
 import org.apache.ignite.tcservice.ITeamcity;
 import org.apache.ignite.tcservice.model.mute.MuteInfo;
 import org.apache.ignite.tcservice.model.result.Build;
@@ -95,6 +108,12 @@ public class TcBotTriggerAndSignOffService {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(TcBotTriggerAndSignOffService.class);
 
+    /** Max time to wait for suites statuses evaluated in the pool. */
+    private static final long STATUSES_DEADLINE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /** Default count of visas shown in visas history. */
+    public static final int DFLT_VISAS_HISTORY_CNT = 1000;
+
     /** */
     private static final ThreadLocal<DateFormat> THREAD_FORMATTER = new ThreadLocal<DateFormat>() {
         @Override protected DateFormat initialValue() {
@@ -132,23 +151,69 @@ public class TcBotTriggerAndSignOffService {
     /** Config. */
     @Inject ITcBotConfig cfg;
 
+    /** Pool to evaluate suites statuses. */
+    @Inject TcUpdatePool tcUpdatePool;
+
     @Inject
     BranchTicketMatcher ticketMatcher;
 
     /** Jackson serializer. */
     private final ObjectMapper objMapper = new ObjectMapper();
 
+    /** Contributions lists by server code, validated using update counters of its sources. */
+    private final Cache<String, ContributionsList> contributionsCache = CacheBuilder.newBuilder()
+        .maximumSize(100)
+        .expireAfterAccess(30, TimeUnit.MINUTES)
+        .build();
+
+    /**
+     * Short-lived PR chain reports (suites with blockers) by server, suite, branch, latest build and base branch. Build
+     * ID in the key invalidates report after new run of the chain, expiration is for results of running builds.
+     */
+    private final Cache<String, List<ShortSuiteUi>> prReportCache = CacheBuilder.newBuilder()
+        .maximumSize(1000)
+        .expireAfterWrite(2, TimeUnit.MINUTES)
+        .build();
+
     /** */
     public void startObserver() {
         buildObserverProvider.get();
     }
 
-    /** */
-    public List<VisaStatus> getVisasStatus(ITcBotUserCreds prov) {
-        List<VisaStatus> visaStatuses = new ArrayList<>();
+    /**
+     * @param prov Credentials.
+     * @param beforeId Visa ID to show visas issued before, {@code null} to show most recent visas.
+     * @param cnt Max count of visas to scan, visas not available to user are scanned but not shown.
+     */
+    public VisasHistoryPage getVisasStatus(ITcBotUserCreds prov, @Nullable Long beforeId, int cnt) {
+        VisasHistoryPage page = new VisasHistoryPage();
+        List<VisaStatus> visaStatuses = page.visas;
+
+        Map<Long, VisaRequest> visas = visasHistStorage.getRecentVisas(beforeId, cnt);
+
+        // Paging continues from the lowest ID scanned, even if all visas of page are not available to user.
+        visas.keySet().stream().mapToLong(Long::longValue).min()
+            .ifPresent(minId -> page.nextBefore = minId > 1 ? minId : null);
+
+        Map<String, Set<Integer>> buildsBySrv = new HashMap<>();
+
+        visas.values().forEach(visaReq -> {
+            BuildsInfo info = visaReq.getInfo();
+
+            if (prov.hasAccess(info.srvId))
+                buildsBySrv.computeIfAbsent(info.srvId, k -> new HashSet<>()).addAll(info.getBuilds());
+        });
+
+        Map<String, Map<Integer, BuildRefCompacted>> buildRefsBySrv = new HashMap<>();
 
+        buildsBySrv.forEach((srvCodeOrAlias, buildIds) ->
+            buildRefsBySrv.put(srvCodeOrAlias, tcIgnitedProv.server(srvCodeOrAlias, prov).getBuildRefs(buildIds)));
+
+        Map<String, Optional<BuildTypeRefCompacted>> buildTypes = new HashMap<>();
+
+        for (Map.Entry<Long, VisaRequest> entry : visas.entrySet()) {
+            VisaRequest visaRequest = entry.getValue();
 
-        for (VisaRequest visaRequest : visasHistStorage.getVisas()) {
             VisaStatus visaStatus = new VisaStatus();
 
             String srvCodeOrAlias = visaRequest.getInfo().srvId;
@@ -162,6 +227,8 @@ public class TcBotTriggerAndSignOffService {
 
             BuildsInfo info = visaRequest.getInfo();
 
+            visaStatus.id = entry.getKey();
+
             Visa visa = visaRequest.getResult();
 
             boolean isObserving = visaRequest.isObserving();
@@ -172,11 +239,13 @@ public class TcBotTriggerAndSignOffService {
             visaStatus.ticket = info.ticket;
             visaStatus.buildTypeId = info.buildTypeId;
 
-            BuildTypeRefCompacted bt = tcIgn.getBuildTypeRef(info.buildTypeId);
+            BuildTypeRefCompacted bt = buildTypes.computeIfAbsent(srvCodeOrAlias + "/" + info.buildTypeId,
+                k -> Optional.ofNullable(tcIgn.getBuildTypeRef(info.buildTypeId))).orElse(null);
             visaStatus.buildTypeName = (bt != null ? bt.name(compactor) : visaStatus.buildTypeId);
             visaStatus.baseBranchForTc = info.baseBranchForTc;
 
-            String buildsStatus = visaStatus.status = info.getStatus(tcIgn, strCompactor);
+            String buildsStatus = visaStatus.status = info.getBuildsStatus(buildRefsBySrv.get(srvCodeOrAlias),
+                strCompactor).status();
 
             if (FINISHED_STATUS.equals(buildsStatus)) {
                 if (visa.isSuccess()) {
@@ -201,7 +270,7 @@ public class TcBotTriggerAndSignOffService {
             visaStatuses.add(visaStatus);
         }
 
-        return visaStatuses;
+        return page;
     }
 
     /**
@@ -212,13 +281,13 @@ public class TcBotTriggerAndSignOffService {
     public Set<MuteInfo> getMutes(String srvId, String projectId, ITcBotUserCreds creds) {
         ITeamcityIgnited ignited = tcIgnitedProv.server(srvId, creds);
 
-        Set<MuteInfo> mutes = ignited.getMutes(projectId);
+        MuteSnapshot snapshot = ignited.getMutesSnapshot(projectId);
 
         IJiraIgnited jiraIgn = jiraIgnProv.server(srvId);
 
         String browseUrl = jiraIgn.generateTicketUrl("");
 
-        insertTicketStatus(mutes, jiraIgn.getTickets(), browseUrl);
+        Set<MuteInfo> mutes = snapshot.mutesWithTicketStatus(browseUrl, jiraIgn.getTicketStatuses());
 
         for (MuteInfo info : mutes)
             info.assignment.muteDate = THREAD_FORMATTER.get().format(new Date(info.assignment.timestamp()));
@@ -226,35 +295,6 @@ public class TcBotTriggerAndSignOffService {
         return mutes;
     }
 
-    /**
-     * Insert ticket status for all mutes, if they have ticket in description.
-     *
-     * @param mutes Mutes.
-     * @param tickets Tickets.
-     * @param browseUrl JIRA URL for browsing tickets, e.g. https://issues.apache.org/jira/browse/
-     */
-    private void insertTicketStatus(Set<MuteInfo> mutes, Collection<Ticket> tickets, String browseUrl) {
-        for (MuteInfo mute : mutes) {
-            if (F.isEmpty(mute.assignment.text))
-                continue;
-
-            int pos = mute.assignment.text.indexOf(browseUrl);
-
-            if (pos == -1)
-                continue;
-
-            for (Ticket ticket : tickets) {
-                String muteTicket = mute.assignment.text.substring(pos + browseUrl.length());
-
-                if (ticket.key.equals(muteTicket)) {
-                    mute.ticketStatus = JiraTicketStatusCode.text(ticket.status());
-
-                    break;
-                }
-            }
-        }
-    }
-
     @NotNull public String triggerBuildsAndObserve(
         @Nullable String srvCodeOrAlias,
         @Nullable String branchForTc,
@@ -396,6 +436,8 @@ public class TcBotTriggerAndSignOffService {
     }
 
     /**
+     * Lists contributions, result is cached until PRs, branches, tickets or builds of checked branches are changed.
+     *
      * @param srvCodeOrAlias Server id.
      * @param credsProv Credentials
      */
@@ -407,6 +449,40 @@ public class TcBotTriggerAndSignOffService {
 
         ITeamcityIgnited tcIgn = tcIgnitedProv.server(srvCodeOrAlias, credsProv);
 
+        // Counters are read before data, so concurrent update can only cause extra recalculation.
+        int ghUpdCnt = gitHubConnIgnited.updateCounter();
+        int jiraUpdCnt = jiraIntegration.updateCounter();
+
+        ContributionsList cached = contributionsCache.getIfPresent(srvCodeOrAlias);
+
+        if (cached != null
+            && cached.ghUpdCnt == ghUpdCnt
+            && cached.jiraUpdCnt == jiraUpdCnt
+            && cached.buildUpdCnts.equals(tcIgn.getBranchUpdateCounters(cached.branches)))
+            return cached.contributions;
+
+        ContributionsList list = collectContributions(srvCodeOrAlias, jiraIntegration, gitHubConnIgnited, tcIgn,
+            ghUpdCnt, jiraUpdCnt);
+
+        contributionsCache.put(srvCodeOrAlias, list);
+
+        return list.contributions;
+    }
+
+    /**
+     * @param srvCodeOrAlias Server id.
+     * @param jiraIntegration JIRA integration.
+     * @param gitHubConnIgnited GitHub integration.
+     * @param tcIgn TC Server connection.
+     * @param ghUpdCnt GitHub update counter value read before PRs and branches.
+     * @param jiraUpdCnt JIRA update counter value read before tickets.
+     */
+    private ContributionsList collectContributions(String srvCodeOrAlias,
+        IJiraIgnited jiraIntegration,
+        IGitHubConnIgnited gitHubConnIgnited,
+        ITeamcityIgnited tcIgn,
+        int ghUpdCnt,
+        int jiraUpdCnt) {
         List<PullRequest> prs = gitHubConnIgnited.getPullRequests();
 
         Set<Ticket> tickets = jiraIntegration.getTickets();
@@ -416,69 +492,48 @@ public class TcBotTriggerAndSignOffService {
 
         String defBtForTcServ = findDefaultBuildType(srvCodeOrAlias);
 
-        List<ContributionToCheck> contribsList = new ArrayList<>();
+        TicketIndex ticketIdx = ticketMatcher.indexTickets(tickets, jiraCfg);
 
-        if (prs != null) {
-            prs.forEach(pr -> {
-                ContributionToCheck c = new ContributionToCheck();
-
-                c.prNumber = pr.getNumber();
-                c.prTitle = pr.getTitle();
-                c.prHtmlUrl = pr.htmlUrl();
-                c.prHeadCommit = pr.lastCommitShaShort();
-                c.prTimeUpdate = pr.getTimeUpdate();
-
-                GitHubUser user = pr.gitHubUser();
-                if (user != null) {
-                    c.prAuthor = user.login();
-                    c.prAuthorAvatarUrl = user.avatarUrl();
-                }
-                else {
-                    c.prAuthor = "";
-                    c.prAuthorAvatarUrl = "";
-                }
+        Set<String> branchesToCheck = new HashSet<>();
 
-                Ticket ticket = ticketMatcher.resolveTicketIdForPrBasedContrib(tickets, jiraCfg, pr.getTitle());
+        if (prs != null)
+            prs.forEach(pr -> branchesToCheck.addAll(branchesForPr(pr, ghCfg)));
 
-                if (ticket == null || ticket.id == 0) {
-                    if (pr.head() != null && pr.head().ref() != null)
-                        ticket = ticketMatcher.resolveTicketIdForPrBasedContrib(tickets, jiraCfg, pr.head().ref());
-                }
+        Set<String> branches = new HashSet<>(gitHubConnIgnited.getBranches());
 
-                c.jiraIssueId = ticket == null ? null : ticket.key;
-                c.jiraStatusName = ticket == null ? null : JiraTicketStatusCode.text(ticket.status());
+        List<T2<Ticket, String>> prLessBranches = new ArrayList<>();
+
+        tickets.stream()
+            .filter(ticket -> JiraTicketStatusCode.isActiveContribution(ticket.status()))
+            .forEach(ticket -> {
+                String branch = ticketMatcher.resolveTcBranchForPrLess(ticket, jiraCfg, ghCfg);
 
-                if (!Strings.isNullOrEmpty(c.jiraIssueId)
-                        && jiraCfg.getUrl() != null)
-                    c.jiraIssueUrl = jiraIntegration.generateTicketUrl(c.jiraIssueId);
+                if (Strings.isNullOrEmpty(branch))
+                    return; // nothing to do if branch was not resolved
 
-                findBuildsForPr(defBtForTcServ, Integer.toString(pr.getNumber()), gitHubConnIgnited, tcIgn)
-                        .stream()
-                        .map(buildRefCompacted -> buildRefCompacted.branchName(compactor))
-                        .findAny()
-                        .ifPresent(bName -> c.tcBranchName = bName);
+                prLessBranches.add(new T2<>(ticket, branch));
 
-                contribsList.add(c);
+                if (!branches.contains(branch))
+                    branchesToCheck.add(branch);
             });
-        }
 
-        List<String> branches = gitHubConnIgnited.getBranches();
+        Map<Integer, Integer> buildUpdCnts = tcIgn.getBranchUpdateCounters(branchesToCheck);
 
-        List<Ticket> activeTickets = tickets.stream()
-            .filter(ticket -> JiraTicketStatusCode.isActiveContribution(ticket.status()))
-            .collect(Collectors.toList());
+        Map<String, List<BuildRefCompacted>> builds = tcIgn.getBuildsForBranches(defBtForTcServ, branchesToCheck);
 
-        activeTickets.forEach(ticket -> {
-            String branch = ticketMatcher.resolveTcBranchForPrLess(ticket,
-                jiraCfg,
-                ghCfg);
+        List<ContributionToCheck> contribsList = new ArrayList<>();
 
-            if (Strings.isNullOrEmpty(branch))
-                return; // nothing to do if branch was not resolved
+        if (prs != null) {
+            prs.parallelStream()
+                .map(pr -> prContribution(pr, branchesForPr(pr, ghCfg), builds, ticketIdx, jiraIntegration))
+                .forEachOrdered(contribsList::add);
+        }
 
+        prLessBranches.forEach(ticketAndBranch -> {
+            Ticket ticket = ticketAndBranch.get1();
+            String branch = ticketAndBranch.get2();
 
-            if (!branches.contains(branch)
-                && tcIgn.getAllBuildsCompacted(defBtForTcServ, branch).isEmpty())
+            if (!branches.contains(branch) && !builds.containsKey(branch))
                 return; //Skipping contributions without builds
 
             ContributionToCheck contribution = new ContributionToCheck();
@@ -510,47 +565,144 @@ public class TcBotTriggerAndSignOffService {
             contribsList.add(contribution);
         });
 
-        return contribsList;
+        return new ContributionsList(ghUpdCnt, jiraUpdCnt, branchesToCheck, buildUpdCnts,
+            Collections.unmodifiableList(contribsList));
     }
 
     /**
-     * @param suiteId Suite id.
-     * @param prId Pr id from {@link ContributionToCheck#prNumber}. Negative value imples branch number for PR-less.
-     * @param ghConn Gh connection.
-     * @param srv TC Server connection.
+     * @param pr Pull Request.
+     * @param branchesForPr Branches to check, see {@link #branchesForPr(PullRequest, IGitHubConfig)}.
+     * @param builds Builds of default suite by branch name.
+     * @param ticketIdx Tickets index.
+     * @param jiraIntegration JIRA integration.
      */
-    @Nonnull
-    private List<BuildRefCompacted> findBuildsForPr(String suiteId,
-        String prId,
-        IGitHubConnIgnited ghConn,
-        ITeamcityIgnited srv) {
+    private ContributionToCheck prContribution(PullRequest pr,
+        List<String> branchesForPr,
+        Map<String, List<BuildRefCompacted>> builds,
+        TicketIndex ticketIdx,
+        IJiraIgnited jiraIntegration) {
+        ContributionToCheck c = new ContributionToCheck();
+
+        c.prNumber = pr.getNumber();
+        c.prTitle = pr.getTitle();
+        c.prHtmlUrl = pr.htmlUrl();
+        c.prHeadCommit = pr.lastCommitShaShort();
+        c.prTimeUpdate = pr.getTimeUpdate();
+
+        GitHubUser user = pr.gitHubUser();
+        if (user != null) {
+            c.prAuthor = user.login();
+            c.prAuthorAvatarUrl = user.avatarUrl();
+        }
+        else {
+            c.prAuthor = "";
+            c.prAuthorAvatarUrl = "";
+        }
 
-        List<BuildRefCompacted> buildHist = srv.getAllBuildsCompacted(suiteId,
-                branchForTcDefault(prId, ghConn));
+        IJiraServerConfig jiraCfg = jiraIntegration.config();
 
-        if (!buildHist.isEmpty())
-            return buildHist;
+        Ticket ticket = ticketMatcher.resolveTicketIdForPrBasedContrib(ticketIdx, jiraCfg, pr.getTitle());
 
+        if (ticket == null || ticket.id == 0) {
+            if (pr.head() != null && pr.head().ref() != null)
+                ticket = ticketMatcher.resolveTicketIdForPrBasedContrib(ticketIdx, jiraCfg, pr.head().ref());
+        }
+
+        c.jiraIssueId = ticket == null ? null : ticket.key;
+        c.jiraStatusName = ticket == null ? null : JiraTicketStatusCode.text(ticket.status());
+
+        if (!Strings.isNullOrEmpty(c.jiraIssueId)
+                && jiraCfg.getUrl() != null)
+            c.jiraIssueUrl = jiraIntegration.generateTicketUrl(c.jiraIssueId);
+
+        branchesForPr.stream()
+            .map(builds::get)
+            .filter(Objects::nonNull)
+            .findFirst()
+            .map(buildsForBranch -> buildsForBranch.get(0).branchName(compactor))
+            .ifPresent(bName -> c.tcBranchName = bName);
+
+        return c;
+    }
+
+    /**
+     * @param pr Pull Request.
+     * @param ghCfg GitHub config.
+     * @return Branches to be checked for PR builds in the same order as {@link #branchesForPr(String, String,
+     * IGitHubConnIgnited)} returns.
+     */
+    private List<String> branchesForPr(PullRequest pr, IGitHubConfig ghCfg) {
+        String prId = Integer.toString(pr.getNumber());
+        String prBranch = pr.head() == null ? null : pr.head().ref();
+
+        List<String> res = new ArrayList<>(3);
+
+        res.add(ghCfg.isPreferBranches() && prBranch != null ? prBranch : branchForTcA(prId));
+        res.add(branchForTcB(prId));
+
+        String branchToCheck = ghCfg.isPreferBranches() ? branchForTcA(prId) : prBranch;
+
+        if (branchToCheck != null)
+            res.add(branchToCheck);
+
+        return res;
+    }
+
+    /**
+     * @param prId Pr id from {@link ContributionToCheck#prNumber}. Negative value imples branch number for PR-less.
+     * @param dfltBranch Default branch for TC, see {@link #branchForTcDefault(String, IGitHubConnIgnited)}.
+     * @param ghConn Gh connection.
+     * @return Branches to be checked for builds of PR, in order of preference.
+     */
+    private List<String> branchesForPr(String prId, String dfltBranch, IGitHubConnIgnited ghConn) {
         Integer prNum = Integer.valueOf(prId);
         if (prNum < 0)
-            return buildHist; // Don't iterate for other options if PR ID is absent
+            return Collections.singletonList(dfltBranch); // Don't iterate for other options if PR ID is absent
 
-        buildHist = srv.getAllBuildsCompacted(suiteId, branchForTcB(prId));
+        List<String> res = new ArrayList<>(3);
 
-        if (!buildHist.isEmpty())
-            return buildHist;
+        res.add(dfltBranch);
+        res.add(branchForTcB(prId));
 
         String bracnhToCheck =
                 ghConn.config().isPreferBranches()
                         ? branchForTcA(prId) // for prefer branches mode it was already checked in default
                         : getPrBranch(ghConn, prNum);
 
-        if (bracnhToCheck == null)
+        if (bracnhToCheck != null)
+            res.add(bracnhToCheck);
+
+        return res;
+    }
+
+    /**
+     * @param suiteId Suite id.
+     * @param branches Branches to check in order of preference.
+     * @param branchBuilds Memo: branch name -> builds of all suites in this branch.
+     * @param srv TC Server connection.
+     * @return Builds of the suite in the first branch having such builds.
+     */
+    @Nonnull
+    private List<BuildRefCompacted> findBuildsForPr(String suiteId,
+        List<String> branches,
+        Map<String, List<BuildRefCompacted>> branchBuilds,
+        ITeamcityIgnited srv) {
+        Integer suiteIdId = compactor.getStringIdIfPresent(suiteId);
+
+        if (suiteIdId == null)
             return Collections.emptyList();
 
-        buildHist = srv.getAllBuildsCompacted(suiteId, bracnhToCheck);
+        for (String branch : branches) {
+            List<BuildRefCompacted> buildHist = branchBuilds.computeIfAbsent(branch, srv::getAllBuildsForBranch)
+                .stream()
+                .filter(ref -> ref.buildTypeId() == suiteIdId)
+                .collect(Collectors.toList());
 
-        return buildHist;
+            if (!buildHist.isEmpty())
+                return buildHist;
+        }
+
+        return Collections.emptyList();
     }
 
     @Nullable
@@ -596,6 +748,10 @@ public class TcBotTriggerAndSignOffService {
     }
 
     /**
+     * Evaluates statuses of all applicable suites concurrently in {@link TcUpdatePool}. Builds of each candidate branch
+     * are requested once for all suites. Suites not evaluated by the pool during {@link #STATUSES_DEADLINE_MS} are
+     * evaluated in the caller thread, pool tasks already running for them are not waited for.
+     *
      * @param srvCodeOrAlias Server (service) internal code.
      * @param prov Prov.
      * @param prId Pr id from {@link ContributionToCheck#prNumber}. Negative value imples branch number (with
@@ -603,8 +759,6 @@ public class TcBotTriggerAndSignOffService {
      */
     public Set<ContributionCheckStatus> contributionStatuses(String srvCodeOrAlias, ITcBotUserCreds prov,
         String prId) {
-        Set<ContributionCheckStatus> statuses = new LinkedHashSet<>();
-
         ITeamcityIgnited teamcity = tcIgnitedProv.server(srvCodeOrAlias, prov);
 
         String defaultBuildType = findDefaultBuildType(srvCodeOrAlias);
@@ -615,17 +769,47 @@ public class TcBotTriggerAndSignOffService {
 
         List<String> compositeBuildTypeIds = findApplicableBuildTypes(srvCodeOrAlias, teamcity);
 
-        for (String btId : compositeBuildTypeIds) {
-            List<BuildRefCompacted> buildsForBt = findBuildsForPr(btId, prId, ghConn, teamcity);
+        String dfltBranch = branchForTcDefault(prId, ghConn);
+        List<String> branches = branchesForPr(prId, dfltBranch, ghConn);
+        Map<String, List<BuildRefCompacted>> branchBuilds = new ConcurrentHashMap<>();
+
+        Function<String, ContributionCheckStatus> suiteStatus = btId -> {
+            List<BuildRefCompacted> buildsForBt = findBuildsForPr(btId, branches, branchBuilds, teamcity);
 
             ContributionCheckStatus contributionAgainstSuite = buildsForBt.isEmpty()
-                ? new ContributionCheckStatus(btId, branchForTcDefault(prId, ghConn))
+                ? new ContributionCheckStatus(btId, dfltBranch)
                 : contributionStatus(srvCodeOrAlias, btId, buildsForBt, teamcity, ghConn, prId);
 
-            if(Objects.equals(btId, defaultBuildType))
+            if (Objects.equals(btId, defaultBuildType))
                 contributionAgainstSuite.defaultBuildType = true;
 
-            statuses.add(contributionAgainstSuite);
+            return contributionAgainstSuite;
+        };
+
+        List<Future<ContributionCheckStatus>> futures = compositeBuildTypeIds.stream()
+            .map(btId -> tcUpdatePool.getService().submit(() -> suiteStatus.apply(btId)))
+            .collect(Collectors.toList());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STATUSES_DEADLINE_MS);
+
+        Set<ContributionCheckStatus> statuses = new LinkedHashSet<>();
+
+        for (int i = 0; i < futures.size(); i++) {
+            Future<ContributionCheckStatus> fut = futures.get(i);
+
+            try {
+                statuses.add(fut.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            }
+            catch (TimeoutException e) {
+                // Running task is not interrupted, interruption may break persistence IO: it is completed in
+                // background and its result is ignored.
+                fut.cancel(false);
+
+                statuses.add(suiteStatus.apply(compositeBuildTypeIds.get(i)));
+            }
+            catch (InterruptedException | ExecutionException e) {
+                throw ExceptionUtil.propagateException(e);
+            }
         }
 
         return statuses;
@@ -768,21 +952,54 @@ public class TcBotTriggerAndSignOffService {
         return teamcity.host() + "viewQueued.html?itemId=" + ref.id();
     }
 
+    /**
+     * @param srvCode Server code.
+     * @param prov Credentials.
+     * @param buildTypeId Build type ID.
+     * @param tcBranch Branch for TeamCity.
+     */
     public CurrentVisaStatus currentVisaStatus(String srvCode, ITcBotUserCreds prov, String buildTypeId,
                                                String tcBranch) {
         CurrentVisaStatus status = new CurrentVisaStatus();
 
-        List<ShortSuiteUi> suitesStatuses
-            = prChainsProcessor.getBlockersSuitesStatuses(buildTypeId, tcBranch, srvCode, prov, SyncMode.NONE, null);
+        ITeamcityIgnited tcIgnited = tcIgnitedProv.server(srvCode, prov);
+
+        List<Integer> hist = tcIgnited.getLastNBuildsFromHistory(buildTypeId, tcBranch, 1);
 
-        if (suitesStatuses == null)
-            return status;
+        String reportKey = hist.isEmpty() ? null : prReportKey(srvCode, buildTypeId, tcBranch, hist.get(0), null);
+
+        List<ShortSuiteUi> suitesStatuses = reportKey == null ? null : prReportCache.getIfPresent(reportKey);
+
+        if (suitesStatuses == null) {
+            suitesStatuses = prChainsProcessor.getBlockersSuitesStatuses(buildTypeId, tcBranch, srvCode, prov,
+                SyncMode.NONE, null);
+
+            if (suitesStatuses == null)
+                return status;
+
+            if (reportKey != null)
+                prReportCache.put(reportKey, suitesStatuses);
+        }
 
         status.blockers = suitesStatuses.stream().mapToInt(ShortSuiteUi::totalBlockers).sum();
 
         return status;
     }
 
+    /**
+     * @param srvCode Server code.
+     * @param buildTypeId Build type ID.
+     * @param tcBranch Branch for TeamCity.
+     * @param latestBuildId Latest build of the chain in the branch.
+     * @param baseBranchForTc Base branch, {@code null} or empty means default base branch of the server.
+     * @return Key for {@link #prReportCache}.
+     */
+    private String prReportKey(String srvCode, String buildTypeId, String tcBranch, int latestBuildId,
+        @Nullable String baseBranchForTc) {
+        return srvCode + "|" + buildTypeId + "|" + tcBranch + "|" + latestBuildId + "|"
+            + Strings.nullToEmpty(baseBranchForTc);
+    }
+
     /**
      * Produce visa message(see {@link Visa}) based on passed parameters and publish it as a comment for specified
      * ticket on Jira server.
@@ -837,6 +1054,9 @@ public class TcBotTriggerAndSignOffService {
                 return new Visa("JIRA wasn't commented - no finished builds to analyze." +
                     " Check builds availability for branch: " + build.branchName + "/" + baseBranch);
 
+            prReportCache.put(prReportKey(srvCodeOrAlias, buildTypeId, build.branchName, buildId, baseBranchForTc),
+                suitesStatuses);
+
             blockers = suitesStatuses.stream().mapToInt(ShortSuiteUi::totalBlockers).sum();
 
             String comment = JiraCommentsGenerator.generateJiraComment(jira.config().getApiVersion(), compactor, suitesStatuses, newTestsStatuses, build.webUrl, buildTypeId, tcIgnited, blockers, build.branchName, baseBranch);
@@ -854,4 +1074,40 @@ public class TcBotTriggerAndSignOffService {
 
         return new Visa(Visa.JIRA_COMMENTED, res, blockers);
     }
+
+    /**
+     * Contributions list with versions of the data it was computed from.
+     */
+    private static class ContributionsList {
+        /** GitHub update counter. */
+        private final int ghUpdCnt;
+
+        /** JIRA update counter. */
+        private final int jiraUpdCnt;
+
+        /** Branches checked for builds. */
+        private final Collection<String> branches;
+
+        /** Update counters of checked branches. */
+        private final Map<Integer, Integer> buildUpdCnts;
+
+        /** Contributions. */
+        private final List<ContributionToCheck> contributions;
+
+        /**
+         * @param ghUpdCnt GitHub update counter.
+         * @param jiraUpdCnt JIRA update counter.
+         * @param branches Branches checked for builds.
+         * @param buildUpdCnts Update counters of checked branches.
+         * @param contributions Contributions.
+         */
+        ContributionsList(int ghUpdCnt, int jiraUpdCnt, Collection<String> branches,
+            Map<Integer, Integer> buildUpdCnts, List<ContributionToCheck> contributions) {
+            this.ghUpdCnt = ghUpdCnt;
+            this.jiraUpdCnt = jiraUpdCnt;
+            this.branches = branches;
+            this.buildUpdCnts = buildUpdCnts;
+            this.contributions = contributions;
+        }
+    }
 }
@@ -23,6 +23,9 @@ import org.jetbrains.annotations.Nullable;
  *
  */
 public class VisaStatus {
+    /** Visa ID, visas issued before are requested using it. */
+    public long id;
+
     /** */
     @Nullable public String userName;
 
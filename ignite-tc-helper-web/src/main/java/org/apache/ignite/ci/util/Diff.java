@@ -57,46 +57,41 @@ public class Diff<T extends Comparable<T>> {
         Iterator<T> oldIter = c1.iterator();
         Iterator<T> newIter = c2.iterator();
 
-        int cmp = 0;
+        T e1 = oldIter.next();
+        T e2 = newIter.next();
 
-        T e1 = null;
-        T e2 = null;
+        while (e1 != null && e2 != null) {
+            int cmp = e1.compareTo(e2);
 
-        while (oldIter.hasNext() || newIter.hasNext()) {
-            if (oldIter.hasNext() && cmp <= 0)
-                e1 = oldIter.next();
-
-            if (newIter.hasNext() && cmp >= 0)
-                e2 = newIter.next();
-
-            assert e1 != null;
-            assert e2 != null;
-
-            cmp = e1.compareTo(e2);
-
-            if (cmp < 0)
+            if (cmp < 0) {
                 rmvd.add(e1);
-            else if (cmp > 0)
-                added.add(e2);
-            else
-                same.add(e1);
-
-            if (!oldIter.hasNext()) {
-                if (cmp < 0)
-                    added.add(e2);
 
-                while (newIter.hasNext())
-                    added.add(newIter.next());
+                e1 = oldIter.hasNext() ? oldIter.next() : null;
             }
+            else if (cmp > 0) {
+                added.add(e2);
 
-            if (!newIter.hasNext()) {
-                if (cmp > 0)
-                    rmvd.add(e1);
+                e2 = newIter.hasNext() ? newIter.next() : null;
+            }
+            else {
+                same.add(e1);
 
-                while (oldIter.hasNext())
-                    rmvd.add(oldIter.next());
+                e1 = oldIter.hasNext() ? oldIter.next() : null;
+                e2 = newIter.hasNext() ? newIter.next() : null;
             }
         }
+
+        if (e1 != null)
+            rmvd.add(e1);
+
+        while (oldIter.hasNext())
+            rmvd.add(oldIter.next());
+
+        if (e2 != null)
+            added.add(e2);
+
+        while (newIter.hasNext())
+            added.add(newIter.next());
     }
 
     /**
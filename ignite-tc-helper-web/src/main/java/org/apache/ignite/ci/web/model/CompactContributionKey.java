@@ -36,6 +36,15 @@ public class CompactContributionKey {
         this.srvId = strCompactor.getStringId(key.srvId);
     }
 
+    /**
+     * @param srvId Server id.
+     * @param branchForTc Branch name.
+     */
+    public CompactContributionKey(int srvId, int branchForTc) {
+        this.srvId = srvId;
+        this.branchForTc = branchForTc;
+    }
+
     /** */
     public ContributionKey toContributionKey(IStringCompactor strCompactor) {
         return new ContributionKey(this, strCompactor);
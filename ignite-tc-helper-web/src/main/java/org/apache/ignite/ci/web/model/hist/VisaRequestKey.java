@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.web.model.hist;
+
+import java.util.Objects;
+import org.apache.ignite.ci.web.model.CompactContributionKey;
+
+/**
+ * Key of visa request: contribution and number of the request for this contribution, starting from 0.
+ */
+public class VisaRequestKey {
+    /** Server id. */
+    private final int srvId;
+
+    /** Branch name. */
+    private final int branchForTc;
+
+    /** Number of visa request for contribution. */
+    private final int seq;
+
+    /**
+     * @param key Contribution key.
+     * @param seq Number of visa request for contribution.
+     */
+    public VisaRequestKey(CompactContributionKey key, int seq) {
+        this.srvId = key.srvId;
+        this.branchForTc = key.branchForTc;
+        this.seq = seq;
+    }
+
+    /** */
+    public CompactContributionKey contributionKey() {
+        return new CompactContributionKey(srvId, branchForTc);
+    }
+
+    /** */
+    public int seq() {
+        return seq;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof VisaRequestKey))
+            return false;
+
+        VisaRequestKey key = (VisaRequestKey)o;
+
+        return srvId == key.srvId &&
+            branchForTc == key.branchForTc &&
+            seq == key.seq;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        return Objects.hash(srvId, branchForTc, seq);
+    }
+}
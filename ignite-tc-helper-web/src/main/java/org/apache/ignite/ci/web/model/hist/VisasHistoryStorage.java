@@ -20,28 +20,57 @@ package org.apache.ignite.ci.web.model.hist;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.cache.Cache;
 import javax.inject.Inject;
 import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteAtomicSequence;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
 import org.apache.ignite.ci.db.TcHelperDb;
-import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.ci.web.model.CompactContributionKey;
 import org.apache.ignite.ci.web.model.CompactVisaRequest;
 import org.apache.ignite.ci.web.model.ContributionKey;
 import org.apache.ignite.ci.web.model.VisaRequest;
+import org.apache.ignite.lang.IgniteBiTuple;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.transactions.Transaction;
+
+import static org.apache.ignite.transactions.TransactionConcurrency.PESSIMISTIC;
+import static org.apache.ignite.transactions.TransactionIsolation.REPEATABLE_READ;
 
 /**
  * Storage which contains {@link VisaRequest} identified by {@link CompactContributionKey}, and stored in order of
  * addition.
+ *
+ * Each request is a separate entry identified by contribution and number of the request for the contribution. Copy of
+ * the last request is kept for each contribution, so last request is read and updated without reading history.
+ * Index by visa ID, which is assigned in order of addition, allows to read recent requests without full scan.
  */
 public class VisasHistoryStorage {
-    /** Cache name. */
+    /** Cache name of visas history kept as list of requests for contribution, used before V3. */
     public static final String VISAS_CACHE_NAME = "compactVisasHistoryCacheV2";
 
+    /** Visa requests cache name. */
+    public static final String VISA_REQUESTS_CACHE_NAME = "visaRequestsV3";
+
+    /** Last visa requests cache name. */
+    public static final String LAST_VISAS_CACHE_NAME = "lastVisaRequestsV3";
+
+    /** Visa ID to request key index cache name. */
+    public static final String VISAS_DATE_IDX_CACHE_NAME = "visaRequestsDateIdxV3";
+
+    /** Visa ID sequence. */
+    public static final String VISAS_SEQ = "visaRequestsSeq";
+
     /** */
     @Inject
     private IStringCompactor strCompactor;
@@ -52,14 +81,40 @@ public class VisasHistoryStorage {
 
     /** Clear cache. */
     public void clear() {
-        visas().clear();
+        visaRequestsCache(ignite).clear();
+        lastVisasCache(ignite).clear();
+        dateIdxCache(ignite).clear();
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @return Visa requests cache.
+     */
+    public static IgniteCache<VisaRequestKey, CompactVisaRequest> visaRequestsCache(Ignite ignite) {
+        return ignite.getOrCreateCache(TcHelperDb.getCacheV3TxConfig(VISA_REQUESTS_CACHE_NAME));
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @return Cache with last visa request for contribution.
+     */
+    public static IgniteCache<CompactContributionKey, CompactLastVisaRequest> lastVisasCache(Ignite ignite) {
+        return ignite.getOrCreateCache(TcHelperDb.getCacheV3TxConfig(LAST_VISAS_CACHE_NAME));
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @return Cache mapping visa ID to request key.
+     */
+    public static IgniteCache<Long, VisaRequestKey> dateIdxCache(Ignite ignite) {
+        return ignite.getOrCreateCache(TcHelperDb.getCacheV3TxConfig(VISAS_DATE_IDX_CACHE_NAME));
     }
 
     /**
-     * @return Instance of cache.
+     * @param ignite Ignite.
      */
-    public Cache<CompactContributionKey, List<CompactVisaRequest>> visas() {
-        return ignite.getOrCreateCache(TcHelperDb.getCacheV3TxConfig(VISAS_CACHE_NAME));
+    private static IgniteAtomicSequence visaSeq(Ignite ignite) {
+        return ignite.atomicSequence(VISAS_SEQ, 0, true);
     }
 
     /** Put visa request to cache. */
@@ -70,18 +125,21 @@ public class VisasHistoryStorage {
             visaReq.getInfo().srvId,
             visaReq.getInfo().branchForTc), strCompactor);
 
-        visas().invoke(key, (entry, arguments) -> {
-            List<CompactVisaRequest> contributionVisas = entry.getValue();
+        long id = visaSeq(ignite).incrementAndGet();
 
-            if (contributionVisas == null)
-                contributionVisas = new ArrayList<>();
+        IgniteCache<CompactContributionKey, CompactLastVisaRequest> lastVisas = lastVisasCache(ignite);
 
-            contributionVisas.add(compactVisaReq);
+        try (Transaction tx = ignite.transactions().txStart(PESSIMISTIC, REPEATABLE_READ)) {
+            CompactLastVisaRequest last = lastVisas.get(key);
 
-            entry.setValue(contributionVisas);
+            VisaRequestKey reqKey = new VisaRequestKey(key, last == null ? 0 : last.seq + 1);
 
-            return contributionVisas;
-        });
+            visaRequestsCache(ignite).put(reqKey, compactVisaReq);
+            dateIdxCache(ignite).put(id, reqKey);
+            lastVisas.put(key, new CompactLastVisaRequest(reqKey.seq(), compactVisaReq));
+
+            tx.commit();
+        }
     }
 
     /**
@@ -89,14 +147,32 @@ public class VisasHistoryStorage {
      * @return list of all {@link VisaRequest} for specified key.
      */
     public List<VisaRequest> getVisaRequests(ContributionKey key) {
-        List<CompactVisaRequest> reqs = visas().get(new CompactContributionKey(key, strCompactor));
+        CompactContributionKey compactKey = new CompactContributionKey(key, strCompactor);
+
+        CompactLastVisaRequest last = lastVisasCache(ignite).get(compactKey);
 
-        if (Objects.isNull(reqs))
+        if (last == null)
             return null;
 
-        return reqs.stream()
-            .map(compactVisaReq -> compactVisaReq.toVisaRequest(strCompactor))
-            .collect(Collectors.toList());
+        int lastSeq = last.seq;
+
+        Set<VisaRequestKey> keys = new HashSet<>();
+
+        for (int seq = 0; seq <= lastSeq; seq++)
+            keys.add(new VisaRequestKey(compactKey, seq));
+
+        Map<VisaRequestKey, CompactVisaRequest> reqs = visaRequestsCache(ignite).getAll(keys);
+
+        List<VisaRequest> res = new ArrayList<>();
+
+        for (int seq = 0; seq <= lastSeq; seq++) {
+            CompactVisaRequest req = reqs.get(new VisaRequestKey(compactKey, seq));
+
+            if (req != null)
+                res.add(req.toVisaRequest(strCompactor));
+        }
+
+        return res;
     }
 
     /**
@@ -104,12 +180,9 @@ public class VisasHistoryStorage {
      * @return Last added {@link VisaRequest} for specified key.
      */
     public VisaRequest getLastVisaRequest(ContributionKey key) {
-        List<VisaRequest> reqs = getVisaRequests(key);
-
-        if (Objects.isNull(reqs))
-            return null;
+        CompactLastVisaRequest last = lastVisasCache(ignite).get(new CompactContributionKey(key, strCompactor));
 
-        return reqs.get(reqs.size() - 1);
+        return last == null ? null : last.req.toVisaRequest(strCompactor);
     }
 
     /**
@@ -120,24 +193,25 @@ public class VisasHistoryStorage {
     public boolean updateLastVisaRequest(ContributionKey key, Consumer<VisaRequest> updater) {
         CompactContributionKey compactKey = new CompactContributionKey(key, strCompactor);
 
-        if (!visas().containsKey(compactKey))
-            return false;
+        IgniteCache<CompactContributionKey, CompactLastVisaRequest> lastVisas = lastVisasCache(ignite);
 
-        visas().invoke(compactKey, (entry, arguments) -> {
-            List<CompactVisaRequest> compactReqs = entry.getValue();
+        try (Transaction tx = ignite.transactions().txStart(PESSIMISTIC, REPEATABLE_READ)) {
+            CompactLastVisaRequest last = lastVisas.get(compactKey);
 
-            int lastIdx = compactReqs.size() - 1;
+            if (last == null)
+                return false;
 
-            VisaRequest req = compactReqs.get(lastIdx).toVisaRequest(strCompactor);
+            VisaRequest req = last.req.toVisaRequest(strCompactor);
 
             updater.accept(req);
 
-            compactReqs.set(lastIdx, new CompactVisaRequest(req, strCompactor));
+            CompactVisaRequest compactReq = new CompactVisaRequest(req, strCompactor);
 
-            entry.setValue(compactReqs);
+            visaRequestsCache(ignite).put(new VisaRequestKey(compactKey, last.seq), compactReq);
+            lastVisas.put(compactKey, new CompactLastVisaRequest(last.seq, compactReq));
 
-            return compactReqs;
-        });
+            tx.commit();
+        }
 
         return true;
     }
@@ -148,25 +222,108 @@ public class VisasHistoryStorage {
     public Collection<VisaRequest> getLastVisas() {
         List<VisaRequest> res = new ArrayList<>();
 
-        visas().forEach(entry -> {
-            int lastIdx = entry.getValue().size() - 1;
+        lastVisasCache(ignite).forEach(entry -> res.add(entry.getValue().req.toVisaRequest(strCompactor)));
+
+        return Collections.unmodifiableCollection(res);
+    }
+
+    /**
+     * Provides requests in reverse order of addition.
+     *
+     * @param beforeId Visa ID to return requests added before, {@code null} to return most recent requests.
+     * @param cnt Max count of requests to return.
+     * @return Map from visa ID to request, ordered from newest to oldest.
+     */
+    public Map<Long, VisaRequest> getRecentVisas(@Nullable Long beforeId, int cnt) {
+        IgniteCache<Long, VisaRequestKey> dateIdx = dateIdxCache(ignite);
+
+        long hi = visaSeq(ignite).get();
+
+        if (beforeId != null)
+            hi = Math.min(hi, beforeId - 1);
+
+        Map<Long, VisaRequestKey> found = new LinkedHashMap<>();
+
+        while (hi > 0 && found.size() < cnt) {
+            long lo = Math.max(1, hi - (cnt - found.size()) + 1);
+
+            Set<Long> ids = new TreeSet<>();
+
+            for (long id = lo; id <= hi; id++)
+                ids.add(id);
+
+            Map<Long, VisaRequestKey> keys = dateIdx.getAll(ids);
+
+            for (long id = hi; id >= lo; id--) {
+                VisaRequestKey key = keys.get(id);
+
+                if (key != null)
+                    found.put(id, key);
+            }
+
+            hi = lo - 1;
+        }
 
-            res.add(entry.getValue().get(lastIdx).toVisaRequest(strCompactor));
+        Map<VisaRequestKey, CompactVisaRequest> reqs = visaRequestsCache(ignite).getAll(new HashSet<>(found.values()));
+
+        Map<Long, VisaRequest> res = new LinkedHashMap<>();
+
+        found.forEach((id, key) -> {
+            CompactVisaRequest req = reqs.get(key);
+
+            if (req != null)
+                res.put(id, req.toVisaRequest(strCompactor));
         });
 
-        return Collections.unmodifiableCollection(res);
+        return res;
     }
 
     /**
-     * @return Collection of all {@link VisaRequest} for every stored key.
+     * Moves visas history from the cache with list of requests for contribution.
+     *
+     * @param ignite Ignite.
+     * @return Count of requests moved.
      */
-    public Collection<VisaRequest> getVisas() {
-        List<VisaRequest> res = new ArrayList<>();
+    public static long migrate(Ignite ignite) {
+        IgniteCache<CompactContributionKey, List<CompactVisaRequest>> oldCache = ignite.cache(VISAS_CACHE_NAME);
 
-        visas().forEach(entry -> res.addAll(entry.getValue().stream()
-            .map(v -> v.toVisaRequest(strCompactor))
-            .collect(Collectors.toList())));
+        if (oldCache == null)
+            return 0;
 
-        return Collections.unmodifiableCollection(res);
+        List<IgniteBiTuple<Long, VisaRequestKey>> byDate = new ArrayList<>();
+
+        try (IgniteDataStreamer<VisaRequestKey, CompactVisaRequest> reqStreamer
+                 = ignite.dataStreamer(visaRequestsCache(ignite).getName());
+             IgniteDataStreamer<CompactContributionKey, CompactLastVisaRequest> lastStreamer
+                 = ignite.dataStreamer(lastVisasCache(ignite).getName())) {
+            for (Cache.Entry<CompactContributionKey, List<CompactVisaRequest>> entry : oldCache) {
+                List<CompactVisaRequest> reqs = entry.getValue();
+
+                if (reqs == null || reqs.isEmpty())
+                    continue;
+
+                for (int seq = 0; seq < reqs.size(); seq++) {
+                    CompactVisaRequest req = reqs.get(seq);
+                    VisaRequestKey key = new VisaRequestKey(entry.getKey(), seq);
+
+                    reqStreamer.addData(key, req);
+
+                    byDate.add(new IgniteBiTuple<>(req.compactInfo.date() == null ? 0 : req.compactInfo.date().getTime(), key));
+                }
+
+                lastStreamer.addData(entry.getKey(), new CompactLastVisaRequest(reqs.size() - 1, reqs.get(reqs.size() - 1)));
+            }
+        }
+
+        byDate.sort(Comparator.comparing(IgniteBiTuple::get1));
+
+        long firstId = visaSeq(ignite).getAndAdd(byDate.size()) + 1;
+
+        try (IgniteDataStreamer<Long, VisaRequestKey> idxStreamer = ignite.dataStreamer(dateIdxCache(ignite).getName())) {
+            for (int i = 0; i < byDate.size(); i++)
+                idxStreamer.addData(firstId + i, byDate.get(i).get2());
+        }
+
+        return byDate.size();
     }
 }
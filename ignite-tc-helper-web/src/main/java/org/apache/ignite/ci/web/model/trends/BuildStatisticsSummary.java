@@ -20,6 +20,8 @@ package org.apache.ignite.ci.web.model.trends;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,13 +29,14 @@ import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.apache.ignite.tcbot.engine.trends.BuildStatisticsCompacted;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsCompacted;
 import org.apache.ignite.tcservice.model.hist.BuildRef;
 import org.apache.ignite.tcservice.model.result.TestOccurrencesRef;
 import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.ProblemCompacted;
-import org.apache.ignite.internal.util.typedef.T2;
 
 import static org.apache.ignite.tcservice.model.result.problems.ProblemOccurrence.TC_EXECUTION_TIMEOUT;
 import static org.apache.ignite.tcservice.model.result.problems.ProblemOccurrence.TC_EXIT_CODE;
@@ -50,6 +53,9 @@ import static org.apache.ignite.tcservice.model.result.problems.ProblemOccurrenc
     /** Short problem names. */
     public static final String TOTAL = "TOTAL";
 
+    /** Format of {@link #startDate}. */
+    public static final String START_DATE_FORMAT = "dd-MM-yyyy'T'HH:mm:ss";
+
     /** Short problem names map. Full name - key, short name - value. */
     public static BiMap<String, String> shortProblemNames = HashBiMap.create();
 
@@ -84,11 +90,8 @@ import static org.apache.ignite.tcservice.model.result.problems.ProblemOccurrenc
     /** Is fake stub. */
     public boolean isFakeStub;
 
-    /**
-     * Failed tests: Map from build type string ID -> Map of test name (full) string ID -> (test refrenence, to count of
-     * failures).
-     */
-    private Map<Integer, Map<Integer, T2<Long, Integer>>> failedTests = new HashMap<>();
+    /** Failed unmuted tests of all builds in the chain, indexes in tests index of the chain build type. */
+    private FailedTestsCompacted failedTests;
 
     /** Is valid. */
     public boolean isValid = true;
@@ -200,7 +203,77 @@ import static org.apache.ignite.tcservice.model.result.problems.ProblemOccurrenc
             duration, totalProblems, isFakeStub);
     }
 
-    public Map<Integer, Map<Integer, T2<Long, Integer>>> failedTests() {
+    /**
+     * @return Failed unmuted tests of all builds in the chain, {@code null} if not initialized.
+     */
+    public FailedTestsCompacted failedTests() {
         return failedTests;
     }
+
+    /**
+     * @param failedTests Failed unmuted tests of all builds in the chain.
+     */
+    public void failedTests(FailedTestsCompacted failedTests) {
+        this.failedTests = failedTests;
+    }
+
+    /**
+     * @param startTs Build start timestamp.
+     * @return Compacted statistics to be saved.
+     */
+    public BuildStatisticsCompacted toCompacted(long startTs) {
+        BuildStatisticsCompacted res = new BuildStatisticsCompacted();
+
+        res.buildId = buildId;
+        res.startTs = startTs;
+        res.testsCnt = testOccurrences.count;
+        res.ignoredCnt = testOccurrences.ignored;
+        res.mutedCnt = testOccurrences.muted;
+        res.failedCnt = testOccurrences.failed;
+        res.duration = duration;
+
+        if (totalProblems != null) {
+            res.executionTimeouts = totalProblems.get(shortProblemNames.get(TC_EXECUTION_TIMEOUT));
+            res.jvmCrashes = totalProblems.get(shortProblemNames.get(TC_JVM_CRASH));
+            res.oomes = totalProblems.get(shortProblemNames.get(TC_OOME));
+            res.exitCodes = totalProblems.get(shortProblemNames.get(TC_EXIT_CODE));
+        }
+
+        res.failedTests = failedTests;
+
+        return res;
+    }
+
+    /**
+     * @param stat Saved statistics.
+     * @return New summary instance.
+     */
+    public static BuildStatisticsSummary of(BuildStatisticsCompacted stat) {
+        BuildStatisticsSummary res = new BuildStatisticsSummary(stat.buildId);
+
+        if (stat.startTs > 0)
+            res.startDate = new SimpleDateFormat(START_DATE_FORMAT).format(new Date(stat.startTs));
+
+        res.testOccurrences.count = stat.testsCnt;
+        res.testOccurrences.ignored = stat.ignoredCnt;
+        res.testOccurrences.muted = stat.mutedCnt;
+        res.testOccurrences.failed = stat.failedCnt;
+        res.testOccurrences.passed = stat.testsCnt - stat.failedCnt - stat.ignoredCnt - stat.mutedCnt;
+        res.duration = stat.duration;
+
+        Map<String, Long> problems = new HashMap<>();
+
+        problems.put(shortProblemNames.get(TC_EXECUTION_TIMEOUT), stat.executionTimeouts);
+        problems.put(shortProblemNames.get(TC_JVM_CRASH), stat.jvmCrashes);
+        problems.put(shortProblemNames.get(TC_OOME), stat.oomes);
+        problems.put(shortProblemNames.get(TC_EXIT_CODE), stat.exitCodes);
+        problems.put(shortProblemNames.get(TOTAL),
+            stat.executionTimeouts + stat.jvmCrashes + stat.oomes + stat.exitCodes);
+
+        res.totalProblems = problems;
+
+        res.failedTests = stat.failedTests;
+
+        return res;
+    }
 }
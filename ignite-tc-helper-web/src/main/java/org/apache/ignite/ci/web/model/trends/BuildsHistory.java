@@ -30,6 +30,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ignite.tcservice.ITeamcity;
 import org.apache.ignite.tcbot.engine.conf.ITcBotConfig;
+import org.apache.ignite.tcbot.engine.trends.ChainTestsIndex;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsMatrix;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -68,41 +70,26 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 
     /**
      * Initialize {@link #mergedTestsBySuites} property by unique failed tests which occured in specified date
-     * interval.
+     * interval. Only names of tests failed in any build are decoded.
      *
-     * @param buildIds list of valid builds.
-     * @param buildIdsWithConditions Build ID -> build validation flag.
+     * @param matrix Failed tests of valid builds of the same chain build type.
+     * @param testsIdx Tests index of the chain build type.
+     * @param validBuildsCnt Count of valid builds.
      * @param compactor Compactor
      */
-    public void initFailedTests(List<Integer> buildIds,
-        Map<Integer, Boolean> buildIdsWithConditions, IStringCompactor compactor) {
-
-        for (BuildStatisticsSummary buildStat : buildsStatistics) {
-            Boolean valid = buildIdsWithConditions.get(buildStat.buildId);
-            if (!Boolean.TRUE.equals(valid))
-                continue;
-
-            buildStat.failedTests().forEach((btId, map) -> {
-                String configurationName = compactor.getStringFromId(btId);
-                Map<String, List<Object>> tests = mergedTestsBySuites.computeIfAbsent(configurationName,
-                    k -> new HashMap<>());
-
-                map.forEach((tn, pair) -> {
-                    String testName = compactor.getStringFromId(tn);
-                    Integer cnt = pair.get2();
-                    float i = cnt != null ? cnt : 1F;
-
-                    float addForFailRate = i / buildIds.size();
-
-                    tests.merge(testName, Lists.newArrayList(Long.toString(pair.get1()), addForFailRate),
-                        (a, b) -> {
-                            if (a == null)
-                                return b;
-                            return Lists.newArrayList(a.get(0), (Float)a.get(1) + (Float)b.get(1));
-                        });
-                });
-            });
-        }
+    public void initFailedTests(FailedTestsMatrix matrix, ChainTestsIndex testsIdx, int validBuildsCnt,
+        IStringCompactor compactor) {
+        matrix.union().forEach(idx -> {
+            String configurationName = compactor.getStringFromId(testsIdx.suite(idx));
+            Map<String, List<Object>> tests = mergedTestsBySuites.computeIfAbsent(configurationName,
+                k -> new HashMap<>());
+
+            String testName = compactor.getStringFromId(testsIdx.name(idx));
+            float addForFailRate = (float)matrix.failures(idx) / validBuildsCnt;
+
+            tests.merge(testName, Lists.newArrayList(Long.toString(testsIdx.testId(idx)), addForFailRate),
+                (a, b) -> Lists.newArrayList(a.get(0), (Float)a.get(1) + (Float)b.get(1)));
+        });
     }
 
     public BuildsHistory withParameters(Builder builder) {
@@ -17,27 +17,39 @@
 
 package org.apache.ignite.ci.web.rest.build;
 
+import com.google.gson.stream.JsonWriter;
 import com.google.inject.Injector;
-import java.util.Collection;
-import java.util.Collections;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.ignite.ci.tcbot.builds.BuildsDiff;
 import org.apache.ignite.ci.tcbot.builds.CompareBuildsService;
+import org.apache.ignite.ci.tcbot.builds.TestNamesDiff;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
-import org.apache.ignite.ci.util.Diff;
 import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.apache.ignite.ci.web.CtxListener;
 import org.apache.ignite.tcbot.common.exeption.ServiceUnauthorizedException;
 
 /**
- * Compare builds (by ID) tests' sets.
+ * Compare builds (by ID) tests' sets. Responses are written to output stream as they are rendered.
  */
 @Path("compare")
 @Produces(MediaType.APPLICATION_JSON)
@@ -54,76 +66,189 @@ public class CompareBuilds {
     @GET
     @Path("tests/txt")
     @Produces(MediaType.TEXT_PLAIN)
-    public String getTestFailsText(
+    public Response getTestFailsText(
         @QueryParam("serverId") String srvId,
         @QueryParam("buildId") Integer buildId
     ) throws ServiceUnauthorizedException {
-        StringBuilder buf = new StringBuilder();
+        List<String> tests = service(srvId).testNames(srvId, buildId, ITcBotUserCreds.get(req));
 
-        String prev = null;
+        return text(writer -> {
+            String prev = null;
 
-        for (String test : sortedTests(srvId, buildId)) {
-            buf.append(test);
+            for (String test : tests) {
+                writer.write(test);
 
-            if (test.equals(prev))
-                buf.append("  (dup name)");
+                if (test.equals(prev))
+                    writer.write("  (dup name)");
 
-            buf.append('\n');
+                writer.write('\n');
 
-            prev = test;
-        }
-
-        return buf.toString();
-    }
-
-    /** */
-    private List<String> sortedTests(String srv, Integer build) {
-        List<String> tests = tests(srv, build);
-
-        Collections.sort(tests);
-
-        return tests;
+                prev = test;
+            }
+        });
     }
 
     /** Compares two builds tests set. */
     @GET
     @Path("tests/cmp")
     @Produces(MediaType.TEXT_PLAIN)
-    public String getTestFailsComparision(
+    public Response getTestFailsComparision(
         @QueryParam("serverId") String srv,
         @QueryParam("build1") Integer build1,
         @QueryParam("build2") Integer build2
     ) throws ServiceUnauthorizedException {
-        Collection<String> tests1 = sortedTests(srv, build1);
-        Collection<String> tests2 = sortedTests(srv, build2);
+        TestNamesDiff diff = service(srv).compareTests(srv, build1, build2, ITcBotUserCreds.get(req));
+
+        return text(writer -> {
+            writer.write("\nSame (" + diff.sameCount() + ")\n");
+
+            writer.write("\nNew (" + diff.added().size() + ")\n");
+
+            for (String add : diff.added())
+                writer.append(add).append('\n');
+
+            writer.write("\nNot found (" + diff.removed().size() + ")\n");
 
-        Diff<String> diff = new Diff<>(tests1, tests2);
+            for (String remove : diff.removed())
+                writer.append(remove).append('\n');
+        });
+    }
 
-        StringBuilder buf = new StringBuilder();
+    /**
+     * Compares two chains suite by suite: added and removed tests, tests with changed status and tests with duration
+     * changed at least by given delta.
+     */
+    @GET
+    @Path("chains/cmp")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getChainsComparision(
+        @QueryParam("serverId") String srv,
+        @QueryParam("build1") Integer build1,
+        @QueryParam("build2") Integer build2,
+        @QueryParam("durationDelta") @DefaultValue("10000") long durationDelta
+    ) throws ServiceUnauthorizedException {
+        SortedMap<String, BuildsDiff> suites = service(srv)
+            .compareSuites(srv, build1, build2, ITcBotUserCreds.get(req));
 
-        buf.append("\nSame (").append(diff.same().size()).append(")\n");
+        IStringCompactor compactor = CtxListener.getInjector(ctx).getInstance(IStringCompactor.class);
 
-        buf.append("\nNew (").append(diff.added().size()).append(")\n");
+        StreamingOutput stream = os -> {
+            JsonWriter json = new JsonWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8)));
 
-        for (String add : diff.added())
-            buf.append(add).append('\n');
+            json.beginObject().name("suites").beginArray();
 
-        buf.append("\nNot found (").append(diff.removed().size()).append(")\n");
+            for (Map.Entry<String, BuildsDiff> suite : suites.entrySet())
+                writeSuite(json, suite.getKey(), suite.getValue(), durationDelta, compactor);
 
-        for (String remove : diff.removed())
-            buf.append(remove).append('\n');
+            json.endArray().endObject();
+            json.flush();
+        };
 
-        return buf.toString();
+        return Response.ok(stream).build();
     }
 
-    /** */
-    private List<String> tests(String srvCode, Integer buildId) {
+    /**
+     * @param json Json writer.
+     * @param suite Suite build type ID.
+     * @param diff Difference of suite tests.
+     * @param durationDelta Minimal change of test duration to be reported (milliseconds).
+     * @param compactor Compactor.
+     */
+    private static void writeSuite(JsonWriter json, String suite, BuildsDiff diff, long durationDelta,
+        IStringCompactor compactor) throws IOException {
+        json.beginObject();
+        json.name("suite").value(suite);
+        json.name("same").value(diff.sameCount());
+
+        json.name("added").beginArray();
+
+        for (String name : names(diff.addedNames(), compactor))
+            json.value(name);
+
+        json.endArray();
+
+        json.name("removed").beginArray();
+
+        for (String name : names(diff.removedNames(), compactor))
+            json.value(name);
+
+        json.endArray();
+
+        json.name("statusChanged").beginArray();
+
+        for (int k : diff.statusChanges()) {
+            json.beginObject()
+                .name("test").value(compactor.getStringFromId(diff.sameName(k)))
+                .name("status1").value(compactor.getStringFromId(diff.status1(k)))
+                .name("status2").value(compactor.getStringFromId(diff.status2(k)))
+                .endObject();
+        }
+
+        json.endArray();
+
+        json.name("durationChanged").beginArray();
+
+        for (int k : diff.durationChanges(durationDelta)) {
+            json.beginObject()
+                .name("test").value(compactor.getStringFromId(diff.sameName(k)))
+                .name("duration1").value(diff.duration1(k))
+                .name("duration2").value(diff.duration2(k))
+                .endObject();
+        }
+
+        json.endArray();
+
+        json.endObject();
+    }
+
+    /**
+     * @param ids Test name string IDs.
+     * @param compactor Compactor.
+     * @return Sorted names.
+     */
+    private static String[] names(int[] ids, IStringCompactor compactor) {
+        String[] res = Arrays.stream(ids).mapToObj(compactor::getStringFromId).toArray(String[]::new);
+
+        Arrays.sort(res);
+
+        return res;
+    }
+
+    /**
+     * @param body Response body renderer.
+     * @return Response streaming text as it is rendered.
+     */
+    private static Response text(TextBody body) {
+        StreamingOutput stream = os -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+
+            body.write(writer);
+
+            writer.flush();
+        };
+
+        return Response.ok(stream).build();
+    }
+
+    /**
+     * @param srvCode Server code.
+     * @return Service, access to server is checked.
+     */
+    private CompareBuildsService service(String srvCode) {
         Injector injector = CtxListener.getInjector(ctx);
 
-        ITcBotUserCreds prov = ITcBotUserCreds.get(req);
+        injector.getInstance(ITeamcityIgnitedProvider.class).checkAccess(srvCode, ITcBotUserCreds.get(req));
 
-        injector.getInstance(ITeamcityIgnitedProvider.class).checkAccess(srvCode, prov);
+        return injector.getInstance(CompareBuildsService.class);
+    }
 
-        return injector.getInstance(CompareBuildsService.class).tests0(srvCode, buildId, prov);
+    /**
+     * Renderer of text response.
+     */
+    private interface TextBody {
+        /**
+         * @param writer Writer.
+         */
+        void write(Writer writer) throws IOException;
     }
 }
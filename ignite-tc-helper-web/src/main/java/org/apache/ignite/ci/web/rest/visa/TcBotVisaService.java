@@ -17,7 +17,6 @@
 package org.apache.ignite.ci.web.rest.visa;
 
 import com.google.inject.Injector;
-import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -34,7 +33,7 @@ import org.apache.ignite.ci.tcbot.visa.ContributionCheckStatus;
 import org.apache.ignite.ci.tcbot.visa.ContributionToCheck;
 import org.apache.ignite.ci.tcbot.visa.CurrentVisaStatus;
 import org.apache.ignite.ci.tcbot.visa.TcBotTriggerAndSignOffService;
-import org.apache.ignite.ci.tcbot.visa.VisaStatus;
+import org.apache.ignite.ci.tcbot.visa.VisasHistoryPage;
 import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
 import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.apache.ignite.ci.web.CtxListener;
@@ -64,13 +63,18 @@ public class TcBotVisaService {
     }
 
     /**
+     * @param beforeId Visa ID to show visas issued before, {@code null} to show most recent visas.
+     * @param cnt Max count of visas to scan.
+     * @return Page of visas and ID to request older page with.
      */
     @GET
     @Path("history")
-    public Collection<VisaStatus> history() {
+    public VisasHistoryPage history(@Nullable @QueryParam("before") Long beforeId,
+        @Nullable @QueryParam("count") Integer cnt) {
         return CtxListener.getInjector(ctx)
             .getInstance(TcBotTriggerAndSignOffService.class)
-            .getVisasStatus(ITcBotUserCreds.get(req));
+            .getVisasStatus(ITcBotUserCreds.get(req), beforeId,
+                cnt == null ? TcBotTriggerAndSignOffService.DFLT_VISAS_HISTORY_CNT : cnt);
     }
 
     /**
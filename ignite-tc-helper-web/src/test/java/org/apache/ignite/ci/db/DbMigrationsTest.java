@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.db;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.affinity.rendezvous.RendezvousAffinityFunction;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.migrate.PartitionedMigration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks resumable partitioned and background data migrations.
+ */
+public class DbMigrationsTest {
+    /** Test ignite port. */
+    public static final int TEST_IGNITE_PORT = 64124;
+
+    /** Partitions of source cache. */
+    private static final int PARTS = 64;
+
+    /** Entries in source cache. */
+    private static final int ENTRIES = 10_000;
+
+    /** Partitions processed before the crash. */
+    private static final int PARTS_BEFORE_CRASH = 20;
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /** Source cache. */
+    private IgniteCache<Integer, Integer> src;
+
+    /** Destination cache. */
+    private IgniteCache<Integer, Integer> dst;
+
+    /** Checkpoints cache. */
+    private IgniteCache<String, Object> checkpoints;
+
+    /** */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /** */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /** */
+    @Before
+    public void initCaches() {
+        ignite.destroyCaches(ignite.cacheNames());
+
+        src = ignite.getOrCreateCache(new CacheConfiguration<Integer, Integer>("migrationSrc")
+            .setAffinity(new RendezvousAffinityFunction(false, PARTS)));
+
+        dst = ignite.getOrCreateCache("migrationDst");
+
+        checkpoints = ignite.getOrCreateCache(new CacheConfiguration<String, Object>("migrationCheckpoints")
+            .setAtomicityMode(CacheAtomicityMode.TRANSACTIONAL)
+            .setCacheMode(CacheMode.REPLICATED));
+
+        Map<Integer, Integer> data = new HashMap<>();
+
+        for (int i = 0; i < ENTRIES; i++)
+            data.put(i, i);
+
+        src.putAll(data);
+    }
+
+    /**
+     * Migration is killed after some partitions are processed and in the middle of a partition: resumed migration
+     * should process only partitions not checkpointed, including the one interrupted.
+     */
+    @Test
+    public void testMigrationResumedAfterCrash() {
+        Map<Integer, AtomicInteger> processedParts = new ConcurrentHashMap<>();
+        List<String> progress = new CopyOnWriteArrayList<>();
+        AtomicInteger completedParts = new AtomicInteger();
+        AtomicBoolean killed = new AtomicBoolean();
+
+        PartitionedMigration.PartitionProcessor copy = (cacheName, part) -> {
+            long cnt = 0;
+
+            try (QueryCursor<Cache.Entry<Integer, Integer>> cursor
+                     = src.query(new ScanQuery<Integer, Integer>().setPartition(part))) {
+                for (Cache.Entry<Integer, Integer> entry : cursor) {
+                    if (killed.get())
+                        throw new IllegalStateException("Killed");
+
+                    dst.put(entry.getKey(), entry.getValue() * 2);
+
+                    cnt++;
+
+                    // Crash in the middle of the partition, when enough partitions were completed.
+                    if (cnt == 5 && completedParts.get() >= PARTS_BEFORE_CRASH && killed.compareAndSet(false, true))
+                        throw new IllegalStateException("Killed");
+                }
+            }
+
+            processedParts.computeIfAbsent(part, p -> new AtomicInteger()).incrementAndGet();
+            completedParts.incrementAndGet();
+
+            return cnt;
+        };
+
+        try {
+            new PartitionedMigration(ignite, "copy", checkpoints, 4, progress::add)
+                .run(Collections.singletonList(src.getName()), copy);
+
+            fail("Migration should be killed");
+        }
+        catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("failed"));
+        }
+
+        Set<Integer> doneBeforeCrash = Collections.unmodifiableSet(new HashMap<>(processedParts).keySet());
+
+        assertTrue(doneBeforeCrash.size() >= PARTS_BEFORE_CRASH);
+        assertTrue(doneBeforeCrash.size() < PARTS);
+        assertFalse(progress.isEmpty());
+
+        killed.set(false);
+        completedParts.set(-PARTS); // Disables the crash.
+
+        long resumed = new PartitionedMigration(ignite, "copy", checkpoints, 4, progress::add)
+            .run(Collections.singletonList(src.getName()), copy);
+
+        assertEquals(PARTS, processedParts.size());
+
+        for (Map.Entry<Integer, AtomicInteger> entry : processedParts.entrySet())
+            assertEquals("Partition " + entry.getKey(), 1, entry.getValue().get());
+
+        long expResumed = 0;
+
+        for (int p = 0; p < PARTS; p++) {
+            if (!doneBeforeCrash.contains(p))
+                expResumed += src.localSizeLong(p);
+        }
+
+        assertEquals(expResumed, resumed);
+        assertEquals(ENTRIES, dst.size());
+
+        for (int i = 0; i < ENTRIES; i++)
+            assertEquals(Integer.valueOf(i * 2), dst.get(i));
+
+        assertTrue(progress.get(progress.size() - 1), progress.get(progress.size() - 1).contains(PARTS + "/" + PARTS));
+
+        PartitionedMigration.clearCheckpoints(checkpoints, "copy");
+
+        assertEquals(0, checkpoints.size());
+    }
+
+    /**
+     * Caches of previous versions are destroyed in background, after other migrations are done.
+     */
+    @Test
+    public void testLazyMigrationsAppliedInBackground() {
+        ignite.getOrCreateCache("digestHist");
+
+        List<String> progress = new CopyOnWriteArrayList<>();
+        DbMigrations migrations = new DbMigrations(ignite, 2, progress::add);
+
+        String res = migrations.dataMigration();
+
+        assertTrue(res, res.contains("to be done in background"));
+        assertNotNull(ignite.cache("digestHist"));
+
+        IgniteCache<String, Object> doneMigrations
+            = ignite.cache(DbMigrations.ignCacheNme(DbMigrations.DONE_MIGRATIONS, DbMigrations.DONE_MIGRATION_PREFIX));
+
+        assertTrue(doneMigrations.containsKey("migrate-GridIntList"));
+        assertFalse(doneMigrations.containsKey("destroy-digestHist"));
+
+        List<String> lazyProgress = new CopyOnWriteArrayList<>();
+        int progressBefore = progress.size();
+
+        migrations.lazyDataMigration(lazyProgress::add);
+
+        assertNull(ignite.cache("digestHist"));
+        assertTrue(doneMigrations.containsKey("destroy-digestHist"));
+        assertFalse(lazyProgress.isEmpty());
+        assertTrue(lazyProgress.toString(), lazyProgress.stream().anyMatch(msg -> msg.contains("destroy-digestHist")));
+        assertEquals("Progress of background migrations is reported to its own listener", progressBefore,
+            progress.size());
+
+        for (String key : doneMigrations.query(new ScanQuery<String, Object>()).getAll().stream()
+            .map(Cache.Entry::getKey).toArray(String[]::new))
+            assertFalse(key, key.startsWith(PartitionedMigration.CHECKPOINT_PREFIX));
+
+        String again = new DbMigrations(ignite, 2, progress::add).dataMigration();
+
+        assertTrue(again, again.startsWith("0 Migrations done"));
+        assertFalse(again, again.contains("background"));
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.observer;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.apache.ignite.ci.tcbot.ITcBotBgAuth;
+import org.apache.ignite.ci.tcbot.visa.TcBotTriggerAndSignOffService;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.user.ITcBotUserCreds;
+import org.apache.ignite.ci.web.model.ContributionKey;
+import org.apache.ignite.ci.web.model.JiraCommentResponse;
+import org.apache.ignite.ci.web.model.Visa;
+import org.apache.ignite.ci.web.model.VisaRequest;
+import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks observation of builds with JIRA emulated by visa issuer responding with configured latency.
+ */
+public class ObserverTaskTest {
+    /** Server id. */
+    private static final String SRV_ID = "apacheTest";
+
+    /** Ticket commented slowly. */
+    private static final String SLOW_TICKET = "IGNITE-1";
+
+    /** Compactor. */
+    private final IStringCompactor compactor = new InMemoryStringCompactor();
+
+    /** Build states by ID. */
+    private final Map<Integer, BuildRefCompacted> builds = new ConcurrentHashMap<>();
+
+    /** Last visa request by contribution. */
+    private final Map<ContributionKey, VisaRequest> visas = new ConcurrentHashMap<>();
+
+    /** JIRA latency by ticket, milliseconds. */
+    private final Map<String, Long> jiraLatency = new ConcurrentHashMap<>();
+
+    /** JIRA comments posted. */
+    private final Map<String, AtomicInteger> jiraComments = new ConcurrentHashMap<>();
+
+    /** Released when slow JIRA commenting is started. */
+    private final CountDownLatch slowJiraStarted = new CountDownLatch(1);
+
+    /** Teamcity. */
+    private ITeamcityIgnited teamcity;
+
+    /** Task. */
+    private ObserverTask task;
+
+    /** */
+    @Before
+    public void initTask() {
+        BuildRefCompacted.resetCached();
+
+        teamcity = mock(ITeamcityIgnited.class);
+
+        when(teamcity.getBuildRefs(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+
+            Map<Integer, BuildRefCompacted> res = new HashMap<>();
+
+            ids.forEach(id -> res.put(id, builds.getOrDefault(id, new BuildRefCompacted().withId(-1))));
+
+            return res;
+        });
+
+        ITeamcityIgnitedProvider tcProv = mock(ITeamcityIgnitedProvider.class);
+        when(tcProv.server(anyString(), any())).thenReturn(teamcity);
+
+        ITcBotBgAuth auth = mock(ITcBotBgAuth.class);
+        when(auth.isServerAuthorized()).thenReturn(true);
+        when(auth.getServerAuthorizerCreds()).thenReturn(mock(ITcBotUserCreds.class));
+
+        VisasHistoryStorage visasHistStorage = mock(VisasHistoryStorage.class);
+
+        when(visasHistStorage.getLastVisaRequest(any())).thenAnswer(inv -> visas.get(inv.<ContributionKey>getArgument(0)));
+
+        when(visasHistStorage.updateLastVisaRequest(any(), any())).thenAnswer(inv -> {
+            VisaRequest req = visas.get(inv.<ContributionKey>getArgument(0));
+
+            if (req == null)
+                return false;
+
+            inv.<Consumer<VisaRequest>>getArgument(1).accept(req);
+
+            return true;
+        });
+
+        doAnswer(inv -> {
+            VisaRequest req = inv.getArgument(0);
+
+            visas.put(req.getInfo().getContributionKey(), req);
+
+            return null;
+        }).when(visasHistStorage).put(any());
+
+        TcBotTriggerAndSignOffService visaIssuer = mock(TcBotTriggerAndSignOffService.class);
+
+        when(visaIssuer.notifyJira(anyString(), any(), anyString(), anyString(), anyString(), nullable(String.class)))
+            .thenAnswer(inv -> postJiraComment(inv.getArgument(4)));
+
+        task = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                // Providers are used to avoid members injection into mocks.
+                bind(IStringCompactor.class).toInstance(compactor);
+                bind(ITeamcityIgnitedProvider.class).toProvider(() -> tcProv);
+                bind(ITcBotBgAuth.class).toProvider(() -> auth);
+                bind(VisasHistoryStorage.class).toProvider(() -> visasHistStorage);
+                bind(TcBotTriggerAndSignOffService.class).toProvider(() -> visaIssuer);
+            }
+        }).getInstance(ObserverTask.class);
+    }
+
+    /** */
+    @After
+    public void stopTask() {
+        task.stop();
+    }
+
+    /**
+     * Emulates JIRA endpoint.
+     *
+     * @param ticket Ticket.
+     */
+    private Visa postJiraComment(String ticket) throws InterruptedException {
+        long latency = jiraLatency.getOrDefault(ticket, 0L);
+
+        if (SLOW_TICKET.equals(ticket))
+            slowJiraStarted.countDown();
+
+        if (latency > 0)
+            Thread.sleep(latency);
+
+        jiraComments.computeIfAbsent(ticket, k -> new AtomicInteger()).incrementAndGet();
+
+        return new Visa(Visa.JIRA_COMMENTED, new JiraCommentResponse(), 0);
+    }
+
+    /**
+     * @param ticket Ticket.
+     * @param buildIds Observed builds.
+     */
+    private ContributionKey observe(String ticket, int... buildIds) {
+        Build[] tcBuilds = new Build[buildIds.length];
+
+        for (int i = 0; i < buildIds.length; i++) {
+            tcBuilds[i] = new Build();
+            tcBuilds[i].setId(buildIds[i]);
+        }
+
+        BuildsInfo info = new BuildsInfo(SRV_ID, ticket, "pull/" + ticket + "/head", "RunAll", null, "user",
+            tcBuilds);
+
+        task.addInfo(info);
+
+        return info.getContributionKey();
+    }
+
+    /**
+     * @param id Build ID.
+     * @param state Build state.
+     * @param status Build status.
+     */
+    private void build(int id, String state, String status) {
+        builds.put(id, new BuildRefCompacted()
+            .withId(id)
+            .state(compactor.getStringId(state))
+            .status(compactor.getStringId(status)));
+    }
+
+    /**
+     * Status of all observed builds is requested in one lookup per pass and full builds are not loaded.
+     */
+    @Test
+    public void testStatusIsCheckedInOneLookup() {
+        build(1, BuildRef.STATE_FINISHED, BuildRef.STATUS_SUCCESS);
+        build(2, BuildRef.STATE_RUNNING, BuildRef.STATUS_SUCCESS);
+        build(3, BuildRef.STATE_FINISHED, BuildRef.STATUS_SUCCESS);
+        build(4, BuildRef.STATE_FINISHED, BuildRef.STATUS_UNKNOWN);
+
+        ContributionKey finished = observe("IGNITE-10", 1);
+        ContributionKey running = observe("IGNITE-11", 2, 3);
+        ContributionKey cancelled = observe("IGNITE-12", 4, 3);
+
+        String res = task.runObserverTask();
+
+        verify(teamcity, times(1)).getBuildRefs(anyCollection());
+        verify(teamcity, never()).getFatBuild(anyInt());
+        verify(teamcity, never()).getFatBuild(anyInt(), any());
+
+        assertTrue(res, res.contains("Checked 5 not finished 1"));
+        assertEquals(1, jiraComments.get("IGNITE-10").get());
+        assertNull(jiraComments.get("IGNITE-11"));
+        assertNull(jiraComments.get("IGNITE-12"));
+
+        assertNull(task.getInfo(finished));
+        assertTrue(visas.get(finished).getResult().isSuccess());
+        assertFalse(visas.get(finished).isObserving());
+
+        assertNotNull(task.getInfo(running));
+        assertTrue(visas.get(running).isObserving());
+
+        assertNull(task.getInfo(cancelled));
+        assertFalse(visas.get(cancelled).isObserving());
+    }
+
+    /**
+     * Slow JIRA commenting of one contribution does not block other notifications and observation removal.
+     */
+    @Test
+    public void testSlowJiraDoesNotBlockOtherObservations() throws Exception {
+        jiraLatency.put(SLOW_TICKET, 3000L);
+
+        build(1, BuildRef.STATE_FINISHED, BuildRef.STATUS_SUCCESS);
+        build(2, BuildRef.STATE_FINISHED, BuildRef.STATUS_SUCCESS);
+        build(3, BuildRef.STATE_RUNNING, BuildRef.STATUS_SUCCESS);
+
+        ContributionKey slow = observe(SLOW_TICKET, 1);
+        ContributionKey fast = observe("IGNITE-2", 2);
+        ContributionKey running = observe("IGNITE-3", 3);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> pass = executor.submit(task::runObserverTask);
+
+            assertTrue(slowJiraStarted.await(10, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+
+            assertTrue(task.removeBuildInfo(running));
+
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+            assertFalse(visas.get(running).isObserving());
+
+            String res = pass.get(30, TimeUnit.SECONDS);
+
+            assertTrue(res, res.contains(SLOW_TICKET));
+            assertTrue(res, res.contains("IGNITE-2"));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(task.getInfo(slow));
+        assertNull(task.getInfo(fast));
+        assertEquals(1, jiraComments.get(SLOW_TICKET).get());
+        assertEquals(1, jiraComments.get("IGNITE-2").get());
+    }
+
+    /**
+     * Pass is not stalled by JIRA commenting longer than timeout, contribution is commented by the next pass.
+     */
+    @Test
+    public void testJiraTimeout() throws Exception {
+        jiraLatency.put(SLOW_TICKET, 60_000L);
+
+        task.notifyTimeout(300);
+
+        build(1, BuildRef.STATE_FINISHED, BuildRef.STATUS_SUCCESS);
+        build(2, BuildRef.STATE_FINISHED, BuildRef.STATUS_SUCCESS);
+
+        ContributionKey slow = observe(SLOW_TICKET, 1);
+        ContributionKey fast = observe("IGNITE-2", 2);
+
+        long start = System.nanoTime();
+
+        String res = task.runObserverTask();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10_000);
+        assertTrue(res, res.contains("pending: 1"));
+
+        assertNull(task.getInfo(fast));
+        assertNotNull(task.getInfo(slow));
+        assertTrue(visas.get(slow).isObserving());
+        assertNull(jiraComments.get(SLOW_TICKET));
+
+        jiraLatency.put(SLOW_TICKET, 0L);
+
+        // Interrupted commenting returns the observation back asynchronously.
+        for (int i = 0; i < 50 && jiraComments.get(SLOW_TICKET) == null; i++) {
+            task.runObserverTask();
+
+            Thread.sleep(100);
+        }
+
+        assertNull(task.getInfo(slow));
+        assertEquals(1, jiraComments.get(SLOW_TICKET).get());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.builds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.ignite.ci.util.Diff;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks builds difference computed on test name string IDs is the same as {@link Diff} of sorted decoded names for
+ * random builds, including tests with the same name in several suites and duplicated tests.
+ */
+public class BuildsDiffTest {
+    /** Suites. */
+    private static final int SUITES = 4;
+
+    /** Distinct test names without suite name. */
+    private static final int NAMES = 40;
+
+    /** Compactor. */
+    private final IStringCompactor c = new InMemoryStringCompactor();
+
+    /**
+     * Compares difference of test names without suite name with {@link Diff} of sorted names.
+     */
+    @Test
+    public void testNamesDiffMatchesDiffOfSortedNames() {
+        Random rnd = new Random(42);
+
+        for (int iter = 0; iter < 500; iter++) {
+            List<String> build1 = randomBuild(rnd);
+            List<String> build2 = randomBuild(rnd);
+
+            Diff<String> exp = new Diff<>(sortedShortNames(build1), sortedShortNames(build2));
+
+            TestNamesDiff act = CompareBuildsService.compareTestNames(tests(build1), tests(build2), c);
+
+            assertEquals(exp.same().size(), act.sameCount());
+            assertEquals(exp.added(), act.added());
+            assertEquals(exp.removed(), act.removed());
+        }
+    }
+
+    /**
+     * Compares difference of name IDs with {@link Diff} of sorted IDs.
+     */
+    @Test
+    public void testIdsDiffMatchesDiffOfSortedIds() {
+        Random rnd = new Random(42);
+
+        for (int iter = 0; iter < 500; iter++) {
+            List<String> build1 = randomBuild(rnd);
+            List<String> build2 = randomBuild(rnd);
+
+            Diff<Integer> exp = new Diff<>(sortedIds(build1), sortedIds(build2));
+
+            BuildsDiff act = new BuildsDiff(tests(build1), tests(build2));
+
+            assertArrayEquals(toArray(exp.added()), act.addedNames());
+            assertArrayEquals(toArray(exp.removed()), act.removedNames());
+            assertEquals(exp.same().size(), act.sameCount());
+
+            for (int k = 0; k < act.sameCount(); k++)
+                assertEquals(exp.same().get(k).intValue(), act.sameName(k));
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testStatusAndDurationChanges() {
+        int a = c.getStringId("Suite0: org.apache.ATest.testA");
+        int b = c.getStringId("Suite0: org.apache.ATest.testB");
+        int d = c.getStringId("Suite0: org.apache.ATest.testD");
+        int e = c.getStringId("Suite0: org.apache.ATest.testE");
+
+        int ok = c.getStringId("SUCCESS");
+        int fail = c.getStringId("FAILURE");
+
+        BuildTests tests1 = BuildTests.of(new int[] {e, a, b, d}, new int[] {ok, ok, ok, fail},
+            new int[] {10, 100, BuildTests.UNKNOWN_DURATION, 5000});
+        BuildTests tests2 = BuildTests.of(new int[] {a, b, d}, new int[] {fail, ok, ok},
+            new int[] {20_000, 1, 5100});
+
+        BuildsDiff diff = new BuildsDiff(tests1, tests2);
+
+        assertEquals(3, diff.sameCount());
+        assertArrayEquals(new int[] {e}, diff.removedNames());
+        assertArrayEquals(new int[0], diff.addedNames());
+
+        List<Integer> statusChanged = Arrays.stream(diff.statusChanges()).map(diff::sameName).boxed()
+            .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(a, d), statusChanged);
+
+        int[] durationChanged = diff.durationChanges(1000);
+
+        assertEquals(1, durationChanged.length);
+        assertEquals(a, diff.sameName(durationChanged[0]));
+        assertEquals(100, diff.duration1(durationChanged[0]));
+        assertEquals(20_000, diff.duration2(durationChanged[0]));
+
+        // Unknown duration is not reported.
+        assertEquals(2, diff.durationChanges(100).length);
+
+        assertEquals(0, new BuildsDiff(BuildTests.empty(), BuildTests.empty()).sameCount());
+        assertArrayEquals(new int[] {a, b, d}, new BuildsDiff(BuildTests.empty(), tests2).addedNames());
+    }
+
+    /**
+     * @param rnd Random.
+     * @return Full names of tests of random chain build: the same test may run in several suites or several times.
+     */
+    private static List<String> randomBuild(Random rnd) {
+        List<String> res = new ArrayList<>();
+
+        int cnt = rnd.nextInt(5) == 0 ? 0 : rnd.nextInt(NAMES * 2);
+
+        for (int i = 0; i < cnt; i++) {
+            int name = rnd.nextInt(NAMES);
+
+            res.add("Suite" + rnd.nextInt(SUITES) + ": org.apache.Cls" + name / 5 + ".test" + name % 5);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param fullNames Full names.
+     */
+    private BuildTests tests(List<String> fullNames) {
+        int[] names = fullNames.stream().mapToInt(c::getStringId).toArray();
+        int[] durations = new int[names.length];
+
+        Arrays.fill(durations, BuildTests.UNKNOWN_DURATION);
+
+        return BuildTests.of(names, new int[names.length], durations);
+    }
+
+    /**
+     * @param fullNames Full names.
+     * @return Names without suite name, sorted.
+     */
+    private static List<String> sortedShortNames(List<String> fullNames) {
+        return fullNames.stream().map(n -> n.substring(n.indexOf(": ") + 2)).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * @param fullNames Full names.
+     * @return Name IDs, sorted.
+     */
+    private List<Integer> sortedIds(List<String> fullNames) {
+        List<Integer> res = fullNames.stream().map(c::getStringId).collect(Collectors.toList());
+
+        Collections.sort(res);
+
+        return res;
+    }
+
+    /**
+     * @param list List.
+     */
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
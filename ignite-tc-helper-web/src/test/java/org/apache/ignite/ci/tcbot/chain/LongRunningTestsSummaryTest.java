@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.chain;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import org.apache.ignite.ci.teamcity.ignited.TeamcityIgnitedMock;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.tcbot.common.util.FutureUtil;
+import org.apache.ignite.tcbot.engine.chain.BuildChainProcessor;
+import org.apache.ignite.tcbot.engine.conf.TcBotJsonConfig;
+import org.apache.ignite.tcbot.engine.ui.LrTestUi;
+import org.apache.ignite.tcbot.engine.ui.LrTestsSuiteSummaryUi;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcservice.model.conf.BuildType;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.apache.ignite.tcservice.model.result.stat.Statistics;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrencesFull;
+import org.apache.ignite.tcservice.util.XmlUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks long running tests report built from long running tests index is the same as report built from all builds of
+ * the chain loaded with tests.
+ */
+public class LongRunningTestsSummaryTest {
+    /** Chain runs in history. */
+    private static final int CHAINS = 4;
+
+    /** Suites in chain. */
+    private static final int SUITES = 3;
+
+    /** Builds emulated storage. */
+    private final Map<Integer, FatBuildCompacted> builds = new ConcurrentHashMap<>();
+
+    /** Injector. */
+    private final Injector injector = Guice.createInjector(new MockBasedTcBotModule(new TcBotJsonConfig()));
+
+    /** Compactor. */
+    private IStringCompactor c;
+
+    /** TC ignited. */
+    private ITeamcityIgnited tcIgn;
+
+    /** */
+    @Before
+    public void initBuilds() throws Exception {
+        c = injector.getInstance(IStringCompactor.class);
+        tcIgn = TeamcityIgnitedMock.getMutableMapTeamcityIgnited(builds, c);
+
+        Statistics stat = jaxbTestXml("/statistics.xml", Statistics.class);
+
+        for (int chain = 0; chain < CHAINS; chain++) {
+            Build buildApacheIgnite = jaxbTestXml("/build.xml", Build.class);
+            setType(buildApacheIgnite, "IgniteTests24Java8_BuildApacheIgnite");
+            buildApacheIgnite.setId(buildApacheIgniteId(chain));
+            buildApacheIgnite.snapshotDependencies(Collections.emptyList());
+            put(new FatBuildCompacted(c, buildApacheIgnite));
+
+            List<Integer> suiteIds = new ArrayList<>();
+
+            for (int suite = 0; suite < SUITES; suite++) {
+                Build build = jaxbTestXml("/build.xml", Build.class);
+                TestOccurrencesFull tests = jaxbTestXml("/testList.xml", TestOccurrencesFull.class);
+
+                setType(build, "IgniteTests24Java8_Suite" + suite);
+                build.setId(suiteId(chain, suite));
+                build.snapshotDependencies(Collections.singletonList(ref(buildApacheIgniteId(chain))));
+
+                if (chain == CHAINS - 1 && suite == SUITES - 1)
+                    build.state = BuildRef.STATE_RUNNING;
+
+                // Recorded durations are scaled to get long running tests, number of tests differs between suites.
+                for (TestOccurrenceFull test : tests.getTests()) {
+                    if (test.duration != null)
+                        test.duration = test.duration * (2 + suite) + chain * 1000;
+                }
+
+                FatBuildCompacted fatBuild = new FatBuildCompacted(c, build)
+                    .addTests(c, tests.getTests().subList(0, tests.getTests().size() - suite * 10), null);
+
+                fatBuild.statistics(c, stat);
+
+                put(fatBuild);
+
+                suiteIds.add(build.getId());
+            }
+
+            Build nested = compositeBuild(nestedChainId(chain), "IgniteTests24Java8_RunAllNested",
+                suiteIds.subList(1, SUITES));
+            put(new FatBuildCompacted(c, nested));
+
+            Build runAll = compositeBuild(chainId(chain), "IgniteTests24Java8_RunAll",
+                Arrays.asList(suiteIds.get(0), nestedChainId(chain)));
+            put(new FatBuildCompacted(c, runAll));
+        }
+    }
+
+    /** */
+    @Test
+    public void testSummaryFromIndexEqualsFullComputation() {
+        BuildChainProcessor proc = injector.getInstance(BuildChainProcessor.class);
+
+        int lastChain = CHAINS - 1;
+        List<Integer> entryPoints = Collections.singletonList(chainId(lastChain));
+
+        List<LrTestsSuiteSummaryUi> act = proc.loadLongRunningTestsSummary(tcIgn, entryPoints);
+
+        // Finished suites are taken from the index, running suite is loaded.
+        verify(tcIgn, never()).getFatBuild(eq(suiteId(lastChain, 0)), any(SyncMode.class));
+        verify(tcIgn).getFatBuild(eq(suiteId(lastChain, SUITES - 1)), any(SyncMode.class));
+
+        List<LrTestsSuiteSummaryUi> exp = fullComputation(proc, entryPoints);
+
+        assertFalse(exp.isEmpty());
+        assertEquals(exp.size(), act.size());
+
+        for (int i = 0; i < exp.size(); i++) {
+            LrTestsSuiteSummaryUi expSuite = exp.get(i);
+            LrTestsSuiteSummaryUi actSuite = act.get(i);
+
+            assertEquals(expSuite.name, actSuite.name);
+            assertEquals(expSuite.testAvgTime, actSuite.testAvgTime);
+            assertEquals(expSuite.tests.size(), actSuite.tests.size());
+
+            for (int j = 0; j < expSuite.tests.size(); j++) {
+                assertEquals(expSuite.tests.get(j).name, actSuite.tests.get(j).name);
+                assertEquals(expSuite.tests.get(j).time, actSuite.tests.get(j).time);
+            }
+        }
+
+        LrTestsSuiteSummaryUi suite0 = act.stream().filter(s -> s.name.endsWith("Suite0")).findAny().orElse(null);
+        assertNotNull(suite0);
+        assertEquals(CHAINS, suite0.testAvgTimeTrend.size());
+
+        LrTestUi top = suite0.tests.get(0);
+        assertEquals(CHAINS, top.timeTrend.size());
+        assertEquals(Long.valueOf(top.time), top.timeTrend.get(CHAINS - 1));
+        assertEquals(Long.valueOf(top.time - 1000), top.timeTrend.get(CHAINS - 2));
+
+        LrTestsSuiteSummaryUi running = act.stream().filter(s -> s.name.endsWith("Suite" + (SUITES - 1)))
+            .findAny().orElse(null);
+        assertNotNull(running);
+        assertNull(running.testAvgTimeTrend);
+    }
+
+    /**
+     * Long running tests summary computation using all tests of all builds in chain.
+     *
+     * @param proc Processor.
+     * @param entryPoints Entry points.
+     */
+    private List<LrTestsSuiteSummaryUi> fullComputation(BuildChainProcessor proc, List<Integer> entryPoints) {
+        List<LrTestsSuiteSummaryUi> res = new ArrayList<>();
+
+        Map<Integer, Future<FatBuildCompacted>> chainBuilds
+            = proc.loadAllBuildsInChains(entryPoints, SyncMode.RELOAD_QUEUED, tcIgn);
+
+        chainBuilds.values().stream().map(FutureUtil::getResult)
+            .filter(b -> !b.isComposite() && b.getTestsCount() > 0)
+            .forEach(b -> {
+                List<LrTestUi> lrTests = new ArrayList<>();
+
+                b.getAllTests()
+                    .filter(t -> t.getDuration() != null && t.getDuration() > 60 * 1000)
+                    .forEach(t -> lrTests.add(new LrTestUi(t.testName(c), t.getDuration(), null)));
+
+                if (!lrTests.isEmpty()) {
+                    lrTests.sort((test0, test1) -> Long.compare(test1.time, test0.time));
+
+                    res.add(new LrTestsSuiteSummaryUi(b.buildTypeName(c),
+                        b.buildDuration(c) / b.getTestsCount(),
+                        lrTests));
+                }
+            });
+
+        res.sort((s0, s1) -> Long.compare(s1.testAvgTime, s0.testAvgTime));
+
+        return res;
+    }
+
+    /**
+     * @param build Build.
+     */
+    private void put(FatBuildCompacted build) {
+        builds.put(build.id(), build);
+    }
+
+    /**
+     * @param id Build id.
+     * @param btId Build type id.
+     * @param deps Dependencies.
+     */
+    private static Build compositeBuild(int id, String btId, List<Integer> deps) {
+        Build build = new Build();
+
+        setType(build, btId);
+        build.setId(id);
+        build.setBranchName("refs/heads/master");
+        build.state = BuildRef.STATE_FINISHED;
+        build.status = BuildRef.STATUS_SUCCESS;
+        build.composite = true;
+
+        List<BuildRef> depRefs = new ArrayList<>();
+
+        for (Integer dep : deps)
+            depRefs.add(ref(dep));
+
+        build.snapshotDependencies(depRefs);
+
+        return build;
+    }
+
+    /**
+     * @param build Build.
+     * @param btId Build type id.
+     */
+    private static void setType(Build build, String btId) {
+        BuildType type = new BuildType();
+
+        type.setId(btId);
+        type.setName(btId);
+
+        build.buildTypeId = btId;
+        build.setBuildType(type);
+    }
+
+    /**
+     * @param id Build id.
+     */
+    private static BuildRef ref(int id) {
+        BuildRef ref = new BuildRef();
+
+        ref.setId(id);
+
+        return ref;
+    }
+
+    /** */
+    private static int chainId(int chain) {
+        return 1000 + chain * 100;
+    }
+
+    /** */
+    private static int nestedChainId(int chain) {
+        return chainId(chain) + 1;
+    }
+
+    /** */
+    private static int buildApacheIgniteId(int chain) {
+        return chainId(chain) + 2;
+    }
+
+    /** */
+    private static int suiteId(int chain, int suite) {
+        return chainId(chain) + 10 + suite;
+    }
+
+    /**
+     * @param ref Resource name.
+     * @param cls Class.
+     */
+    private <E> E jaxbTestXml(String ref, Class<E> cls) throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(ref)) {
+            return XmlUtil.load(cls, new InputStreamReader(stream));
+        }
+    }
+}
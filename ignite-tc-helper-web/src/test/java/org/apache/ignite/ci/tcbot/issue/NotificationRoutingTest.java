@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.issue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.apache.ignite.tcbot.engine.conf.INotificationChannel;
+import org.apache.ignite.tcbot.engine.conf.NotificationsConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks notification routing table gives the same candidates as filtering of all channels for each issue.
+ */
+public class NotificationRoutingTest {
+    /** Servers. */
+    private static final List<String> SERVERS = Arrays.asList("apache", "private", "public");
+
+    /** Branches. */
+    private static final List<String> BRANCHES = Arrays.asList("master", "ignite-2.8", "ignite-2.9", "nightly");
+
+    /** Tags. */
+    private static final List<String> TAGS = Arrays.asList("java8", "java11", "win", "linux", "ssl");
+
+    /** */
+    @Test
+    public void testRoutingEqualsFullFiltering() {
+        Random rnd = new Random(42);
+
+        List<INotificationChannel> channels = new ArrayList<>();
+
+        for (int i = 0; i < 60; i++)
+            channels.add(new Channel(i, subset(rnd, SERVERS), subset(rnd, BRANCHES), rnd.nextInt(3) == 0
+                ? subset(rnd, TAGS)
+                : new HashSet<>()));
+
+        NotificationRouting routing = new NotificationRouting(new NotificationsConfig(), 0, channels);
+
+        for (int i = 0; i < 5000; i++) {
+            String srv = SERVERS.get(rnd.nextInt(SERVERS.size()));
+            String branch = BRANCHES.get(rnd.nextInt(BRANCHES.size()));
+            Set<String> tags = new TreeSet<>(subset(rnd, TAGS));
+
+            List<INotificationChannel> srvAllowed = channels.stream()
+                .filter(ch -> ch.isServerAllowed(srv))
+                .collect(Collectors.toList());
+
+            List<INotificationChannel> subscribed = srvAllowed.stream()
+                .filter(ch -> ch.isSubscribedToBranch(branch))
+                .collect(Collectors.toList());
+
+            List<INotificationChannel> exp = subscribed.stream()
+                .filter(ch -> !ch.hasTagFilter() || tags.stream().anyMatch(ch::isSubscribedToTag))
+                .collect(Collectors.toList());
+
+            NotificationRouting.Candidates candidates = routing.candidates(srv, branch, tags);
+
+            assertEquals(exp, candidates.channels);
+            assertEquals(srvAllowed.size(), candidates.srvAllowed);
+            assertEquals(subscribed.size(), candidates.subscribed);
+            assertEquals(exp.size(), candidates.tagsFilterPassed);
+        }
+    }
+
+    /** */
+    @Test
+    public void testRoutingIsRebuiltOnChanges() {
+        NotificationsConfig cfg = new NotificationsConfig();
+
+        NotificationRouting routing = new NotificationRouting(cfg, 3, new ArrayList<>());
+
+        assertTrue(routing.isActual(cfg, 3));
+        assertFalse(routing.isActual(cfg, 4));
+        assertFalse(routing.isActual(new NotificationsConfig(), 3));
+    }
+
+    /**
+     * @param rnd Random.
+     * @param vals Values.
+     */
+    private static Set<String> subset(Random rnd, List<String> vals) {
+        return vals.stream().filter(v -> rnd.nextBoolean()).collect(Collectors.toSet());
+    }
+
+    /**
+     * Channel with fixed subscriptions.
+     */
+    private static class Channel implements INotificationChannel {
+        /** Index. */
+        private final int idx;
+
+        /** Servers. */
+        private final Set<String> srvs;
+
+        /** Branches. */
+        private final Set<String> branches;
+
+        /** Tags. */
+        private final Set<String> tags;
+
+        /**
+         * @param idx Index.
+         * @param srvs Servers.
+         * @param branches Branches.
+         * @param tags Tags.
+         */
+        Channel(int idx, Set<String> srvs, Set<String> branches, Set<String> tags) {
+            this.idx = idx;
+            this.srvs = srvs;
+            this.branches = branches;
+            this.tags = tags;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isSubscribedToBranch(String trackedBranchId) {
+            return branches.contains(trackedBranchId);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isServerAllowed(String srvCode) {
+            return srvs.contains(srvCode);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isSubscribedToTag(@Nullable String tag) {
+            return tags.contains(tag);
+        }
+
+        /** {@inheritDoc} */
+        @Override public String email() {
+            return "user" + idx + "@example.com";
+        }
+
+        /** {@inheritDoc} */
+        @Override public String slack() {
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean hasTagFilter() {
+            return !tags.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.trends;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.tcbot.chain.MockBasedTcBotModule;
+import org.apache.ignite.ci.teamcity.ignited.TeamcityIgnitedMock;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.web.model.trends.BuildStatisticsSummary;
+import org.apache.ignite.ci.web.model.trends.BuildsHistory;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.tcbot.engine.conf.TcBotJsonConfig;
+import org.apache.ignite.tcbot.engine.trends.BuildStatisticsStorage;
+import org.apache.ignite.tcbot.engine.trends.ChainTestsIndex;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsCompacted;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsMatrix;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcservice.model.conf.BuildType;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.apache.ignite.tcservice.model.result.stat.Statistics;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrencesFull;
+import org.apache.ignite.tcservice.util.XmlUtil;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks build trends statistics read from statistics storage are the same as statistics computed from all builds of
+ * the chain.
+ */
+public class MasterTrendsServiceTest {
+    /** Test ignite port. */
+    private static final int TEST_IGNITE_PORT = 64124;
+
+    /** Chain runs in history. */
+    private static final int CHAINS = 3;
+
+    /** Suites in chain. */
+    private static final int SUITES = 3;
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /** Builds emulated storage. */
+    private final Map<Integer, FatBuildCompacted> builds = new ConcurrentHashMap<>();
+
+    /** Injector. */
+    private Injector injector;
+
+    /** Compactor. */
+    private IStringCompactor c;
+
+    /** TC ignited. */
+    private ITeamcityIgnited tcIgn;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /** */
+    @Before
+    public void initBuilds() throws Exception {
+        injector = Guice.createInjector(Modules.override(new MockBasedTcBotModule(new TcBotJsonConfig()))
+            .with(new AbstractModule() {
+                @Override protected void configure() {
+                    bind(Ignite.class).toInstance(ignite);
+                }
+            }));
+
+        BuildStatisticsStorage.statisticsCache(ignite).clear();
+        BuildStatisticsStorage.testsIndexCache(ignite).clear();
+
+        c = injector.getInstance(IStringCompactor.class);
+        tcIgn = TeamcityIgnitedMock.getMutableMapTeamcityIgnited(builds, c);
+
+        Statistics stat = jaxbTestXml("/statistics.xml", Statistics.class);
+
+        for (int chain = 0; chain < CHAINS; chain++) {
+            List<BuildRef> suiteRefs = new ArrayList<>();
+
+            for (int suite = 0; suite < SUITES; suite++) {
+                Build build = jaxbTestXml("/build.xml", Build.class);
+                TestOccurrencesFull tests = jaxbTestXml("/testList.xml", TestOccurrencesFull.class);
+
+                setType(build, "IgniteTests24Java8_Suite" + suite);
+                build.setId(suiteId(chain, suite));
+                build.snapshotDependencies(Collections.emptyList());
+
+                if (chain == CHAINS - 1 && suite == SUITES - 1)
+                    build.state = BuildRef.STATE_RUNNING;
+
+                // Failures differ between chains and suites.
+                List<TestOccurrenceFull> testList = tests.getTests();
+
+                for (int i = chain + suite; i < testList.size(); i += 7)
+                    testList.get(i).status = TestOccurrence.STATUS_FAILURE;
+
+                FatBuildCompacted fatBuild = new FatBuildCompacted(c, build)
+                    .addTests(c, testList.subList(0, testList.size() - suite * 10), null);
+
+                fatBuild.statistics(c, stat);
+
+                builds.put(fatBuild.id(), fatBuild);
+
+                suiteRefs.add(ref(build.getId()));
+            }
+
+            Build runAll = jaxbTestXml("/build.xml", Build.class);
+
+            setType(runAll, "IgniteTests24Java8_RunAll");
+            runAll.setId(chainId(chain));
+            runAll.composite = true;
+            runAll.snapshotDependencies(suiteRefs);
+
+            builds.put(chainId(chain), new FatBuildCompacted(c, runAll));
+        }
+    }
+
+    /** */
+    @Test
+    public void testSavedStatisticsEqualsFullComputation() {
+        MasterTrendsService svc = injector.getInstance(MasterTrendsService.class);
+
+        List<BuildStatisticsSummary> exp = new ArrayList<>();
+
+        for (int chain = 0; chain < CHAINS; chain++) {
+            BuildStatisticsSummary s = new BuildStatisticsSummary(chainId(chain));
+
+            svc.initialize(s, tcIgn);
+
+            exp.add(s);
+        }
+
+        for (int chain = 0; chain < CHAINS; chain++)
+            assertSummaryEquals(exp.get(chain), svc.getBuildSummary(tcIgn, chainId(chain)));
+
+        clearInvocations(tcIgn);
+
+        // Finished chains are read from storage, chain with running build is computed again.
+        for (int chain = 0; chain < CHAINS; chain++)
+            assertSummaryEquals(exp.get(chain), svc.getBuildSummary(tcIgn, chainId(chain)));
+
+        for (int chain = 0; chain < CHAINS - 1; chain++) {
+            verify(tcIgn, never()).getFatBuild(chainId(chain));
+            verify(tcIgn, never()).getFatBuild(eq(suiteId(chain, 0)), any(SyncMode.class));
+        }
+
+        verify(tcIgn, atLeastOnce()).getFatBuild(anyInt(), any(SyncMode.class));
+
+        Map<Integer, ?> saved = injector.getInstance(BuildStatisticsStorage.class)
+            .getAll(0, Collections.singletonList(chainId(CHAINS - 1)));
+
+        assertTrue(saved.isEmpty());
+    }
+
+    /**
+     * Checks fail rates merged using failed tests bitmaps are the same as rates merged by test names of all builds.
+     */
+    @Test
+    public void testFailedTestsMatrixEqualsMergeByNames() {
+        MasterTrendsService svc = injector.getInstance(MasterTrendsService.class);
+        BuildStatisticsStorage storage = injector.getInstance(BuildStatisticsStorage.class);
+
+        List<FailedTestsCompacted> failedTests = new ArrayList<>();
+        Map<String, Map<String, Float>> exp = new HashMap<>();
+
+        for (int chain = 0; chain < CHAINS; chain++) {
+            BuildStatisticsSummary s = new BuildStatisticsSummary(chainId(chain));
+
+            svc.initialize(s, tcIgn);
+
+            failedTests.add(s.failedTests());
+
+            for (int suite = 0; suite < SUITES; suite++) {
+                FatBuildCompacted build = builds.get(suiteId(chain, suite));
+
+                build.getAllTests()
+                    .filter(t -> t.status() == c.getStringId(TestOccurrence.STATUS_FAILURE))
+                    .filter(t -> !t.isIgnoredTest() && !t.isMutedTest())
+                    .forEach(t -> exp.computeIfAbsent(build.buildTypeId(c), k -> new HashMap<>())
+                        .merge(t.testName(c), 1F / CHAINS, Float::sum));
+            }
+        }
+
+        FailedTestsMatrix matrix = new FailedTestsMatrix(failedTests);
+
+        int chainBt = c.getStringId("IgniteTests24Java8_RunAll");
+        ChainTestsIndex idx = storage.testsIndex(ITeamcityIgnited.serverIdToInt(tcIgn.serverCode()), chainBt,
+            matrix.indexSize());
+
+        BuildsHistory hist = new BuildsHistory();
+
+        hist.initFailedTests(matrix, idx, CHAINS, c);
+
+        assertEquals(exp.keySet(), hist.mergedTestsBySuites.keySet());
+
+        exp.forEach((suite, tests) -> {
+            Map<String, List<Object>> act = hist.mergedTestsBySuites.get(suite);
+
+            assertEquals(tests.keySet(), act.keySet());
+
+            tests.forEach((name, rate) -> assertEquals(name, rate, (Float)act.get(name).get(1), 1e-6));
+        });
+
+        // Tests failed in all chains are in intersection.
+        matrix.intersection().forEach(i -> assertEquals(CHAINS, matrix.failedBuilds(i)));
+        assertEquals(matrix.intersection(), matrix.failedInMoreThan(1 - 1e-6));
+    }
+
+    /**
+     * @param exp Expected.
+     * @param act Actual.
+     */
+    private static void assertSummaryEquals(BuildStatisticsSummary exp, BuildStatisticsSummary act) {
+        assertFalse(exp.isFakeStub);
+        assertNotNull(exp.startDate);
+        assertNotNull(exp.failedTests());
+        assertFalse(exp.failedTests().tests().isEmpty());
+
+        assertEquals(exp.buildId, act.buildId);
+        assertEquals(exp.isFakeStub, act.isFakeStub);
+        assertEquals(exp.startDate, act.startDate);
+        assertEquals(exp.duration, act.duration);
+        assertEquals(exp.totalProblems, act.totalProblems);
+        assertEquals(exp.testOccurrences.count, act.testOccurrences.count);
+        assertEquals(exp.testOccurrences.passed, act.testOccurrences.passed);
+        assertEquals(exp.testOccurrences.failed, act.testOccurrences.failed);
+        assertEquals(exp.testOccurrences.ignored, act.testOccurrences.ignored);
+        assertEquals(exp.testOccurrences.muted, act.testOccurrences.muted);
+        assertEquals(exp.failedTests(), act.failedTests());
+    }
+
+    /**
+     * @param build Build.
+     * @param btId Build type id.
+     */
+    private static void setType(Build build, String btId) {
+        BuildType type = new BuildType();
+
+        type.setId(btId);
+        type.setName(btId);
+
+        build.buildTypeId = btId;
+        build.setBuildType(type);
+    }
+
+    /**
+     * @param id Build id.
+     */
+    private static BuildRef ref(int id) {
+        BuildRef ref = new BuildRef();
+
+        ref.setId(id);
+
+        return ref;
+    }
+
+    /** */
+    private static int chainId(int chain) {
+        return 1000 + chain * 100;
+    }
+
+    /** */
+    private static int suiteId(int chain, int suite) {
+        return chainId(chain) + 10 + suite;
+    }
+
+    /**
+     * @param ref Resource name.
+     * @param cls Class.
+     */
+    private <E> E jaxbTestXml(String ref, Class<E> cls) throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(ref)) {
+            return XmlUtil.load(cls, new InputStreamReader(stream));
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.visa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.internal.SingletonScope;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.ignite.ci.github.GitHubBranch;
+import org.apache.ignite.ci.github.PullRequest;
+import org.apache.ignite.ci.observer.BuildObserver;
+import org.apache.ignite.ci.observer.BuildsInfo;
+import org.apache.ignite.ci.tcbot.ITcBotBgAuth;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.buildtype.BuildTypeCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.user.ITcBotUserCreds;
+import org.apache.ignite.ci.web.model.VisaRequest;
+import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
+import org.apache.ignite.githubignited.IGitHubConnIgnited;
+import org.apache.ignite.githubignited.IGitHubConnIgnitedProvider;
+import org.apache.ignite.jiraignited.IJiraIgnitedProvider;
+import org.apache.ignite.tcbot.common.conf.IGitHubConfig;
+import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
+import org.apache.ignite.tcbot.engine.conf.ITcBotConfig;
+import org.apache.ignite.tcbot.engine.pool.TcUpdatePool;
+import org.apache.ignite.tcbot.engine.pr.PrChainsProcessor;
+import org.apache.ignite.tcbot.engine.ui.ShortSuiteUi;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
+import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.hist.Builds;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.apache.ignite.tcservice.util.XmlUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks concurrent contribution statuses evaluation using recorded builds history.
+ */
+public class ContributionStatusesTest {
+    /** Server code. */
+    private static final String SRV = "apache";
+
+    /** Project. */
+    private static final String PROJECT = "IgniteTests24Java8";
+
+    /** Default suite. */
+    private static final String RUN_ALL = PROJECT + "_RunAll";
+
+    /** Compactor. */
+    private final IStringCompactor compactor = new InMemoryStringCompactor();
+
+    /** Recorded builds. */
+    private final List<BuildRefCompacted> builds = new ArrayList<>();
+
+    /** Suites of recorded builds. */
+    private final List<String> suites = new ArrayList<>();
+
+    /** GitHub. */
+    private IGitHubConnIgnited gh;
+
+    /** TC. */
+    private ITeamcityIgnited tc;
+
+    /** PR chains processor. */
+    private PrChainsProcessor prChainsProcessor;
+
+    /** Pool. */
+    private TcUpdatePool pool;
+
+    /** Service. */
+    private TcBotTriggerAndSignOffService svc;
+
+    /** Visas history. */
+    private VisasHistoryStorage visasStorage;
+
+    /**
+     *
+     */
+    @Before
+    public void setUp() throws Exception {
+        BuildRefCompacted.resetCached();
+
+        for (String page : Arrays.asList("/buildHistoryMaster.xml", "/buildHistoryMasterPage2.xml")) {
+            try (Reader reader = new InputStreamReader(getClass().getResourceAsStream(page), StandardCharsets.UTF_8)) {
+                for (BuildRef ref : XmlUtil.load(Builds.class, reader).getBuildsNonNull())
+                    builds.add(new BuildRefCompacted(compactor, ref));
+            }
+        }
+
+        Set<String> suitesSet = new LinkedHashSet<>();
+        builds.forEach(b -> suitesSet.add(b.buildTypeId(compactor)));
+        suitesSet.add(RUN_ALL);
+        suites.addAll(suitesSet);
+
+        IGitHubConfig ghCfg = mock(IGitHubConfig.class);
+        when(ghCfg.code()).thenReturn(SRV);
+
+        List<PullRequest> prs = Arrays.asList(pr(4926, "ignite-9999"), pr(2, "ignite-gg-11133"), pr(1, "ignite-1"),
+            pr(3, "refs/heads/master")); // Finished builds are recorded only for master.
+
+        gh = mock(IGitHubConnIgnited.class);
+        when(gh.config()).thenReturn(ghCfg);
+        when(gh.gitBranchPrefix()).thenReturn("ignite-gg-");
+        for (PullRequest pr : prs)
+            when(gh.getPullRequest(pr.getNumber())).thenReturn(pr);
+
+        BuildTypeCompacted runAll = mock(BuildTypeCompacted.class);
+        when(runAll.projectId()).thenReturn(compactor.getStringId(PROJECT));
+
+        tc = mock(ITeamcityIgnited.class);
+        when(tc.host()).thenReturn("https://ci.ignite.apache.org/");
+        when(tc.getBuildType(RUN_ALL)).thenReturn(runAll);
+        when(tc.getCompositeBuildTypesIdsSortedByBuildNumberCounter(PROJECT)).thenReturn(suites);
+        when(tc.getAllBuildsCompacted(anyString(), anyString())).thenAnswer(inv -> {
+            String suite = inv.getArgument(0);
+            String branch = inv.getArgument(1);
+
+            return builds.stream()
+                .filter(b -> suite.equals(b.buildTypeId(compactor)) && branch.equals(b.branchName(compactor)))
+                .collect(Collectors.toList());
+        });
+        when(tc.getAllBuildsForBranch(anyString())).thenAnswer(inv -> {
+            String branch = inv.getArgument(0);
+
+            return builds.stream()
+                .filter(b -> branch.equals(b.branchName(compactor)))
+                .collect(Collectors.toList());
+        });
+        when(tc.getFatBuild(anyInt(), eq(SyncMode.NONE))).thenAnswer(inv -> {
+            Build build = new Build();
+
+            build.setId(inv.getArgument(0));
+
+            return new FatBuildCompacted(compactor, build);
+        });
+        when(tc.getLatestCommitVersion(any())).thenAnswer(inv -> {
+            FatBuildCompacted build = inv.getArgument(0);
+
+            return String.format("%040x", build.id());
+        });
+
+        IGitHubConnIgnitedProvider ghProv = mock(IGitHubConnIgnitedProvider.class);
+        when(ghProv.server(anyString())).thenReturn(gh);
+
+        ITeamcityIgnitedProvider tcProv = mock(ITeamcityIgnitedProvider.class);
+        when(tcProv.server(anyString(), any())).thenReturn(tc);
+
+        ITcServerConfig tcCfg = mock(ITcServerConfig.class);
+        when(tcCfg.defaultVisaSuiteId()).thenReturn(RUN_ALL);
+
+        ITcBotConfig cfg = mock(ITcBotConfig.class);
+        when(cfg.getTeamcityConfig(anyString())).thenReturn(tcCfg);
+
+        BuildObserver observer = mock(BuildObserver.class);
+
+        prChainsProcessor = mock(PrChainsProcessor.class);
+
+        visasStorage = mock(VisasHistoryStorage.class);
+
+        svc = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                // Providers are used to avoid members injection into mocks.
+                bind(IStringCompactor.class).toInstance(compactor);
+                bind(IGitHubConnIgnitedProvider.class).toProvider(() -> ghProv);
+                bind(IJiraIgnitedProvider.class).toProvider(() -> mock(IJiraIgnitedProvider.class));
+                bind(ITeamcityIgnitedProvider.class).toProvider(() -> tcProv);
+                bind(ITcBotConfig.class).toProvider(() -> cfg);
+                bind(BuildObserver.class).toProvider(() -> observer);
+                bind(VisasHistoryStorage.class).toProvider(() -> visasStorage);
+                bind(ITcBotBgAuth.class).toProvider(() -> mock(ITcBotBgAuth.class));
+                bind(PrChainsProcessor.class).toProvider(() -> prChainsProcessor);
+                bind(TcUpdatePool.class).in(new SingletonScope());
+            }
+        }).getInstance(TcBotTriggerAndSignOffService.class);
+
+        pool = svc.tcUpdatePool;
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown() {
+        pool.stop();
+
+        BuildRefCompacted.resetCached();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testStatusesAreSameAsSequentiallyEvaluated() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        List<ContributionCheckStatus> all = new ArrayList<>();
+
+        // PR with builds in head branch, PR with builds in PR branch, PR without builds, PR-less branch.
+        for (String prId : Arrays.asList("4926", "2", "3", "1", "-11133")) {
+            Set<ContributionCheckStatus> exp = sequentialStatuses(prId);
+            Set<ContributionCheckStatus> act = svc.contributionStatuses(SRV, null, prId);
+
+            assertEquals(suites.size(), act.size());
+            assertEquals(prId, mapper.writeValueAsString(exp), mapper.writeValueAsString(act));
+
+            all.addAll(act);
+        }
+
+        assertFalse(all.stream().allMatch(s -> s.queuedBuilds == 0));
+        assertFalse(all.stream().allMatch(s -> s.finishedSuiteCommit == null));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testCurrentVisaStatusReusesReport() {
+        ShortSuiteUi suite = mock(ShortSuiteUi.class);
+        when(suite.totalBlockers()).thenReturn(3);
+
+        List<ShortSuiteUi> report = Collections.singletonList(suite);
+
+        when(prChainsProcessor.getBlockersSuitesStatuses(anyString(), anyString(), anyString(), any(), any(), any()))
+            .thenReturn(report);
+
+        int[] latestBuild = {100};
+        when(tc.getLastNBuildsFromHistory(RUN_ALL, "pull/4926/head", 1))
+            .thenAnswer(inv -> Collections.singletonList(latestBuild[0]));
+
+        assertEquals(3, (int)svc.currentVisaStatus(SRV, null, RUN_ALL, "pull/4926/head").blockers);
+        assertEquals(3, (int)svc.currentVisaStatus(SRV, null, RUN_ALL, "pull/4926/head").blockers);
+
+        verify(prChainsProcessor, times(1))
+            .getBlockersSuitesStatuses(anyString(), anyString(), anyString(), any(), any(), any());
+
+        latestBuild[0]++;
+
+        assertEquals(3, (int)svc.currentVisaStatus(SRV, null, RUN_ALL, "pull/4926/head").blockers);
+
+        verify(prChainsProcessor, times(2))
+            .getBlockersSuitesStatuses(anyString(), anyString(), anyString(), any(), any(), any());
+    }
+
+    /**
+     * Older page of visas is requested from the lowest ID scanned, even if no visa of page is available to user.
+     */
+    @Test
+    public void testVisasHistoryPagesOverUnavailableVisas() {
+        ITcBotUserCreds creds = mock(ITcBotUserCreds.class);
+        when(creds.hasAccess(anyString())).thenReturn(false);
+
+        Map<Long, VisaRequest> page = new LinkedHashMap<>();
+        page.put(7L, visaRequest());
+        page.put(6L, visaRequest());
+
+        when(visasStorage.getRecentVisas(null, 2)).thenReturn(page);
+        when(visasStorage.getRecentVisas(6L, 2)).thenReturn(Collections.singletonMap(1L, visaRequest()));
+
+        VisasHistoryPage first = svc.getVisasStatus(creds, null, 2);
+
+        assertTrue(first.visas.isEmpty());
+        assertEquals(Long.valueOf(6), first.nextBefore);
+
+        VisasHistoryPage last = svc.getVisasStatus(creds, first.nextBefore, 2);
+
+        assertTrue(last.visas.isEmpty());
+        assertNull(last.nextBefore);
+    }
+
+    /**
+     * @return Visa request for server not available to user.
+     */
+    private static VisaRequest visaRequest() {
+        Build build = new Build();
+
+        build.setId(1);
+
+        return new VisaRequest(new BuildsInfo("private", "IGNITE-1", "pull/1/head", RUN_ALL, null, "user", build));
+    }
+
+    /**
+     * Reference: statuses evaluated suite by suite, build history is requested for each suite and branch.
+     *
+     * @param prId PR ID.
+     */
+    private Set<ContributionCheckStatus> sequentialStatuses(String prId) {
+        Set<ContributionCheckStatus> statuses = new LinkedHashSet<>();
+        int prNum = Integer.parseInt(prId);
+
+        String dfltBranch = prNum < 0 ? gh.gitBranchPrefix() + (-prNum) : "pull/" + prId + "/head";
+
+        for (String suite : suites) {
+            List<BuildRefCompacted> suiteBuilds = tc.getAllBuildsCompacted(suite, dfltBranch);
+
+            if (suiteBuilds.isEmpty() && prNum > 0) {
+                suiteBuilds = tc.getAllBuildsCompacted(suite, "pull/" + prId + "/merge");
+
+                PullRequest pr = gh.getPullRequest(prNum);
+
+                if (suiteBuilds.isEmpty() && pr != null)
+                    suiteBuilds = tc.getAllBuildsCompacted(suite, pr.head().ref());
+            }
+
+            ContributionCheckStatus status = suiteBuilds.isEmpty()
+                ? new ContributionCheckStatus(suite, dfltBranch)
+                : svc.contributionStatus(SRV, suite, suiteBuilds, tc, gh, prId);
+
+            status.defaultBuildType = Objects.equals(suite, RUN_ALL);
+
+            statuses.add(status);
+        }
+
+        return statuses;
+    }
+
+    /**
+     * @param num Number.
+     * @param branch Branch.
+     */
+    private static PullRequest pr(int num, String branch) {
+        GitHubBranch head = mock(GitHubBranch.class);
+        when(head.ref()).thenReturn(branch);
+
+        PullRequest pr = mock(PullRequest.class);
+        when(pr.getNumber()).thenReturn(num);
+        when(pr.head()).thenReturn(head);
+
+        return pr;
+    }
+}
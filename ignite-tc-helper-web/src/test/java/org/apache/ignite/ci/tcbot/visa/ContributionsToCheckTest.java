@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.visa;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.ignite.ci.github.GitHubBranch;
+import org.apache.ignite.ci.github.PullRequest;
+import org.apache.ignite.ci.observer.BuildObserver;
+import org.apache.ignite.ci.tcbot.ITcBotBgAuth;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
+import org.apache.ignite.githubignited.IGitHubConnIgnited;
+import org.apache.ignite.githubignited.IGitHubConnIgnitedProvider;
+import org.apache.ignite.jiraignited.IJiraIgnited;
+import org.apache.ignite.jiraignited.IJiraIgnitedProvider;
+import org.apache.ignite.jiraservice.JiraTicketStatusCode;
+import org.apache.ignite.jiraservice.Status;
+import org.apache.ignite.jiraservice.Ticket;
+import org.apache.ignite.jiraservice.v2.Fields;
+import org.apache.ignite.tcbot.common.conf.IGitHubConfig;
+import org.apache.ignite.tcbot.common.conf.IJiraServerConfig;
+import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
+import org.apache.ignite.tcbot.engine.conf.ITcBotConfig;
+import org.apache.ignite.tcbot.engine.pr.PrChainsProcessor;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks contributions listing and its invalidation.
+ */
+public class ContributionsToCheckTest {
+    /** Server code. */
+    private static final String SRV = "apache";
+
+    /** Default suite. */
+    private static final String RUN_ALL = "IgniteTests24Java8_RunAll";
+
+    /** GitHub update counter. */
+    private final AtomicInteger ghUpdCnt = new AtomicInteger();
+
+    /** JIRA update counter. */
+    private final AtomicInteger jiraUpdCnt = new AtomicInteger();
+
+    /** Builds update counter. */
+    private final AtomicInteger buildsUpdCnt = new AtomicInteger();
+
+    /** Builds of default suite by branch. */
+    private final Map<String, List<BuildRefCompacted>> builds = new HashMap<>();
+
+    /** Compactor. */
+    private final IStringCompactor compactor = new InMemoryStringCompactor();
+
+    /** GitHub. */
+    private IGitHubConnIgnited gh;
+
+    /** Service. */
+    private TcBotTriggerAndSignOffService svc;
+
+    /**
+     *
+     */
+    @Before
+    public void setUp() {
+        IGitHubConfig ghCfg = mock(IGitHubConfig.class);
+        when(ghCfg.gitBranchPrefix()).thenReturn("ignite-");
+
+        List<PullRequest> prs = Arrays.asList(
+            pr(1, "IGNITE-101 Fix of the test", "ignite-101"),
+            pr(2, "Some improvement", "ignite-102"));
+
+        gh = mock(IGitHubConnIgnited.class);
+        when(gh.config()).thenReturn(ghCfg);
+        when(gh.updateCounter()).thenAnswer(inv -> ghUpdCnt.get());
+        when(gh.getPullRequests()).thenReturn(prs);
+        when(gh.getBranches()).thenReturn(Collections.singletonList("ignite-103"));
+
+        IJiraServerConfig jiraCfg = mock(IJiraServerConfig.class);
+        when(jiraCfg.projectCodeForVisa()).thenReturn("IGNITE");
+        when(jiraCfg.getUrl()).thenReturn("https://issues.apache.org/jira/");
+
+        Set<Ticket> tickets = new LinkedHashSet<>();
+        tickets.add(ticket(101, JiraTicketStatusCode.RESOLVED));
+        tickets.add(ticket(102, JiraTicketStatusCode.RESOLVED));
+        tickets.add(ticket(103, JiraTicketStatusCode.PATCH_AVAILABLE));
+        tickets.add(ticket(104, JiraTicketStatusCode.IN_PROGRESS));
+        tickets.add(ticket(105, JiraTicketStatusCode.OPEN));
+
+        IJiraIgnited jira = mock(IJiraIgnited.class);
+        when(jira.config()).thenReturn(jiraCfg);
+        when(jira.updateCounter()).thenAnswer(inv -> jiraUpdCnt.get());
+        when(jira.getTickets()).thenReturn(tickets);
+        when(jira.generateTicketUrl(anyString())).thenAnswer(inv -> "https://jira/" + inv.getArgument(0));
+
+        builds.put("pull/1/head", Collections.singletonList(build(100, "pull/1/head")));
+        builds.put("pull/2/merge", Collections.singletonList(build(200, "pull/2/merge")));
+        builds.put("ignite-104", Collections.singletonList(build(400, "ignite-104")));
+
+        ITeamcityIgnited tc = mock(ITeamcityIgnited.class);
+        when(tc.getBranchUpdateCounters(anyCollection()))
+            .thenAnswer(inv -> Collections.singletonMap(1, buildsUpdCnt.get()));
+        when(tc.getBuildsForBranches(anyString(), anyCollection())).thenAnswer(inv -> {
+            assertEquals(RUN_ALL, inv.getArgument(0));
+
+            Collection<String> branches = inv.getArgument(1);
+            Map<String, List<BuildRefCompacted>> res = new HashMap<>();
+
+            for (String branch : branches) {
+                if (builds.containsKey(branch))
+                    res.put(branch, builds.get(branch));
+            }
+
+            return res;
+        });
+
+        IGitHubConnIgnitedProvider ghProv = mock(IGitHubConnIgnitedProvider.class);
+        when(ghProv.server(anyString())).thenReturn(gh);
+
+        IJiraIgnitedProvider jiraProv = mock(IJiraIgnitedProvider.class);
+        when(jiraProv.server(anyString())).thenReturn(jira);
+
+        ITeamcityIgnitedProvider tcProv = mock(ITeamcityIgnitedProvider.class);
+        when(tcProv.server(anyString(), any())).thenReturn(tc);
+
+        ITcServerConfig tcCfg = mock(ITcServerConfig.class);
+        when(tcCfg.defaultVisaSuiteId()).thenReturn(RUN_ALL);
+
+        ITcBotConfig cfg = mock(ITcBotConfig.class);
+        when(cfg.getTeamcityConfig(anyString())).thenReturn(tcCfg);
+
+        svc = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                // Providers are used to avoid members injection into mocks.
+                bind(IStringCompactor.class).toInstance(compactor);
+                bind(IGitHubConnIgnitedProvider.class).toProvider(() -> ghProv);
+                bind(IJiraIgnitedProvider.class).toProvider(() -> jiraProv);
+                bind(ITeamcityIgnitedProvider.class).toProvider(() -> tcProv);
+                bind(ITcBotConfig.class).toProvider(() -> cfg);
+                bind(BuildObserver.class).toProvider(() -> mock(BuildObserver.class));
+                bind(VisasHistoryStorage.class).toProvider(() -> mock(VisasHistoryStorage.class));
+                bind(ITcBotBgAuth.class).toProvider(() -> mock(ITcBotBgAuth.class));
+                bind(PrChainsProcessor.class).toProvider(() -> mock(PrChainsProcessor.class));
+            }
+        }).getInstance(TcBotTriggerAndSignOffService.class);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testContributionsListing() {
+        List<ContributionToCheck> contributions = svc.getContributionsToCheck(SRV, null);
+
+        assertEquals(4, contributions.size());
+
+        ContributionToCheck pr1 = contributions.get(0);
+        assertEquals(1, pr1.prNumber.intValue());
+        assertEquals("IGNITE-101", pr1.jiraIssueId);
+        assertEquals("pull/1/head", pr1.tcBranchName);
+
+        ContributionToCheck pr2 = contributions.get(1);
+        assertEquals(2, pr2.prNumber.intValue());
+        assertEquals("IGNITE-102", pr2.jiraIssueId); // resolved using PR branch name
+        assertEquals("pull/2/merge", pr2.tcBranchName);
+
+        ContributionToCheck branchOnly = contributions.get(2);
+        assertEquals(-103, branchOnly.prNumber.intValue());
+        assertEquals("IGNITE-103", branchOnly.jiraIssueId);
+        assertEquals("ignite-103", branchOnly.tcBranchName);
+
+        ContributionToCheck buildsOnly = contributions.get(3);
+        assertEquals(-104, buildsOnly.prNumber.intValue());
+        assertEquals("ignite-104", buildsOnly.tcBranchName);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testListingIsCachedUntilSourcesChange() {
+        List<ContributionToCheck> first = svc.getContributionsToCheck(SRV, null);
+
+        assertSame(first, svc.getContributionsToCheck(SRV, null));
+        verify(gh, times(1)).getPullRequests();
+
+        ghUpdCnt.incrementAndGet();
+        svc.getContributionsToCheck(SRV, null);
+        svc.getContributionsToCheck(SRV, null);
+        verify(gh, times(2)).getPullRequests();
+
+        jiraUpdCnt.incrementAndGet();
+        svc.getContributionsToCheck(SRV, null);
+        verify(gh, times(3)).getPullRequests();
+
+        buildsUpdCnt.incrementAndGet();
+        List<ContributionToCheck> last = svc.getContributionsToCheck(SRV, null);
+        verify(gh, times(4)).getPullRequests();
+
+        assertEquals(first.size(), last.size());
+    }
+
+    /**
+     * @param num Number.
+     * @param title Title.
+     * @param branch Branch.
+     */
+    private static PullRequest pr(int num, String title, String branch) {
+        GitHubBranch head = mock(GitHubBranch.class);
+        when(head.ref()).thenReturn(branch);
+
+        PullRequest pr = mock(PullRequest.class);
+        when(pr.getNumber()).thenReturn(num);
+        when(pr.getTitle()).thenReturn(title);
+        when(pr.head()).thenReturn(head);
+
+        return pr;
+    }
+
+    /**
+     * @param num Number.
+     * @param status Status.
+     */
+    private static Ticket ticket(int num, JiraTicketStatusCode status) {
+        Ticket ticket = new Ticket("IGNITE-" + num);
+        Fields fields = new Fields();
+
+        fields.summary = "Ticket " + num;
+        fields.status = new Status(status.getId());
+
+        ticket.id = num;
+        ticket.fields = fields;
+
+        return ticket;
+    }
+
+    /**
+     * @param id Id.
+     * @param branch Branch.
+     */
+    private BuildRefCompacted build(int id, String branch) {
+        BuildRef ref = new BuildRef();
+
+        ref.setId(id);
+        ref.buildTypeId = RUN_ALL;
+        ref.branchName = branch;
+        ref.state = BuildRef.STATE_FINISHED;
+        ref.status = BuildRef.STATUS_SUCCESS;
+
+        return new BuildRefCompacted(compactor, ref);
+    }
+}
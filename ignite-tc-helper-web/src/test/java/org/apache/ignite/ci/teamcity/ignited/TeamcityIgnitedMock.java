@@ -27,6 +27,8 @@ import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
 import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcignited.build.LrTestsBuildStat;
+import org.apache.ignite.tcignited.build.LrTestsSuiteStat;
 import org.apache.ignite.tcignited.build.TestCompactedV2;
 import org.apache.ignite.tcignited.history.ISuiteRunHistory;
 import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
@@ -35,7 +37,10 @@ import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -74,6 +79,21 @@ public class TeamcityIgnitedMock {
                     .collect(Collectors.toList());
             });
 
+        when(tcIgnited.getBuildsForBranches(anyString(), anyCollection()))
+            .thenAnswer(inv -> {
+                String btId = inv.getArgument(0);
+
+                Collection<String> branches = inv.getArgument(1);
+
+                return builds.values()
+                    .stream()
+                    .filter(fb -> btId.equals(fb.buildTypeId(c)))
+                    .filter(fb -> branches.contains(fb.branchName(c)))
+                    .sorted(Comparator.comparing(BuildRefCompacted::id).reversed())
+                    .collect(Collectors.groupingBy(fb -> fb.branchName(c),
+                        Collectors.<BuildRefCompacted>toList()));
+            });
+
         when(tcIgnited.getLastNBuildsFromHistory(anyString(), anyString(), anyInt()))
             .thenAnswer(inv -> {
                 String btId = inv.getArgument(0);
@@ -92,6 +112,49 @@ public class TeamcityIgnitedMock {
                     .collect(Collectors.toList());
             });
 
+        when(tcIgnited.getBuildRefs(anyCollection()))
+            .thenAnswer(inv -> {
+                Collection<Integer> ids = inv.getArgument(0);
+
+                Map<Integer, BuildRefCompacted> res = new HashMap<>();
+
+                for (Integer id : ids)
+                    res.put(id, Preconditions.checkNotNull(builds.get(id), "Can't find build in map [" + id + "]"));
+
+                return res;
+            });
+
+        when(tcIgnited.getLongRunningTests(anyCollection()))
+            .thenAnswer(inv -> {
+                Collection<Integer> ids = inv.getArgument(0);
+
+                Map<Integer, LrTestsSuiteStat> res = new HashMap<>();
+
+                for (Integer id : ids) {
+                    FatBuildCompacted build = builds.get(id);
+
+                    if (build == null || build.isFakeStub() || !build.isFinished(c))
+                        continue;
+
+                    List<FatBuildCompacted> suiteBuilds = builds.values().stream()
+                        .filter(fb -> fb.buildTypeId() == build.buildTypeId())
+                        .filter(fb -> fb.branchName() == build.branchName())
+                        .filter(fb -> !fb.isFakeStub() && fb.isFinished(c))
+                        .sorted(Comparator.comparing(BuildRefCompacted::id))
+                        .collect(Collectors.toList());
+
+                    LrTestsSuiteStat suite = new LrTestsSuiteStat();
+
+                    for (FatBuildCompacted fb : suiteBuilds)
+                        suite = suite.withBuild(LrTestsBuildStat.of(fb, c));
+
+                    if (suite.build(id) != null)
+                        res.put(id, suite);
+                }
+
+                return res;
+            });
+
         when(tcIgnited.getTestRunHist(anyInt(), anyInt(), anyInt()))
             .thenAnswer((inv) -> {
                 final Integer tstName = inv.getArgument(0);
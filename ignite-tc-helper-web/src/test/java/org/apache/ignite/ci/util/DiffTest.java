@@ -56,6 +56,22 @@ public class DiffTest {
         Assert.assertArrayEquals(new String[] {"A", "B", "D"}, diff.same().toArray());
     }
 
+    /** */
+    @Test
+    public void testModifiedEndsFirst() {
+        Diff<String> diff = new Diff<>(Arrays.asList("A", "D"), Arrays.asList("B", "D"));
+
+        Assert.assertArrayEquals(new String[] {"B"}, diff.added().toArray());
+        Assert.assertArrayEquals(new String[] {"A"}, diff.removed().toArray());
+        Assert.assertArrayEquals(new String[] {"D"}, diff.same().toArray());
+
+        diff = new Diff<>(Arrays.asList("A", "A", "D", "D"), Arrays.asList("A", "D"));
+
+        Assert.assertArrayEquals(emptyArray, diff.added().toArray());
+        Assert.assertArrayEquals(new String[] {"A", "D"}, diff.removed().toArray());
+        Assert.assertArrayEquals(new String[] {"A", "D"}, diff.same().toArray());
+    }
+
     /** */
     @Test
     public void testEmpty() {
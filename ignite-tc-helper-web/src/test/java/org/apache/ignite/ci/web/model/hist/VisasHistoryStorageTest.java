@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.web.model.hist;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.observer.BuildsInfo;
+import org.apache.ignite.ci.observer.CompactBuildsInfo;
+import org.apache.ignite.ci.web.model.CompactContributionKey;
+import org.apache.ignite.ci.web.model.CompactVisaRequest;
+import org.apache.ignite.ci.web.model.ContributionKey;
+import org.apache.ignite.ci.web.model.JiraCommentResponse;
+import org.apache.ignite.ci.web.model.Visa;
+import org.apache.ignite.ci.web.model.VisaRequest;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks visa requests history storage.
+ */
+public class VisasHistoryStorageTest {
+    /** Server id. */
+    public static final String SRV_ID = "apache";
+
+    /** Test ignite port. */
+    public static final int TEST_IGNITE_PORT = 64124;
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /** Compactor. */
+    private final IStringCompactor compactor = new InMemoryStringCompactor();
+
+    /** Storage. */
+    private VisasHistoryStorage storage;
+
+    /** */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /** */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /** */
+    @Before
+    public void initStorage() {
+        storage = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).toInstance(compactor);
+            }
+        }).getInstance(VisasHistoryStorage.class);
+
+        storage.clear();
+    }
+
+    /**
+     * @param ticket Ticket.
+     * @param buildId Build ID.
+     */
+    private BuildsInfo info(String ticket, int buildId) {
+        Build build = new Build();
+
+        build.setId(buildId);
+
+        return new BuildsInfo(SRV_ID, ticket, "pull/" + ticket + "/head", "RunAll", null, "user", build);
+    }
+
+    /** */
+    @Test
+    public void testLastVisaAndHistoryOfContribution() {
+        ContributionKey key = info("IGNITE-1", 0).getContributionKey();
+
+        assertNull(storage.getLastVisaRequest(key));
+        assertNull(storage.getVisaRequests(key));
+        assertFalse(storage.updateLastVisaRequest(key, req -> req.setObservingStatus(true)));
+
+        for (int i = 0; i < 3; i++)
+            storage.put(new VisaRequest(info("IGNITE-1", i)).setObservingStatus(true));
+
+        storage.put(new VisaRequest(info("IGNITE-2", 100)));
+
+        assertEquals(3, storage.getVisaRequests(key).size());
+
+        for (int i = 0; i < 3; i++)
+            assertEquals((Integer)i, storage.getVisaRequests(key).get(i).getInfo().getBuilds().get(0));
+
+        assertEquals((Integer)2, storage.getLastVisaRequest(key).getInfo().getBuilds().get(0));
+
+        Visa visa = new Visa(Visa.JIRA_COMMENTED, new JiraCommentResponse(), 3);
+
+        assertTrue(storage.updateLastVisaRequest(key, req -> req.setResult(visa).setObservingStatus(false)));
+
+        VisaRequest last = storage.getLastVisaRequest(key);
+
+        assertTrue(last.getResult().isSuccess());
+        assertEquals(3, last.getResult().getBlockers());
+        assertFalse(last.isObserving());
+
+        // Previous requests are not touched by update.
+        assertTrue(storage.getVisaRequests(key).get(1).isObserving());
+
+        Collection<VisaRequest> lastVisas = storage.getLastVisas();
+
+        assertEquals(2, lastVisas.size());
+        assertTrue(lastVisas.stream().anyMatch(req -> req.getInfo().ticket.equals("IGNITE-2")));
+        assertTrue(lastVisas.stream().anyMatch(req -> req.getResult().isSuccess()));
+    }
+
+    /** */
+    @Test
+    public void testRecentVisasPaging() {
+        for (int i = 0; i < 25; i++)
+            storage.put(new VisaRequest(info("IGNITE-" + (i % 4), i)));
+
+        List<Integer> all = new ArrayList<>();
+        Long before = null;
+
+        while (true) {
+            Map<Long, VisaRequest> page = storage.getRecentVisas(before, 10);
+
+            if (page.isEmpty())
+                break;
+
+            assertTrue(page.size() <= 10);
+
+            for (Map.Entry<Long, VisaRequest> e : page.entrySet()) {
+                assertTrue(before == null || e.getKey() < before);
+
+                before = e.getKey();
+
+                all.add(e.getValue().getInfo().getBuilds().get(0));
+            }
+        }
+
+        assertEquals(25, all.size());
+
+        for (int i = 0; i < 25; i++)
+            assertEquals((Integer)(24 - i), all.get(i));
+    }
+
+    /** */
+    @Test
+    public void testMigrationFromListStorage() {
+        IgniteCache<CompactContributionKey, List<CompactVisaRequest>> oldCache
+            = ignite.getOrCreateCache(TcHelperDb.getCacheV3TxConfig(VisasHistoryStorage.VISAS_CACHE_NAME));
+
+        oldCache.clear();
+
+        long ts = System.currentTimeMillis();
+
+        for (int contrib = 0; contrib < 5; contrib++) {
+            List<CompactVisaRequest> reqs = new ArrayList<>();
+
+            for (int i = 0; i <= contrib; i++) {
+                CompactBuildsInfo info = new CompactBuildsInfo(info("IGNITE-" + contrib, contrib * 10 + i), compactor);
+
+                // Contributions are interleaved in time.
+                info.date(ts + i * 100 + contrib);
+
+                reqs.add(new CompactVisaRequest(new VisaRequest(info.toBuildInfo(compactor)), compactor));
+            }
+
+            oldCache.put(new CompactContributionKey(info("IGNITE-" + contrib, 0).getContributionKey(), compactor),
+                reqs);
+        }
+
+        assertEquals(15, VisasHistoryStorage.migrate(ignite));
+
+        for (int contrib = 0; contrib < 5; contrib++) {
+            ContributionKey key = info("IGNITE-" + contrib, 0).getContributionKey();
+
+            List<Integer> builds = storage.getVisaRequests(key).stream()
+                .map(req -> req.getInfo().getBuilds().get(0))
+                .collect(Collectors.toList());
+
+            assertEquals(contrib + 1, builds.size());
+
+            for (int i = 0; i <= contrib; i++)
+                assertEquals((Integer)(contrib * 10 + i), builds.get(i));
+
+            assertEquals((Integer)(contrib * 11), storage.getLastVisaRequest(key).getInfo().getBuilds().get(0));
+        }
+
+        List<Long> dates = storage.getRecentVisas(null, 100).values().stream()
+            .map(req -> req.getInfo().date.getTime())
+            .collect(Collectors.toList());
+
+        assertEquals(15, dates.size());
+
+        for (int i = 1; i < dates.size(); i++)
+            assertTrue(dates.get(i - 1) >= dates.get(i));
+
+        // New requests are added after migrated.
+        storage.put(new VisaRequest(info("IGNITE-0", 1000)));
+
+        Set<Integer> recent = storage.getRecentVisas(null, 1).values().stream()
+            .map(req -> req.getInfo().getBuilds().get(0))
+            .collect(Collectors.toSet());
+
+        assertTrue(recent.contains(1000));
+
+        oldCache.destroy();
+    }
+}
@@ -31,6 +31,8 @@ import org.apache.ignite.tcbot.engine.issue.IIssuesStorage;
 import org.apache.ignite.tcbot.engine.issue.IssuesStorage;
 import org.apache.ignite.tcbot.engine.user.IUserStorage;
 import org.apache.ignite.tcignited.ITeamcityIgnitedProvider;
+import org.apache.ignite.tcignited.build.BuildStartDateIndex;
+import org.apache.ignite.tcignited.build.BuildTimelineIndex;
 import org.apache.ignite.tcignited.build.FatBuildDao;
 import org.apache.ignite.tcignited.build.ProactiveFatBuildSync;
 import org.apache.ignite.tcignited.build.UpdateCountersStorage;
@@ -56,6 +58,8 @@ public class TeamcityIgnitedModule extends AbstractModule {
         bind(BuildRefSync.class).in(new SingletonScope());
         bind(BuildConditionDao.class).in(new SingletonScope());
         bind(FatBuildDao.class).in(new SingletonScope());
+        bind(BuildStartDateIndex.class).in(new SingletonScope());
+        bind(BuildTimelineIndex.class).in(new SingletonScope());
         bind(ProactiveFatBuildSync.class).in(new SingletonScope());
         bind(ChangeSync.class).in(new SingletonScope());
         bind(ChangeDao.class).toInstance(mock(ChangeDao.class));
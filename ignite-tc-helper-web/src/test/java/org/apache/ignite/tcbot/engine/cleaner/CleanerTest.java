@@ -22,6 +22,9 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.internal.SingletonScope;
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
@@ -46,6 +49,7 @@ import org.apache.ignite.tcbot.engine.issue.IssuesStorage;
 import org.apache.ignite.tcbot.persistence.TcBotPersistenceModule;
 import org.apache.ignite.tcbot.persistence.scheduler.DirectExecNoWaitScheduler;
 import org.apache.ignite.tcbot.persistence.scheduler.IScheduler;
+import org.apache.ignite.tcignited.build.BuildStartDateIndex;
 import org.apache.ignite.tcignited.build.FatBuildDao;
 import org.apache.ignite.tcignited.build.TestCompactedV2;
 import org.apache.ignite.tcignited.buildlog.BuildLogCheckResultDao;
@@ -61,6 +65,7 @@ import org.mockito.Mockito;
 
 import static java.time.ZonedDateTime.now;
 import static org.apache.ignite.tcbot.engine.issue.IssueType.newFailure;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -167,6 +172,84 @@ public class CleanerTest {
         Assert.assertNotNull(issuesStorage.getIssue(issueWithBrokenConsistencyToSave2.issueKey));
     }
 
+    /**
+     * Seeds builds of different days, some of them saved bypassing start date index, and checks exactly old builds
+     * and their dependent data are removed by parallel partitions cleaning.
+     */
+    @Test
+    public void testCleanerRemovesOldBuildsOfSeededStore() throws Exception {
+        Injector injector = Guice.createInjector(new TeamcityIgnitedModule(), new IgniteAndSchedulerTestModule());
+
+        FatBuildDao fatBuildDao = injector.getInstance(FatBuildDao.class);
+        BuildStartTimeStorage buildStartTimeStorage = injector.getInstance(BuildStartTimeStorage.class);
+        Cleaner cleaner = injector.getInstance(Cleaner.class);
+
+        fatBuildDao.init();
+        buildStartTimeStorage.init();
+        injector.getInstance(SuiteInvocationHistoryDao.class).init();
+        injector.getInstance(BuildLogCheckResultDao.class).init();
+        injector.getInstance(BuildRefDao.class).init();
+        injector.getInstance(BuildConditionDao.class).init();
+
+        ICleanerConfig cCfg = injector.getInstance(ITcBotConfig.class).getCleanerConfig();
+
+        when(cCfg.parallelism()).thenReturn(4);
+        when(cCfg.batchSize()).thenReturn(3);
+
+        FatBuildEntry.fatBuildDao = fatBuildDao;
+
+        int srvId = Math.abs("seeded".hashCode());
+        IgniteCache<Long, FatBuildCompacted> rawBuilds = ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME);
+
+        // Days 4..6 are skipped: day granularity of the index makes builds near threshold removed on the next day.
+        Map<Integer, Long> oldBuilds = new HashMap<>();
+        Map<Integer, Long> newBuilds = new HashMap<>();
+
+        for (int day = 0; day < 20; day++) {
+            if (day >= 4 && day <= 6)
+                continue;
+
+            for (int i = 0; i < 5; i++) {
+                int buildId = 1000 + day * 10 + i;
+                long startDate = now().minusDays(day).minusHours(1 + i).toInstant().toEpochMilli();
+
+                if (day >= 10 && i == 0) {
+                    FatBuildEntry entry = FatBuildEntry.createFatBuildEntry(srvId, buildId, startDate, false);
+
+                    rawBuilds.put(FatBuildDao.buildIdToCacheKey(srvId, buildId), entry.build);
+                }
+                else
+                    FatBuildEntry.createFatBuildEntry(srvId, buildId, startDate, true);
+
+                buildStartTimeStorage.setBuildStartTime(srvId, buildId, startDate);
+
+                (day > 6 ? oldBuilds : newBuilds).put(buildId, startDate);
+            }
+        }
+
+        assertTrue(BuildStartDateIndex.fill(ignite) >= oldBuilds.size() + newBuilds.size());
+
+        cleaner.clean();
+
+        IgniteCache<Long, int[]> idx = BuildStartDateIndex.indexCache(ignite);
+
+        oldBuilds.forEach((buildId, startDate) -> {
+            Assert.assertNull(fatBuildDao.getFatBuild(srvId, buildId));
+            Assert.assertNull(buildStartTimeStorage.getBuildStartTime(srvId, buildId));
+            Assert.assertNull(idx.get(BuildStartDateIndex.bucketKey(srvId, startDate)));
+        });
+
+        newBuilds.forEach((buildId, startDate) -> {
+            Assert.assertNotNull(fatBuildDao.getFatBuild(srvId, buildId));
+            Assert.assertNotNull(buildStartTimeStorage.getBuildStartTime(srvId, buildId));
+
+            int[] ids = idx.get(BuildStartDateIndex.bucketKey(srvId, startDate));
+
+            Assert.assertNotNull(ids);
+            assertTrue(Arrays.binarySearch(ids, buildId) >= 0);
+        });
+    }
+
     private static class FatBuildEntry {
         int tcId;
         int buildId;
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.issue;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.issue.Issue;
+import org.apache.ignite.ci.issue.IssueKey;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks issues read using detected time index are the same as issues found by full scan.
+ */
+public class IssuesStorageTest {
+    /** Server id. */
+    public static final String SRV_ID = "apache";
+
+    /** Test ignite port. */
+    public static final int TEST_IGNITE_PORT = 64124;
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /** Storage. */
+    private IssuesStorage storage;
+
+    /** */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /** */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /** */
+    @Before
+    public void initStorage() {
+        IssuesStorage.botDetectedIssuesCache(ignite).clear();
+        IssuesStorage.botDetectedIssuesIdxCache(ignite).clear();
+
+        storage = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+            }
+        }).getInstance(IssuesStorage.class);
+    }
+
+    /** */
+    @Test
+    public void testDetectedSinceMatchesFullScan() {
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 200; i++)
+            storage.saveIssue(issue(i, now - TimeUnit.MINUTES.toMillis(i * 17)));
+
+        // Saving the same issue again should not duplicate it in index.
+        storage.saveIssue(issue(0, now));
+
+        for (int hours : new int[] {0, 1, 2, 24, 48}) {
+            long since = now - TimeUnit.HOURS.toMillis(hours);
+
+            Set<IssueKey> exp = storage.allIssues()
+                .filter(issue -> issue.detectedTs >= since)
+                .map(Issue::issueKey)
+                .collect(Collectors.toSet());
+
+            Set<IssueKey> idx = storage.issuesDetectedSince(since)
+                .map(Issue::issueKey)
+                .collect(Collectors.toSet());
+
+            assertEquals("Issues since " + hours + " hours", exp, idx);
+            assertEquals(exp.size(), storage.issuesDetectedSince(since).count());
+        }
+    }
+
+    /** */
+    @Test
+    public void testIndexFilledForExistingIssuesAndPruned() {
+        long now = System.currentTimeMillis();
+        long old = now - TimeUnit.DAYS.toMillis(30);
+
+        for (int i = 0; i < 50; i++)
+            IssuesStorage.botDetectedIssuesCache(ignite).put(issue(i, 0).issueKey(), issue(i, i % 2 == 0 ? now : old));
+
+        assertEquals(0, storage.issuesDetectedSince(now - TimeUnit.DAYS.toMillis(1)).count());
+
+        assertEquals(50, IssuesStorage.fillDetectedIndex(ignite));
+
+        assertEquals(25, storage.issuesDetectedSince(now - TimeUnit.DAYS.toMillis(1)).count());
+
+        storage.removeOldIssues(now - TimeUnit.DAYS.toMillis(7), 100);
+
+        assertEquals(25, storage.allIssues().count());
+        assertTrue(IssuesStorage.botDetectedIssuesIdxCache(ignite).containsKey(IssuesStorage.hourBucket(now)));
+        assertFalse(IssuesStorage.botDetectedIssuesIdxCache(ignite).containsKey(IssuesStorage.hourBucket(old)));
+    }
+
+    /**
+     * @param idx Index.
+     * @param detectedTs Detected timestamp.
+     */
+    private static Issue issue(int idx, long detectedTs) {
+        Issue issue = new Issue(new IssueKey(SRV_ID, 1000 + idx, "test" + idx), IssueType.newFailure, null);
+
+        issue.detectedTs = detectedTs;
+        issue.trackedBranchName = "master";
+
+        return issue;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.newtests;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.AdditionalAnswers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks bulk new tests registration is deterministic for concurrent callers and requires one cache request per batch.
+ */
+public class NewTestsStorageTest {
+    /** Server id. */
+    public static final String SRV_ID = "apache";
+
+    /** Base branch. */
+    public static final String BASE_BRANCH = "<default>";
+
+    /** Test ignite port. */
+    public static final int TEST_IGNITE_PORT = 64124;
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /** New tests cache. */
+    private IgniteCache<NewTestKey, NewTestInfo> realCache;
+
+    /** Cache used by storage, delegating to real new tests cache. */
+    private IgniteCache<NewTestKey, NewTestInfo> cache;
+
+    /** Storage. */
+    private NewTestsStorage storage;
+
+    /** */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /** */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /** */
+    @SuppressWarnings("unchecked")
+    @Before
+    public void initStorage() {
+        realCache = NewTestsStorage.botNewTestsCache(ignite);
+
+        realCache.clear();
+
+        cache = mock(IgniteCache.class, AdditionalAnswers.delegatesTo(realCache));
+
+        Ignite igniteMock = mock(Ignite.class);
+
+        doReturn(cache).when(igniteMock).getOrCreateCache(any(CacheConfiguration.class));
+
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(igniteMock);
+            }
+        });
+
+        storage = injector.getInstance(NewTestsStorage.class);
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testConcurrentRegistrationIsDeterministic() throws Exception {
+        int threads = 8;
+        int testsPerThread = 500;
+        int overlap = 250;
+
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        Map<String, List<Long>> idsByBranch = new HashMap<>();
+        Map<String, Future<Set<Long>>> futures = new HashMap<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                String branch = "pull/" + (1000 + i) + "/head";
+                List<Long> ids = LongStream.range(i * overlap, i * overlap + testsPerThread)
+                    .boxed()
+                    .collect(Collectors.toList());
+
+                idsByBranch.put(branch, ids);
+
+                futures.put(branch, executor.submit(() -> {
+                    barrier.await();
+
+                    return storage.isNewTestsAndPut(SRV_ID, ids, BASE_BRANCH, branch);
+                }));
+            }
+
+            Map<Long, String> firstSeen = new HashMap<>();
+
+            for (Map.Entry<String, Future<Set<Long>>> e : futures.entrySet()) {
+                for (Long testId : e.getValue().get()) {
+                    String prev = firstSeen.put(testId, e.getKey());
+
+                    assertTrue("Test " + testId + " is new for both " + prev + " and " + e.getKey(), prev == null);
+                }
+            }
+
+            long allTests = idsByBranch.values().stream().flatMap(Collection::stream).distinct().count();
+
+            assertEquals("Each test should be reported new exactly once", allTests, firstSeen.size());
+
+            firstSeen.forEach((testId, branch) -> {
+                NewTestInfo info = realCache.get(new NewTestKey(SRV_ID, testId, BASE_BRANCH));
+
+                assertNotNull(info);
+                assertEquals(branch, info.branch());
+            });
+
+            verify(cache, times(threads)).invokeAll(anySet(), any(), any());
+
+            // Repeated calls give the same answer: tests stay new only for the branch which registered them first.
+            idsByBranch.forEach((branch, ids) -> {
+                Set<Long> expected = ids.stream()
+                    .filter(id -> branch.equals(firstSeen.get(id)))
+                    .collect(Collectors.toSet());
+
+                assertEquals(expected, storage.newTests(SRV_ID, ids, BASE_BRANCH, branch));
+                assertEquals(expected, storage.isNewTestsAndPut(SRV_ID, ids, BASE_BRANCH, branch));
+            });
+
+            verify(cache, times(threads)).getAll(anySet());
+            verify(cache, times(threads * 2)).invokeAll(anySet(), any(), any());
+            verify(cache, never()).get(any());
+            verify(cache, never()).put(any(), any());
+            verify(cache, never()).invoke(any(), any(), any());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** */
+    @Test
+    public void testEmptyBatchDoesNotAccessCache() {
+        List<Long> noTests = new ArrayList<>();
+
+        assertTrue(storage.isNewTestsAndPut(SRV_ID, noTests, BASE_BRANCH, "pull/1/head").isEmpty());
+        assertTrue(storage.newTests(SRV_ID, noTests, BASE_BRANCH, "pull/1/head").isEmpty());
+
+        verify(cache, never()).invokeAll(anySet(), any(), any());
+        verify(cache, never()).getAll(anySet());
+    }
+}
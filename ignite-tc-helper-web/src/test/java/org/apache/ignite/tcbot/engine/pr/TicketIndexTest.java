@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.pr;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.apache.ignite.jiraservice.Status;
+import org.apache.ignite.jiraservice.Ticket;
+import org.apache.ignite.jiraservice.v2.Fields;
+import org.apache.ignite.tcbot.common.conf.IJiraServerConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks tickets resolution using {@link TicketIndex} gives the same result as linear scan of tickets.
+ */
+public class TicketIndexTest {
+    /** Matcher. */
+    private final BranchTicketMatcher matcher = new BranchTicketMatcher();
+
+    /**
+     *
+     */
+    @Test
+    public void testIndexedResolutionEqualsLinearScanForProjectCode() {
+        checkEquivalence(jiraConfig(null), 1);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testIndexedResolutionEqualsLinearScanForBranchPrefix() {
+        checkEquivalence(jiraConfig("GG-"), 2);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testKeyMatchHasPriorityOverMention() {
+        IJiraServerConfig jiraCfg = jiraConfig("GG-");
+
+        Ticket mentioning = ticket("IGNITE-1", "Port GG-123 to Apache Ignite", null);
+        Ticket named = ticket("GG-12", "Some fix", null);
+
+        List<Ticket> tickets = new ArrayList<>();
+        tickets.add(mentioning);
+        tickets.add(named);
+
+        TicketIndex idx = matcher.indexTickets(tickets, jiraCfg);
+
+        assertSame(named, matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, "GG-12 Some fix"));
+        assertSame(mentioning, matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, "gg-123 port"));
+        assertNull(matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, "GG-1 one digit"));
+        assertNull(matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, "GG-1234 longer number"));
+    }
+
+    /**
+     * @param jiraCfg Jira config.
+     * @param seed Seed.
+     */
+    private void checkEquivalence(IJiraServerConfig jiraCfg, long seed) {
+        Random rnd = new Random(seed);
+        Set<Ticket> tickets = new LinkedHashSet<>();
+
+        for (int i = 0; i < 3000; i++) {
+            String key = "IGNITE-" + rnd.nextInt(2000);
+
+            tickets.add(ticket(key, text(rnd), rnd.nextBoolean() ? text(rnd) : null));
+        }
+
+        TicketIndex idx = matcher.indexTickets(tickets, jiraCfg);
+
+        int found = 0;
+
+        for (int i = 0; i < 3000; i++) {
+            String title = text(rnd);
+
+            Ticket exp = matcher.resolveTicketIdForPrBasedContrib(tickets, jiraCfg, title);
+            Ticket actual = matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, title);
+
+            if (exp != null && exp.fields != null) {
+                assertSame(title, exp, actual);
+
+                found++;
+            }
+            else if (exp != null) {
+                assertNotNull(title, actual);
+                assertEquals(title, exp.key, actual.key);
+            }
+            else
+                assertNull(title, actual);
+        }
+
+        assertTrue("Found: " + found, found > 100);
+    }
+
+    /**
+     * @param rnd Random.
+     * @return Text possibly containing ticket or branch mentions in various case.
+     */
+    private static String text(Random rnd) {
+        String[] prefixes = {"IGNITE-", "ignite-", "GG-", "gg-", "GG-GG-", "IGNITE-GG-"};
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 1 + rnd.nextInt(3); i++) {
+            sb.append(rnd.nextBoolean() ? "Fix " : "Port ");
+
+            if (rnd.nextInt(5) != 0)
+                sb.append(prefixes[rnd.nextInt(prefixes.length)]).append(rnd.nextInt(3000));
+
+            sb.append(rnd.nextBoolean() ? " " : "_");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param key Key.
+     * @param summary Summary.
+     * @param link Link field.
+     */
+    private static Ticket ticket(String key, String summary, String link) {
+        Ticket ticket = new Ticket(key);
+        Fields fields = new Fields();
+
+        fields.summary = summary;
+        fields.customfield_11050 = link;
+        fields.status = new Status(1);
+
+        ticket.fields = fields;
+
+        return ticket;
+    }
+
+    /**
+     * @param branchNumPrefix Branch number prefix.
+     */
+    private static IJiraServerConfig jiraConfig(String branchNumPrefix) {
+        IJiraServerConfig jiraCfg = mock(IJiraServerConfig.class);
+
+        when(jiraCfg.projectCodeForVisa()).thenReturn("IGNITE");
+        when(jiraCfg.branchNumPrefix()).thenReturn(branchNumPrefix);
+
+        return jiraCfg;
+    }
+}
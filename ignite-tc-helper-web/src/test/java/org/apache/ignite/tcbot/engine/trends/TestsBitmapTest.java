@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks bitmap operations against sets for sparse (array) and dense (bits) containers, and failure counters of
+ * failed tests matrix.
+ */
+public class TestsBitmapTest {
+    /**
+     *
+     */
+    @Test
+    public void testEmpty() {
+        TestsBitmap empty = TestsBitmap.of();
+
+        assertSame(TestsBitmap.empty(), empty);
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.contains(0));
+        assertArrayEquals(new int[0], empty.toArray());
+        assertSame(TestsBitmap.empty(), TestsBitmap.orAll(Collections.emptyList()));
+        assertSame(TestsBitmap.empty(), TestsBitmap.andAll(Collections.emptyList()));
+        assertSame(TestsBitmap.empty(), TestsBitmap.of(1, 2).and(TestsBitmap.of(3, 1 << 16)));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testContainerBounds() {
+        int[] vals = {0, 65535, 65536, 131071, Integer.MAX_VALUE, 5, 5};
+
+        TestsBitmap bitmap = TestsBitmap.of(vals);
+
+        assertEquals(6, bitmap.cardinality());
+        assertArrayEquals(new int[] {0, 5, 65535, 65536, 131071, Integer.MAX_VALUE}, bitmap.toArray());
+        assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.contains(65537));
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValue() throws Exception {
+        TestsBitmap.of(1, -1);
+    }
+
+    /**
+     * Compares operations with sets for random bitmaps of different density.
+     */
+    @Test
+    public void testRandomOperationsMatchSets() {
+        Random rnd = new Random(42);
+
+        for (int iter = 0; iter < 20; iter++) {
+            // Dense bitmaps have containers with more than ARRAY_MAX values.
+            int range = 200_000;
+            int cntA = iter % 2 == 0 ? 100 + rnd.nextInt(1000) : 3 * TestsBitmap.ARRAY_MAX + rnd.nextInt(100_000);
+            int cntB = iter % 3 == 0 ? 100 + rnd.nextInt(1000) : 3 * TestsBitmap.ARRAY_MAX + rnd.nextInt(100_000);
+
+            TreeSet<Integer> setA = randomSet(rnd, cntA, range);
+            TreeSet<Integer> setB = randomSet(rnd, cntB, range);
+
+            TestsBitmap a = TestsBitmap.of(toArray(setA));
+            TestsBitmap b = TestsBitmap.of(toArray(setB));
+
+            assertArrayEquals(toArray(setA), a.toArray());
+            assertEquals(setA.size(), a.cardinality());
+
+            TreeSet<Integer> union = new TreeSet<>(setA);
+            union.addAll(setB);
+
+            TreeSet<Integer> intersection = new TreeSet<>(setA);
+            intersection.retainAll(setB);
+
+            assertArrayEquals(toArray(union), a.or(b).toArray());
+            assertArrayEquals(toArray(intersection), a.and(b).toArray());
+            assertArrayEquals(toArray(intersection), b.and(a).toArray());
+            assertEquals(TestsBitmap.of(toArray(union)), TestsBitmap.orAll(Arrays.asList(a, b)));
+
+            for (int i = 0; i < 1000; i++) {
+                int val = rnd.nextInt(range);
+
+                assertEquals(setA.contains(val), a.contains(val));
+            }
+        }
+    }
+
+    /**
+     * Compares failures counters of matrix with counters computed from failed tests of each build.
+     */
+    @Test
+    public void testMatrixCounters() {
+        Random rnd = new Random(42);
+
+        int builds = 50;
+        int tests = 10_000;
+
+        int[] expFailedBuilds = new int[tests];
+        int[] expFailures = new int[tests];
+
+        List<FailedTestsCompacted> failed = new ArrayList<>();
+
+        for (int b = 0; b < builds; b++) {
+            int[] idxs = toArray(randomSet(rnd, rnd.nextInt(tests / 2), tests));
+            int[] cnts = new int[idxs.length];
+
+            for (int i = 0; i < idxs.length; i++) {
+                cnts[i] = rnd.nextInt(10) == 0 ? 2 + rnd.nextInt(3) : 1;
+
+                expFailedBuilds[idxs[i]]++;
+                expFailures[idxs[i]] += cnts[i];
+            }
+
+            FailedTestsCompacted build = FailedTestsCompacted.of(1, idxs, cnts);
+
+            for (int i = 0; i < idxs.length; i++)
+                assertEquals(cnts[i], build.failures(idxs[i]));
+
+            failed.add(build);
+        }
+
+        FailedTestsMatrix matrix = new FailedTestsMatrix(failed);
+
+        assertEquals(builds, matrix.buildsCount());
+
+        for (int i = 0; i < tests; i++) {
+            assertEquals(expFailedBuilds[i], matrix.failedBuilds(i));
+            assertEquals(expFailures[i], matrix.failures(i));
+            assertEquals(expFailedBuilds[i] > 0, matrix.union().contains(i));
+            assertEquals(expFailedBuilds[i] == builds, matrix.intersection().contains(i));
+            assertEquals(expFailedBuilds[i] > builds / 5, matrix.failedInMoreThan(0.2).contains(i));
+        }
+    }
+
+    /**
+     * @param rnd Random.
+     * @param cnt Count of values.
+     * @param range Values range.
+     */
+    private static TreeSet<Integer> randomSet(Random rnd, int cnt, int range) {
+        TreeSet<Integer> res = new TreeSet<>();
+
+        for (int i = 0; i < cnt; i++)
+            res.add(rnd.nextInt(range));
+
+        return res;
+    }
+
+    /**
+     * @param set Set.
+     */
+    private static int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
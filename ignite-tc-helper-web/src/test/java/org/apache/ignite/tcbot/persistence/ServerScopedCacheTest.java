@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.persistence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks server scoped cache for servers having IDs with common bits.
+ */
+public class ServerScopedCacheTest {
+    /** Test ignite port. */
+    private static final int TEST_IGNITE_PORT = 64124;
+
+    /** Cache name. */
+    private static final String CACHE_NAME = "serverScopedCacheTest";
+
+    /** Server IDs, each next ID contains all bits of previous one. */
+    private static final int[] SRV_IDS = {1, 3, 7, -1};
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /** Cache. */
+    private IgniteCache<Long, String> cache;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void clearCache() {
+        cache = ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(CACHE_NAME));
+
+        cache.clear();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testServersWithCommonBitsSeparated() {
+        ServerScopedCache<String> scoped = new ServerScopedCache<>(ignite, cache).init();
+
+        Map<Long, String> entries = new HashMap<>();
+
+        for (int srvId : SRV_IDS) {
+            for (int id = 0; id < 10; id++)
+                entries.put(ServerScopedCache.key(srvId, id * srvId), val(srvId, id * srvId));
+        }
+
+        scoped.putAll(entries);
+
+        for (int srvId : SRV_IDS) {
+            List<String> vals = scoped.values(srvId).collect(Collectors.toList());
+
+            assertEquals(10, vals.size());
+            assertTrue(vals.stream().allMatch(v -> v.startsWith(srvId + ":")));
+
+            int[] ids = scoped.ids(srvId);
+            int[] sorted = ids.clone();
+
+            Arrays.sort(sorted);
+
+            assertArrayEquals(sorted, ids);
+        }
+
+        assertEquals(0, scoped.ids(5).length);
+
+        ServerScopedCache<String> rebuilt = new ServerScopedCache<>(ignite, cache).init();
+
+        for (int srvId : SRV_IDS)
+            assertArrayEquals(scoped.ids(srvId), rebuilt.ids(srvId));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testRanges() {
+        ServerScopedCache<String> scoped = new ServerScopedCache<>(ignite, cache).init();
+
+        int[] ids = {-70000, -5, 0, 7, 65535, 65536, 200000, Integer.MAX_VALUE};
+
+        for (int srvId : SRV_IDS) {
+            for (int id : ids)
+                scoped.put(ServerScopedCache.key(srvId, id), val(srvId, id));
+        }
+
+        assertTrue(scoped.remove(ServerScopedCache.key(3, 7)));
+        assertFalse(scoped.remove(ServerScopedCache.key(3, 8)));
+
+        assertArrayEquals(ids, scoped.ids(1));
+        assertArrayEquals(new int[] {-70000, -5, 0, 65535, 65536, 200000, Integer.MAX_VALUE}, scoped.ids(3));
+
+        assertArrayEquals(new int[] {65535, 65536, 200000, Integer.MAX_VALUE}, scoped.idsGreaterThan(1, 7));
+        assertArrayEquals(new int[0], scoped.idsGreaterThan(1, Integer.MAX_VALUE));
+        assertArrayEquals(new int[] {-5, 0, 7, 65535}, scoped.idsInRange(7, -5, 65535));
+        assertArrayEquals(new int[] {65536}, scoped.idsInRange(-1, 65536, 65536));
+        assertArrayEquals(new int[0], scoped.idsInRange(-1, 8, 65534));
+
+        scoped.removeAll(new HashSet<>(Arrays.asList(
+            ServerScopedCache.key(1, -70000),
+            ServerScopedCache.key(1, 200000))));
+
+        assertArrayEquals(new int[] {-5, 0, 7, 65535, 65536, Integer.MAX_VALUE}, scoped.ids(1));
+        assertArrayEquals(ids, scoped.ids(7));
+        assertEquals(ids.length * SRV_IDS.length - 3, cache.size());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testGetAllByChunks() {
+        ServerScopedCache<String> scoped = new ServerScopedCache<>(ignite, cache, 3).init();
+
+        for (int id = 0; id < 10; id++) {
+            scoped.put(ServerScopedCache.key(1, id), val(1, id));
+            scoped.put(ServerScopedCache.key(3, id), val(3, id));
+        }
+
+        // Entry removed from the cache directly is skipped.
+        cache.remove(ServerScopedCache.key(1, 4));
+
+        List<String> vals = scoped.getAll(1, new int[] {9, 4, 2, 11, 0, 5, 1}).collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(val(1, 9), val(1, 2), val(1, 0), val(1, 5), val(1, 1)), vals);
+        assertEquals(9, scoped.values(1).count());
+        assertEquals(10, scoped.values(3).count());
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @param id ID.
+     */
+    private static String val(int srvId, int id) {
+        return srvId + ":" + id;
+    }
+}
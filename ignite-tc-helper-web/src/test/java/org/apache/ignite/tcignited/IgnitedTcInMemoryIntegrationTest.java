@@ -21,6 +21,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.internal.SingletonScope;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
@@ -33,30 +34,40 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.xml.bind.JAXBException;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.ci.db.TcHelperDb;
 import org.apache.ignite.ci.tcbot.chain.PrChainsProcessorTest;
 import org.apache.ignite.ci.tcbot.issue.IssueDetectorTest;
 import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
 import org.apache.ignite.ci.teamcity.ignited.buildtype.BuildTypeRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
+import org.apache.ignite.ci.teamcity.ignited.change.ChangeDao;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TriggeredCompacted;
 import org.apache.ignite.ci.teamcity.pure.BuildHistoryEmulator;
 import org.apache.ignite.ci.user.ITcBotUserCreds;
 import org.apache.ignite.configuration.IgniteConfiguration;
@@ -75,7 +86,10 @@ import org.apache.ignite.tcbot.persistence.IgniteStringCompactor;
 import org.apache.ignite.tcbot.persistence.TcBotPersistenceModule;
 import org.apache.ignite.tcbot.persistence.scheduler.DirectExecNoWaitScheduler;
 import org.apache.ignite.tcbot.persistence.scheduler.IScheduler;
+import org.apache.ignite.tcignited.build.BuildTimelineIndex;
 import org.apache.ignite.tcignited.build.FatBuildDao;
+import org.apache.ignite.tcignited.build.LrTestsBuildStat;
+import org.apache.ignite.tcignited.build.LrTestsSuiteStat;
 import org.apache.ignite.tcignited.build.ProactiveFatBuildSync;
 import org.apache.ignite.tcignited.build.TestCompactedV2;
 import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
@@ -100,6 +114,7 @@ import org.apache.ignite.tcservice.model.result.Triggered;
 import org.apache.ignite.tcservice.model.result.problems.ProblemOccurrence;
 import org.apache.ignite.tcservice.model.result.problems.ProblemOccurrences;
 import org.apache.ignite.tcservice.model.result.stat.Statistics;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
 import org.apache.ignite.tcservice.model.result.tests.TestOccurrencesFull;
 import org.apache.ignite.tcservice.model.vcs.Revision;
 import org.apache.ignite.tcservice.model.vcs.Revisions;
@@ -112,6 +127,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
@@ -170,7 +186,12 @@ public class IgnitedTcInMemoryIntegrationTest {
     @Before
     public void clearIgniteCaches() {
         clearCache(BuildRefDao.TEAMCITY_BUILD_CACHE_NAME);
+        clearCache(ChangeDao.TEAMCITY_CHANGE_CACHE_NAME);
         clearCache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME);
+        clearCache(FatBuildDao.TEAMCITY_FAT_BUILD_TESTS_CACHE_NAME);
+        clearCache(FatBuildDao.TEAMCITY_FAT_BUILD_PARAMETERS_CACHE_NAME);
+        clearCache(FatBuildDao.TEAMCITY_FAT_BUILD_PROBLEMS_CACHE_NAME);
+        clearCache(BuildTimelineIndex.BUILD_TIMELINE_IDX_CACHE_NAME);
 
         BuildRefCompacted.resetCached();
         TestCompactedV2.resetCached();
@@ -229,6 +250,22 @@ public class IgnitedTcInMemoryIntegrationTest {
             assertEquals("refs/heads/master", h.branchName(compactor));
         }
 
+        for (String branch : Arrays.asList(branchName, "pull/4926/head")) {
+            List<BuildRefCompacted> branchBuilds = srv.getAllBuildsForBranch(branch);
+
+            assertFalse(branchBuilds.isEmpty());
+
+            Set<String> suites = branchBuilds.stream().map(b -> b.buildTypeId(compactor)).collect(Collectors.toSet());
+
+            for (String suite : suites) {
+                List<BuildRefCompacted> suiteBuilds = branchBuilds.stream()
+                    .filter(b -> suite.equals(b.buildTypeId(compactor)))
+                    .collect(Collectors.toList());
+
+                assertEquals(srv.getAllBuildsCompacted(suite, branch), suiteBuilds);
+            }
+        }
+
         ignite.cache(STRINGS_CACHE).forEach(
             (e) -> {
                 System.out.println(e.getValue());
@@ -462,6 +499,80 @@ public class IgnitedTcInMemoryIntegrationTest {
         throw new IllegalArgumentException("Mute not found [id=" + id + ']');
     }
 
+    /**
+     * Tests, parameters and problems are stored separately from build header, builds saved by previous versions are
+     * readable and may be split by migration.
+     */
+    @Test
+    public void testFatBuildPartsStoredSeparately() throws JAXBException, IOException {
+        Build refBuild = jaxbTestXml("/build.xml", Build.class);
+        TestOccurrencesFull testsRef = jaxbTestXml("/testList.xml", TestOccurrencesFull.class);
+        ProblemOccurrences problemsList = jaxbTestXml("/problemList.xml", ProblemOccurrences.class);
+
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+                bind(IDataSourcesConfigSupplier.class).toInstance(Mockito.mock(IDataSourcesConfigSupplier.class));
+                bind(ILogProductSpecific.class).toInstance(Mockito.mock(ILogProductSpecific.class));
+            }
+        });
+
+        FatBuildDao stor = injector.getInstance(FatBuildDao.class).init();
+
+        int srvId = ITeamcityIgnited.serverIdToInt(APACHE);
+        int buildId = refBuild.getId();
+        long key = FatBuildDao.buildIdToCacheKey(srvId, buildId);
+
+        FatBuildCompacted saved = stor.saveBuild(srvId, buildId, refBuild, Collections.singletonList(testsRef),
+            problemsList.getProblemsNonNull(), null, null, null);
+        assertNotNull(saved);
+
+        IgniteCache<Long, BinaryObject> headers
+            = ignite.<Long, BinaryObject>cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).withKeepBinary();
+
+        assertNull(headers.get(key).field("testsBlock"));
+        assertNull(headers.get(key).field("problems"));
+        assertNull(headers.get(key).field("buildParameters"));
+        assertTrue(ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_TESTS_CACHE_NAME).containsKey(key));
+        assertTrue(ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_PARAMETERS_CACHE_NAME).containsKey(key));
+        assertTrue(ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_PROBLEMS_CACHE_NAME).containsKey(key));
+
+        FatBuildCompacted loaded = stor.getFatBuild(srvId, buildId);
+
+        assertEquals(testsRef.getTests().size(), loaded.getTestsCount());
+        assertEquals(problemsList.getProblemsNonNull().size(), loaded.problems().size());
+        assertNotNull(loaded.parameters());
+        assertEquals(saved, loaded);
+        assertEquals(saved, stor.getAllFatBuilds(srvId, Collections.singletonList(buildId)).get(key));
+
+        assertNull("Same build should not be saved again", stor.saveBuild(srvId, buildId, refBuild,
+            Collections.singletonList(testsRef), problemsList.getProblemsNonNull(), null, null, loaded));
+
+        // Build saved by previous version: all parts in one entry.
+        int oldSrvId = srvId + 1;
+        long oldKey = FatBuildDao.buildIdToCacheKey(oldSrvId, buildId);
+
+        ignite.<Long, FatBuildCompacted>cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).put(oldKey, saved);
+
+        assertNotNull(headers.get(oldKey).field("testsBlock"));
+        assertEquals(saved, stor.getFatBuild(oldSrvId, buildId));
+
+        int part = ignite.affinity(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).partition(oldKey);
+
+        assertTrue(FatBuildDao.splitPartition(ignite, part) >= 1);
+        assertNull(headers.get(oldKey).field("testsBlock"));
+        assertEquals(saved, stor.getFatBuild(oldSrvId, buildId));
+        assertEquals(0, FatBuildDao.splitPartition(ignite, part));
+
+        stor.removeAll(new HashSet<>(Arrays.asList(key, oldKey)));
+
+        assertNull(stor.getFatBuild(srvId, buildId));
+        assertEquals(0, ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_TESTS_CACHE_NAME).size());
+        assertEquals(0, ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_PARAMETERS_CACHE_NAME).size());
+        assertEquals(0, ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_PROBLEMS_CACHE_NAME).size());
+    }
+
     @Test
     public void testFatBuild() throws JAXBException, IOException {
         Build refBuild = jaxbTestXml("/build.xml", Build.class);
@@ -572,6 +683,282 @@ public class IgnitedTcInMemoryIntegrationTest {
 
     }
 
+    /**
+     * Checks long running tests index is updated on saving of finished build.
+     */
+    @Test
+    public void testLongRunningTestsIndex() throws JAXBException, IOException {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+                bind(IDataSourcesConfigSupplier.class).toInstance(Mockito.mock(IDataSourcesConfigSupplier.class));
+                bind(ILogProductSpecific.class).toInstance(Mockito.mock(ILogProductSpecific.class));
+            }
+        });
+
+        FatBuildDao stor = injector.getInstance(FatBuildDao.class);
+        stor.init();
+
+        IStringCompactor compactor = injector.getInstance(IStringCompactor.class);
+        int srvIdMaskHigh = ITeamcityIgnited.serverIdToInt(APACHE);
+
+        List<BuildRefCompacted> refs = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            Build build = jaxbTestXml("/build.xml", Build.class);
+            TestOccurrencesFull tests = jaxbTestXml("/testList.xml", TestOccurrencesFull.class);
+            Statistics statistics = jaxbTestXml("/statistics.xml", Statistics.class);
+
+            build.setId(build.getId() + i);
+
+            if (i == 2)
+                build.state = BuildRef.STATE_RUNNING;
+
+            for (TestOccurrenceFull test : tests.getTests()) {
+                if (test.duration != null)
+                    test.duration = test.duration * (2 + i);
+            }
+
+            FatBuildCompacted fatBuild = stor.saveBuild(srvIdMaskHigh, build.getId(), build,
+                Collections.singletonList(tests), null, statistics, null, null);
+
+            assertNotNull(fatBuild);
+
+            refs.add(new BuildRefCompacted(fatBuild));
+        }
+
+        Map<Integer, LrTestsSuiteStat> lrTests = stor.getLongRunningTests(srvIdMaskHigh, refs);
+
+        assertEquals(2, lrTests.size());
+        assertFalse(lrTests.containsKey(refs.get(2).id()));
+
+        for (int i = 0; i < 2; i++) {
+            int buildId = refs.get(i).id();
+            LrTestsBuildStat exp = LrTestsBuildStat.of(stor.getFatBuild(srvIdMaskHigh, buildId), compactor);
+
+            assertEquals(exp, lrTests.get(buildId).build(buildId));
+            assertTrue(exp.longRunningTestsCount() > 0);
+        }
+
+        LrTestsBuildStat first = lrTests.get(refs.get(0).id()).build(refs.get(0).id());
+        List<Long> trend = lrTests.get(refs.get(1).id()).testTimeTrend(refs.get(1).id(), first.testName(0));
+
+        assertEquals(Arrays.asList((long)first.duration(0), first.duration(0) * 3L / 2), trend);
+    }
+
+    /**
+     * Checks builds started in date range are found using timeline index updated on saving of build and filled for
+     * builds saved before.
+     */
+    @Test
+    public void testBuildTimelineIndex() throws JAXBException, IOException {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+                bind(IDataSourcesConfigSupplier.class).toInstance(Mockito.mock(IDataSourcesConfigSupplier.class));
+                bind(ILogProductSpecific.class).toInstance(Mockito.mock(ILogProductSpecific.class));
+            }
+        });
+
+        FatBuildDao stor = injector.getInstance(FatBuildDao.class);
+        stor.init();
+
+        IStringCompactor compactor = injector.getInstance(IStringCompactor.class);
+        int srvIdMaskHigh = ITeamcityIgnited.serverIdToInt(APACHE);
+        long t0 = 1_500_000_000_000L;
+
+        // Build ID -> start timestamp, builds with higher ID are started earlier, every 2 builds at the same time.
+        Map<Integer, Long> startTsById = new HashMap<>();
+        Map<Long, BuildRefCompacted> refs = new HashMap<>();
+        int buildTypeId = -1;
+
+        for (int i = 0; i < 12; i++) {
+            Build build = jaxbTestXml("/build.xml", Build.class);
+
+            build.setId(2000 - i);
+            build.branchName = i % 3 == 0 ? "refs/heads/master" : "master";
+            build.setStartDateTs(i == 11 ? -1 : t0 + (i / 2) * 60_000L);
+
+            FatBuildCompacted fatBuild = stor.saveBuild(srvIdMaskHigh, build.getId(), build,
+                Collections.emptyList(), null, null, null, null);
+
+            assertNotNull(fatBuild);
+
+            if (fatBuild.getStartDateTs() > 0)
+                startTsById.put(build.getId(), fatBuild.getStartDateTs());
+
+            refs.put(FatBuildDao.buildIdToCacheKey(srvIdMaskHigh, build.getId()), new BuildRefCompacted(fatBuild));
+
+            buildTypeId = fatBuild.buildTypeId();
+        }
+
+        Set<Integer> branches = new HashSet<>(Arrays.asList(compactor.getStringId("refs/heads/master"),
+            compactor.getStringId("master")));
+
+        long[][] ranges = {
+            {Long.MIN_VALUE, Long.MAX_VALUE},
+            {t0 - 60_000L, t0 + 3600_000L},
+            {t0 + 60_000L, t0 + 180_000L},
+            {t0 + 60_000L, t0 + 60_000L},
+            {t0 + 1, t0 + 59_999L},
+            {t0 + 300_000L, Long.MAX_VALUE},
+            {t0 + 360_000L, Long.MAX_VALUE},
+            {Long.MIN_VALUE, t0 - 1},
+            {t0 + 180_000L, t0 + 60_000L}};
+
+        for (long[] range : ranges) {
+            assertEquals(Arrays.toString(range), startedBetween(startTsById, range),
+                toList(stor.getBuildIdsStartedBetween(srvIdMaskHigh, buildTypeId, branches, range[0], range[1])));
+        }
+
+        assertEquals(Arrays.asList(1999, 2000),
+            toList(stor.getBuildIdsStartedBetween(srvIdMaskHigh, buildTypeId, branches, t0, t0)));
+
+        assertEquals(Collections.singletonList(1999), toList(stor.getBuildIdsStartedBetween(srvIdMaskHigh,
+            buildTypeId, Collections.singleton(compactor.getStringId("master")), t0, t0)));
+
+        // Index is filled for builds saved before.
+        BuildTimelineIndex.indexCache(ignite).clear();
+
+        assertEquals(0, stor.getBuildIdsStartedBetween(srvIdMaskHigh, buildTypeId, branches, Long.MIN_VALUE,
+            Long.MAX_VALUE).length);
+
+        long filled = 0;
+
+        for (int p = 0; p < ignite.affinity(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).partitions(); p++)
+            filled += BuildTimelineIndex.fillPartition(ignite, p);
+
+        assertEquals(startTsById.size(), filled);
+
+        for (long[] range : ranges) {
+            assertEquals(Arrays.toString(range), startedBetween(startTsById, range),
+                toList(stor.getBuildIdsStartedBetween(srvIdMaskHigh, buildTypeId, branches, range[0], range[1])));
+        }
+
+        // Removed builds are not found.
+        Map<Long, BuildRefCompacted> removed = new HashMap<>();
+
+        refs.forEach((key, ref) -> {
+            if (ref.id() % 2 == 0)
+                removed.put(key, ref);
+        });
+
+        injector.getInstance(BuildTimelineIndex.class).init().removeAll(removed);
+
+        removed.values().forEach(ref -> startTsById.remove(ref.id()));
+
+        for (long[] range : ranges) {
+            assertEquals(Arrays.toString(range), startedBetween(startTsById, range),
+                toList(stor.getBuildIdsStartedBetween(srvIdMaskHigh, buildTypeId, branches, range[0], range[1])));
+        }
+    }
+
+    /**
+     * @param startTsById Start timestamp by build ID.
+     * @param range Start timestamps range, inclusive.
+     * @return IDs of builds started in range, sorted.
+     */
+    private static List<Integer> startedBetween(Map<Integer, Long> startTsById, long[] range) {
+        return startTsById.entrySet().stream()
+            .filter(e -> e.getValue() >= range[0] && e.getValue() <= range[1])
+            .map(Map.Entry::getKey)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param ids Ids.
+     */
+    private static List<Integer> toList(int[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Checks early triggered build detection using triggering info read without build loading gives the same
+     * decisions as detection using build converted from full entry.
+     */
+    @Test
+    public void testTriggeredInfoOfQueuedBuilds() throws JAXBException, IOException {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+                bind(IDataSourcesConfigSupplier.class).toInstance(Mockito.mock(IDataSourcesConfigSupplier.class));
+                bind(ILogProductSpecific.class).toInstance(Mockito.mock(ILogProductSpecific.class));
+            }
+        });
+
+        FatBuildDao stor = injector.getInstance(FatBuildDao.class);
+        stor.init();
+
+        IStringCompactor compactor = injector.getInstance(IStringCompactor.class);
+        int srvIdMaskHigh = ITeamcityIgnited.serverIdToInt(APACHE);
+
+        List<String> buildTypes = Arrays.asList("IgniteTests24Java8_Cache1", "IgniteTests24Java8_RunAll");
+        List<String> users = Arrays.asList("amashenkov", "tcbot", null);
+        List<BuildRefCompacted> queue = new ArrayList<>();
+
+        int buildId = 3000000;
+
+        for (String buildTypeId : buildTypes) {
+            for (String user : users) {
+                // Recorded build is used as a template for queued builds triggered by user, by VCS, and without info.
+                for (int variant = 0; variant < 2; variant++) {
+                    Build build = jaxbTestXml("/build.xml", Build.class);
+
+                    build.setId(++buildId);
+                    build.buildTypeId = buildTypeId;
+                    build.state = BuildRef.STATE_QUEUED;
+
+                    if (variant == 1)
+                        build.setTriggered(null);
+                    else if (user == null)
+                        build.getTriggered().setUser(null);
+                    else
+                        build.getTriggered().getUser().username = user;
+
+                    stor.saveBuild(srvIdMaskHigh, buildId, build, Collections.emptyList(), null, null, null, null);
+
+                    queue.add(new BuildRefCompacted(compactor, build));
+                }
+            }
+        }
+
+        int notSavedId = ++buildId;
+
+        List<Integer> ids = queue.stream().map(BuildRefCompacted::getId).collect(Collectors.toList());
+        ids.add(notSavedId);
+
+        Map<Integer, TriggeredCompacted> triggered = stor.getTriggered(srvIdMaskHigh, ids);
+
+        assertFalse(triggered.containsKey(notSavedId));
+
+        for (String selfLogin : Arrays.asList("amashenkov", "TCBOT", "other")) {
+            for (String buildTypeId : buildTypes) {
+                for (BuildRefCompacted ref : queue) {
+                    Build build = stor.getFatBuild(srvIdMaskHigh, ref.id()).toBuild(compactor);
+
+                    Triggered fullTrig = build.getTriggered();
+                    boolean exp = fullTrig != null && fullTrig.getUser() != null
+                        && selfLogin.equalsIgnoreCase(fullTrig.getUser().username)
+                        && buildTypeId.equals(build.buildTypeId());
+
+                    TriggeredCompacted lightTrig = triggered.get(ref.id());
+                    assertEquals(fullTrig != null, lightTrig != null);
+
+                    String login = lightTrig == null ? null : lightTrig.username(compactor);
+                    boolean act = login != null
+                        && selfLogin.equalsIgnoreCase(login)
+                        && buildTypeId.equals(ref.buildTypeId(compactor));
+
+                    assertEquals("Build " + ref.id() + ", login " + selfLogin + ", type " + buildTypeId, exp, act);
+                }
+            }
+        }
+    }
+
     public void assertParameter(Build refBuild, Build actBuild, String parmKey) {
         assertNotNull(refBuild.parameter(parmKey));
         assertEquals(refBuild.parameter(parmKey), actBuild.parameter(parmKey));
@@ -749,6 +1136,106 @@ public class IgnitedTcInMemoryIntegrationTest {
         assertNull(fatBuildDao.getFatBuild(srvIdInt, buildId).state(c));
     }
 
+    /**
+     * Checks changes missing in the DB are requested in batches and each change is requested once for concurrent
+     * callers.
+     */
+    @Test
+    public void testChangesLoadedInBatches() throws Exception {
+        int firstId = 900000;
+        int changesCnt = 250;
+        int missingId = firstId + changesCnt;
+
+        Map<Integer, AtomicInteger> requestedIds = new ConcurrentHashMap<>();
+        AtomicInteger batchRequests = new AtomicInteger();
+        AtomicInteger singleRequests = new AtomicInteger();
+        Pattern idPtrn = Pattern.compile("id:(\\d+)");
+
+        ITeamcityHttpConnection http = Mockito.mock(ITeamcityHttpConnection.class);
+
+        when(http.sendGet(anyString(), anyString())).thenAnswer(
+            (invocationOnMock) -> {
+                String url = invocationOnMock.getArgument(1);
+
+                if (url.contains("app/rest/latest/changes?locator=item:")) {
+                    batchRequests.incrementAndGet();
+
+                    // Let concurrent callers ask for changes being loaded.
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+
+                    StringBuilder xml = new StringBuilder("<changes>");
+                    Matcher matcher = idPtrn.matcher(url);
+
+                    while (matcher.find()) {
+                        int id = Integer.parseInt(matcher.group(1));
+
+                        requestedIds.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+
+                        if (id != missingId) {
+                            xml.append("<change id=\"").append(id)
+                                .append("\" version=\"").append(Integer.toHexString(id)).append('0')
+                                .append("\" username=\"user").append(id)
+                                .append("\" date=\"20181011T190027+0300\">")
+                                .append("<user username=\"user").append(id).append("\" name=\"User ").append(id)
+                                .append("\" id=\"").append(id).append("\"/></change>");
+                        }
+                    }
+
+                    return new ByteArrayInputStream(xml.append("</changes>").toString().getBytes(UTF_8));
+                }
+
+                if (url.contains("app/rest/latest/changes/id:"))
+                    singleRequests.incrementAndGet();
+
+                throw new FileNotFoundException(url);
+            }
+        );
+
+        TeamcityIgnitedModule module = new TeamcityIgnitedModule();
+
+        module.overrideHttp(http);
+
+        Injector injector = Guice.createInjector(module, new IgniteAndSchedulerTestModule());
+
+        ITeamcityIgnited srv = injector.getInstance(ITeamcityIgnitedProvider.class).server(APACHE, creds());
+        IStringCompactor compactor = injector.getInstance(IStringCompactor.class);
+
+        int[] changeIds = IntStream.rangeClosed(firstId, missingId).toArray();
+
+        ExecutorService svc = Executors.newFixedThreadPool(4);
+        List<Future<Collection<ChangeCompacted>>> futs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 4; i++)
+                futs.add(svc.submit(() -> srv.getAllChanges(changeIds)));
+
+            for (Future<Collection<ChangeCompacted>> fut : futs) {
+                Collection<ChangeCompacted> changes = fut.get();
+
+                assertEquals(changeIds.length, changes.size());
+
+                for (ChangeCompacted change : changes) {
+                    if (change.id() != -1)
+                        assertEquals("user" + change.id(), change.vcsUsername(compactor));
+                }
+            }
+        }
+        finally {
+            svc.shutdownNow();
+        }
+
+        assertEquals(changeIds.length, requestedIds.size());
+        assertTrue(requestedIds.toString(), requestedIds.values().stream().allMatch(cnt -> cnt.get() == 1));
+        assertTrue(batchRequests.get() < changeIds.length / 10);
+        assertEquals(1, singleRequests.get());
+
+        int batches = batchRequests.get();
+
+        assertEquals(changeIds.length, srv.getAllChanges(changeIds).size());
+        assertEquals(batches, batchRequests.get());
+        assertEquals(1, singleRequests.get());
+    }
+
     @NotNull public List<BuildRef> printRefs(IStringCompactor c, List<BuildRefCompacted> running2) {
         return running2.stream().map(bref -> bref.toBuildRef(c)).collect(Collectors.toList());
     }
@@ -826,6 +1313,67 @@ public class IgnitedTcInMemoryIntegrationTest {
         svc.shutdown();
     }
 
+    @Test
+    public void testBuildsForBranchesBatch() {
+        Injector injector = Guice.createInjector(new TeamcityIgnitedModule(), new GuavaCachedModule(),
+            new IgniteAndSchedulerTestModule());
+
+        IStringCompactor c = injector.getInstance(IStringCompactor.class);
+        BuildRefDao storage = injector.getInstance(BuildRefDao.class).init();
+
+        int srvId = ITeamcityIgnited.serverIdToInt("apache");
+        int otherSrvId = ITeamcityIgnited.serverIdToInt("private");
+        int buildTypeId = c.getStringId("batchBuildType");
+        int otherBuildTypeId = c.getStringId("batchOtherBuildType");
+        AtomicInteger idGen = new AtomicInteger(100000);
+
+        List<Integer> branches = new ArrayList<>();
+
+        for (int i = 0; i < 700; i++) {
+            int branch = c.getStringId("batchBranch" + i);
+
+            branches.add(branch);
+
+            if (i % 3 == 0)
+                continue; // branch without builds
+
+            for (int j = 0; j < 1 + i % 2; j++) {
+                storage.save(srvId, new BuildRefCompacted().withId(idGen.incrementAndGet()).state(0).status(2)
+                    .branchName(branch).buildTypeId(buildTypeId));
+            }
+
+            storage.save(srvId, new BuildRefCompacted().withId(idGen.incrementAndGet()).state(0).status(2)
+                .branchName(branch).buildTypeId(otherBuildTypeId));
+            storage.save(otherSrvId, new BuildRefCompacted().withId(idGen.incrementAndGet()).state(0).status(2)
+                .branchName(branch).buildTypeId(buildTypeId));
+        }
+
+        // Part of branches is cached by single-branch requests.
+        for (int i = 0; i < 100; i++)
+            storage.getAllBuildsCompacted(srvId, buildTypeId, Collections.singleton(branches.get(i)));
+
+        Map<Integer, List<BuildRefCompacted>> batch = storage.getBuildsForBranches(srvId, buildTypeId, branches);
+
+        assertEquals(branches.size(), batch.size());
+
+        BuildRefDao uncached = injector.getInstance(BuildRefDao.class).init();
+
+        for (int i = 0; i < branches.size(); i++) {
+            Integer branch = branches.get(i);
+            List<BuildRefCompacted> exp = uncached.getAllBuildsCompacted(srvId, buildTypeId,
+                Collections.singleton(branch));
+
+            assertEquals(i % 3 == 0 ? 0 : 1 + i % 2, exp.size());
+            assertEquals(new HashSet<>(exp), new HashSet<>(batch.get(branch)));
+        }
+
+        Integer branch = branches.get(1);
+        storage.save(srvId, new BuildRefCompacted().withId(idGen.incrementAndGet()).state(0).status(2)
+            .branchName(branch).buildTypeId(buildTypeId));
+
+        assertEquals(3, storage.getBuildsForBranches(srvId, buildTypeId, branches).get(branch).size());
+    }
+
     @Test
     public void testTestHistoryPropagation() {
         TeamcityIgnitedModule module = new TeamcityIgnitedModule();
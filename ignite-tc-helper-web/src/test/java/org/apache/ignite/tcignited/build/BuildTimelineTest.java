@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks builds started in date range found by binary search in timeline, including edge cases: range before or after
+ * all builds, range bounds equal to build start time, several builds started at the same time.
+ */
+public class BuildTimelineTest {
+    /** Start of the first build. */
+    private static final long T0 = 1_500_000_000_000L;
+
+    /** Second. */
+    private static final long SEC = 1000L;
+
+    /**
+     *
+     */
+    @Test
+    public void testEmptyTimeline() {
+        BuildTimeline timeline = BuildTimeline.empty();
+
+        assertArrayEquals(new int[0], timeline.buildIds(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertArrayEquals(new int[0], timeline.buildIds(T0, T0));
+        assertSame(timeline, timeline.withBuilds(new int[0], new long[0]));
+        assertSame(timeline, timeline.withoutBuilds(new int[] {1}));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testRangeBounds() {
+        // Build IDs are not ordered by start time, builds 4 and 5 are started at the same time.
+        BuildTimeline timeline = BuildTimeline.empty()
+            .withBuilds(new int[] {3, 1, 2}, new long[] {T0 + 2 * SEC, T0, T0 + SEC})
+            .withBuilds(new int[] {5, 4, 6}, new long[] {T0 + 3 * SEC, T0 + 3 * SEC, T0 + 4 * SEC});
+
+        assertEquals(6, timeline.size());
+
+        // Unbounded.
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6}, timeline.buildIds(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        // Since after last build, until before first build.
+        assertArrayEquals(new int[0], timeline.buildIds(T0 + 5 * SEC, Long.MAX_VALUE));
+        assertArrayEquals(new int[0], timeline.buildIds(Long.MIN_VALUE, T0 - 1));
+
+        // Since before first build, until after last build.
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6}, timeline.buildIds(T0 - SEC, T0 + 10 * SEC));
+
+        // Bounds are inclusive.
+        assertArrayEquals(new int[] {2, 3, 4, 5}, timeline.buildIds(T0 + SEC, T0 + 3 * SEC));
+        assertArrayEquals(new int[] {1}, timeline.buildIds(T0, T0));
+        assertArrayEquals(new int[] {6}, timeline.buildIds(T0 + 4 * SEC, T0 + 4 * SEC));
+
+        // Builds started at the same time are all found.
+        assertArrayEquals(new int[] {4, 5}, timeline.buildIds(T0 + 3 * SEC, T0 + 3 * SEC));
+        assertArrayEquals(new int[] {4, 5, 6}, timeline.buildIds(T0 + 3 * SEC, Long.MAX_VALUE));
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5}, timeline.buildIds(Long.MIN_VALUE, T0 + 3 * SEC));
+
+        // Range between builds.
+        assertArrayEquals(new int[0], timeline.buildIds(T0 + 1, T0 + SEC - 1));
+
+        // Since after until.
+        assertArrayEquals(new int[0], timeline.buildIds(T0 + 3 * SEC, T0 + SEC));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testBuildsUpdateAndRemoval() {
+        BuildTimeline timeline = BuildTimeline.empty()
+            .withBuilds(new int[] {1, 2, 3}, new long[] {T0, T0 + SEC, T0 + 2 * SEC});
+
+        assertSame(timeline, timeline.withBuilds(new int[] {2}, new long[] {T0 + SEC}));
+
+        // Start time of build is updated: build is moved.
+        BuildTimeline moved = timeline.withBuilds(new int[] {1}, new long[] {T0 + 3 * SEC});
+
+        assertEquals(3, moved.size());
+        assertArrayEquals(new int[] {2, 3, 1}, moved.buildIds(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertArrayEquals(new int[] {1, 2, 3}, timeline.buildIds(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        BuildTimeline removed = moved.withoutBuilds(new int[] {3, 100});
+
+        assertArrayEquals(new int[] {2, 1}, removed.buildIds(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertSame(removed, removed.withoutBuilds(new int[] {3}));
+        assertEquals(0, removed.withoutBuilds(new int[] {1, 2}).size());
+    }
+
+    /**
+     * Compares builds added one by one, including moved builds, with the same builds added by bulk merge.
+     */
+    @Test
+    public void testSingleBuildInsertMatchesBulkMerge() {
+        Random rnd = new Random(42);
+
+        BuildTimeline timeline = BuildTimeline.empty();
+        BuildTimeline bulk = BuildTimeline.empty();
+
+        for (int i = 0; i < 500; i++) {
+            int id = 1 + rnd.nextInt(200);
+            long ts = T0 + rnd.nextInt(50) * SEC;
+
+            timeline = timeline.withBuild(id, ts);
+            bulk = bulk.withBuilds(new int[] {id, id}, new long[] {ts, ts});
+
+            assertArrayEquals(bulk.buildIds(Long.MIN_VALUE, Long.MAX_VALUE),
+                timeline.buildIds(Long.MIN_VALUE, Long.MAX_VALUE));
+            assertSame(timeline, timeline.withBuild(id, ts));
+        }
+    }
+
+    /**
+     * Compares binary search results with filtering of all builds for random ranges.
+     */
+    @Test
+    public void testRandomRangesMatchFullScan() {
+        Random rnd = new Random(42);
+
+        Map<Integer, Long> startTsById = new TreeMap<>();
+        BuildTimeline timeline = BuildTimeline.empty();
+
+        for (int i = 0; i < 500; i++) {
+            int id = 1 + rnd.nextInt(1000);
+            long ts = T0 + rnd.nextInt(300) * SEC;
+
+            startTsById.put(id, ts);
+            timeline = timeline.withBuilds(new int[] {id}, new long[] {ts});
+        }
+
+        assertEquals(startTsById.size(), timeline.size());
+
+        for (int i = 0; i < 1000; i++) {
+            long since = T0 + (rnd.nextInt(320) - 10) * SEC + (rnd.nextBoolean() ? 0 : rnd.nextInt((int)SEC));
+            long until = since + rnd.nextInt(100) * SEC - (rnd.nextInt(10) == 0 ? 50 * SEC : 0);
+
+            int[] exp = startTsById.entrySet().stream()
+                .filter(e -> e.getValue() >= since && e.getValue() <= until)
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+
+            assertArrayEquals("since=" + since + ", until=" + until, exp, timeline.buildIds(since, until));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.mute;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.internal.SingletonScope;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.xml.bind.JAXBException;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.IgniteStringCompactor;
+import org.apache.ignite.tcservice.model.mute.MuteInfo;
+import org.apache.ignite.tcservice.model.mute.Mutes;
+import org.apache.ignite.tcservice.util.XmlUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks mutes of servers having IDs with common bits are not mixed.
+ */
+public class MuteDaoTest {
+    /** Test ignite port. */
+    private static final int TEST_IGNITE_PORT = 64124;
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testMutesOfServersWithCommonBits() throws IOException, JAXBException {
+        Set<MuteInfo> mutes;
+
+        try (InputStream stream = getClass().getResourceAsStream("/mutes.xml")) {
+            mutes = XmlUtil.load(Mutes.class, new InputStreamReader(stream)).getMutesNonNull();
+        }
+
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+            }
+        });
+
+        MuteDao dao = injector.getInstance(MuteDao.class);
+
+        dao.init();
+
+        IgniteCache<Object, Object> cache = ignite.cache("teamcityMute");
+
+        cache.clear();
+
+        // Key of server 3 matches mask of server 1.
+        int srv1 = 1;
+        int srv3 = 3;
+
+        MuteInfo[] sorted = new TreeSet<>(mutes).toArray(new MuteInfo[0]);
+        MuteInfo median = sorted[sorted.length / 2];
+
+        SortedSet<MuteInfo> srv1Mutes = new TreeSet<>(mutes).headSet(median);
+        SortedSet<MuteInfo> srv3Mutes = new TreeSet<>(mutes).tailSet(median);
+
+        dao.saveChunk(srv1, srv1Mutes);
+        dao.saveChunk(srv3, srv3Mutes);
+
+        assertEquals(srv1Mutes, dao.getMutes(srv1));
+        assertEquals(srv3Mutes, dao.getMutes(srv3));
+
+        int startId = sorted[sorted.length / 4].id;
+        SortedSet<MuteInfo> srv1Kept = new TreeSet<>(srv1Mutes.headSet(sorted[sorted.length / 4 + 1]));
+
+        assertEquals(0, dao.removeAllAfter(srv3, sorted[sorted.length - 1].id));
+        assertEquals(srv1Mutes.size() - srv1Kept.size(), dao.removeAllAfter(srv1, startId));
+
+        assertEquals(srv1Kept, dao.getMutes(srv1));
+        assertEquals(srv3Mutes, dao.getMutes(srv3));
+
+        MuteDao restarted = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+            }
+        }).getInstance(MuteDao.class);
+
+        restarted.init();
+
+        assertEquals(srv1Kept, restarted.getMutes(srv1));
+        assertEquals(srv3Mutes, restarted.getMutes(srv3));
+    }
+}
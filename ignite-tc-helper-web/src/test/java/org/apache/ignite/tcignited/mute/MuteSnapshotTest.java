@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.mute;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.internal.SingletonScope;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.internal.util.typedef.F;
+import org.apache.ignite.jiraignited.JiraTicketDao;
+import org.apache.ignite.jiraservice.JiraTicketStatusCode;
+import org.apache.ignite.jiraservice.Status;
+import org.apache.ignite.jiraservice.Ticket;
+import org.apache.ignite.jiraservice.v2.Fields;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.IgniteStringCompactor;
+import org.apache.ignite.tcservice.model.mute.MuteAssignment;
+import org.apache.ignite.tcservice.model.mute.MuteInfo;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks ticket statuses joined using mutes snapshot are the same as found by scan of all tickets for each mute.
+ */
+public class MuteSnapshotTest {
+    /** Test ignite port. */
+    private static final int TEST_IGNITE_PORT = 64124;
+
+    /** Browse URL. */
+    private static final String BROWSE_URL = "https://issues.apache.org/jira/browse/";
+
+    /** Project code. */
+    private static final String PROJECT = "IGNITE";
+
+    /** Ignite. */
+    private static Ignite ignite;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(TEST_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcHelperDb.LocalOnlyTcpDiscoveryIpFinder(TEST_IGNITE_PORT));
+
+        cfg.setDiscoverySpi(spi);
+
+        ignite = Ignition.start(cfg);
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void stopIgnite() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testJoinedStatusMatchesTicketsScan() {
+        Random rnd = new Random(42);
+
+        List<Ticket> tickets = tickets(rnd, 500);
+        SortedSet<MuteInfo> mutes = mutes(rnd, 300, 600);
+
+        MuteSnapshot snapshot = new MuteSnapshot(mutes);
+
+        Map<String, String> statuses = new HashMap<>();
+
+        for (Ticket ticket : tickets)
+            statuses.put(ticket.key, JiraTicketStatusCode.text(ticket.status()));
+
+        assertStatusesEqual(scanJoin(snapshot.mutes(), tickets), snapshot.mutesWithTicketStatus(BROWSE_URL, statuses));
+
+        // Ticket keys are cached for browse URL, joined statuses should follow tickets update.
+        for (Ticket ticket : tickets) {
+            if (rnd.nextBoolean()) {
+                ticket.fields = fields(rnd);
+
+                statuses.put(ticket.key, JiraTicketStatusCode.text(ticket.status()));
+            }
+        }
+
+        assertStatusesEqual(scanJoin(snapshot.mutes(), tickets), snapshot.mutesWithTicketStatus(BROWSE_URL, statuses));
+
+        assertStatusesEqual(scanJoin(snapshot.mutes(), tickets, "https://other/browse/"),
+            snapshot.mutesWithTicketStatus("https://other/browse/", statuses));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testSnapshotMutesAreNotModifiedByReaders() {
+        Random rnd = new Random(42);
+
+        MuteSnapshot snapshot = new MuteSnapshot(mutes(rnd, 10, 10));
+
+        SortedSet<MuteInfo> read = snapshot.mutes();
+
+        for (MuteInfo mute : read) {
+            mute.ticketStatus = "modified";
+            mute.assignment.muteDate = "modified";
+        }
+
+        SortedSet<MuteInfo> reread = snapshot.mutes();
+
+        assertEquals(read, reread);
+
+        for (MuteInfo mute : reread) {
+            assertNull(mute.ticketStatus);
+            assertEquals("20190101T120000+0300", mute.assignment.muteDate);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testTicketStatusesAreUpdatedWithSavedTickets() {
+        JiraTicketDao dao = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).to(IgniteStringCompactor.class).in(new SingletonScope());
+            }
+        }).getInstance(JiraTicketDao.class);
+
+        dao.init();
+
+        ignite.cache(JiraTicketDao.TEAMCITY_JIRA_TICKET_CACHE_NAME).clear();
+
+        int srvId = 1;
+        Random rnd = new Random(42);
+
+        List<Ticket> tickets = tickets(rnd, 200);
+
+        dao.saveChunk(srvId, tickets.subList(0, 100), PROJECT);
+
+        MuteSnapshot snapshot = new MuteSnapshot(mutes(rnd, 100, 250));
+
+        Map<String, String> statuses = dao.getTicketStatuses(srvId, PROJECT);
+
+        assertStatusesEqual(scanJoin(snapshot.mutes(), dao.getTickets(srvId, PROJECT, dao.updateCounter(srvId))),
+            snapshot.mutesWithTicketStatus(BROWSE_URL, statuses));
+
+        for (Ticket ticket : tickets.subList(0, 100))
+            ticket.fields = fields(rnd);
+
+        dao.saveChunk(srvId, tickets, PROJECT);
+
+        assertStatusesEqual(scanJoin(snapshot.mutes(), dao.getTickets(srvId, PROJECT, dao.updateCounter(srvId))),
+            snapshot.mutesWithTicketStatus(BROWSE_URL, statuses));
+
+        assertEquals(statuses, dao.getTicketStatuses(srvId, PROJECT));
+    }
+
+    /**
+     * @param exp Expected.
+     * @param actual Actual.
+     */
+    private static void assertStatusesEqual(Collection<MuteInfo> exp, Collection<MuteInfo> actual) {
+        assertEquals(exp, actual);
+
+        Map<Integer, String> expStatuses = new HashMap<>();
+        Map<Integer, String> actualStatuses = new HashMap<>();
+
+        exp.forEach(mute -> expStatuses.put(mute.id, mute.ticketStatus));
+        actual.forEach(mute -> actualStatuses.put(mute.id, mute.ticketStatus));
+
+        assertEquals(expStatuses, actualStatuses);
+    }
+
+    /**
+     * @param mutes Mutes.
+     * @param tickets Tickets.
+     */
+    private static Collection<MuteInfo> scanJoin(Collection<MuteInfo> mutes, Collection<Ticket> tickets) {
+        return scanJoin(mutes, tickets, BROWSE_URL);
+    }
+
+    /**
+     * Status join by scan of all tickets for each mute.
+     *
+     * @param mutes Mutes.
+     * @param tickets Tickets.
+     * @param browseUrl Browse url.
+     */
+    private static Collection<MuteInfo> scanJoin(Collection<MuteInfo> mutes, Collection<Ticket> tickets,
+        String browseUrl) {
+        for (MuteInfo mute : mutes) {
+            if (F.isEmpty(mute.assignment.text))
+                continue;
+
+            int pos = mute.assignment.text.indexOf(browseUrl);
+
+            if (pos == -1)
+                continue;
+
+            for (Ticket ticket : tickets) {
+                String muteTicket = mute.assignment.text.substring(pos + browseUrl.length());
+
+                if (ticket.key.equals(muteTicket)) {
+                    mute.ticketStatus = JiraTicketStatusCode.text(ticket.status());
+
+                    break;
+                }
+            }
+        }
+
+        return mutes;
+    }
+
+    /**
+     * @param rnd Random.
+     * @param cnt Count.
+     */
+    private static List<Ticket> tickets(Random rnd, int cnt) {
+        List<Ticket> res = new ArrayList<>();
+
+        for (int i = 1; i <= cnt; i++) {
+            Ticket ticket = new Ticket();
+
+            ticket.id = 100_000 + i;
+            ticket.key = PROJECT + Ticket.PROJECT_DELIM + i;
+            ticket.fields = fields(rnd);
+
+            res.add(ticket);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param rnd Random.
+     */
+    private static Fields fields(Random rnd) {
+        JiraTicketStatusCode[] codes = JiraTicketStatusCode.values();
+
+        Fields fields = new Fields();
+
+        // Unknown status is resolved to null status code.
+        fields.status = new Status(rnd.nextInt(10) == 0 ? 2 : codes[rnd.nextInt(codes.length)].getId());
+        fields.summary = "Summary " + rnd.nextInt();
+
+        return fields;
+    }
+
+    /**
+     * @param rnd Random.
+     * @param cnt Count of mutes.
+     * @param maxTicket Max ticket number referenced by mute comment, can be greater than tickets count.
+     */
+    private static SortedSet<MuteInfo> mutes(Random rnd, int cnt, int maxTicket) {
+        TreeSet<MuteInfo> res = new TreeSet<>();
+
+        for (int i = 0; i < cnt; i++) {
+            MuteInfo mute = new MuteInfo();
+
+            mute.id = i * 3 + rnd.nextInt(3);
+            mute.assignment = new MuteAssignment();
+            mute.assignment.muteDate = "20190101T120000+0300";
+
+            String ticket = PROJECT + Ticket.PROJECT_DELIM + (1 + rnd.nextInt(maxTicket));
+
+            switch (rnd.nextInt(6)) {
+                case 0:
+                    mute.assignment.text = null;
+
+                    break;
+
+                case 1:
+                    mute.assignment.text = "Flaky test, no ticket";
+
+                    break;
+
+                case 2:
+                    mute.assignment.text = "Muted, see " + BROWSE_URL + ticket + " for details";
+
+                    break;
+
+                case 3:
+                    mute.assignment.text = BROWSE_URL + ticket + " " + BROWSE_URL + ticket;
+
+                    break;
+
+                default:
+                    mute.assignment.text = "Muted " + BROWSE_URL + ticket;
+            }
+
+            res.add(mute);
+        }
+
+        return res;
+    }
+}
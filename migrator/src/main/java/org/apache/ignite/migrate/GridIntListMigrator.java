@@ -126,7 +126,8 @@ public final class GridIntListMigrator {
                 a.cacheFilter,
                 a.apply,
                 a.verbose,
-                a.reportEvery
+                a.reportEvery,
+                new PartitionedMigration(ig, "migrate-GridIntList", null, a.threads, log::debug)
             );
 
             log.info("Migration finished. Total updated: {}", updated);
@@ -147,6 +148,26 @@ public final class GridIntListMigrator {
         boolean apply,
         boolean verbose,
         int reportEvery) {
+        return migrateOnInstance(ignite, cacheFilter, apply, verbose, reportEvery,
+            new PartitionedMigration(ignite, "migrate-GridIntList", null, 1, log::debug));
+    }
+
+    /**
+     * Perform migration on existing Ignite instance, partitions of caches are processed by the given migration.
+     * @param ignite Ignite instance
+     * @param cacheFilter cache name filter
+     * @param apply true to apply changes, false to dry-run
+     * @param verbose logging
+     * @param reportEvery frequency of reports
+     * @param migration Partitioned migration, defines parallelism and checkpoints.
+     * @return number of updated records by this run
+     */
+    public static long migrateOnInstance(Ignite ignite,
+        String cacheFilter,
+        boolean apply,
+        boolean verbose,
+        int reportEvery,
+        PartitionedMigration migration) {
         Collection<String> cacheNames = new ArrayList<>(ignite.cacheNames());
 
         if (cacheFilter != null && !cacheFilter.isEmpty())
@@ -155,28 +176,23 @@ public final class GridIntListMigrator {
         log.info("GridIntList migration - Caches to scan: {}", cacheNames);
 
         Transformer transformer = new Transformer(verbose);
-        long totalUpdated = 0;
-        long totalFailed = 0;
-
-        for (String cacheName : cacheNames) {
-            IgniteCache<Object, Object> rawCache = ignite.cache(cacheName);
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
 
-            if (rawCache == null)
-                continue;
-
-            IgniteCache<Object, Object> c = rawCache.withKeepBinary();
-
-            log.info("GridIntList migration - Scanning cache: {}", cacheName);
+        migration.run(cacheNames, (cacheName, part) -> {
+            IgniteCache<Object, Object> c = ignite.cache(cacheName).withKeepBinary();
 
             ScanQuery<Object, Object> q = new ScanQuery<>();
+            q.setPartition(part);
             q.setPageSize(DEFAULT_PAGE_SIZE);
 
-            AtomicLong scanned = new AtomicLong();
-            AtomicLong updated = new AtomicLong();
-            AtomicLong failed = new AtomicLong();
+            long partScanned = 0;
+            long failed = 0;
 
             try (QueryCursor<Cache.Entry<Object, Object>> cur = c.query(q)) {
                 for (Cache.Entry<Object, Object> e : cur) {
+                    partScanned++;
+
                     try {
                         Object v = e.getValue();
                         TransformResult tr = transformer.transform(v, 0);
@@ -190,37 +206,32 @@ public final class GridIntListMigrator {
                             else if (verbose)
                                 log.info("DRY-RUN would update key={}", e.getKey());
                         }
-
-                        long s = scanned.incrementAndGet();
-
-                        if (s % reportEvery == 0)
-                            log.info("Scanned={} updated={}", s, updated.get());
-
                     }
                     catch (Throwable t) {
-                        failed.incrementAndGet();
+                        failed++;
 
                         log.error("Entry migration failed [cache={}, key={}]", cacheName, e.getKey(), t);
-
-                        scanned.incrementAndGet();
                     }
+
+                    long s = scanned.incrementAndGet();
+
+                    if (s % reportEvery == 0)
+                        log.info("Scanned={} updated={}", s, updated.get());
                 }
             }
 
-            log.info("Done {}: scanned={} updated={} failed={}", cacheName, scanned.get(), updated.get(), failed.get());
-
-            totalUpdated += updated.get();
-            totalFailed += failed.get();
-        }
+            // Partition is not checkpointed, so it will be scanned again on the next run.
+            if (failed > 0) {
+                throw new IllegalStateException("GridIntList migration failed for " + failed +
+                    " entries [cache=" + cacheName + ", part=" + part + "]. Migration marker will not be written.");
+            }
 
-        if (totalFailed > 0) {
-            throw new IllegalStateException("GridIntList migration failed for " + totalFailed +
-                " entries. Migration marker will not be written.");
-        }
+            return partScanned;
+        });
 
-        log.info("GridIntList migration finished. Total updated: {}", totalUpdated);
+        log.info("GridIntList migration finished. Scanned: {}, total updated: {}", scanned.get(), updated.get());
 
-        return totalUpdated;
+        return updated.get();
     }
 
     /**
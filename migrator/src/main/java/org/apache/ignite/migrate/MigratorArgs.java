@@ -25,6 +25,7 @@ package org.apache.ignite.migrate;
  * --verbose         more diagnostics
  * --cache <substr>  process only caches whose name contains given substring
  * --report <N>      progress log interval
+ * --threads <N>     count of partitions processed in parallel
  * --workDir <path>  path to work/ directory (overrides IGNITE_WORK_DIR)
  */
 public final class MigratorArgs {
@@ -32,6 +33,7 @@ public final class MigratorArgs {
     boolean verbose = false;
     String cacheFilter = null;
     int reportEvery = 500;
+    int threads = Runtime.getRuntime().availableProcessors();
     String workDir = null;
 
     static MigratorArgs parse(String[] args) {
@@ -51,6 +53,9 @@ public final class MigratorArgs {
                 case "--report":
                     cliArgs.reportEvery = Integer.parseInt(args[++i]);
                     break;
+                case "--threads":
+                    cliArgs.threads = Integer.parseInt(args[++i]);
+                    break;
                 case "--workDir":
                     cliArgs.workDir = args[++i];
                     break;
@@ -59,8 +64,8 @@ public final class MigratorArgs {
             }
         }
         GridIntListMigrator.GetMigratorLogger().info(
-            "Args: apply={} verbose={} cacheFilter={} reportEvery={} workDir={}",
-            cliArgs.apply, cliArgs.verbose, cliArgs.cacheFilter, cliArgs.reportEvery, cliArgs.workDir
+            "Args: apply={} verbose={} cacheFilter={} reportEvery={} threads={} workDir={}",
+            cliArgs.apply, cliArgs.verbose, cliArgs.cacheFilter, cliArgs.reportEvery, cliArgs.threads, cliArgs.workDir
         );
 
         return cliArgs;
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.migrate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.slf4j.Logger;
+
+/**
+ * Runs migration of caches partition by partition using several threads. Processed partitions of each cache are
+ * checkpointed into the given cache, so a migration interrupted by a crash or a failure resumes from the partitions
+ * not processed yet.
+ * <p>
+ * Checkpoint granularity is a partition: a partition being processed during a crash is processed again on resume, so
+ * partition processors have to be idempotent.
+ */
+public class PartitionedMigration {
+    /** Prefix of checkpoint keys. */
+    public static final String CHECKPOINT_PREFIX = "checkpoint-";
+
+    /** Logger. */
+    private static final Logger log = GridIntListMigrator.GetMigratorLogger();
+
+    /** Ignite. */
+    private final Ignite ignite;
+
+    /** Migration code, used for checkpoint keys. */
+    private final String code;
+
+    /** Cache to save checkpoints to, {@code null} means migration is not resumable. */
+    private final IgniteCache<String, Object> checkpoints;
+
+    /** Count of partitions processed in parallel. */
+    private final int threads;
+
+    /** Progress listener. */
+    private final Consumer<String> progressLsnr;
+
+    /** Processed partitions in all caches, including processed before resume. */
+    private final AtomicInteger doneParts = new AtomicInteger();
+
+    /** Partitions in all caches. */
+    private final AtomicInteger totalParts = new AtomicInteger();
+
+    /** Processed entries count reported by processor. */
+    private final AtomicLong processed = new AtomicLong();
+
+    /** Created threads count. */
+    private final AtomicInteger threadsCnt = new AtomicInteger();
+
+    /**
+     * Processor of one cache partition.
+     */
+    @FunctionalInterface
+    public interface PartitionProcessor {
+        /**
+         * @param cacheName Cache name.
+         * @param part Partition.
+         * @return Count of entries processed.
+         */
+        long process(String cacheName, int part);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param code Migration code.
+     * @param checkpoints Cache to save checkpoints to, {@code null} means migration is not resumable.
+     * @param threads Count of partitions processed in parallel.
+     * @param progressLsnr Progress listener.
+     */
+    public PartitionedMigration(Ignite ignite, String code, IgniteCache<String, Object> checkpoints, int threads,
+        Consumer<String> progressLsnr) {
+        this.ignite = ignite;
+        this.code = code;
+        this.checkpoints = checkpoints;
+        this.threads = Math.max(threads, 1);
+        this.progressLsnr = progressLsnr;
+    }
+
+    /**
+     * Processes partitions of the caches not processed yet. Failure of a partition does not stop processing of
+     * others, but the failed partition is not checkpointed and exception is thrown after all partitions are tried.
+     *
+     * @param cacheNames Caches to process, missing caches are skipped.
+     * @param proc Partition processor.
+     * @return Count of entries processed by this run.
+     */
+    public long run(Collection<String> cacheNames, PartitionProcessor proc) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "migration-" + code + "-" + threadsCnt.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        List<Future<?>> futs = new ArrayList<>();
+
+        try {
+            for (String cacheName : cacheNames) {
+                if (ignite.cache(cacheName) == null)
+                    continue;
+
+                int parts = ignite.affinity(cacheName).partitions();
+                String key = checkpointKey(code, cacheName);
+                BitSet done = checkpoints == null ? null : (BitSet)checkpoints.get(key);
+                BitSet cacheDone = done == null ? new BitSet(parts) : done;
+
+                totalParts.addAndGet(parts);
+                doneParts.addAndGet(cacheDone.cardinality());
+
+                if (cacheDone.cardinality() > 0)
+                    log.info("Migration {} resumed for cache {}: {} of {} partitions were processed", code, cacheName,
+                        cacheDone.cardinality(), parts);
+
+                for (int p = 0; p < parts; p++) {
+                    if (cacheDone.get(p))
+                        continue;
+
+                    int part = p;
+
+                    futs.add(executor.submit(() -> {
+                        processed.addAndGet(proc.process(cacheName, part));
+
+                        checkpoint(key, cacheDone, part);
+
+                        progressLsnr.accept("Migration " + code + ", " + progress());
+                    }));
+                }
+            }
+
+            int failed = 0;
+            Throwable firstErr = null;
+
+            for (Future<?> fut : futs) {
+                try {
+                    fut.get();
+                }
+                catch (ExecutionException e) {
+                    failed++;
+
+                    if (firstErr == null)
+                        firstErr = e.getCause();
+
+                    log.error("Partition migration failed [code=" + code + "]", e.getCause());
+                }
+            }
+
+            if (failed > 0) {
+                throw new IllegalStateException("Migration " + code + " failed for " + failed + " partitions, " +
+                    progress(), firstErr);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Migration " + code + " interrupted, " + progress(), e);
+        }
+        finally {
+            // Running partitions are not interrupted to keep persistence consistent.
+            executor.shutdown();
+        }
+
+        String msg = "Migration " + code + " completed, " + progress();
+
+        log.info(msg);
+        progressLsnr.accept(msg);
+
+        return processed.get();
+    }
+
+    /**
+     * @return Printable progress.
+     */
+    public String progress() {
+        return "partitions " + doneParts.get() + "/" + totalParts.get() + ", entries processed " + processed.get();
+    }
+
+    /**
+     * @param key Checkpoint key.
+     * @param cacheDone Processed partitions of the cache.
+     * @param part Processed partition.
+     */
+    private void checkpoint(String key, BitSet cacheDone, int part) {
+        synchronized (cacheDone) {
+            cacheDone.set(part);
+
+            if (checkpoints != null)
+                checkpoints.put(key, cacheDone.clone());
+        }
+
+        doneParts.incrementAndGet();
+    }
+
+    /**
+     * Removes checkpoints of the migration, should be called after migration is marked as completed.
+     *
+     * @param checkpoints Checkpoints cache.
+     * @param code Migration code.
+     */
+    public static void clearCheckpoints(IgniteCache<String, Object> checkpoints, String code) {
+        String prefix = checkpointKey(code, "");
+
+        List<String> keys = new ArrayList<>();
+
+        for (Cache.Entry<String, Object> entry : checkpoints) {
+            if (entry.getKey().startsWith(prefix))
+                keys.add(entry.getKey());
+        }
+
+        keys.forEach(checkpoints::remove);
+    }
+
+    /**
+     * @param code Migration code.
+     * @param cacheName Cache name.
+     */
+    private static String checkpointKey(String code, String cacheName) {
+        return CHECKPOINT_PREFIX + code + "|" + cacheName;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.xml.bind.JAXBException;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.apache.ignite.tcservice.model.result.tests.TestRef;
+import org.apache.ignite.tcservice.util.XmlUtil;
+
+/**
+ * Deterministic data generators and recorded resources loader for benchmarks. All generators use provided random,
+ * so the same seed always gives the same fixture.
+ */
+public class BenchFixtures {
+    /** Seed used by benchmarks by default. */
+    public static final long SEED = 42L;
+
+    /** Packages used for generated class names. */
+    private static final String[] PACKAGES = {
+        "org.apache.ignite.internal.processors.cache",
+        "org.apache.ignite.internal.processors.cache.distributed.dht",
+        "org.apache.ignite.internal.processors.cache.persistence",
+        "org.apache.ignite.internal.processors.query.h2",
+        "org.apache.ignite.internal.managers.discovery",
+        "org.apache.ignite.spi.communication.tcp",
+        "org.apache.ignite.testframework.junits"
+    };
+
+    /** Class name parts for generated names. */
+    private static final String[] WORDS = {
+        "Cache", "Grid", "Partition", "Exchange", "Atomic", "Tx", "Mvcc", "Near", "Dht", "Client", "Checkpoint",
+        "Wal", "Rebalance", "Query", "Index", "Discovery", "Node", "Future", "Lock", "Snapshot"
+    };
+
+    /**
+     * @param rnd Random.
+     * @param cnt Count of words.
+     */
+    public static String className(Random rnd, int cnt) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < cnt; i++)
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+
+        return sb.toString();
+    }
+
+    /**
+     * @param rnd Random.
+     * @return Test name in TeamCity format: suite: class.method.
+     */
+    public static String testName(Random rnd) {
+        String pkg = PACKAGES[rnd.nextInt(PACKAGES.length)];
+
+        return "org.apache.ignite.testsuites.Ignite" + className(rnd, 2) + "TestSuite: "
+            + pkg + "." + className(rnd, 3) + "Test.test" + className(rnd, 2) + rnd.nextInt(100);
+    }
+
+    /**
+     * @param rnd Random.
+     * @param depth Frames count.
+     * @return Stack trace similar to a test failure reported by TeamCity.
+     */
+    public static String stackTrace(Random rnd, int depth) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("java.lang.AssertionError: Values are not equal [key=").append(rnd.nextInt(100000))
+            .append(", expected=").append(rnd.nextInt()).append(", actual=").append(rnd.nextInt()).append("]\n");
+
+        for (int i = 0; i < depth; i++) {
+            String pkg = PACKAGES[rnd.nextInt(PACKAGES.length)];
+            String cls = className(rnd, 2);
+
+            sb.append("    at ").append(pkg).append('.').append(cls).append('.')
+                .append(Character.toLowerCase(WORDS[rnd.nextInt(WORDS.length)].charAt(0)))
+                .append(className(rnd, 1).substring(1)).append('(').append(cls).append(".java:")
+                .append(20 + rnd.nextInt(3000)).append(")\n");
+        }
+
+        sb.append("    at java.lang.Thread.run(Thread.java:748)\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * @param rnd Random.
+     * @param buildId Build ID.
+     * @param cnt Tests count.
+     * @param failRate Share of failed tests, [0..1].
+     */
+    public static List<TestOccurrenceFull> testOccurrences(Random rnd, int buildId, int cnt, double failRate) {
+        List<TestOccurrenceFull> res = new ArrayList<>(cnt);
+
+        for (int i = 0; i < cnt; i++) {
+            TestOccurrenceFull occ = new TestOccurrenceFull();
+            boolean failed = rnd.nextDouble() < failRate;
+
+            occ.id("id:" + i + ",build:(id:" + buildId + ")");
+            occ.name = testName(rnd);
+            occ.status = failed ? TestOccurrence.STATUS_FAILURE : TestOccurrence.STATUS_SUCCESS;
+            occ.duration = rnd.nextInt(60000);
+            occ.muted = false;
+            occ.currentlyMuted = false;
+            occ.currentlyInvestigated = false;
+            occ.ignored = false;
+
+            occ.test = new TestRef();
+            occ.test.id = String.valueOf(rnd.nextLong());
+
+            occ.build = new BuildRef();
+            occ.build.setId(buildId);
+
+            if (failed)
+                occ.details = stackTrace(rnd, 10 + rnd.nextInt(40));
+
+            res.add(occ);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param rsrc Resource name, e.g. /testList.xml
+     * @param cls Class of the root element.
+     */
+    public static <E> E loadXml(String rsrc, Class<E> cls) throws IOException, JAXBException {
+        try (InputStream stream = BenchFixtures.class.getResourceAsStream(rsrc)) {
+            if (stream == null)
+                throw new IOException("Resource not found: " + rsrc);
+
+            return XmlUtil.load(cls, new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.jiraservice.JiraTicketStatusCode;
+import org.apache.ignite.jiraservice.Status;
+import org.apache.ignite.jiraservice.Ticket;
+import org.apache.ignite.jiraservice.v2.Fields;
+import org.apache.ignite.tcbot.common.conf.IJiraServerConfig;
+import org.apache.ignite.tcbot.common.conf.JiraApiVersion;
+import org.apache.ignite.tcbot.engine.conf.GitHubConfig;
+import org.apache.ignite.tcbot.engine.pr.BranchTicketMatcher;
+import org.apache.ignite.tcbot.engine.pr.TicketIndex;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
+import org.apache.ignite.tcignited.buildref.BuildRefDao;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contributions listing: matching of PRs to JIRA tickets using linear scans of tickets compared to tickets index, and
+ * per-branch build reference queries compared to one batched lookup for all candidate branches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ContributionsListingBenchmark {
+    /** Default suite. */
+    private static final String RUN_ALL = "IgniteTests24Java8_RunAll";
+
+    /** Open PRs. */
+    @Param({"2000"})
+    public int prs;
+
+    /** JIRA tickets. */
+    @Param({"30000"})
+    public int tickets;
+
+    /** Branches in git repository. */
+    @Param({"3000"})
+    public int branches;
+
+    /** Branch number prefix, empty for default mode when project code is used. */
+    @Param({"", "GG-"})
+    public String branchNumPrefix;
+
+    /** Ignite. */
+    private Ignite ignite;
+
+    /** Injector. */
+    private Injector injector;
+
+    /** Compactor. */
+    private IStringCompactor compactor;
+
+    /** Matcher. */
+    private final BranchTicketMatcher matcher = new BranchTicketMatcher();
+
+    /** JIRA config. */
+    private IJiraServerConfig jiraCfg;
+
+    /** GitHub config. */
+    private final GitHubConfig ghCfg = new GitHubConfig();
+
+    /** Tickets. */
+    private Set<Ticket> ticketsSet;
+
+    /** PR titles. */
+    private List<String> prTitles;
+
+    /** PR branches. */
+    private List<String> prBranches;
+
+    /** Git branches. */
+    private List<String> gitBranches;
+
+    /** Candidate TC branches for PRs. */
+    private List<String> candidateBranches;
+
+    /** Server id. */
+    private final int srvId = ITeamcityIgnited.serverIdToInt("apache");
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        jiraCfg = new BenchJiraConfig(branchNumPrefix);
+
+        ticketsSet = new LinkedHashSet<>();
+
+        for (int i = 1; i <= tickets; i++) {
+            Ticket ticket = new Ticket("IGNITE-" + i);
+            Fields fields = new Fields();
+
+            fields.summary = BenchFixtures.className(rnd, 4) + " fails"
+                + (branchNumPrefix.isEmpty() ? "" : " see " + branchNumPrefix + (tickets + i));
+            fields.status = new Status(rnd.nextInt(5) == 0
+                ? JiraTicketStatusCode.PATCH_AVAILABLE.getId()
+                : JiraTicketStatusCode.CLOSED.getId());
+
+            ticket.id = i;
+            ticket.fields = fields;
+
+            ticketsSet.add(ticket);
+        }
+
+        String mentionPrefix = branchNumPrefix.isEmpty() ? "IGNITE-" : branchNumPrefix;
+        int mentionShift = branchNumPrefix.isEmpty() ? 0 : tickets;
+
+        prTitles = new ArrayList<>();
+        prBranches = new ArrayList<>();
+        candidateBranches = new ArrayList<>();
+
+        for (int pr = 1; pr <= prs; pr++) {
+            int num = mentionShift + 1 + rnd.nextInt(tickets);
+
+            prTitles.add(rnd.nextInt(10) == 0
+                ? BenchFixtures.className(rnd, 3) + " improvement"
+                : mentionPrefix + num + " " + BenchFixtures.className(rnd, 3) + " fix");
+            prBranches.add(mentionPrefix.toLowerCase() + num);
+
+            candidateBranches.add("pull/" + pr + "/head");
+            candidateBranches.add("pull/" + pr + "/merge");
+            candidateBranches.add(prBranches.get(pr - 1));
+        }
+
+        gitBranches = new ArrayList<>();
+
+        for (int i = 0; i < branches; i++)
+            gitBranches.add("ignite-" + (1 + rnd.nextInt(tickets)));
+
+        ignite = FatBuildCompactedBenchmark.startIgnite();
+        compactor = new InMemoryStringCompactor();
+
+        injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).toInstance(compactor);
+            }
+        });
+
+        BuildRefDao dao = injector.getInstance(BuildRefDao.class).init();
+
+        List<BuildRef> refs = new ArrayList<>();
+        int buildId = 0;
+
+        for (String branch : candidateBranches) {
+            compactor.getStringId(branch);
+
+            if (rnd.nextInt(3) != 0)
+                continue;
+
+            for (int i = 0; i < 3; i++) {
+                BuildRef ref = new BuildRef();
+
+                ref.setId(++buildId);
+                ref.buildTypeId = i == 0 ? RUN_ALL : "IgniteTests24Java8_Suite" + i;
+                ref.branchName = branch;
+                ref.state = BuildRef.STATE_FINISHED;
+                ref.status = BuildRef.STATUS_SUCCESS;
+
+                refs.add(ref);
+            }
+
+            if (refs.size() > 1000) {
+                dao.saveChunk(srvId, refs);
+
+                refs.clear();
+            }
+        }
+
+        dao.saveChunk(srvId, refs);
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     * @return Count of matched tickets and PR-less contributions found by linear scans.
+     */
+    @Benchmark
+    public int linearTicketMatching() {
+        int cnt = 0;
+
+        for (int i = 0; i < prTitles.size(); i++) {
+            Ticket ticket = matcher.resolveTicketIdForPrBasedContrib(ticketsSet, jiraCfg, prTitles.get(i));
+
+            if (ticket == null || ticket.id == 0)
+                ticket = matcher.resolveTicketIdForPrBasedContrib(ticketsSet, jiraCfg, prBranches.get(i));
+
+            if (ticket != null && ticket.id != 0)
+                cnt++;
+        }
+
+        return cnt + prLessContributions(gitBranches);
+    }
+
+    /**
+     * @return Count of matched tickets and PR-less contributions found using hash index and set.
+     */
+    @Benchmark
+    public int indexedTicketMatching() {
+        TicketIndex idx = matcher.indexTickets(ticketsSet, jiraCfg);
+
+        int cnt = 0;
+
+        for (int i = 0; i < prTitles.size(); i++) {
+            Ticket ticket = matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, prTitles.get(i));
+
+            if (ticket == null || ticket.id == 0)
+                ticket = matcher.resolveTicketIdForPrBasedContrib(idx, jiraCfg, prBranches.get(i));
+
+            if (ticket != null && ticket.id != 0)
+                cnt++;
+        }
+
+        return cnt + prLessContributions(new HashSet<>(gitBranches));
+    }
+
+    /**
+     * @param branches Git branches.
+     */
+    private int prLessContributions(Collection<String> branches) {
+        int cnt = 0;
+
+        for (Ticket ticket : ticketsSet) {
+            if (!JiraTicketStatusCode.isActiveContribution(ticket.status()))
+                continue;
+
+            String branch = matcher.resolveTcBranchForPrLess(ticket, jiraCfg, ghCfg);
+
+            if (branch != null && branches.contains(branch))
+                cnt++;
+        }
+
+        return cnt;
+    }
+
+    /**
+     * @return Count of branches with builds, each branch is queried separately, as before.
+     */
+    @Benchmark
+    public int perBranchBuildQueries() {
+        BuildRefDao dao = injector.getInstance(BuildRefDao.class).init(); // empty in-memory caches
+
+        int buildTypeId = compactor.getStringId(RUN_ALL);
+        int cnt = 0;
+
+        for (String branch : candidateBranches) {
+            Set<Integer> ids = Collections.singleton(compactor.getStringId(branch));
+
+            if (!dao.getAllBuildsCompacted(srvId, buildTypeId, ids).isEmpty())
+                cnt++;
+        }
+
+        return cnt;
+    }
+
+    /**
+     * @return Count of branches with builds, all branches are requested by one batched lookup.
+     */
+    @Benchmark
+    public int batchedBuildQuery() {
+        BuildRefDao dao = injector.getInstance(BuildRefDao.class).init(); // empty in-memory caches
+
+        int buildTypeId = compactor.getStringId(RUN_ALL);
+        List<Integer> ids = new ArrayList<>();
+
+        for (String branch : candidateBranches)
+            ids.add(compactor.getStringId(branch));
+
+        int cnt = 0;
+
+        for (List<BuildRefCompacted> builds : dao.getBuildsForBranches(srvId, buildTypeId, ids).values()) {
+            if (!builds.isEmpty())
+                cnt++;
+        }
+
+        return cnt;
+    }
+
+    /**
+     * JIRA config with fixed branch number prefix.
+     */
+    private static class BenchJiraConfig implements IJiraServerConfig {
+        /** Branch number prefix. */
+        private final String branchNumPrefix;
+
+        /**
+         * @param branchNumPrefix Branch number prefix.
+         */
+        BenchJiraConfig(String branchNumPrefix) {
+            this.branchNumPrefix = branchNumPrefix;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String getCode() {
+            return "apache";
+        }
+
+        /** {@inheritDoc} */
+        @Override public String getUrl() {
+            return "https://issues.apache.org/jira/";
+        }
+
+        /** {@inheritDoc} */
+        @Override public JiraApiVersion getApiVersion() {
+            return JiraApiVersion.defaultApiVersion();
+        }
+
+        /** {@inheritDoc} */
+        @Override public String projectCodeForVisa() {
+            return "IGNITE";
+        }
+
+        /** {@inheritDoc} */
+        @Override public String branchNumPrefix() {
+            return branchNumPrefix.isEmpty() ? null : branchNumPrefix;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String decodedHttpAuthToken() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.internal.util.typedef.T2;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsCompacted;
+import org.apache.ignite.tcbot.engine.trends.FailedTestsMatrix;
+import org.apache.ignite.tcbot.engine.trends.TestsBitmap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merge of failed tests of chain builds for build trends: per build maps of failed test names merged with decoding of
+ * each name compared to failure bitmaps over dense tests index merged with OR and counters, with decoding of only
+ * tests failed in any build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class FailedTestsMatrixBenchmark {
+    /** Suites in chain. */
+    private static final int SUITES = 50;
+
+    /** Chain builds in range. */
+    @Param({"1000"})
+    public int builds;
+
+    /** Tests in chain. */
+    @Param({"50000"})
+    public int tests;
+
+    /** Failed tests per build. */
+    @Param({"500"})
+    public int failedPerBuild;
+
+    /** Strings by string ID, emulates compactor: suite names first, then test names. */
+    private String[] strings;
+
+    /** Failed tests of each build: suite string ID -> test name string ID -> (test ID, failures count). */
+    private List<Map<Integer, Map<Integer, T2<Long, Integer>>>> failedByName;
+
+    /** Failed tests of each build as indexes. */
+    private List<FailedTestsCompacted> failedByIdx;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        strings = new String[SUITES + tests];
+
+        for (int i = 0; i < SUITES; i++)
+            strings[i] = "IgniteTests24Java8_Suite" + i;
+
+        for (int i = 0; i < tests; i++)
+            strings[SUITES + i] = BenchFixtures.className(rnd, 2000) + "." + BenchFixtures.testName(rnd);
+
+        failedByName = new ArrayList<>(builds);
+        failedByIdx = new ArrayList<>(builds);
+
+        for (int b = 0; b < builds; b++) {
+            TreeSet<Integer> failed = new TreeSet<>();
+
+            // Failures are skewed: a few flaky tests fail in most builds, most tests fail rarely.
+            while (failed.size() < failedPerBuild)
+                failed.add((int)(tests * Math.pow(rnd.nextDouble(), 4)));
+
+            Map<Integer, Map<Integer, T2<Long, Integer>>> byName = new HashMap<>();
+            int[] idxs = new int[failed.size()];
+            int[] cnts = new int[failed.size()];
+            int i = 0;
+
+            for (int idx : failed) {
+                int cnt = rnd.nextInt(20) == 0 ? 2 : 1;
+
+                byName.computeIfAbsent(suite(idx), k -> new HashMap<>())
+                    .put(SUITES + idx, new T2<>((long)idx, cnt));
+
+                idxs[i] = idx;
+                cnts[i] = cnt;
+                i++;
+            }
+
+            failedByName.add(byName);
+            failedByIdx.add(FailedTestsCompacted.of(0, idxs, cnts));
+        }
+    }
+
+    /**
+     * @param idx Test index.
+     * @return Suite string ID.
+     */
+    private static int suite(int idx) {
+        return idx % SUITES;
+    }
+
+    /**
+     * @return Fail rates merged by decoded names of failed tests of each build.
+     */
+    @Benchmark
+    public Map<String, Map<String, List<Object>>> mergeByNames() {
+        Map<String, Map<String, List<Object>>> res = new HashMap<>();
+
+        for (Map<Integer, Map<Integer, T2<Long, Integer>>> build : failedByName) {
+            build.forEach((btId, map) -> {
+                Map<String, List<Object>> suiteTests = res.computeIfAbsent(strings[btId], k -> new HashMap<>());
+
+                map.forEach((tn, pair) -> {
+                    float addForFailRate = (float)pair.get2() / builds;
+
+                    suiteTests.merge(strings[tn], Lists.newArrayList(Long.toString(pair.get1()), addForFailRate),
+                        (a, b) -> Lists.newArrayList(a.get(0), (Float)a.get(1) + (Float)b.get(1)));
+                });
+            });
+        }
+
+        return res;
+    }
+
+    /**
+     * @return Fail rates computed by failed tests matrix, names decoded once for each test failed in any build.
+     */
+    @Benchmark
+    public Map<String, Map<String, List<Object>>> mergeByMatrix() {
+        Map<String, Map<String, List<Object>>> res = new HashMap<>();
+
+        FailedTestsMatrix matrix = new FailedTestsMatrix(failedByIdx);
+
+        matrix.union().forEach(idx -> {
+            Map<String, List<Object>> suiteTests = res.computeIfAbsent(strings[suite(idx)], k -> new HashMap<>());
+
+            float rate = (float)matrix.failures(idx) / builds;
+
+            suiteTests.merge(strings[SUITES + idx], Lists.newArrayList(Long.toString(idx), rate),
+                (a, b) -> Lists.newArrayList(a.get(0), (Float)a.get(1) + (Float)b.get(1)));
+        });
+
+        return res;
+    }
+
+    /**
+     * @return Tests failed in more than 10% of builds, found without decoding of names.
+     */
+    @Benchmark
+    public TestsBitmap failedInMoreThan10Percent() {
+        return new FailedTestsMatrix(failedByIdx).failedInMoreThan(0.1);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
+import org.apache.ignite.tcignited.buildlog.LogIgniteSpecific;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrencesFull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link FatBuildCompacted} construction from recorded build and tests, and Ignite binary write/read of resulting
+ * entry. Recorded tests list is extended with generated tests to get build sizes close to production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FatBuildCompactedBenchmark {
+    /** Discovery port, not intersecting with tests. */
+    public static final int BENCH_IGNITE_PORT = 64224;
+
+    /** Count of generated tests added to recorded tests. */
+    @Param({"0", "10000"})
+    public int generatedTests;
+
+    /** Compactor. */
+    private IStringCompactor compactor;
+
+    /** Log specific. */
+    private ILogProductSpecific logSpecific;
+
+    /** Recorded build. */
+    private Build build;
+
+    /** Tests page(s). */
+    private List<TestOccurrenceFull> tests;
+
+    /** Ignite used for binary marshalling. */
+    private Ignite ignite;
+
+    /** Pre-built entry. */
+    private FatBuildCompacted fatBuild;
+
+    /** Pre-serialized entry. */
+    private BinaryObject fatBuildBinary;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() throws Exception {
+        compactor = new InMemoryStringCompactor();
+        logSpecific = new LogIgniteSpecific();
+
+        build = BenchFixtures.loadXml("/build.xml", Build.class);
+        TestOccurrencesFull recorded = BenchFixtures.loadXml("/testList.xml", TestOccurrencesFull.class);
+
+        tests = new ArrayList<>(recorded.getTests());
+        tests.addAll(BenchFixtures.testOccurrences(new Random(BenchFixtures.SEED), build.getId(), generatedTests, 0.05));
+
+        ignite = startIgnite();
+
+        fatBuild = createFatBuild();
+        fatBuildBinary = ignite.binary().toBinary(fatBuild);
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     * @return Ignite node, used only for marshalling, so it is started local-only and without persistence.
+     */
+    public static Ignite startIgnite() {
+        IgniteConfiguration cfg = new IgniteConfiguration();
+        TcpDiscoverySpi spi = new TcpDiscoverySpi();
+
+        spi.setLocalPort(BENCH_IGNITE_PORT);
+        spi.setLocalPortRange(1);
+        spi.setIpFinder(new TcpDiscoveryVmIpFinder()
+            .setAddresses(Collections.singletonList("127.0.0.1:" + BENCH_IGNITE_PORT)));
+
+        cfg.setIgniteInstanceName("tcbot-bench");
+        cfg.setDiscoverySpi(spi);
+
+        return Ignition.start(cfg);
+    }
+
+    /**
+     *
+     */
+    private FatBuildCompacted createFatBuild() {
+        return new FatBuildCompacted(compactor, build).addTests(compactor, tests, logSpecific);
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public FatBuildCompacted construct() {
+        return createFatBuild();
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public BinaryObject binaryWrite() {
+        return ignite.binary().toBinary(fatBuild);
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public FatBuildCompacted binaryRead() {
+        return fatBuildBinary.deserialize();
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.internal.binary.BinaryObjectExImpl;
+import org.apache.ignite.tcbot.common.conf.IDataSourcesConfigSupplier;
+import org.apache.ignite.tcbot.common.conf.IGitHubConfig;
+import org.apache.ignite.tcbot.common.conf.IJiraServerConfig;
+import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.build.FatBuildDao;
+import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
+import org.apache.ignite.tcignited.buildlog.LogIgniteSpecific;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Walk over snapshot dependencies of a chain reading only build header fields, for builds stored in one entry
+ * (as saved by previous versions) and for builds with tests, parameters and problems stored separately. Bytes of
+ * entries read by the walk, the working set to be kept in page memory, are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FatBuildStorageBenchmark {
+    /** Builds stored in one entry. */
+    public static final String MONOLITHIC = "monolithic";
+
+    /** Build parts stored separately. */
+    public static final String SPLIT = "split";
+
+    /** Storage layout. */
+    @Param({MONOLITHIC, SPLIT})
+    public String layout;
+
+    /** Chains in the store. */
+    @Param({"50"})
+    public int chains;
+
+    /** Suites in a chain. */
+    @Param({"30"})
+    public int suites;
+
+    /** Tests in a suite. */
+    @Param({"1000"})
+    public int tests;
+
+    /** Server ID. */
+    private final int srvId = 1;
+
+    /** Ignite. */
+    private Ignite ignite;
+
+    /** Compactor. */
+    private IStringCompactor compactor;
+
+    /** Fat build DAO. */
+    private FatBuildDao fatBuildDao;
+
+    /** IDs of chain top builds. */
+    private int[] topBuilds;
+
+    /** Next chain to walk. */
+    private int nextChain;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() throws Exception {
+        ignite = FatBuildCompactedBenchmark.startIgnite();
+        compactor = new InMemoryStringCompactor();
+
+        fatBuildDao = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).toInstance(compactor);
+                bind(ILogProductSpecific.class).toInstance(new LogIgniteSpecific());
+                bind(IDataSourcesConfigSupplier.class).toInstance(new NoDataSources());
+            }
+        }).getInstance(FatBuildDao.class).init();
+
+        Build recorded = BenchFixtures.loadXml("/build.xml", Build.class);
+        ILogProductSpecific logSpecific = new LogIgniteSpecific();
+        IgniteCache<Long, FatBuildCompacted> rawBuilds = ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME);
+
+        topBuilds = new int[chains];
+
+        int buildId = 1_000_000;
+
+        for (int chain = 0; chain < chains; chain++) {
+            int buildAll = buildId++;
+            int[] suiteBuilds = new int[suites];
+
+            save(rawBuilds, buildAll, new FatBuildCompacted(compactor, build(recorded, buildAll, "Build")));
+
+            for (int suite = 0; suite < suites; suite++) {
+                int id = buildId++;
+
+                // Same suite runs the same tests in each chain.
+                FatBuildCompacted fatBuild = new FatBuildCompacted(compactor, build(recorded, id, "Suite" + suite))
+                    .addTests(compactor,
+                        BenchFixtures.testOccurrences(new Random(BenchFixtures.SEED + suite), id, tests, 0.05),
+                        logSpecific)
+                    .snapshotDependencies(new int[] {buildAll});
+
+                save(rawBuilds, id, fatBuild);
+
+                suiteBuilds[suite] = id;
+            }
+
+            int runAll = buildId++;
+
+            save(rawBuilds, runAll, new FatBuildCompacted(compactor, build(recorded, runAll, "RunAll"))
+                .snapshotDependencies(suiteBuilds));
+
+            topBuilds[chain] = runAll;
+        }
+
+        long walkBytes = bytes(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME);
+        long totalBytes = walkBytes
+            + bytes(FatBuildDao.TEAMCITY_FAT_BUILD_TESTS_CACHE_NAME)
+            + bytes(FatBuildDao.TEAMCITY_FAT_BUILD_PARAMETERS_CACHE_NAME)
+            + bytes(FatBuildDao.TEAMCITY_FAT_BUILD_PROBLEMS_CACHE_NAME);
+
+        System.out.println("\nStorage [layout=" + layout + ", builds=" + rawBuilds.size() + ", bytesReadByWalk="
+            + walkBytes + ", pagesReadByWalk=" + walkBytes / 4096 + ", totalBytes=" + totalBytes + "]");
+    }
+
+    /**
+     * @param recorded Recorded build.
+     * @param id Build ID.
+     * @param buildTypeId Build type ID.
+     */
+    private static Build build(Build recorded, int id, String buildTypeId) {
+        recorded.setId(id);
+        recorded.buildTypeId = "IgniteTests24Java8_" + buildTypeId;
+
+        return recorded;
+    }
+
+    /**
+     * @param rawBuilds Raw builds cache.
+     * @param buildId Build ID.
+     * @param build Build.
+     */
+    private void save(IgniteCache<Long, FatBuildCompacted> rawBuilds, int buildId, FatBuildCompacted build) {
+        if (MONOLITHIC.equals(layout))
+            rawBuilds.put(FatBuildDao.buildIdToCacheKey(srvId, buildId), build);
+        else
+            fatBuildDao.putFatBuild(srvId, buildId, build);
+    }
+
+    /**
+     * @param cacheName Cache name.
+     * @return Total size of serialized values.
+     */
+    private long bytes(String cacheName) {
+        IgniteCache<Long, BinaryObject> cache = ignite.<Long, BinaryObject>cache(cacheName).withKeepBinary();
+        long res = 0;
+
+        for (Cache.Entry<Long, BinaryObject> entry : cache.query(new ScanQuery<Long, BinaryObject>())) {
+            Object val = entry.getValue();
+
+            if (val instanceof BinaryObjectExImpl)
+                res += ((BinaryObjectExImpl)val).length();
+        }
+
+        return res;
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     * Walks snapshot dependencies of a chain level by level, as chain loading does.
+     */
+    @Benchmark
+    public long dependencyWalk() {
+        int top = topBuilds[nextChain++ % topBuilds.length];
+
+        Set<Integer> visited = new HashSet<>();
+        List<Integer> level = new ArrayList<>();
+        long res = 0;
+
+        level.add(top);
+        visited.add(top);
+
+        while (!level.isEmpty()) {
+            Map<Long, FatBuildCompacted> builds = fatBuildDao.getAllFatBuilds(srvId, level);
+            List<Integer> nextLevel = new ArrayList<>();
+
+            for (FatBuildCompacted build : builds.values()) {
+                res += build.status() + build.buildTypeId() + build.getStartDateTs() + build.changes().length;
+
+                for (int dep : build.snapshotDependencies()) {
+                    if (visited.add(dep))
+                        nextLevel.add(dep);
+                }
+            }
+
+            level = nextLevel;
+        }
+
+        return res;
+    }
+
+    /**
+     * No data sources configured, history collection is not used by the benchmark.
+     */
+    private static class NoDataSources implements IDataSourcesConfigSupplier {
+        /** {@inheritDoc} */
+        @Override public ITcServerConfig getTeamcityConfig(String srvCode) {
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override public IGitHubConfig getGitConfig(String srvCode) {
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override public IJiraServerConfig getJiraConfig(String srvCode) {
+            return null;
+        }
+    }
+}
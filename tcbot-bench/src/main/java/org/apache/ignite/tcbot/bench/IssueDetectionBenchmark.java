@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.runhist.Invocation;
+import org.apache.ignite.tcbot.engine.issue.EventTemplate;
+import org.apache.ignite.tcbot.engine.issue.EventTemplates;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.history.DetectionWatermark;
+import org.apache.ignite.tcignited.history.IRunHistory;
+import org.apache.ignite.tcignited.history.InvocationData;
+import org.apache.ignite.tcignited.history.SuiteHistory;
+import org.apache.ignite.tcignited.history.SuiteInvocation;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Issue detection pass over 100k tests with 50 runs in history: full templates detection compared to incremental
+ * detection, which uses watermarks taken at previous pass and examines only runs added since.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IssueDetectionBenchmark {
+    /** Tests in suite. */
+    public static final int TESTS = 100_000;
+
+    /** Builds in history at previous pass. */
+    public static final int BUILDS = 50;
+
+    /** Builds added to history since previous pass. */
+    @Param({"0", "1", "5", "10"})
+    public int newRuns;
+
+    /** Test name IDs. */
+    private int[] testNames;
+
+    /** History at current pass. */
+    private SuiteHistory suiteHist;
+
+    /** Watermarks taken at previous pass, by test index. */
+    private DetectionWatermark[] prevWatermarks;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        IStringCompactor compactor = new InMemoryStringCompactor();
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        testNames = new int[TESTS];
+        for (int i = 0; i < TESTS; i++)
+            testNames[i] = compactor.getStringId("org.apache.ignite.testsuites.IgniteCacheTestSuite: " +
+                "org.apache.ignite.internal.processors.cache.GridCacheTest" + (i / 50) + ".test" + i);
+
+        int branch = compactor.getStringId("refs/heads/master");
+
+        Map<Integer, SuiteInvocation> prevRunHist = new HashMap<>();
+        Map<Integer, SuiteInvocation> suiteRunHist = new HashMap<>();
+
+        for (int b = 0; b < BUILDS + newRuns; b++) {
+            int buildId = 1000000 + b * 7;
+
+            Build build = new Build();
+            build.setId(buildId);
+            build.buildTypeId = "IgniteTests24Java8_Cache1";
+            build.branchName = "refs/heads/master";
+            build.status = BuildRef.STATUS_SUCCESS;
+            build.state = BuildRef.STATE_FINISHED;
+            build.setStartDateTs(1_500_000_000_000L + b * 3_600_000L);
+
+            FatBuildCompacted fatBuild = new FatBuildCompacted(compactor, build)
+                .changes(rnd.nextInt(3) == 0 ? new int[] {b} : FatBuildCompacted.EMPTY);
+
+            SuiteInvocation inv = new SuiteInvocation(1, branch, fatBuild, compactor, (k, v) -> false);
+
+            for (int t = 0; t < TESTS; t++) {
+                if (rnd.nextInt(50) == 0)
+                    continue;
+
+                inv.addTest(testNames[t], new Invocation(buildId).withStatus(status(rnd, t, b)));
+            }
+
+            suiteRunHist.put(buildId, inv);
+
+            if (b < BUILDS)
+                prevRunHist.put(buildId, inv);
+        }
+
+        SuiteHistory prevHist = new SuiteHistory(prevRunHist);
+
+        prevWatermarks = new DetectionWatermark[TESTS];
+
+        for (int i = 0; i < TESTS; i++) {
+            IRunHistory hist = prevHist.getTestRunHist(testNames[i]);
+
+            if (hist == null)
+                continue;
+
+            DetectionWatermark watermark = hist.watermark();
+
+            for (EventTemplate t : EventTemplates.templates)
+                hist.detectTemplate(t, null, watermark);
+
+            prevWatermarks[i] = watermark;
+        }
+
+        suiteHist = new SuiteHistory(suiteRunHist);
+    }
+
+    /**
+     * @param rnd Random.
+     * @param test Test index.
+     * @param build Build index.
+     * @return Status: most of tests are stable, some are flaky and some become failed at some build.
+     */
+    private static int status(Random rnd, int test, int build) {
+        if (test % 20 == 0)
+            return rnd.nextInt(4) == 0 ? InvocationData.FAILURE : InvocationData.OK;
+
+        if (test % 97 == 0)
+            return build >= 40 + test % 17 ? InvocationData.FAILURE : InvocationData.OK;
+
+        return InvocationData.OK;
+    }
+
+    /**
+     * All templates are checked over the whole history of each test.
+     */
+    @Benchmark
+    public void fullPass(Blackhole bh) {
+        for (int testName : testNames) {
+            IRunHistory hist = suiteHist.getTestRunHist(testName);
+
+            if (hist == null)
+                continue;
+
+            for (EventTemplate t : EventTemplates.templates)
+                bh.consume(hist.detectTemplate(t));
+        }
+    }
+
+    /**
+     * Templates are checked only in windows including runs added since previous pass.
+     */
+    @Benchmark
+    public void incrementalPass(Blackhole bh) {
+        for (int i = 0; i < testNames.length; i++) {
+            IRunHistory hist = suiteHist.getTestRunHist(testNames[i]);
+
+            if (hist == null)
+                continue;
+
+            DetectionWatermark watermark = hist.watermark();
+
+            if (watermark.sameHistory(prevWatermarks[i]))
+                continue;
+
+            for (EventTemplate t : EventTemplates.templates)
+                bh.consume(hist.detectTemplate(t, prevWatermarks[i], watermark));
+        }
+    }
+}
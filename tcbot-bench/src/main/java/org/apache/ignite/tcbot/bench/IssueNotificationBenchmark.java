@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.ci.issue.Issue;
+import org.apache.ignite.ci.issue.IssueKey;
+import org.apache.ignite.tcbot.common.TcBotConst;
+import org.apache.ignite.tcbot.engine.issue.IssueType;
+import org.apache.ignite.tcbot.engine.issue.IssuesStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Selection of notification candidates from issues storage: full scan of all issues compared to reading of issues
+ * detected during notification window using index of issues by detected time. Issues are detected during 30 days,
+ * small share of issues is detected within last day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class IssueNotificationBenchmark {
+    /** Period issues were detected during. */
+    public static final long DETECTION_PERIOD_MS = TimeUnit.DAYS.toMillis(30);
+
+    /** Issues in storage. */
+    @Param({"1000000"})
+    public int issues;
+
+    /** Percent of issues detected within notification window. */
+    @Param({"1"})
+    public int recentPercent;
+
+    /** Ignite. */
+    private Ignite ignite;
+
+    /** Storage. */
+    private IssuesStorage storage;
+
+    /** Notification window start. */
+    private long since;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        ignite = FatBuildCompactedBenchmark.startIgnite();
+
+        storage = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+            }
+        }).getInstance(IssuesStorage.class);
+
+        long now = System.currentTimeMillis();
+        long window = TimeUnit.HOURS.toMillis(TcBotConst.NOTIFY_MAX_AGE_SINCE_DETECT_FOR_NOTIFIED_ISSUE_HOURS);
+
+        since = now - window;
+
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        try (IgniteDataStreamer<IssueKey, Issue> streamer
+                 = ignite.dataStreamer(IssuesStorage.botDetectedIssuesCache(ignite).getName())) {
+            for (int i = 0; i < issues; i++) {
+                Issue issue = new Issue(new IssueKey("apache", i / 10, "org.apache.ignite.Test" + i),
+                    IssueType.newFailure, null);
+
+                long age = rnd.nextInt(100) < recentPercent
+                    ? (long)(rnd.nextDouble() * window)
+                    : window + (long)(rnd.nextDouble() * (DETECTION_PERIOD_MS - window));
+
+                issue.detectedTs = now - age;
+                issue.buildStartTs = issue.detectedTs;
+                issue.trackedBranchName = "master";
+
+                streamer.addData(issue.issueKey(), issue);
+            }
+        }
+
+        IssuesStorage.fillDetectedIndex(ignite);
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     * @return Count of notification candidates found by full scan.
+     */
+    @Benchmark
+    public long fullScan() {
+        return storage.allIssues()
+            .filter(issue -> issue.detectedTs != null && issue.detectedTs >= since)
+            .count();
+    }
+
+    /**
+     * @return Count of notification candidates found using index.
+     */
+    @Benchmark
+    public long indexed() {
+        return storage.issuesDetectedSince(since).count();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.tcbot.engine.chain.FullChainRunCtx;
+import org.apache.ignite.tcbot.engine.chain.MultBuildRunCtx;
+import org.apache.ignite.tcbot.engine.chain.SingleBuildRunCtx;
+import org.apache.ignite.tcbot.engine.chain.TestCompactedMult;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
+import org.apache.ignite.tcignited.buildlog.LogIgniteSpecific;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Chain results aggregation: {@link MultBuildRunCtx} per suite merges tests of all suite runs, and chain report
+ * requests failed tests, top long running tests and suite results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultBuildRunCtxBenchmark {
+    /** Suites in chain. */
+    @Param({"100"})
+    public int suites;
+
+    /** Tests per suite. */
+    @Param({"500"})
+    public int testsPerSuite;
+
+    /** Runs of each suite in chain, more than 1 for re-runs and Run All with count. */
+    @Param({"1", "3"})
+    public int runsPerSuite;
+
+    /** Compactor. */
+    private IStringCompactor compactor;
+
+    /** Chain build. */
+    private Build chain;
+
+    /** Suite builds: suite index -> runs. */
+    private List<List<FatBuildCompacted>> suiteBuilds;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        compactor = new InMemoryStringCompactor();
+        ILogProductSpecific logSpecific = new LogIgniteSpecific();
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        chain = new Build();
+        chain.setId(1);
+        chain.buildTypeId = "IgniteTests24Java8_RunAll";
+        chain.branchName = "refs/heads/master";
+
+        suiteBuilds = new ArrayList<>();
+
+        int buildId = 100;
+        for (int s = 0; s < suites; s++) {
+            // Each run of suite executes the same tests, so tests are generated once per suite.
+            long suiteSeed = rnd.nextLong();
+            String btId = "IgniteTests24Java8_" + BenchFixtures.className(rnd, 2) + s;
+            List<FatBuildCompacted> runs = new ArrayList<>();
+
+            for (int r = 0; r < runsPerSuite; r++) {
+                Build build = new Build();
+                build.setId(++buildId);
+                build.buildTypeId = btId;
+                build.branchName = chain.branchName;
+                build.state = BuildRef.STATE_FINISHED;
+
+                List<TestOccurrenceFull> tests
+                    = BenchFixtures.testOccurrences(new Random(suiteSeed), buildId, testsPerSuite, 0.0);
+
+                // Failures are specific to a run.
+                for (TestOccurrenceFull t : tests) {
+                    if (rnd.nextInt(200) == 0) {
+                        t.status = TestOccurrence.STATUS_FAILURE;
+                        t.details = BenchFixtures.stackTrace(rnd, 20);
+                    }
+                }
+
+                build.status = tests.stream().anyMatch(TestOccurrence::isFailedTest)
+                    ? BuildRef.STATUS_FAILURE
+                    : BuildRef.STATUS_SUCCESS;
+
+                runs.add(new FatBuildCompacted(compactor, build).addTests(compactor, tests, logSpecific));
+            }
+
+            suiteBuilds.add(runs);
+        }
+    }
+
+    /**
+     * @return chain context built from the same data as {@link org.apache.ignite.tcbot.engine.chain.BuildChainProcessor}
+     * does after builds are loaded.
+     */
+    private FullChainRunCtx createChainCtx() {
+        FullChainRunCtx ctx = new FullChainRunCtx(chain);
+        List<MultBuildRunCtx> suitesCtx = new ArrayList<>();
+
+        for (List<FatBuildCompacted> runs : suiteBuilds) {
+            FatBuildCompacted first = runs.get(0);
+            MultBuildRunCtx suiteCtx = new MultBuildRunCtx(first.toBuildRef(compactor), compactor);
+
+            for (FatBuildCompacted run : runs)
+                suiteCtx.addBuild(new SingleBuildRunCtx(run, compactor));
+
+            suitesCtx.add(suiteCtx);
+        }
+
+        ctx.addAllSuites(suitesCtx);
+
+        return ctx;
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void aggregate(Blackhole bh) {
+        FullChainRunCtx ctx = createChainCtx();
+
+        ctx.failedChildSuites().forEach(suite -> {
+            for (TestCompactedMult test : suite.getFailedTests()) {
+                bh.consume(test.getName());
+                bh.consume(test.failuresCount());
+            }
+
+            bh.consume(suite.getResult());
+        });
+
+        ctx.suites().forEach(suite -> {
+            bh.consume(suite.totalTests());
+            suite.getTopLongRunning().forEach(bh::consume);
+        });
+
+        bh.consume(ctx.getTestsDurationPrintable(s -> true));
+    }
+}
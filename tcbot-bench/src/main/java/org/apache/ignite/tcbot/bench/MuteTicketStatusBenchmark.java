@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.internal.util.typedef.F;
+import org.apache.ignite.jiraservice.JiraTicketStatusCode;
+import org.apache.ignite.jiraservice.Status;
+import org.apache.ignite.jiraservice.Ticket;
+import org.apache.ignite.jiraservice.v2.Fields;
+import org.apache.ignite.tcignited.mute.MuteSnapshot;
+import org.apache.ignite.tcservice.model.mute.MuteAssignment;
+import org.apache.ignite.tcservice.model.mute.MuteInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filling of JIRA ticket status for mutes page: scan of all tickets for each mute compared to join of ticket keys
+ * extracted once per mutes snapshot with ticket statuses map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class MuteTicketStatusBenchmark {
+    /** Browse URL. */
+    private static final String BROWSE_URL = "https://issues.apache.org/jira/browse/";
+
+    /** Mutes of project. */
+    @Param({"5000"})
+    public int mutes;
+
+    /** JIRA tickets. */
+    @Param({"30000"})
+    public int tickets;
+
+    /** Tickets. */
+    private List<Ticket> ticketList;
+
+    /** Ticket statuses. */
+    private Map<String, String> ticketStatuses;
+
+    /** Snapshot. */
+    private MuteSnapshot snapshot;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        JiraTicketStatusCode[] codes = JiraTicketStatusCode.values();
+
+        ticketList = new ArrayList<>();
+        ticketStatuses = new HashMap<>();
+
+        for (int i = 1; i <= tickets; i++) {
+            Ticket ticket = new Ticket();
+            Fields fields = new Fields();
+
+            fields.status = new Status(codes[rnd.nextInt(codes.length)].getId());
+
+            ticket.id = i;
+            ticket.key = "IGNITE" + Ticket.PROJECT_DELIM + i;
+            ticket.fields = fields;
+
+            ticketList.add(ticket);
+            ticketStatuses.put(ticket.key, JiraTicketStatusCode.text(ticket.status()));
+        }
+
+        TreeSet<MuteInfo> muteSet = new TreeSet<>();
+
+        for (int i = 0; i < mutes; i++) {
+            MuteInfo mute = new MuteInfo();
+
+            mute.id = i;
+            mute.assignment = new MuteAssignment();
+            mute.assignment.muteDate = "20190101T120000+0300";
+            mute.assignment.text = rnd.nextInt(10) == 0
+                ? "Flaky test"
+                : "Muted " + BROWSE_URL + "IGNITE" + Ticket.PROJECT_DELIM + (1 + rnd.nextInt(tickets));
+
+            muteSet.add(mute);
+        }
+
+        snapshot = new MuteSnapshot(muteSet);
+    }
+
+    /**
+     * @return Mutes with ticket status found by scan of all tickets.
+     */
+    @Benchmark
+    public SortedSet<MuteInfo> ticketsScan() {
+        SortedSet<MuteInfo> res = snapshot.mutes();
+
+        for (MuteInfo mute : res) {
+            if (F.isEmpty(mute.assignment.text))
+                continue;
+
+            int pos = mute.assignment.text.indexOf(BROWSE_URL);
+
+            if (pos == -1)
+                continue;
+
+            for (Ticket ticket : ticketList) {
+                String muteTicket = mute.assignment.text.substring(pos + BROWSE_URL.length());
+
+                if (ticket.key.equals(muteTicket)) {
+                    mute.ticketStatus = JiraTicketStatusCode.text(ticket.status());
+
+                    break;
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * @return Mutes with ticket status joined using snapshot.
+     */
+    @Benchmark
+    public SortedSet<MuteInfo> snapshotJoin() {
+        return snapshot.mutesWithTicketStatus(BROWSE_URL, ticketStatuses);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.ci.tcbot.common.StringFieldCompacted;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xerial.snappy.Snappy;
+
+/**
+ * {@link StringFieldCompacted} compression and decompression using Snappy, GZip and Deflate with preset dictionary
+ * codecs for payloads similar to ones stored by the bot: short failure message, recorded test failure details, test
+ * failure details and large thread dumps. Each invocation processes all values of the payload, compression ratios
+ * are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringFieldCompactedBenchmark {
+    /** Payload kind. */
+    @Param({"message", "recorded", "stackTrace", "threadDump"})
+    public String payload;
+
+    /** Values to be compressed. */
+    private String[] vals;
+
+    /** Values bytes. */
+    private byte[][] uncompressed;
+
+    /** Snappy compressed values. */
+    private byte[][] snappy;
+
+    /** GZip compressed values. */
+    private byte[][] gzip;
+
+    /** Values compressed with dictionary, {@code null} if value is incompressible. */
+    private byte[][] dict;
+
+    /** Fields filled using current codec selection. */
+    private StringFieldCompacted[] fields;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() throws Exception {
+        Random rnd = new Random(BenchFixtures.SEED);
+        List<String> corpus;
+
+        switch (payload) {
+            case "message":
+                corpus = Collections.singletonList(
+                    "java.lang.AssertionError: Values are not equal [key=" + rnd.nextInt() + "]");
+
+                break;
+
+            case "recorded":
+                // Dictionary was trained on these details: this is the best case for the dictionary codec.
+                corpus = StringFieldDictionaryTrainer.loadDetails(null);
+
+                break;
+
+            case "stackTrace":
+                corpus = Collections.singletonList(BenchFixtures.stackTrace(rnd, 40));
+
+                break;
+
+            case "threadDump":
+                StringBuilder sb = new StringBuilder("Full thread dump OpenJDK 64-Bit Server VM:\n");
+
+                for (int i = 0; i < 100; i++) {
+                    sb.append("\"sys-stripe-").append(i).append("-#").append(rnd.nextInt(1000))
+                        .append("\" #").append(i).append(" prio=5 WAITING\n")
+                        .append(BenchFixtures.stackTrace(rnd, 8 + rnd.nextInt(16)));
+                }
+
+                corpus = Collections.singletonList(sb.toString());
+
+                break;
+
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+
+        int cnt = corpus.size();
+
+        vals = corpus.toArray(new String[cnt]);
+        uncompressed = new byte[cnt][];
+        snappy = new byte[cnt][];
+        gzip = new byte[cnt][];
+        dict = new byte[cnt][];
+        fields = new StringFieldCompacted[cnt];
+
+        long rawLen = 0, snappyLen = 0, gzipLen = 0, dictLen = 0;
+
+        for (int i = 0; i < cnt; i++) {
+            uncompressed[i] = vals[i].getBytes(StandardCharsets.UTF_8);
+            snappy[i] = Snappy.compress(uncompressed[i]);
+            gzip[i] = StringFieldCompacted.zipBytes(uncompressed[i]);
+            dict[i] = StringFieldCompacted.deflateWithDictionary(uncompressed[i]);
+            fields[i] = new StringFieldCompacted(vals[i]);
+
+            rawLen += uncompressed[i].length;
+            snappyLen += snappy[i].length;
+            gzipLen += gzip[i].length;
+            dictLen += dict[i] == null ? uncompressed[i].length : dict[i].length;
+        }
+
+        System.out.println("\nPayload " + payload + " (" + cnt + " values): raw " + rawLen + " snappy " + snappyLen
+            + " gzip " + gzipLen + " dictionary " + dictLen);
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void snappyCompress(Blackhole bh) throws IOException {
+        for (byte[] bytes : uncompressed)
+            bh.consume(Snappy.compress(bytes));
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void gzipCompress(Blackhole bh) throws IOException {
+        for (byte[] bytes : uncompressed)
+            bh.consume(StringFieldCompacted.zipBytes(bytes));
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void dictionaryCompress(Blackhole bh) {
+        for (byte[] bytes : uncompressed)
+            bh.consume(StringFieldCompacted.deflateWithDictionary(bytes));
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void snappyDecompress(Blackhole bh) throws IOException {
+        for (byte[] bytes : snappy)
+            bh.consume(new String(Snappy.uncompress(bytes), StandardCharsets.UTF_8));
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void gzipDecompress(Blackhole bh) throws IOException {
+        for (byte[] bytes : gzip)
+            bh.consume(StringFieldCompacted.unzipToString(bytes));
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public void dictionaryDecompress(Blackhole bh) throws Exception {
+        for (byte[] bytes : dict) {
+            if (bytes != null)
+                bh.consume(StringFieldCompacted.inflateToString(bytes));
+        }
+    }
+
+    /**
+     * Compression as it is done during fat build ingestion.
+     */
+    @Benchmark
+    public void setValue(Blackhole bh) {
+        for (String val : vals)
+            bh.consume(new StringFieldCompacted(val));
+    }
+
+    /**
+     * Decompression of a value stored by the bot.
+     */
+    @Benchmark
+    public void getValue(Blackhole bh) {
+        for (StringFieldCompacted field : fields)
+            bh.consume(field.getValue());
+    }
+}
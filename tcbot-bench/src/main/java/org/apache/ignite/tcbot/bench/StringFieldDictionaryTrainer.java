@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.xml.bind.JAXBException;
+import org.apache.ignite.ci.tcbot.common.StringFieldCompacted;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrencesFull;
+import org.apache.ignite.tcservice.util.XmlUtil;
+
+/**
+ * Builds preset Deflate dictionary for {@link StringFieldCompacted} from test details of recorded TeamCity test
+ * occurrences. Dictionary consists of stack trace frames and word sequences found in several samples, ordered by
+ * score, so most valuable sequences are placed at the end of the dictionary, closest to compressed data.
+ * <p>
+ * Usage: <code>StringFieldDictionaryTrainer output.dict [testOccurrences.xml ...]</code>, recorded
+ * <code>/testList.xml</code> resource is used if no files are provided.
+ */
+public class StringFieldDictionaryTrainer {
+    /** Max dictionary size, Deflate window. */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    /** Max count of words in a sequence. */
+    private static final int MAX_WORDS = 6;
+
+    /**
+     * Common stack trace vocabulary placed at the beginning of the dictionary, used if there is some space left after
+     * trained sequences: recorded samples do not cover all exceptions and frames typical for the bot.
+     */
+    private static final String[] SEED = {
+        "Caused by:", "\tat", "... more", "java.lang.AssertionError:", "java.lang.IllegalStateException:",
+        "java.lang.NullPointerException", "java.util.concurrent.TimeoutException", "org.apache.ignite.IgniteException:",
+        "org.apache.ignite.IgniteCheckedException:", "org.apache.ignite.internal.processors.cache.distributed.dht.",
+        "org.apache.ignite.internal.processors.cache.persistence.", "org.apache.ignite.internal.processors.cache.",
+        "org.apache.ignite.internal.util.future.GridFutureAdapter.get0(GridFutureAdapter.java:",
+        "org.apache.ignite.internal.util.future.GridFutureAdapter.get(GridFutureAdapter.java:",
+        "org.apache.ignite.internal.util.worker.GridWorker.run(GridWorker.java:",
+        "org.apache.ignite.internal.util.IgniteUtils.", "org.apache.ignite.testframework.GridTestUtils.",
+        "java.util.concurrent.ThreadPoolExecutor.runWorker(ThreadPoolExecutor.java:",
+        "java.util.concurrent.ThreadPoolExecutor$Worker.run(ThreadPoolExecutor.java:",
+        "java.util.concurrent.FutureTask.run(FutureTask.java:", "org.junit.Assert.", "expected:<", "> but was:<",
+        "[INFO ][main][root]", "[ERROR][main][root]", "[WARN ][main][root]"
+    };
+
+    /** Stack trace frame, frames are used as a whole. */
+    private static final Pattern FRAME = Pattern.compile("at [\\w$.<>]+\\([^()\\s]*\\)");
+
+    /** Min count of samples containing a sequence. */
+    private static final int MIN_SAMPLES = 2;
+
+    /**
+     * @param args Output file and test occurrences XML files.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: StringFieldDictionaryTrainer output.dict [testOccurrences.xml ...]");
+
+            System.exit(1);
+        }
+
+        List<String> samples = new ArrayList<>();
+
+        if (args.length == 1)
+            samples.addAll(loadDetails(null));
+
+        for (int i = 1; i < args.length; i++)
+            samples.addAll(loadDetails(args[i]));
+
+        String dict = train(samples, MAX_DICTIONARY_SIZE);
+
+        Files.write(Paths.get(args[0]), dict.getBytes(StandardCharsets.UTF_8));
+
+        System.out.println("Dictionary of " + dict.getBytes(StandardCharsets.UTF_8).length + " bytes trained on "
+            + samples.size() + " samples is saved to " + args[0]);
+    }
+
+    /**
+     * @param file Test occurrences XML file, {@code null} for recorded resource.
+     * @return Not empty test details.
+     */
+    public static List<String> loadDetails(String file) throws IOException, JAXBException {
+        TestOccurrencesFull occurrences;
+
+        if (file == null)
+            occurrences = BenchFixtures.loadXml("/testList.xml", TestOccurrencesFull.class);
+        else {
+            try (InputStream is = new FileInputStream(file)) {
+                occurrences = XmlUtil.load(TestOccurrencesFull.class,
+                    new InputStreamReader(is, StandardCharsets.UTF_8));
+            }
+        }
+
+        return occurrences.getTests().stream()
+            .map(occurrence -> occurrence.details)
+            .filter(d -> d != null && !d.trim().isEmpty())
+            .map(String::trim)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param text Text not containing stack frames.
+     * @param seqs Sequences of words found in the sample.
+     */
+    private static void addWordSequences(String text, Set<String> seqs) {
+        String[] words = text.trim().split("\\s+");
+
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder seq = new StringBuilder();
+
+            for (int j = i; j < Math.min(words.length, i + MAX_WORDS); j++) {
+                if (j > i)
+                    seq.append(' ');
+
+                seq.append(words[j]);
+
+                seqs.add(seq.toString());
+            }
+        }
+    }
+
+    /**
+     * @param samples Samples.
+     * @param maxSize Max dictionary size in bytes.
+     * @return Dictionary.
+     */
+    public static String train(List<String> samples, int maxSize) {
+        Map<String, Integer> samplesCnt = new HashMap<>();
+
+        for (String sample : samples) {
+            Set<String> seqs = new HashSet<>();
+            Matcher frame = FRAME.matcher(sample);
+            int textStart = 0;
+
+            while (frame.find()) {
+                seqs.add(frame.group());
+
+                addWordSequences(sample.substring(textStart, frame.start()), seqs);
+
+                textStart = frame.end();
+            }
+
+            addWordSequences(sample.substring(textStart), seqs);
+
+            seqs.forEach(seq -> samplesCnt.merge(seq, 1, Integer::sum));
+        }
+
+        // Bytes saved by the sequence in samples other than the first one.
+        Comparator<Map.Entry<String, Integer>> byScore = Comparator.comparingLong(
+            e -> (long)(e.getValue() - 1) * e.getKey().length());
+
+        List<Map.Entry<String, Integer>> candidates = samplesCnt.entrySet().stream()
+            .filter(e -> e.getValue() >= MIN_SAMPLES && e.getKey().length() > 3)
+            .sorted(byScore.reversed().thenComparing(Map.Entry::getKey))
+            .collect(Collectors.toList());
+
+        List<String> selected = new ArrayList<>();
+        int size = 0;
+
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            String seq = candidate.getKey();
+
+            if (selected.stream().anyMatch(s -> s.contains(seq)))
+                continue;
+
+            int len = seq.getBytes(StandardCharsets.UTF_8).length + 1;
+
+            if (size + len > maxSize)
+                continue;
+
+            selected.add(seq);
+            size += len;
+        }
+
+        StringBuilder dict = new StringBuilder();
+
+        for (String seed : SEED) {
+            int len = seed.getBytes(StandardCharsets.UTF_8).length + 1;
+
+            if (size + len <= maxSize && selected.stream().noneMatch(s -> s.contains(seed))) {
+                dict.append(seed).append('\n');
+
+                size += len;
+            }
+        }
+
+        for (int i = selected.size() - 1; i >= 0; i--)
+            dict.append(selected.get(i)).append('\n');
+
+        return dict.toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.runhist.Invocation;
+import org.apache.ignite.tcbot.engine.issue.EventTemplates;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.history.IRunHistory;
+import org.apache.ignite.tcignited.history.InvocationData;
+import org.apache.ignite.tcignited.history.RunHistCompacted;
+import org.apache.ignite.tcignited.history.SuiteHistory;
+import org.apache.ignite.tcignited.history.SuiteInvocation;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Suite history merge from suite invocations and per-test failure rate computation, as it is done for each suite in
+ * a chain when PR or tracked branch report is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuiteHistoryBenchmark {
+    /** Builds (suite invocations) in history. */
+    @Param({"50", "200"})
+    public int builds;
+
+    /** Tests in suite. */
+    @Param({"1000", "10000"})
+    public int tests;
+
+    /** Suite invocations: build ID -> invocation. */
+    private Map<Integer, SuiteInvocation> suiteRunHist;
+
+    /** Merged history. */
+    private SuiteHistory suiteHist;
+
+    /** Test name IDs. */
+    private int[] testNames;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        IStringCompactor compactor = new InMemoryStringCompactor();
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        testNames = new int[tests];
+        for (int i = 0; i < tests; i++)
+            testNames[i] = compactor.getStringId(BenchFixtures.testName(rnd) + i);
+
+        int branch = compactor.getStringId("refs/heads/master");
+
+        suiteRunHist = new HashMap<>();
+
+        for (int b = 0; b < builds; b++) {
+            int buildId = 1000000 + b * 7;
+
+            Build build = new Build();
+            build.setId(buildId);
+            build.buildTypeId = "IgniteTests24Java8_Cache1";
+            build.branchName = "refs/heads/master";
+            build.status = BuildRef.STATUS_SUCCESS;
+            build.state = BuildRef.STATE_FINISHED;
+            build.setStartDateTs(1_500_000_000_000L + b * 3_600_000L);
+
+            FatBuildCompacted fatBuild = new FatBuildCompacted(compactor, build)
+                .changes(rnd.nextInt(3) == 0 ? new int[] {b} : FatBuildCompacted.EMPTY);
+
+            SuiteInvocation inv = new SuiteInvocation(1, branch, fatBuild, compactor, (k, v) -> false);
+
+            for (int t = 0; t < tests; t++) {
+                // Some tests are not executed in each build, a small share of tests are flaky.
+                if (rnd.nextInt(50) == 0)
+                    continue;
+
+                int status = t % 20 == 0 && rnd.nextInt(4) == 0 ? InvocationData.FAILURE : InvocationData.OK;
+
+                inv.addTest(testNames[t], new Invocation(buildId).withStatus(status).withChanges(fatBuild.changes()));
+            }
+
+            suiteRunHist.put(buildId, inv);
+        }
+
+        suiteHist = new SuiteHistory(suiteRunHist);
+    }
+
+    /**
+     * History merge from invocations loaded from the DB.
+     */
+    @Benchmark
+    public SuiteHistory merge() {
+        return new SuiteHistory(suiteRunHist);
+    }
+
+    /**
+     * Fail rate and flakiness for each test in suite.
+     */
+    @Benchmark
+    public void failureRate(Blackhole bh) {
+        for (int testName : testNames) {
+            IRunHistory hist = suiteHist.getTestRunHist(testName);
+
+            if (hist == null)
+                continue;
+
+            bh.consume(hist.getFailRate());
+            bh.consume(hist.isFlaky());
+        }
+    }
+
+    /**
+     * Issue detection template matching for each test in suite.
+     */
+    @Benchmark
+    public void detectTemplate(Blackhole bh) {
+        for (int testName : testNames) {
+            IRunHistory hist = suiteHist.getTestRunHist(testName);
+
+            if (hist != null)
+                bh.consume(hist.detectTemplate(EventTemplates.newFailure));
+        }
+    }
+
+    /**
+     * Suite level history merge using {@link RunHistCompacted}.
+     */
+    @Benchmark
+    public float suiteRunHistMerge() {
+        RunHistCompacted hist = new RunHistCompacted();
+
+        suiteRunHist.values().forEach(inv -> hist.addInvocation(inv.suiteInvocation()));
+
+        hist.sort();
+
+        return hist.getFailRate();
+    }
+}
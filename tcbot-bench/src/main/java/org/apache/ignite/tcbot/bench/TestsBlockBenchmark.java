@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.internal.binary.BinaryObjectExImpl;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.build.ITest;
+import org.apache.ignite.tcignited.build.TestCompactedV2;
+import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
+import org.apache.ignite.tcignited.buildlog.LogIgniteSpecific;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrencesFull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares tests of {@link FatBuildCompacted} stored as a list of {@link TestCompactedV2} (format of previous
+ * versions) and in columns: Ignite binary deserialization and selection of failed not muted tests. Serialized sizes
+ * are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestsBlockBenchmark {
+    /** Tests stored as a list of objects. */
+    public static final String LIST = "list";
+
+    /** Tests stored in columns. */
+    public static final String BLOCK = "block";
+
+    /** Tests storage format. */
+    @Param({LIST, BLOCK})
+    public String format;
+
+    /** Count of generated tests added to recorded tests. */
+    @Param({"1000", "10000"})
+    public int generatedTests;
+
+    /** Compactor. */
+    private IStringCompactor compactor;
+
+    /** Ignite used for binary marshalling. */
+    private Ignite ignite;
+
+    /** Serialized entry. */
+    private BinaryObject fatBuildBinary;
+
+    /** Deserialized entry. */
+    private FatBuildCompacted fatBuild;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() throws Exception {
+        compactor = new InMemoryStringCompactor();
+        ILogProductSpecific logSpecific = new LogIgniteSpecific();
+
+        Build build = BenchFixtures.loadXml("/build.xml", Build.class);
+        TestOccurrencesFull recorded = BenchFixtures.loadXml("/testList.xml", TestOccurrencesFull.class);
+
+        List<TestOccurrenceFull> tests = new ArrayList<>(recorded.getTests());
+        tests.addAll(BenchFixtures.testOccurrences(new Random(BenchFixtures.SEED), build.getId(), generatedTests, 0.05));
+
+        ignite = FatBuildCompactedBenchmark.startIgnite();
+
+        FatBuildCompacted blockBuild = new FatBuildCompacted(compactor, build).addTests(compactor, tests, logSpecific);
+
+        if (LIST.equals(format)) {
+            // Same as builds saved by previous versions.
+            List<ITest> testsV2 = tests.stream()
+                .map(occurrence -> new TestCompactedV2(compactor, occurrence, logSpecific))
+                .collect(Collectors.toList());
+
+            BinaryObject blockBinary = ignite.binary().toBinary(blockBuild);
+            BinaryObjectBuilder builder = blockBinary.toBuilder();
+
+            builder.removeField("testsBlock");
+            builder.setField("testsV2", testsV2);
+
+            fatBuildBinary = builder.build();
+        }
+        else
+            fatBuildBinary = ignite.binary().toBinary(blockBuild);
+
+        fatBuild = fatBuildBinary.deserialize();
+
+        System.out.println("\nSerialized size [format=" + format + ", tests=" + fatBuild.getTestsCount()
+            + ", bytes=" + ((BinaryObjectExImpl)fatBuildBinary).length() + "]");
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public FatBuildCompacted binaryRead() {
+        return fatBuildBinary.deserialize();
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public long failedNotMutedTests() {
+        return fatBuild.getFailedNotMutedTests(compactor).count();
+    }
+
+    /**
+     * Typical access to a build: read and select failures.
+     */
+    @Benchmark
+    public long binaryReadFailedNotMutedTests() {
+        FatBuildCompacted build = fatBuildBinary.deserialize();
+
+        return build.getFailedNotMutedTests(compactor).count();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.observer.BuildsInfo;
+import org.apache.ignite.ci.observer.CompactBuildsInfo;
+import org.apache.ignite.ci.web.model.CompactContributionKey;
+import org.apache.ignite.ci.web.model.CompactVisaRequest;
+import org.apache.ignite.ci.web.model.VisaRequest;
+import org.apache.ignite.ci.web.model.hist.VisasHistoryStorage;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcservice.model.result.Build;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading of visas history: full scan of cache with list of requests for contribution, used before, compared to
+ * reading of a page of recent requests and last requests projection of per-request storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class VisasHistoryBenchmark {
+    /** Visa requests in history. */
+    @Param({"100000"})
+    public int visas;
+
+    /** Visa requests per contribution. */
+    @Param({"5"})
+    public int visasPerContribution;
+
+    /** Requests shown on visas page. */
+    @Param({"1000"})
+    public int pageSize;
+
+    /** Ignite. */
+    private Ignite ignite;
+
+    /** Compactor. */
+    private IStringCompactor compactor;
+
+    /** Storage. */
+    private VisasHistoryStorage storage;
+
+    /** Cache with list of requests for contribution. */
+    private IgniteCache<CompactContributionKey, List<CompactVisaRequest>> listCache;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        ignite = FatBuildCompactedBenchmark.startIgnite();
+        compactor = new InMemoryStringCompactor();
+
+        storage = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+                bind(IStringCompactor.class).toInstance(compactor);
+            }
+        }).getInstance(VisasHistoryStorage.class);
+
+        listCache = ignite.getOrCreateCache(TcHelperDb.getCacheV3TxConfig(VisasHistoryStorage.VISAS_CACHE_NAME));
+
+        long ts = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+        int contributions = visas / visasPerContribution;
+
+        try (IgniteDataStreamer<CompactContributionKey, List<CompactVisaRequest>> streamer
+                 = ignite.dataStreamer(listCache.getName())) {
+            for (int contrib = 0; contrib < contributions; contrib++) {
+                List<CompactVisaRequest> reqs = new ArrayList<>();
+                CompactContributionKey key = null;
+
+                for (int i = 0; i < visasPerContribution; i++) {
+                    Build build = new Build();
+
+                    build.setId(contrib * visasPerContribution + i);
+
+                    BuildsInfo info = new BuildsInfo("apache", "IGNITE-" + contrib, "pull/" + contrib + "/head",
+                        "IgniteTests24Java8_RunAll", null, "user" + contrib % 50, build);
+
+                    CompactBuildsInfo compactInfo = new CompactBuildsInfo(info, compactor);
+
+                    compactInfo.date(ts + (long)i * contributions + contrib);
+
+                    reqs.add(new CompactVisaRequest(new VisaRequest(compactInfo.toBuildInfo(compactor)), compactor));
+
+                    key = new CompactContributionKey(info.getContributionKey(), compactor);
+                }
+
+                streamer.addData(key, reqs);
+            }
+        }
+
+        VisasHistoryStorage.migrate(ignite);
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (ignite != null)
+            ignite.close();
+    }
+
+    /**
+     * @return Count of requests decoded by full scan of list storage.
+     */
+    @Benchmark
+    public int listStorageAllVisas() {
+        int cnt = 0;
+
+        for (Cache.Entry<CompactContributionKey, List<CompactVisaRequest>> entry : listCache) {
+            for (CompactVisaRequest req : entry.getValue()) {
+                req.toVisaRequest(compactor);
+
+                cnt++;
+            }
+        }
+
+        return cnt;
+    }
+
+    /**
+     * @return Count of recent requests read using visa ID index.
+     */
+    @Benchmark
+    public int recentVisas() {
+        return storage.getRecentVisas(null, pageSize).size();
+    }
+
+    /**
+     * @return Count of last requests found by full scan of list storage.
+     */
+    @Benchmark
+    public int listStorageLastVisas() {
+        int cnt = 0;
+
+        for (Cache.Entry<CompactContributionKey, List<CompactVisaRequest>> entry : listCache) {
+            entry.getValue().get(entry.getValue().size() - 1).toVisaRequest(compactor);
+
+            cnt++;
+        }
+
+        return cnt;
+    }
+
+    /**
+     * @return Count of last requests read using last request projection.
+     */
+    @Benchmark
+    public int lastVisas() {
+        return storage.getLastVisas().size();
+    }
+}
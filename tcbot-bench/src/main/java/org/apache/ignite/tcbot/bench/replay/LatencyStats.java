@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench.replay;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe collector of operation latencies and failures for one load scenario.
+ */
+public class LatencyStats {
+    /** Scenario name. */
+    private final String name;
+
+    /** Latencies, nanoseconds. */
+    private long[] latencies = new long[1024];
+
+    /** Count of recorded latencies. */
+    private int cnt;
+
+    /** Failed operations count. */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param name Name.
+     */
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return Scenario name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @param nanos Operation duration.
+     */
+    public synchronized void record(long nanos) {
+        if (cnt == latencies.length)
+            latencies = Arrays.copyOf(latencies, cnt * 2);
+
+        latencies[cnt++] = nanos;
+    }
+
+    /**
+     * Registers failed operation, its duration is recorded separately.
+     */
+    public void failed() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * @return Failed operations count.
+     */
+    public long failures() {
+        return failures.get();
+    }
+
+    /**
+     * @return Count of operations.
+     */
+    public synchronized int count() {
+        return cnt;
+    }
+
+    /**
+     * @param pct Percentile, from 0 to 100.
+     * @return Latency in milliseconds.
+     */
+    public synchronized double percentileMs(double pct) {
+        if (cnt == 0)
+            return 0;
+
+        long[] sorted = Arrays.copyOf(latencies, cnt);
+
+        Arrays.sort(sorted);
+
+        int idx = (int)Math.ceil(pct / 100.0 * cnt) - 1;
+
+        return toMs(sorted[Math.max(0, Math.min(idx, cnt - 1))]);
+    }
+
+    /**
+     * @param elapsedNanos Wall clock duration of the whole run.
+     * @return Operations per second.
+     */
+    public synchronized double throughput(long elapsedNanos) {
+        return elapsedNanos <= 0 ? 0 : cnt * (double)TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @param nanos Nanos.
+     */
+    private static double toMs(long nanos) {
+        return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench.replay;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * TeamCity responses captured by {@link org.apache.ignite.tcservice.http.TeamcityRecorder} (tcrecorder.txt). Each
+ * entry is a marker line with request URL followed by response body and a trailing line feed. Responses are indexed
+ * by path and query, so the session may be replayed from any host. If the same URL was recorded several times,
+ * responses are returned in round-robin order.
+ */
+public class RecordedTcSession {
+    /** Marker of recorded request start, should be in sync with TeamcityRecorder. */
+    public static final String MARKER = "===HTTP=RECORDER=== GET ";
+
+    /** Marker bytes. */
+    private static final byte[] MARKER_BYTES = MARKER.getBytes(StandardCharsets.UTF_8);
+
+    /** Responses by path and query. */
+    private final Map<String, Responses> responses = new HashMap<>();
+
+    /** Total recorded responses. */
+    private int total;
+
+    /**
+     * @param file Recorder file.
+     */
+    public static RecordedTcSession load(Path file) throws IOException {
+        RecordedTcSession ses = new RecordedTcSession();
+
+        byte[] data = Files.readAllBytes(file);
+
+        int pos = indexOfMarker(data, 0);
+
+        while (pos >= 0) {
+            int urlStart = pos + MARKER_BYTES.length;
+            int urlEnd = indexOf(data, (byte)'\n', urlStart);
+
+            if (urlEnd < 0)
+                break;
+
+            String url = new String(data, urlStart, urlEnd - urlStart, StandardCharsets.UTF_8).trim();
+
+            int next = indexOfMarker(data, urlEnd + 1);
+            int bodyEnd = next < 0 ? data.length : next;
+
+            // Recorder adds line feed after the body on stream close.
+            if (bodyEnd > urlEnd + 1 && data[bodyEnd - 1] == '\n')
+                bodyEnd--;
+
+            ses.add(url, Arrays.copyOfRange(data, urlEnd + 1, bodyEnd));
+
+            pos = next;
+        }
+
+        return ses;
+    }
+
+    /**
+     * @param url Full URL or path with query.
+     * @param body Body.
+     */
+    public void add(String url, byte[] body) {
+        responses.computeIfAbsent(pathAndQuery(url), k -> new Responses()).bodies.add(body);
+
+        total++;
+    }
+
+    /**
+     * @param pathAndQuery Requested path and query.
+     * @return Recorded body or null if request was not recorded.
+     */
+    @Nullable public byte[] find(String pathAndQuery) {
+        Responses res = responses.get(pathAndQuery);
+
+        return res == null ? null : res.next();
+    }
+
+    /**
+     * @return Count of distinct recorded URLs.
+     */
+    public int urls() {
+        return responses.size();
+    }
+
+    /**
+     * @return Count of recorded responses.
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * @param url Full URL or path with query.
+     * @return Path and query, host independent key.
+     */
+    public static String pathAndQuery(String url) {
+        URI uri = URI.create(url);
+
+        String path = uri.getRawPath();
+        String qry = uri.getRawQuery();
+
+        if (path == null || path.isEmpty())
+            path = "/";
+
+        return qry == null ? path : path + "?" + qry;
+    }
+
+    /**
+     * @param data Data.
+     * @param from Start position.
+     * @return Position of marker located at line start.
+     */
+    private static int indexOfMarker(byte[] data, int from) {
+        for (int i = from; i <= data.length - MARKER_BYTES.length; i++) {
+            if (i > 0 && data[i - 1] != '\n')
+                continue;
+
+            boolean match = true;
+
+            for (int j = 0; j < MARKER_BYTES.length; j++) {
+                if (data[i + j] != MARKER_BYTES[j]) {
+                    match = false;
+
+                    break;
+                }
+            }
+
+            if (match)
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param data Data.
+     * @param b Byte to find.
+     * @param from Start position.
+     */
+    private static int indexOf(byte[] data, byte b, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == b)
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Responses recorded for one URL.
+     */
+    private static class Responses {
+        /** Bodies. */
+        private final List<byte[]> bodies = new ArrayList<>();
+
+        /** Next body index. */
+        private final AtomicInteger idx = new AtomicInteger();
+
+        /** */
+        private byte[] next() {
+            if (bodies.size() == 1)
+                return bodies.get(0);
+
+            return bodies.get(Math.floorMod(idx.getAndIncrement(), bodies.size()));
+        }
+    }
+}
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench.replay;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.observer.BuildObserver;
+import org.apache.ignite.ci.tcbot.TcBotWebAppModule;
+import org.apache.ignite.ci.tcbot.issue.IssueDetector;
+import org.apache.ignite.ci.tcbot.trends.MasterTrendsService;
+import org.apache.ignite.ci.user.ITcBotUserCreds;
+import org.apache.ignite.ci.user.TcHelperUser;
+import org.apache.ignite.tcbot.common.conf.TcBotSystemProperties;
+import org.apache.ignite.tcbot.common.interceptor.MonitoredTaskInterceptor;
+import org.apache.ignite.tcbot.engine.board.BoardService;
+import org.apache.ignite.tcbot.engine.cleaner.Cleaner;
+import org.apache.ignite.tcbot.engine.pool.TcUpdatePool;
+import org.apache.ignite.tcbot.engine.pr.PrChainsProcessor;
+import org.apache.ignite.tcbot.engine.tracked.DisplayMode;
+import org.apache.ignite.tcbot.engine.tracked.IDetailedStatusForTrackedBranch;
+import org.apache.ignite.tcbot.engine.user.IUserStorage;
+import org.apache.ignite.tcbot.persistence.scheduler.IScheduler;
+import org.apache.ignite.tcignited.SyncMode;
+
+/**
+ * Load harness replaying TeamCity responses recorded with {@code -Dteamcity.bot.recorder=true}. Starts
+ * {@link ReplayTcServer} instead of real TeamCity, boots the bot injector on a temporary work directory (and thus an
+ * empty Ignite persistence) and runs scripted workload: tracked branch refresh, PR check, board summary and build
+ * history. Reports throughput, latency percentiles, REST calls count and heap usage, so the effect of changes in
+ * caching, sync and persistence layers may be compared on the same recorded session.
+ *
+ * Usage: {@code ReplayLoadHarness --recording tcrecorder.txt --config branches.json [options]}, options are:
+ * <ul>
+ *     <li>{@code --branch} tracked branch to refresh, default is {@code master};</li>
+ *     <li>{@code --server} TC server code for PR check and history, default is primary server;</li>
+ *     <li>{@code --suite} and {@code --pr} suite and TC branch for PR check, PR check is skipped if not set;</li>
+ *     <li>{@code --threads} and {@code --iterations} workload parallelism and size, default is 4 and 10;</li>
+ *     <li>{@code --warmup} iterations excluded from report, default is 1;</li>
+ *     <li>{@code --latency}, {@code --jitter} emulated TeamCity latency in milliseconds, default is 0;</li>
+ *     <li>{@code --errorRate} share of TeamCity requests failed with 500, default is 0.</li>
+ * </ul>
+ */
+public class ReplayLoadHarness {
+    /** User used for workload. */
+    private static final String USER = "replay";
+
+    /**
+     * @param args Arguments.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+
+        String recording = opts.get("recording");
+        String cfg = opts.get("config");
+
+        if (Strings.isNullOrEmpty(recording) || Strings.isNullOrEmpty(cfg)) {
+            System.err.println("Usage: ReplayLoadHarness --recording tcrecorder.txt --config branches.json " +
+                "[--branch master] [--server apache] [--suite IgniteTests24Java8_RunAll --pr pull/1/head] " +
+                "[--threads 4] [--iterations 10] [--warmup 1] [--latency 0] [--jitter 0] [--errorRate 0]");
+
+            System.exit(1);
+        }
+
+        RecordedTcSession ses = RecordedTcSession.load(Paths.get(recording));
+
+        System.out.println("Loaded " + ses.total() + " recorded responses for " + ses.urls() + " URLs");
+
+        Path workDir = Files.createTempDirectory("tcbot-replay");
+
+        try (ReplayTcServer srv = new ReplayTcServer(ses,
+            Integer.parseInt(opts.getOrDefault("latency", "0")),
+            Integer.parseInt(opts.getOrDefault("jitter", "0")),
+            Double.parseDouble(opts.getOrDefault("errorRate", "0"))).start()) {
+            writeConfig(Paths.get(cfg), workDir.resolve("branches.json"), srv.host());
+
+            System.setProperty(TcBotSystemProperties.TEAMCITY_HELPER_HOME, workDir.toString());
+
+            new ReplayLoadHarness(srv, opts).run();
+        }
+        finally {
+            deleteRecursively(workDir);
+        }
+
+        // Bot and Ignite threads may be non-daemon.
+        System.exit(0);
+    }
+
+    /** Server. */
+    private final ReplayTcServer srv;
+
+    /** Options. */
+    private final Map<String, String> opts;
+
+    /**
+     * @param srv Server.
+     * @param opts Options.
+     */
+    private ReplayLoadHarness(ReplayTcServer srv, Map<String, String> opts) {
+        this.srv = srv;
+        this.opts = opts;
+    }
+
+    /**
+     * Boots bot, runs workload and prints report.
+     */
+    private void run() throws Exception {
+        TcBotWebAppModule module = new TcBotWebAppModule();
+        Injector injector = module.startIgniteInit(Guice.createInjector(module));
+
+        try {
+            injector.getInstance(Ignite.class);
+
+            ITcBotUserCreds creds = createUser(injector);
+
+            List<Scenario> scenarios = scenarios(injector, creds);
+
+            int threads = Integer.parseInt(opts.getOrDefault("threads", "4"));
+            int iterations = Integer.parseInt(opts.getOrDefault("iterations", "10"));
+            int warmup = Integer.parseInt(opts.getOrDefault("warmup", "1"));
+
+            if (warmup > 0) {
+                runWorkload(scenarios, threads, warmup);
+
+                srv.resetCounters();
+            }
+
+            System.gc();
+
+            long heapBefore = heapUsed();
+            resetPeakUsage();
+
+            List<LatencyStats> stats = new ArrayList<>();
+            long elapsed = runWorkload(scenarios, threads, iterations, stats);
+
+            report(stats, elapsed, heapBefore);
+        }
+        finally {
+            stop(injector);
+        }
+    }
+
+    /**
+     * @param scenarios Scenarios.
+     * @param threads Threads.
+     * @param iterations Iterations.
+     */
+    private long runWorkload(List<Scenario> scenarios, int threads, int iterations) throws Exception {
+        return runWorkload(scenarios, threads, iterations, new ArrayList<>());
+    }
+
+    /**
+     * Runs each scenario {@code iterations} times, operations of all scenarios are executed concurrently.
+     *
+     * @param scenarios Scenarios.
+     * @param threads Threads.
+     * @param iterations Iterations.
+     * @param stats Collected statistics, one per scenario.
+     * @return Elapsed nanos.
+     */
+    private long runWorkload(List<Scenario> scenarios, int threads, int iterations,
+        List<LatencyStats> stats) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new ThreadFactoryBuilder().setNameFormat("replay-load-%d").setDaemon(true).build());
+
+        try {
+            List<Future<?>> futs = new ArrayList<>();
+
+            for (Scenario scenario : scenarios)
+                stats.add(new LatencyStats(scenario.name));
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                for (int j = 0; j < scenarios.size(); j++) {
+                    Scenario scenario = scenarios.get(j);
+                    LatencyStats scenarioStats = stats.get(j);
+
+                    futs.add(executor.submit(() -> {
+                        long opStart = System.nanoTime();
+
+                        try {
+                            scenario.op.run();
+                        }
+                        catch (Exception e) {
+                            scenarioStats.failed();
+
+                            System.err.println("Scenario " + scenario.name + " failed: " + e);
+                        }
+                        finally {
+                            scenarioStats.record(System.nanoTime() - opStart);
+                        }
+                    }));
+                }
+            }
+
+            for (Future<?> fut : futs)
+                fut.get();
+
+            return System.nanoTime() - start;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param injector Injector.
+     * @param creds Credentials.
+     */
+    private List<Scenario> scenarios(Injector injector, ITcBotUserCreds creds) {
+        String branch = opts.getOrDefault("branch", "master");
+        String srvCode = opts.get("server");
+        String suite = opts.get("suite");
+        String pr = opts.get("pr");
+
+        IDetailedStatusForTrackedBranch trackedBranch = injector.getInstance(IDetailedStatusForTrackedBranch.class);
+        PrChainsProcessor prChainsProcessor = injector.getInstance(PrChainsProcessor.class);
+        BoardService boardSvc = injector.getInstance(BoardService.class);
+        MasterTrendsService trendsSvc = injector.getInstance(MasterTrendsService.class);
+
+        List<Scenario> res = new ArrayList<>();
+
+        res.add(new Scenario("trackedBranchRefresh", () -> trackedBranch.getTrackedBranchTestFailures(branch,
+            false, 1, creds, SyncMode.RELOAD_QUEUED, false, null, null,
+            DisplayMode.OnlyFailures, null, -1, false, false)));
+
+        if (!Strings.isNullOrEmpty(suite) && !Strings.isNullOrEmpty(pr)) {
+            res.add(new Scenario("prCheck", () -> prChainsProcessor.getTestFailuresSummary(creds, srvCode,
+                suite, pr, "Latest", 1, null, false, SyncMode.RELOAD_QUEUED)));
+        }
+
+        res.add(new Scenario("boardSummary", () -> boardSvc.summary(creds, branch)));
+
+        res.add(new Scenario("buildHistory", () -> {
+            try {
+                trendsSvc.getBuildTrends(srvCode, suite, null, null, null, "false", creds);
+            }
+            catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        return res;
+    }
+
+    /**
+     * Registers admin user, credentials are accepted by replay server for any TC server.
+     *
+     * @param injector Injector.
+     */
+    private static ITcBotUserCreds createUser(Injector injector) {
+        TcHelperUser user = new TcHelperUser();
+
+        user.username = USER;
+        user.setAdmin(true);
+
+        injector.getInstance(IUserStorage.class).putUser(USER, user);
+
+        return new ITcBotUserCreds() {
+            /** {@inheritDoc} */
+            @Override public byte[] getUserKey() {
+                return new byte[16];
+            }
+
+            /** {@inheritDoc} */
+            @Override public String getPrincipalId() {
+                return USER;
+            }
+
+            /** {@inheritDoc} */
+            @Override public String getUser(String srvCode) {
+                return USER;
+            }
+
+            /** {@inheritDoc} */
+            @Override public String getPassword(String srvCode) {
+                return USER;
+            }
+        };
+    }
+
+    /**
+     * @param stats Stats.
+     * @param elapsed Elapsed nanos.
+     * @param heapBefore Heap used before workload.
+     */
+    private void report(List<LatencyStats> stats, long elapsed, long heapBefore) {
+        System.out.println();
+        System.out.println(String.format("Workload completed in %.1f s", elapsed / 1e9));
+        System.out.println(String.format("%-22s %8s %8s %10s %10s %10s %10s %10s",
+            "Scenario", "Ops", "Failed", "Ops/s", "p50, ms", "p90, ms", "p99, ms", "max, ms"));
+
+        for (LatencyStats s : stats) {
+            System.out.println(String.format("%-22s %8d %8d %10.2f %10.1f %10.1f %10.1f %10.1f",
+                s.name(), s.count(), s.failures(), s.throughput(elapsed),
+                s.percentileMs(50), s.percentileMs(90), s.percentileMs(99), s.percentileMs(100)));
+        }
+
+        System.out.println();
+        System.out.println("TeamCity REST calls: " + srv.totalCalls()
+            + " (not recorded: " + srv.misses() + ", injected errors: " + srv.errors() + ")");
+
+        srv.callsByEndpoint().entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .forEach(e -> System.out.println(String.format("  %8d %s", e.getValue(), e.getKey())));
+
+        System.out.println();
+        System.out.println(String.format("Heap used: before %d MB, after %d MB, peak %d MB",
+            heapBefore >> 20, heapUsed() >> 20, heapPeak() >> 20));
+    }
+
+    /**
+     * Copies bot config, all TC servers are switched to replay server and notifications are removed.
+     *
+     * @param src Source config.
+     * @param dest Destination.
+     * @param host Replay server host.
+     */
+    private static void writeConfig(Path src, Path dest, String host) throws IOException {
+        JsonObject cfg;
+
+        try (Reader reader = Files.newBufferedReader(src, StandardCharsets.UTF_8)) {
+            cfg = new JsonParser().parse(reader).getAsJsonObject();
+        }
+
+        JsonElement tcServers = cfg.get("tcServers");
+
+        if (tcServers != null && tcServers.isJsonArray()) {
+            for (JsonElement tcSrv : (JsonArray)tcServers)
+                tcSrv.getAsJsonObject().addProperty("host", host);
+        }
+
+        cfg.remove("notifications");
+
+        Files.write(dest, new GsonBuilder().setPrettyPrinting().create().toJson(cfg)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops bot services in the same order as the web application does.
+     *
+     * @param injector Injector.
+     */
+    private static void stop(Injector injector) {
+        try {
+            injector.getInstance(IssueDetector.class).stop();
+            injector.getInstance(TcUpdatePool.class).stop();
+            injector.getInstance(BuildObserver.class).stop();
+            injector.getInstance(IScheduler.class).stop();
+            injector.getInstance(Cleaner.class).stop();
+            injector.getInstance(MonitoredTaskInterceptor.class).close();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        TcHelperDb.stop(injector.getInstance(Ignite.class));
+    }
+
+    /**
+     * @return Heap used bytes.
+     */
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return Sum of heap pools peak usage since {@link #resetPeakUsage()}.
+     */
+    private static long heapPeak() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP)
+            .mapToLong(p -> p.getPeakUsage().getUsed())
+            .sum();
+    }
+
+    /**
+     * Resets heap pools peak usage.
+     */
+    private static void resetPeakUsage() {
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP)
+            .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    /**
+     * @param args Arguments in {@code --name value} format.
+     */
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> res = new HashMap<>();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].startsWith("--"))
+                res.put(args[i].substring(2), args[i + 1]);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param dir Directory.
+     */
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        catch (IOException e) {
+            System.err.println("Unable to cleanup " + dir + ": " + e);
+        }
+    }
+
+    /**
+     * Named workload operation.
+     */
+    private static class Scenario {
+        /** Name. */
+        private final String name;
+
+        /** Operation. */
+        private final Runnable op;
+
+        /**
+         * @param name Name.
+         * @param op Operation.
+         */
+        private Scenario(String name, Runnable op) {
+            this.name = name;
+            this.op = op;
+        }
+    }
+}
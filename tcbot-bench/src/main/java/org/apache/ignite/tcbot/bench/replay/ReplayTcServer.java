@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.bench.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP server emulating TeamCity REST by replaying {@link RecordedTcSession}. Supports response latency
+ * (with jitter) and error injection, and counts served requests per endpoint. Requests which were not recorded are
+ * answered with 404, as TeamCity does for unknown entities.
+ */
+public class ReplayTcServer implements AutoCloseable {
+    /** Session. */
+    private final RecordedTcSession ses;
+
+    /** Latency added to each response, milliseconds. */
+    private final int latencyMs;
+
+    /** Max random latency added on top of {@link #latencyMs}, milliseconds. */
+    private final int jitterMs;
+
+    /** Share of requests answered with 500 error, from 0 to 1. */
+    private final double errorRate;
+
+    /** Server. */
+    private HttpServer srv;
+
+    /** Executor. */
+    private ExecutorService executor;
+
+    /** Requests count by endpoint. */
+    private final Map<String, LongAdder> callsByEndpoint = new ConcurrentHashMap<>();
+
+    /** Not recorded requests count. */
+    private final LongAdder misses = new LongAdder();
+
+    /** Injected errors count. */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param ses Recorded session.
+     * @param latencyMs Latency.
+     * @param jitterMs Jitter.
+     * @param errorRate Error rate.
+     */
+    public ReplayTcServer(RecordedTcSession ses, int latencyMs, int jitterMs, double errorRate) {
+        this.ses = ses;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Starts server on a free local port.
+     */
+    public ReplayTcServer start() throws IOException {
+        srv = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "replay-tc-srv");
+
+            t.setDaemon(true);
+
+            return t;
+        });
+
+        srv.setExecutor(executor);
+        srv.createContext("/", this::handle);
+        srv.start();
+
+        return this;
+    }
+
+    /**
+     * @return Host URL to be used in TC server config.
+     */
+    public String host() {
+        return "http://127.0.0.1:" + srv.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @param exchange Exchange.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            String qry = exchange.getRequestURI().getRawQuery();
+
+            callsByEndpoint.computeIfAbsent(endpoint(path), k -> new LongAdder()).increment();
+
+            sleepLatency();
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.increment();
+
+                exchange.sendResponseHeaders(500, -1);
+
+                return;
+            }
+
+            byte[] body = ses.find(qry == null ? path : path + "?" + qry);
+
+            if (body == null) {
+                misses.increment();
+
+                exchange.sendResponseHeaders(404, -1);
+
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type",
+                path.endsWith(".zip") || path.contains("downloadBuildLog") ? "application/zip" : "application/xml");
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Emulates network and TeamCity processing delay.
+     */
+    private void sleepLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextInt(jitterMs + 1) : 0);
+
+        if (delay <= 0)
+            return;
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param path Request path.
+     * @return Endpoint with entity locators and identifiers replaced, e.g. /app/rest/latest/builds/*.
+     */
+    public static String endpoint(String path) {
+        StringBuilder sb = new StringBuilder();
+
+        for (String seg : path.split("/")) {
+            if (seg.isEmpty())
+                continue;
+
+            sb.append('/');
+
+            if (seg.indexOf(':') >= 0 || seg.chars().allMatch(Character::isDigit))
+                sb.append('*');
+            else
+                sb.append(seg);
+        }
+
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    /**
+     * @return Sorted snapshot of requests count by endpoint.
+     */
+    public Map<String, Long> callsByEndpoint() {
+        Map<String, Long> res = new TreeMap<>();
+
+        callsByEndpoint.forEach((k, v) -> res.put(k, v.sum()));
+
+        return res;
+    }
+
+    /**
+     * @return Total requests served.
+     */
+    public long totalCalls() {
+        return callsByEndpoint.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * @return Count of requests which were not found in recording.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Count of injected errors.
+     */
+    public long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * Resets counters, e.g. after warmup.
+     */
+    public void resetCounters() {
+        callsByEndpoint.clear();
+        misses.reset();
+        errors.reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() {
+        if (srv != null)
+            srv.stop(0);
+
+        if (executor != null)
+            executor.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.buildlog;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.internal.SingletonScope;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.apache.ignite.tcbot.bench.BenchFixtures;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BuildLogStreamChecker} applied to a zipped synthetic build log with the same handlers as {@link
+ * LogCheckTask} uses. Placed to the same package because checker is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BuildLogStreamCheckerBenchmark {
+    /** Uncompressed log size, megabytes. */
+    @Param({"200"})
+    public int logSizeMb;
+
+    /** Zipped log. */
+    private File zipFile;
+
+    /** Injector to create handlers. */
+    private Injector injector;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() throws IOException {
+        injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(IStringCompactor.class).to(InMemoryStringCompactor.class).in(new SingletonScope());
+                bind(ILogProductSpecific.class).to(LogIgniteSpecific.class).in(new SingletonScope());
+            }
+        });
+
+        zipFile = File.createTempFile("tcbot-bench-build-log", ".zip");
+
+        writeSyntheticLog(zipFile, logSizeMb * 1024L * 1024L);
+    }
+
+    /**
+     *
+     */
+    @TearDown
+    public void tearDown() {
+        if (zipFile != null && !zipFile.delete())
+            zipFile.deleteOnExit();
+    }
+
+    /**
+     * @param zipFile Zip file.
+     * @param size Approximate uncompressed size.
+     */
+    private static void writeSyntheticLog(File zipFile, long size) throws IOException {
+        Random rnd = new Random(BenchFixtures.SEED);
+
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)))) {
+            zos.putNextEntry(new ZipEntry("build.log"));
+
+            Writer writer = new OutputStreamWriter(zos, StandardCharsets.UTF_8);
+            long written = 0;
+            int lineNo = 0;
+
+            while (written < size) {
+                String line;
+
+                if (lineNo % 5000 == 0) {
+                    line = "[12:00:00]W:\t [org.apache.ignite:ignite-core] >>> Starting test: "
+                        + BenchFixtures.className(rnd, 3) + "Test#test" + BenchFixtures.className(rnd, 2)
+                        + "-[" + rnd.nextInt(8) + "] <<<";
+                }
+                else if (lineNo % 50000 == 7) {
+                    line = "Full thread dump OpenJDK 64-Bit Server VM:\n" + BenchFixtures.stackTrace(rnd, 300)
+                        + "[12:00:00]W:\t [org.apache.ignite:ignite-core] Thread dump finished";
+                }
+                else if (lineNo % 20000 == 11)
+                    line = BenchFixtures.stackTrace(rnd, 20);
+                else {
+                    line = "[12:00:" + (lineNo % 60) + "]W:\t [org.apache.ignite:ignite-core] [" + lineNo
+                        + "][INFO ][sys-#" + rnd.nextInt(200) + "][" + BenchFixtures.className(rnd, 2)
+                        + "] Processed message [topVer=" + rnd.nextInt(1000) + ", node=" + rnd.nextLong() + "]";
+                }
+
+                writer.write(line);
+                writer.write('\n');
+
+                written += line.length() + 1;
+                lineNo++;
+            }
+
+            writer.flush();
+            zos.closeEntry();
+        }
+    }
+
+    /**
+     *
+     */
+    @Benchmark
+    public LogCheckResultCompacted check() throws IOException {
+        ThreadDumpInMemoryHandler threadDumpCp = new ThreadDumpInMemoryHandler();
+        TestLogHandler testLogHandler = injector.getInstance(TestLogHandler.class);
+
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
+            zis.getNextEntry();
+
+            new BuildLogStreamChecker(threadDumpCp, testLogHandler).apply(zis, zipFile);
+        }
+
+        return testLogHandler.getResult(true);
+    }
+}
@@ -32,6 +32,9 @@ public class TcBotSystemProperties {
      */
     public static final String TEAMCITY_BOT_REGIONSIZE = "teamcity.bot.regionsize";
 
+    /** Count of threads processing partitions of one data migration. Default is count of available processors. */
+    public static final String TEAMCITY_BOT_MIGRATION_THREADS = "teamcity.bot.migration.threads";
+
     /** System property to specify: Teamcity helper home. Ignite home will be set to same dir. */
     public static final String TEAMCITY_HELPER_HOME = "teamcity.helper.home";
 }
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
@@ -40,6 +41,9 @@ import org.apache.ignite.tcbot.common.util.TimeUtil;
 import static org.apache.ignite.tcbot.common.util.TimeUtil.timestampForLogsSimpleDate;
 
 public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseable {
+    /** Monitored task running in the current thread. */
+    private static final ThreadLocal<Invocation> CURRENT = new ThreadLocal<>();
+
     private final ConcurrentMap<String, Invocation> totalTime = new ConcurrentSkipListMap<>();
 
     private FileWriter fileWriter;
@@ -74,6 +78,8 @@ public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseabl
         private final AtomicLong lastStartTs = new AtomicLong();
         private final AtomicLong lastEndTs = new AtomicLong();
         private final AtomicReference<Object> lastResult = new AtomicReference<>();
+        /** Progress reported by running task. */
+        private final AtomicReference<String> progress = new AtomicReference<>();
 
         private final AtomicInteger callsCnt = new AtomicInteger();
         /** Name and full key for monitored task. */
@@ -89,6 +95,12 @@ public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseabl
             lastStartTs.set(startTs);
 
             lastEndTs.set(0);
+
+            progress.set(null);
+        }
+
+        void saveProgress(String msg) {
+            progress.set(msg);
         }
 
         void saveEnd(long ts, Object res) {
@@ -126,7 +138,10 @@ public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseabl
             if (lastEndTs.get() == 0) {
                 long time = System.currentTimeMillis() - lastStartTs.get();
 
-                return ("(running for " + TimeUtil.millisToDurationPrintable(time) + ")");
+                String msg = progress.get();
+
+                return ("(running for " + TimeUtil.millisToDurationPrintable(time) + ")")
+                    + (msg == null ? "" : " " + msg);
             }
 
             return Objects.toString(lastResult.get());
@@ -159,6 +174,10 @@ public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseabl
         if (settings.log)
             log(monitoredInvoke.toString(), -1);
 
+        Invocation prev = CURRENT.get();
+
+        CURRENT.set(monitoredInvoke);
+
         Object res = null;
         try {
             res = invocation.proceed();
@@ -171,6 +190,8 @@ public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseabl
             throw t;
         }
         finally {
+            CURRENT.set(prev);
+
             long end = System.currentTimeMillis();
             monitoredInvoke.saveEnd(end, res);
 
@@ -179,6 +200,17 @@ public class MonitoredTaskInterceptor implements MethodInterceptor, AutoCloseabl
         }
     }
 
+    /**
+     * Progress messages are shown as result of the task until it completes. Reporter may be passed to other threads.
+     *
+     * @return Progress reporter of monitored task running in the current thread, or no-op reporter.
+     */
+    public static Consumer<String> progressReporter() {
+        Invocation invocation = CURRENT.get();
+
+        return invocation == null ? msg -> { } : invocation::saveProgress;
+    }
+
     public void log(String str, long duration) {
         if (fileWriter == null)
             return;
@@ -18,6 +18,7 @@
 package org.apache.ignite.ci.issue;
 
 import com.google.common.base.MoreObjects;
+import java.util.Objects;
 import org.apache.ignite.tcbot.persistence.Persisted;
 
 @Persisted
@@ -44,6 +45,26 @@ public class IssueKey {
         return testOrBuildName;
     }
 
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        IssueKey key = (IssueKey)o;
+
+        return Objects.equals(server, key.server) &&
+            Objects.equals(buildId, key.buildId) &&
+            Objects.equals(testOrBuildName, key.testOrBuildName);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        return Objects.hash(server, buildId, testOrBuildName);
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return MoreObjects.toStringHelper(this)
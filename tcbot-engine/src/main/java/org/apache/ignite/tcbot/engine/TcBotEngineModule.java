@@ -30,6 +30,7 @@ import org.apache.ignite.tcbot.engine.issue.IssuesStorage;
 import org.apache.ignite.tcbot.engine.newtests.NewTestsStorage;
 import org.apache.ignite.tcbot.engine.tracked.IDetailedStatusForTrackedBranch;
 import org.apache.ignite.tcbot.engine.tracked.TrackedBranchChainsProcessor;
+import org.apache.ignite.tcbot.engine.trends.BuildStatisticsStorage;
 import org.apache.ignite.tcbot.engine.user.IUserStorage;
 import org.apache.ignite.tcbot.engine.user.UserAndSessionsStorage;
 
@@ -53,6 +54,7 @@ public class TcBotEngineModule extends AbstractModule {
 
         bind(MutedIssuesDao.class).in(new SingletonScope());
         bind(NewTestsStorage.class).in(new SingletonScope());
+        bind(BuildStatisticsStorage.class).in(new SingletonScope());
 
         install(new TcBotCommonModule());
     }
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +52,8 @@ import org.apache.ignite.tcbot.engine.ui.LrTestsSuiteSummaryUi;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
 import org.apache.ignite.tcignited.SyncMode;
+import org.apache.ignite.tcignited.build.LrTestsBuildStat;
+import org.apache.ignite.tcignited.build.LrTestsSuiteStat;
 import org.apache.ignite.tcignited.build.UpdateCountersStorage;
 import org.apache.ignite.tcignited.buildlog.IBuildLogProcessor;
 import org.apache.ignite.tcignited.buildlog.ILogCheckResult;
@@ -82,7 +85,7 @@ public class BuildChainProcessor {
 
     /**
      * Collects data about all long-running tests (run time more than one minute) across all suites in RunAll chain in
-     * master branch.
+     * master branch. Finished builds are taken from long running tests index, other builds are loaded.
      *
      * @param teamcityIgnited interface to TC bot database.
      * @param entryPoints
@@ -99,39 +102,65 @@ public class BuildChainProcessor {
         if (entryPoints.isEmpty())
             return res;
 
-        Map<Integer, Future<FatBuildCompacted>> builds = loadAllBuildsInChains(entryPoints, mode, teamcityIgnited);
+        Map<Integer, LrTestsBuildStat> stats = new HashMap<>();
+        Map<Integer, LrTestsSuiteStat> suites = new HashMap<>();
 
-        builds.values().stream().map(FutureUtil::getResult)
-            .filter(b -> !b.isComposite() && b.getTestsCount() > 0)
-            .forEach(b ->
-            {
-                List<LrTestUi> lrTests = new ArrayList<>();
+        Set<Integer> level = entryPoints.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+
+        // Entry points and 5 levels of dependencies, the same as for loadAllBuildsInChains().
+        for (int depth = 0; depth <= 5 && !level.isEmpty(); depth++) {
+            Map<Integer, LrTestsSuiteStat> indexed = teamcityIgnited.getLongRunningTests(level);
+
+            suites.putAll(indexed);
+
+            Map<Integer, Future<FatBuildCompacted>> notIndexed = new HashMap<>();
+
+            for (Integer id : level) {
+                LrTestsSuiteStat suite = indexed.get(id);
+
+                if (suite != null)
+                    stats.put(id, suite.build(id));
+                else
+                    notIndexed.put(id, loadBuildAsync(id, mode, teamcityIgnited));
+            }
+
+            notIndexed.forEach((id, fut) -> stats.put(id, LrTestsBuildStat.of(FutureUtil.getResult(fut), compactor)));
 
-                b.getAllTests()
-                    .filter(t -> {
-                        Integer duration = t.getDuration();
+            Set<Integer> nextLevel = new HashSet<>();
 
-                        return duration !=null && duration > 60 * 1000;
-                    })
-                    .forEach(
-                        t -> lrTests
-                            .add(new LrTestUi(t.testName(compactor), t.getDuration(), null))
-                    );
+            for (Integer id : level) {
+                for (int dep : stats.get(id).snapshotDependencies()) {
+                    if (!stats.containsKey(dep))
+                        nextLevel.add(dep);
+                }
+            }
+
+            level = nextLevel;
+        }
 
-                if (!lrTests.isEmpty()) {
-                    lrTests.sort((test0, test1) -> {
-                        long t0 = test0.time;
-                        long t1 = test1.time;
+        stats.values().stream()
+            .filter(b -> !b.isComposite() && b.testsCount() > 0 && b.longRunningTestsCount() > 0)
+            .forEach(b -> {
+                LrTestsSuiteStat suite = suites.get(b.buildId());
+                List<LrTestUi> lrTests = new ArrayList<>();
 
-                        return Long.compare(t1, t0);
+                for (int i = 0; i < b.longRunningTestsCount(); i++) {
+                    LrTestUi test = new LrTestUi(compactor.getStringFromId(b.testName(i)), b.duration(i), null);
 
-                    });
+                    if (suite != null)
+                        test.timeTrend = suite.testTimeTrend(b.buildId(), b.testName(i));
 
-                    res.add(
-                        new LrTestsSuiteSummaryUi(b.buildTypeName(compactor),
-                            b.buildDuration(compactor) / b.getTestsCount(),
-                            lrTests));
+                    lrTests.add(test);
                 }
+
+                LrTestsSuiteSummaryUi summary = new LrTestsSuiteSummaryUi(b.buildTypeName(compactor),
+                    b.testAvgTime(),
+                    lrTests);
+
+                if (suite != null)
+                    summary.testAvgTimeTrend = suite.testAvgTimeTrend(b.buildId());
+
+                res.add(summary);
             });
 
         res.sort((s0, s1) -> Long.compare(s1.testAvgTime, s0.testAvgTime));
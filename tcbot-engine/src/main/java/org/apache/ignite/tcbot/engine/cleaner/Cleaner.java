@@ -16,26 +16,38 @@
  */
 package org.apache.ignite.tcbot.engine.cleaner;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
 import java.io.File;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import org.apache.ignite.cache.affinity.Affinity;
 import org.apache.ignite.ci.teamcity.ignited.buildcondition.BuildConditionDao;
-import org.apache.ignite.lang.IgniteBiTuple;
 import org.apache.ignite.tcbot.common.conf.TcBotWorkDir;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
 import org.apache.ignite.tcbot.common.interceptor.MonitoredTask;
+import org.apache.ignite.tcbot.engine.conf.ICleanerConfig;
 import org.apache.ignite.tcbot.engine.conf.ITcBotConfig;
 import org.apache.ignite.tcbot.engine.defect.DefectsStorage;
 import org.apache.ignite.tcbot.engine.issue.IIssuesStorage;
 import org.apache.ignite.tcbot.engine.newtests.NewTestsStorage;
+import org.apache.ignite.tcbot.engine.trends.BuildStatisticsStorage;
+import org.apache.ignite.tcignited.build.BuildStartDateIndex;
+import org.apache.ignite.tcignited.build.BuildTimelineIndex;
 import org.apache.ignite.tcignited.build.FatBuildDao;
 import org.apache.ignite.tcignited.buildlog.BuildLogCheckResultDao;
 import org.apache.ignite.tcignited.buildref.BuildRefDao;
@@ -45,8 +57,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
-import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 public class Cleaner {
@@ -58,9 +68,12 @@ public class Cleaner {
     @Inject private BuildLogCheckResultDao buildLogCheckResultDao;
     @Inject private BuildRefDao buildRefDao;
     @Inject private BuildStartTimeStorage buildStartTimeStorage;
+    @Inject private BuildStartDateIndex buildStartDateIdx;
+    @Inject private BuildTimelineIndex buildTimelineIdx;
     @Inject private BuildConditionDao buildConditionDao;
     @Inject private DefectsStorage defectsStorage;
     @Inject private NewTestsStorage newTestsStorage;
+    @Inject private BuildStatisticsStorage buildStatisticsStorage;
     @Inject private ITcBotConfig cfg;
 
     /** Logger. */
@@ -70,7 +83,7 @@ public class Cleaner {
 
     @AutoProfiling
     @MonitoredTask(name = "Clean old cache data and log files")
-    public void clean() {
+    public String clean() {
         try {
             if (cfg.getCleanerConfig().enabled()) {
                 int numOfItemsToDel = cfg.getCleanerConfig().numOfItemsToDel();
@@ -87,46 +100,67 @@ public class Cleaner {
 
                 logger.info("Some log files (numOfItemsToDel=" + numOfItemsToDel + ") older than " + thresholdDateForLogs + " will be removed.");
 
-                removeCacheEntries(thresholdDateForCaches, numOfItemsToDel);
+                int buildsRemoved = removeCacheEntries(thresholdDateForCaches, numOfItemsToDel);
 
-                removeLogFiles(thresholdDateForLogs, numOfItemsToDel);
+                int filesRemoved = removeLogFiles(thresholdDateForLogs, numOfItemsToDel);
+
+                return "Builds removed: " + buildsRemoved + ", log files removed: " + filesRemoved;
             }
-            else
+            else {
                 logger.info("Periodic cache clean disabled.");
+
+                return "Disabled";
+            }
         }
         catch (Throwable e) {
             logger.error("Periodic cache and log clean failed: " + e.getMessage(), e);
 
             e.printStackTrace();
+
+            return "Failed: " + e.getMessage();
         }
     }
 
-    private int removeCacheEntries(ZonedDateTime thresholdDate, int numOfItemsToDel) {
+    private int removeCacheEntries(ZonedDateTime thresholdDate, int numOfItemsToDel) throws Exception {
         long thresholdEpochMilli = thresholdDate.toInstant().toEpochMilli();
 
-        Set<Long> oldBuildsKeys = fatBuildDao.getOldBuilds(thresholdEpochMilli, numOfItemsToDel);
+        Map<Long, int[]> oldBuildsByDay = buildStartDateIdx.oldBuilds(thresholdEpochMilli, numOfItemsToDel);
 
-        Map<Integer, List<Integer>> oldBuildsTeamCityAndBuildIds = oldBuildsKeys.stream()
-            .map(FatBuildDao::cacheKeyToSrvIdAndBuildId)
-            .collect(groupingBy(IgniteBiTuple::get1, mapping(IgniteBiTuple::get2, toList())));
+        Map<Integer, List<Integer>> oldBuildsTeamCityAndBuildIds = new HashMap<>();
+
+        oldBuildsByDay.forEach((bucketKey, ids) -> {
+            List<Integer> srvBuildIds = oldBuildsTeamCityAndBuildIds.computeIfAbsent(
+                BuildStartDateIndex.bucketKeyToSrvId(bucketKey), k -> new ArrayList<>());
+
+            for (int id : ids)
+                srvBuildIds.add(id);
+        });
 
         defectsStorage.checkIfPossibleToRemove(oldBuildsTeamCityAndBuildIds);
 
-        oldBuildsKeys = oldBuildsTeamCityAndBuildIds.entrySet().stream()
+        Set<Long> oldBuildsKeys = oldBuildsTeamCityAndBuildIds.entrySet().stream()
             .flatMap(entry -> entry.getValue().stream()
                 .map(buildId -> FatBuildDao.buildIdToCacheKey(entry.getKey(), buildId)))
             .collect(toSet());
 
         logger.info("Builds will be removed (" + oldBuildsKeys.size() + ")");
 
-        suiteInvocationHistoryDao.removeAll(oldBuildsKeys);
-        buildLogCheckResultDao.removeAll(oldBuildsKeys);
-        buildRefDao.removeAll(oldBuildsKeys);
-        buildStartTimeStorage.removeAll(oldBuildsKeys);
-        buildConditionDao.removeAll(oldBuildsKeys);
+        removeBuilds(oldBuildsKeys);
+
         defectsStorage.removeOldDefects(oldBuildsTeamCityAndBuildIds);
         issuesStorage.removeOldIssues(oldBuildsTeamCityAndBuildIds);
-        fatBuildDao.removeAll(oldBuildsKeys);
+
+        Map<Long, int[]> removedFromIdx = new HashMap<>();
+
+        oldBuildsByDay.forEach((bucketKey, ids) -> {
+            int srvId = BuildStartDateIndex.bucketKeyToSrvId(bucketKey);
+
+            removedFromIdx.put(bucketKey, Arrays.stream(ids)
+                .filter(id -> oldBuildsKeys.contains(FatBuildDao.buildIdToCacheKey(srvId, id)))
+                .toArray());
+        });
+
+        buildStartDateIdx.removeAll(removedFromIdx);
 
         //Need to eventually delete data with broken consistency
         defectsStorage.removeOldDefects(thresholdDate.minusDays(60).toInstant().toEpochMilli(), numOfItemsToDel);
@@ -137,23 +171,92 @@ public class Cleaner {
         return oldBuildsKeys.size();
     }
 
-    private void removeLogFiles(ZonedDateTime thresholdDate, int numOfItemsToDel) {
+    /**
+     * Removes builds and build related data. Keys are grouped by fat builds cache partition and partitions are cleaned
+     * in parallel, each removal request touches only one partition.
+     *
+     * @param keys Fat build cache keys.
+     */
+    private void removeBuilds(Set<Long> keys) throws Exception {
+        if (keys.isEmpty())
+            return;
+
+        ICleanerConfig cleanerCfg = cfg.getCleanerConfig();
+        int rate = cleanerCfg.deleteRatePerSec();
+        RateLimiter rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+
+        Affinity<Long> affinity = fatBuildDao.affinity();
+
+        Map<Integer, List<Long>> keysByPartition = keys.stream().collect(groupingBy(affinity::partition));
+
+        int threads = Math.min(Math.max(1, cleanerCfg.parallelism()), keysByPartition.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+
+            keysByPartition.forEach((part, partKeys) -> futures.add(executor.submit(
+                () -> cleanPartition(part, partKeys, rateLimiter))));
+
+            for (Future<String> fut : futures)
+                logger.info(fut.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param part Partition.
+     * @param keys Fat build cache keys of the partition.
+     * @param rateLimiter Builds removal rate limiter.
+     * @return Result for monitoring.
+     */
+    @MonitoredTask(name = "Clean old builds (partition)", nameExtArgsIndexes = {0})
+    public String cleanPartition(int part, List<Long> keys, @Nullable RateLimiter rateLimiter) {
+        int batchSize = Math.max(1, cfg.getCleanerConfig().batchSize());
+
+        for (List<Long> batch : Lists.partition(keys, batchSize)) {
+            if (rateLimiter != null)
+                rateLimiter.acquire(batch.size());
+
+            Set<Long> batchKeys = new TreeSet<>(batch);
+
+            suiteInvocationHistoryDao.removeAll(batchKeys);
+            buildLogCheckResultDao.removeAll(batchKeys);
+            buildTimelineIdx.removeAll(buildRefDao.buildRefsCache().getAll(batchKeys));
+            buildRefDao.removeAll(batchKeys);
+            buildStartTimeStorage.removeAll(batchKeys);
+            buildConditionDao.removeAll(batchKeys);
+            buildStatisticsStorage.removeAll(batchKeys);
+            fatBuildDao.removeAll(batchKeys);
+        }
+
+        return "Partition " + part + ": builds removed " + keys.size();
+    }
+
+    private int removeLogFiles(ZonedDateTime thresholdDate, int numOfItemsToDel) {
         long thresholdEpochMilli = thresholdDate.toInstant().toEpochMilli();
 
         final File workDir = TcBotWorkDir.resolveWorkDir();
 
+        int removed = 0;
+
         for (String srvId : cfg.getServerIds()) {
             File srvIdLogDir = new File(workDir, cfg.getTeamcityConfig(srvId).logsDirectory());
 
-            removeFiles(srvIdLogDir, thresholdEpochMilli, numOfItemsToDel);
+            removed += removeFiles(srvIdLogDir, thresholdEpochMilli, numOfItemsToDel);
         }
 
         File tcBotLogDir = new File(workDir, "tcbot_logs");
 
-        removeFiles(tcBotLogDir, thresholdEpochMilli, numOfItemsToDel);
+        removed += removeFiles(tcBotLogDir, thresholdEpochMilli, numOfItemsToDel);
+
+        return removed;
     }
 
-    private void removeFiles(File dir, long thresholdDate, int numOfItemsToDel) {
+    private int removeFiles(File dir, long thresholdDate, int numOfItemsToDel) {
         File[] logFiles = dir.listFiles();
 
         List<File> filesToRmv = new ArrayList<>(numOfItemsToDel);
@@ -169,6 +272,7 @@ public class Cleaner {
             file.delete();
         }
 
+        return filesToRmv.size();
     }
 
     public void startBackgroundClean() {
@@ -27,6 +27,15 @@ public class CleanerConfig implements ICleanerConfig{
     /** */
     public static final int DEFAULT_PERIOD_MINUTES = 60 * 24;
 
+    /** */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /** */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** */
+    public static final int DEFAULT_DELETE_RATE_PER_SEC = 2_000;
+
     /** */
     private Integer safeDaysForCaches;
 
@@ -42,6 +51,15 @@ public class CleanerConfig implements ICleanerConfig{
     /** */
     private Boolean enabled;
 
+    /** */
+    private Integer parallelism;
+
+    /** */
+    private Integer batchSize;
+
+    /** */
+    private Integer deleteRatePerSec;
+
     /** */
     public static CleanerConfig getDefaultCleanerConfig() {
         CleanerConfig cfg = new CleanerConfig();
@@ -50,6 +68,9 @@ public class CleanerConfig implements ICleanerConfig{
         cfg.numOfItemsToDel = DEFAULT_NUMBER_OF_ITEMS_TO_DELETE;
         cfg.enabled = true;
         cfg.period = DEFAULT_PERIOD_MINUTES;
+        cfg.parallelism = DEFAULT_PARALLELISM;
+        cfg.batchSize = DEFAULT_BATCH_SIZE;
+        cfg.deleteRatePerSec = DEFAULT_DELETE_RATE_PER_SEC;
         return cfg;
     }
 
@@ -77,4 +98,19 @@ public class CleanerConfig implements ICleanerConfig{
     public boolean enabled() {
         return enabled == null ? true : enabled;
     }
+
+    /** */
+    public int parallelism() {
+        return parallelism == null || parallelism <= 0 ? DEFAULT_PARALLELISM : parallelism;
+    }
+
+    /** */
+    public int batchSize() {
+        return batchSize == null || batchSize <= 0 ? DEFAULT_BATCH_SIZE : batchSize;
+    }
+
+    /** */
+    public int deleteRatePerSec() {
+        return deleteRatePerSec == null || deleteRatePerSec < 0 ? DEFAULT_DELETE_RATE_PER_SEC : deleteRatePerSec;
+    }
 }
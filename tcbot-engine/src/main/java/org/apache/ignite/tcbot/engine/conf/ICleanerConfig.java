@@ -32,4 +32,13 @@ public interface ICleanerConfig {
 
     /** */
     boolean enabled();
+
+    /** Number of partitions cleaned in parallel. */
+    int parallelism();
+
+    /** Number of builds removed from each cache by one request. */
+    int batchSize();
+
+    /** Maximum number of builds removed per second, 0 means unlimited. */
+    int deleteRatePerSec();
 }
@@ -39,6 +39,12 @@ public interface IIssuesStorage {
 
     public Stream<Issue> allIssues();
 
+    /**
+     * @param ts Timestamp.
+     * @return Issues detected at or after timestamp, read using index of issues by detected time.
+     */
+    public Stream<Issue> issuesDetectedSince(long ts);
+
     /**
      * Checks and saves address was notified (NotThreadSafe)
      * @param key issue key.
@@ -17,19 +17,30 @@
 
 package org.apache.ignite.tcbot.engine.issue;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
 import javax.cache.Cache;
+import javax.cache.processor.MutableEntry;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.ScanQuery;
 import org.apache.ignite.ci.issue.Issue;
 import org.apache.ignite.ci.issue.IssueKey;
@@ -41,6 +52,12 @@ import org.apache.ignite.tcbot.persistence.CacheConfigs;
 public class IssuesStorage implements IIssuesStorage {
     public static final String BOT_DETECTED_ISSUES = "botDetectedIssues";
 
+    /** Index of issues by hour detected: key is {@link #hourBucket(long)}, value is set of issue keys. */
+    public static final String BOT_DETECTED_ISSUES_BY_HOUR = "botDetectedIssuesByHour";
+
+    /** Millis in hour. */
+    private static final long MILLIS_IN_HOUR = TimeUnit.HOURS.toMillis(1);
+
     @Inject
     private Provider<Ignite> igniteProvider;
 
@@ -59,6 +76,22 @@ public class IssuesStorage implements IIssuesStorage {
         return ignite.getOrCreateCache(CacheConfigs.getCacheV2TxConfig(BOT_DETECTED_ISSUES));
     }
 
+    private IgniteCache<Long, Set<IssueKey>> detectedIdx() {
+        return botDetectedIssuesIdxCache(getIgnite());
+    }
+
+    public static IgniteCache<Long, Set<IssueKey>> botDetectedIssuesIdxCache(Ignite ignite) {
+        return ignite.getOrCreateCache(CacheConfigs.getCache8PartsConfig(BOT_DETECTED_ISSUES_BY_HOUR));
+    }
+
+    /**
+     * @param ts Timestamp.
+     * @return Number of hour since epoch.
+     */
+    public static long hourBucket(long ts) {
+        return ts / MILLIS_IN_HOUR;
+    }
+
     /** {@inheritDoc} */
     @Override public boolean getIsNewAndSetNotified(IssueKey issueKey, String to,
         @Nullable Exception e) {
@@ -124,6 +157,9 @@ public class IssuesStorage implements IIssuesStorage {
     /** {@inheritDoc} */
     @Override public void saveIssue(Issue issue) {
         cache().put(issue.issueKey(), issue);
+
+        if (issue.detectedTs != null && issue.detectedTs > 0)
+            detectedIdx().invoke(hourBucket(issue.detectedTs), new AddIssueKeysProcessor(issue.issueKey()));
     }
 
     /** {@inheritDoc} */
@@ -136,6 +172,87 @@ public class IssuesStorage implements IIssuesStorage {
         return StreamSupport.stream(cache().spliterator(), false).map(Cache.Entry::getValue);
     }
 
+    /** {@inheritDoc} */
+    @Override public Stream<Issue> issuesDetectedSince(long ts) {
+        long now = System.currentTimeMillis();
+
+        Set<Long> buckets = LongStream.rangeClosed(hourBucket(ts), hourBucket(Math.max(ts, now)))
+            .boxed()
+            .collect(Collectors.toSet());
+
+        Set<IssueKey> keys = new HashSet<>();
+
+        detectedIdx().getAll(buckets).values().forEach(keys::addAll);
+
+        if (keys.isEmpty())
+            return Stream.empty();
+
+        return cache().getAll(keys).values().stream()
+            .filter(issue -> issue.detectedTs != null && issue.detectedTs >= ts);
+    }
+
+    /**
+     * Fills index of issues by detected time for issues already saved.
+     *
+     * @param ignite Ignite.
+     * @return Number of issues indexed.
+     */
+    public static long fillDetectedIndex(Ignite ignite) {
+        int parts = ignite.affinity(botDetectedIssuesCache(ignite).getName()).partitions();
+        long cnt = 0;
+
+        for (int p = 0; p < parts; p++)
+            cnt += fillDetectedIndexPartition(ignite, p);
+
+        return cnt;
+    }
+
+    /**
+     * Fills index of issues by detected time for issues of one partition of issues cache. Partitions may be filled
+     * concurrently and repeatedly.
+     *
+     * @param ignite Ignite.
+     * @param part Partition of issues cache.
+     * @return Number of issues indexed.
+     */
+    public static long fillDetectedIndexPartition(Ignite ignite, int part) {
+        IgniteCache<BinaryObject, BinaryObject> issues = botDetectedIssuesCache(ignite).withKeepBinary();
+        IgniteCache<Long, Set<IssueKey>> idx = botDetectedIssuesIdxCache(ignite);
+
+        Map<Long, Set<IssueKey>> buckets = new HashMap<>();
+
+        ScanQuery<BinaryObject, BinaryObject> scan = new ScanQuery<>((key, issue) -> {
+            Long detectedTs = issue.hasField("detectedTs") ? issue.<Long>field("detectedTs") : null;
+
+            return detectedTs != null && detectedTs > 0;
+        });
+
+        scan.setPartition(part);
+
+        long cnt = 0;
+
+        try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cursor = issues.query(scan)) {
+            for (Cache.Entry<BinaryObject, BinaryObject> entry : cursor) {
+                long detectedTs = entry.getValue().<Long>field("detectedTs");
+
+                buckets.computeIfAbsent(hourBucket(detectedTs), k -> new HashSet<>())
+                    .add(entry.getKey().deserialize());
+
+                cnt++;
+            }
+        }
+
+        // Sorted keys: concurrent fills of partitions lock buckets in the same order.
+        Map<Long, AddIssueKeysProcessor> processors = new TreeMap<>();
+
+        buckets.forEach((bucket, keys) -> processors.put(bucket, new AddIssueKeysProcessor(keys)));
+
+        if (!processors.isEmpty())
+            idx.invokeAll(processors);
+
+        return cnt;
+    }
+
     public void removeOldIssues(Map<Integer, List<Integer>> oldBuildsTeamCityAndBuildIds) {
         cache().forEach(entry -> {
             IssueKey issueKey = entry.getKey();
@@ -171,5 +288,55 @@ public class IssuesStorage implements IIssuesStorage {
             else
                 break;
         }
+
+        long thresholdBucket = hourBucket(thresholdDate);
+
+        ScanQuery<Long, Set<IssueKey>> idxScan = new ScanQuery<>((bucket, keys) -> bucket < thresholdBucket);
+
+        try (QueryCursor<Long> cursor = detectedIdx().query(idxScan, Cache.Entry::getKey)) {
+            Set<Long> oldBuckets = new TreeSet<>();
+
+            cursor.forEach(oldBuckets::add);
+
+            detectedIdx().removeAll(oldBuckets);
+        }
+    }
+
+    /**
+     * Adds issue keys to index bucket.
+     */
+    private static class AddIssueKeysProcessor implements CacheEntryProcessor<Long, Set<IssueKey>, Void> {
+        /** Keys. */
+        private final Set<IssueKey> keys;
+
+        /**
+         * @param key Key.
+         */
+        AddIssueKeysProcessor(IssueKey key) {
+            this(Collections.singleton(key));
+        }
+
+        /**
+         * @param keys Keys.
+         */
+        AddIssueKeysProcessor(Set<IssueKey> keys) {
+            this.keys = keys;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<Long, Set<IssueKey>> entry, Object... arguments) {
+            Set<IssueKey> cur = entry.getValue();
+
+            if (cur != null && cur.containsAll(keys))
+                return null;
+
+            Set<IssueKey> res = cur == null ? new HashSet<>() : new HashSet<>(cur);
+
+            res.addAll(keys);
+
+            entry.setValue(res);
+
+            return null;
+        }
     }
 }
@@ -17,14 +17,31 @@
 
 package org.apache.ignite.tcbot.engine.newtests;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.cache.Cache;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheEntryProcessor;
 import org.apache.ignite.cache.query.ScanQuery;
 import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.tcbot.engine.chain.FullChainRunCtx;
+import org.apache.ignite.tcbot.engine.chain.MultBuildRunCtx;
+import org.apache.ignite.tcbot.engine.chain.TestCompactedMult;
 import org.apache.ignite.tcbot.persistence.CacheConfigs;
+import org.apache.ignite.tcignited.ITeamcityIgnited;
 
 /**
  * The storage contains tests which were identified as new tests in the tcbot visa
@@ -65,14 +82,136 @@ public class NewTestsStorage {
     public boolean isNewTestAndPut(String srvId, Long testId, String baseBranch, String branch) {
         NewTestKey testKey = new NewTestKey(srvId, testId, baseBranch);
 
-        NewTestInfo savedTest = cache().get(testKey);
+        return cache().invoke(testKey, new NewTestRegistrar(), branch, System.currentTimeMillis());
+    }
 
-        if (savedTest == null) {
-            cache().put(testKey, new NewTestInfo(branch, System.currentTimeMillis()));
-            return true;
-        }
-        else
-            return savedTest.branch().startsWith(branch);
+    /**
+     * Bulk version of {@link #isNewTest(String, Long, String, String)}, all tests are read in one cache request.
+     *
+     * @param srvId Server id.
+     * @param testIds Test ids.
+     * @param baseBranch Base branch.
+     * @param branch Branch.
+     * @return Ids of tests which are new.
+     */
+    public Set<Long> newTests(String srvId, Collection<Long> testIds, String baseBranch, String branch) {
+        Map<Long, NewTestKey> keys = keys(srvId, testIds, baseBranch);
+
+        if (keys.isEmpty())
+            return Collections.emptySet();
+
+        Map<NewTestKey, NewTestInfo> saved = cache().getAll(new HashSet<>(keys.values()));
+
+        Set<Long> res = new HashSet<>(keys.keySet());
+
+        saved.forEach((key, info) -> {
+            if (!info.branch().startsWith(branch))
+                res.remove(key.testId);
+        });
+
+        return res;
+    }
+
+    /**
+     * Bulk version of {@link #isNewTestAndPut(String, Long, String, String)}. Tests are checked and registered as first
+     * seen in the branch atomically per test, all tests are processed in one cache request.
+     *
+     * @param srvId Server id.
+     * @param testIds Test ids.
+     * @param baseBranch Base branch.
+     * @param branch Branch.
+     * @return Ids of tests which are new.
+     */
+    public Set<Long> isNewTestsAndPut(String srvId, Collection<Long> testIds, String baseBranch, String branch) {
+        Map<Long, NewTestKey> keys = keys(srvId, testIds, baseBranch);
+
+        if (keys.isEmpty())
+            return Collections.emptySet();
+
+        Map<NewTestKey, EntryProcessorResult<Boolean>> res = cache().invokeAll(new HashSet<>(keys.values()),
+            new NewTestRegistrar(), branch, System.currentTimeMillis());
+
+        Set<Long> newTests = new HashSet<>();
+
+        res.forEach((key, r) -> {
+            if (Boolean.TRUE.equals(r.get()))
+                newTests.add(key.testId);
+        });
+
+        return newTests;
+    }
+
+    /**
+     * Finds new tests in the chain: tests without history in base branch, which were not seen as new in another
+     * branch. Candidates of all suites are checked in one cache request per suites branch.
+     *
+     * @param ctx Chain context.
+     * @param tcIgnited Server.
+     * @param baseBranch Normalized base branch.
+     * @param baseBranchId Normalized base branch id.
+     * @param branch Branch tests are checked for, if null branch of each suite is used.
+     * @param register Register tests found as first seen in the branch.
+     * @return Suite to new tests found, only suites having new tests are included.
+     */
+    public Map<MultBuildRunCtx, List<TestCompactedMult>> findNewTests(FullChainRunCtx ctx,
+        ITeamcityIgnited tcIgnited,
+        String baseBranch,
+        @Nullable Integer baseBranchId,
+        @Nullable String branch,
+        boolean register) {
+        Map<MultBuildRunCtx, List<TestCompactedMult>> candidates = new LinkedHashMap<>();
+        Map<String, Set<Long>> candidateIdsByBranch = new HashMap<>();
+
+        ctx.suites().forEach(suite -> {
+            List<TestCompactedMult> tests = suite.getFilteredTests(test -> test.getId() != null
+                && !test.isMutedOrIgored()
+                && test.history(tcIgnited, baseBranchId, null) == null);
+
+            if (tests.isEmpty())
+                return;
+
+            candidates.put(suite, tests);
+
+            Set<Long> ids = candidateIdsByBranch.computeIfAbsent(branch != null ? branch : suite.branchName(),
+                k -> new HashSet<>());
+
+            tests.forEach(test -> ids.add(test.getId()));
+        });
+
+        Map<String, Set<Long>> newIdsByBranch = new HashMap<>();
+
+        candidateIdsByBranch.forEach((br, ids) -> newIdsByBranch.put(br, register
+            ? isNewTestsAndPut(tcIgnited.serverCode(), ids, baseBranch, br)
+            : newTests(tcIgnited.serverCode(), ids, baseBranch, br)));
+
+        Map<MultBuildRunCtx, List<TestCompactedMult>> res = new LinkedHashMap<>();
+
+        candidates.forEach((suite, tests) -> {
+            Set<Long> newIds = newIdsByBranch.get(branch != null ? branch : suite.branchName());
+
+            List<TestCompactedMult> newTests = tests.stream()
+                .filter(test -> newIds.contains(test.getId()))
+                .collect(Collectors.toList());
+
+            if (!newTests.isEmpty())
+                res.put(suite, newTests);
+        });
+
+        return res;
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param testIds Test ids.
+     * @param baseBranch Base branch.
+     */
+    private static Map<Long, NewTestKey> keys(String srvId, Collection<Long> testIds, String baseBranch) {
+        Map<Long, NewTestKey> keys = new LinkedHashMap<>();
+
+        for (Long testId : testIds)
+            keys.computeIfAbsent(testId, id -> new NewTestKey(srvId, id, baseBranch));
+
+        return keys;
     }
 
     /** */
@@ -83,4 +222,26 @@ public class NewTestsStorage {
         for (Cache.Entry<NewTestKey, NewTestInfo> entry : cache().query(scan))
             cache().remove(entry.getKey());
     }
+
+    /**
+     * Registers test as first seen in the branch (first argument) with timestamp (second argument) if the test is not
+     * yet saved. Returns if test is new for the branch.
+     */
+    private static class NewTestRegistrar implements CacheEntryProcessor<NewTestKey, NewTestInfo, Boolean> {
+        /** {@inheritDoc} */
+        @Override public Boolean process(MutableEntry<NewTestKey, NewTestInfo> entry, Object... args) {
+            String branch = (String)args[0];
+            long ts = (Long)args[1];
+
+            NewTestInfo savedTest = entry.getValue();
+
+            if (savedTest == null) {
+                entry.setValue(new NewTestInfo(branch, ts));
+
+                return true;
+            }
+
+            return savedTest.branch().startsWith(branch);
+        }
+    }
 }
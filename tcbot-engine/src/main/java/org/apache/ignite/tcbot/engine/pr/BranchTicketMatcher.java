@@ -113,6 +113,37 @@ public class BranchTicketMatcher {
         return findTicketMentions(tickets, branchNum);
     }
 
+    /**
+     * @param tickets Tickets.
+     * @param jiraCfg Jira config.
+     * @return Index for matching of a number of PRs with the same tickets snapshot.
+     */
+    public TicketIndex indexTickets(Collection<Ticket> tickets, IJiraServerConfig jiraCfg) {
+        return new TicketIndex(tickets, jiraCfg.branchNumPrefix());
+    }
+
+    /**
+     * Same as {@link #resolveTicketIdForPrBasedContrib(Collection, IJiraServerConfig, String)}, but uses hash lookups.
+     *
+     * @param ticketIdx Tickets index, see {@link #indexTickets(Collection, IJiraServerConfig)}.
+     * @param jiraCfg Jira config.
+     * @param prTitle PR title or other text to find ticket or branch mention.
+     */
+    @Nullable public Ticket resolveTicketIdForPrBasedContrib(TicketIndex ticketIdx,
+        IJiraServerConfig jiraCfg, String prTitle) {
+        String branchNumPrefix = jiraCfg.branchNumPrefix();
+
+        if (Strings.isNullOrEmpty(branchNumPrefix)) {
+            String ticketKey = findFixPrefixedNumber(prTitle, jiraCfg.projectCodeForVisa() + Ticket.PROJECT_DELIM);
+
+            Ticket ticket = ticketIdx.byKey(ticketKey);
+
+            return ticket != null ? ticket : new Ticket(ticketKey);
+        }
+
+        return ticketIdx.findMentions(findFixPrefixedNumber(prTitle, branchNumPrefix));
+    }
+
     /**
      * @param srvCode Server code.
      * @param branchNum Branch number to be checked.
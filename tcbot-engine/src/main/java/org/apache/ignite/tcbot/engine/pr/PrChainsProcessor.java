@@ -389,23 +389,12 @@ public class PrChainsProcessor {
         String normalizedBaseBranch = BranchEquivalence.normalizeBranch(baseBranch);
         Integer baseBranchId = compactor.getStringIdIfPresent(normalizedBaseBranch);
 
-        return fullChainRunCtx
-            .suites()
-            .map((ctx) -> {
-                List<ShortTestUi> missingTests = ctx.getFilteredTests(test -> {
-                    IRunHistory history = test.history(tcIgnited, baseBranchId, null);
-                    if (history == null && !test.isMutedOrIgored()) {
-
-                        if (test.getId() != null &&
-                            newTestsStorage.isNewTestAndPut(tcIgnited.serverCode(),
-                                test.getId(), normalizedBaseBranch, ctx.branchName()))
-                            return true;
-                        else
-                            return false;
-                    }
-                    else
-                        return false;
-                })
+        return newTestsStorage.findNewTests(fullChainRunCtx, tcIgnited, normalizedBaseBranch, baseBranchId, null,
+            true)
+            .entrySet()
+            .stream()
+            .map(e -> {
+                List<ShortTestUi> missingTests = e.getValue()
                     .stream()
                     .map(occurrence -> new ShortTestUi().initFrom(occurrence, occurrence.isPassed()))
                     .filter(Objects::nonNull)
@@ -414,7 +403,7 @@ public class PrChainsProcessor {
                 if (!missingTests.isEmpty()) {
                     return new ShortSuiteNewTestsUi()
                         .tests(missingTests)
-                        .initFrom(ctx, tcIgnited);
+                        .initFrom(e.getKey(), tcIgnited);
                 }
                 return null;
             })
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.pr;
+
+import com.google.common.base.Strings;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.ignite.jiraservice.Ticket;
+
+/**
+ * Hash index over tickets snapshot, replaces linear scans of tickets collection when many PRs are matched to tickets.
+ * Lookups return the same ticket as a scan in iteration order of the indexed collection.
+ */
+public class TicketIndex {
+    /** Tickets by key, first ticket wins. */
+    private final Map<String, Ticket> byKey = new HashMap<>();
+
+    /**
+     * Tickets by branch mention in supplementary fields: every prefixed number (with at least 2 digits) contained in
+     * summary or link, first ticket wins.
+     */
+    private final Map<String, Ticket> byMention = new HashMap<>();
+
+    /**
+     * @param tickets Tickets.
+     * @param branchNumPrefix Branch number prefix, if empty mentions are not indexed.
+     */
+    public TicketIndex(Collection<Ticket> tickets, @Nullable String branchNumPrefix) {
+        for (Ticket ticket : tickets) {
+            byKey.putIfAbsent(ticket.key, ticket);
+
+            if (Strings.isNullOrEmpty(branchNumPrefix) || ticket.fields == null)
+                continue;
+
+            indexMentions(ticket, ticket.fields.summary(), branchNumPrefix);
+            indexMentions(ticket, ticket.fields.igniteLink(), branchNumPrefix);
+        }
+    }
+
+    /**
+     * Registers all prefixed numbers which are contained in the value, e.g. for 'IGNITE-1234' it is 'IGNITE-12',
+     * 'IGNITE-123' and 'IGNITE-1234'.
+     *
+     * @param ticket Ticket.
+     * @param val Field value.
+     * @param prefix Branch number prefix.
+     */
+    private void indexMentions(Ticket ticket, @Nullable String val, String prefix) {
+        if (Strings.isNullOrEmpty(val))
+            return;
+
+        for (int idx = val.indexOf(prefix); idx >= 0; idx = val.indexOf(prefix, idx + 1)) {
+            int beginIdx = idx + prefix.length();
+
+            for (int endIdx = beginIdx; endIdx < val.length() && Character.isDigit(val.charAt(endIdx)); endIdx++) {
+                if (endIdx - beginIdx >= 1)
+                    byMention.putIfAbsent(val.substring(idx, endIdx + 1), ticket);
+            }
+        }
+    }
+
+    /**
+     * @param key Ticket key.
+     * @return First ticket with such key or null.
+     */
+    @Nullable public Ticket byKey(@Nullable String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * @param branchNum Branch number with prefix.
+     * @return Ticket with such key, or the first ticket mentioning the branch in supplementary fields.
+     */
+    @Nullable public Ticket findMentions(@Nullable String branchNum) {
+        if (Strings.isNullOrEmpty(branchNum))
+            return null;
+
+        Ticket ticket = byKey.get(branchNum);
+
+        return ticket != null ? ticket : byMention.get(branchNum);
+    }
+}
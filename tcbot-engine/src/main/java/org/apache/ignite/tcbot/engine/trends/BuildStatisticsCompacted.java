@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import org.apache.ignite.tcbot.persistence.IVersionedEntity;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Statistics of a finished chain for build trends: tests and problems counts, duration and failed tests of all
+ * builds in the chain. Entry is immutable, it is saved once when all builds of the chain are finished.
+ */
+@Persisted
+public class BuildStatisticsCompacted implements IVersionedEntity {
+    /** Latest version. */
+    public static final int LATEST_VERSION = 2;
+
+    /** Entity fields version. */
+    private int _ver = LATEST_VERSION;
+
+    /** Build ID. */
+    public int buildId;
+
+    /** Build start timestamp, 0 if unknown. */
+    public long startTs;
+
+    /** Count of test occurrences. */
+    public int testsCnt;
+
+    /** Ignored tests. */
+    public int ignoredCnt;
+
+    /** Muted tests. */
+    public int mutedCnt;
+
+    /** Failed tests, includes unsuccessful tests with any status. */
+    public int failedCnt;
+
+    /** Duration (seconds). */
+    public long duration;
+
+    /** Execution timeout problems. */
+    public long executionTimeouts;
+
+    /** JVM crash problems. */
+    public long jvmCrashes;
+
+    /** Out of memory problems. */
+    public long oomes;
+
+    /** Exit code problems. */
+    public long exitCodes;
+
+    /** Failed tests of all builds in the chain, {@code null} if tests were not collected. */
+    public FailedTestsCompacted failedTests;
+
+    /** {@inheritDoc} */
+    @Override public int version() {
+        return _ver;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int latestVersion() {
+        return LATEST_VERSION;
+    }
+}
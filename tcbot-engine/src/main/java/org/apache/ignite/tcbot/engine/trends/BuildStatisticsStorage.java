@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheEntryProcessor;
+import org.apache.ignite.internal.util.typedef.F;
+import org.apache.ignite.internal.util.typedef.internal.U;
+import org.apache.ignite.tcbot.persistence.CacheConfigs;
+import org.apache.ignite.tcbot.persistence.ServerScopedCache;
+
+/**
+ * Statistics of finished chains for build trends. Key is server ID and chain build ID combined the same way as for fat
+ * builds, so entries are removed with old builds. Failed tests are saved as bitmaps over {@link ChainTestsIndex} of
+ * the chain build type, the index is kept per server and chain build type.
+ */
+public class BuildStatisticsStorage {
+    /** Cache name. */
+    public static final String BUILD_STATISTICS_CACHE_NAME = "buildStatisticsSummary";
+
+    /** Tests index cache name. */
+    public static final String TESTS_INDEX_CACHE_NAME = "buildStatisticsTestsIdx";
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Local copies of tests indexes: server id and chain build type string ID combined -> index. */
+    private final ConcurrentMap<Long, ChainTestsIndex> testsIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * @param ignite Ignite.
+     * @return Statistics cache.
+     */
+    public static IgniteCache<Long, BuildStatisticsCompacted> statisticsCache(Ignite ignite) {
+        return ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(BUILD_STATISTICS_CACHE_NAME));
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @return Tests index cache.
+     */
+    public static IgniteCache<Long, ChainTestsIndex> testsIndexCache(Ignite ignite) {
+        return ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(TESTS_INDEX_CACHE_NAME));
+    }
+
+    /** */
+    private IgniteCache<Long, BuildStatisticsCompacted> cache() {
+        return statisticsCache(igniteProvider.get());
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param chainBuildTypeId Chain build type string ID.
+     * @param minSize Minimal size of index expected, index is reloaded if local copy is smaller.
+     * @return Tests index of chain build type.
+     */
+    public ChainTestsIndex testsIndex(int srvId, int chainBuildTypeId, int minSize) {
+        long key = ServerScopedCache.key(srvId, chainBuildTypeId);
+        ChainTestsIndex idx = testsIndexes.get(key);
+
+        if (idx != null && idx.size() >= minSize)
+            return idx;
+
+        ChainTestsIndex saved = testsIndexCache(igniteProvider.get()).get(key);
+
+        return mergeLocal(key, saved == null ? ChainTestsIndex.empty() : saved);
+    }
+
+    /**
+     * Finds index of each test, tests not indexed yet are appended to index of chain build type.
+     *
+     * @param srvId Server id mask high.
+     * @param chainBuildTypeId Chain build type string ID.
+     * @param suites Suite build type string ID for each test.
+     * @param names Test name string ID for each test.
+     * @param testIds Test ID for each test.
+     * @return Index for each test.
+     */
+    public int[] indexTests(int srvId, int chainBuildTypeId, int[] suites, int[] names, long[] testIds) {
+        int[] res = new int[names.length];
+        ChainTestsIndex idx = testsIndex(srvId, chainBuildTypeId, 0);
+
+        if (!fillIndexes(idx, suites, names, res)) {
+            long key = ServerScopedCache.key(srvId, chainBuildTypeId);
+
+            ChainTestsIndex updated = testsIndexCache(igniteProvider.get())
+                .invoke(key, new AddTestsProcessor(suites, names, testIds));
+
+            idx = mergeLocal(key, updated);
+
+            if (!fillIndexes(idx, suites, names, res))
+                throw new IllegalStateException("Tests are not indexed for chain build type " + chainBuildTypeId);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param idx Index.
+     * @param suites Suites.
+     * @param names Names.
+     * @param res Result: index for each test.
+     * @return {@code true} if all tests were found in index.
+     */
+    private static boolean fillIndexes(ChainTestsIndex idx, int[] suites, int[] names, int[] res) {
+        for (int i = 0; i < names.length; i++) {
+            res[i] = idx.indexOf(suites[i], names[i]);
+
+            if (res[i] < 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param key Key.
+     * @param idx Index loaded or updated in cache.
+     * @return Largest of local and provided index, indexes are only appended so the largest one is the latest.
+     */
+    private ChainTestsIndex mergeLocal(long key, ChainTestsIndex idx) {
+        return testsIndexes.merge(key, idx, (cur, upd) -> upd.size() > cur.size() ? upd : cur);
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param buildIds Chain build IDs.
+     * @return Build ID -> statistics. Builds without statistics or with statistics of outdated version are skipped.
+     */
+    public Map<Integer, BuildStatisticsCompacted> getAll(int srvId, Collection<Integer> buildIds) {
+        if (F.isEmpty(buildIds))
+            return new HashMap<>();
+
+        Set<Long> keys = new HashSet<>(U.capacity(buildIds.size()));
+
+        for (Integer buildId : buildIds)
+            keys.add(ServerScopedCache.key(srvId, buildId));
+
+        Map<Integer, BuildStatisticsCompacted> res = new HashMap<>(U.capacity(buildIds.size()));
+
+        cache().getAll(keys).forEach((key, stat) -> {
+            if (!stat.isOutdatedEntityVersion())
+                res.put(ServerScopedCache.id(key), stat);
+        });
+
+        return res;
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param stats Statistics of finished chains.
+     */
+    public void putAll(int srvId, Collection<BuildStatisticsCompacted> stats) {
+        if (F.isEmpty(stats))
+            return;
+
+        Map<Long, BuildStatisticsCompacted> entries = new HashMap<>(U.capacity(stats.size()));
+
+        for (BuildStatisticsCompacted stat : stats)
+            entries.put(ServerScopedCache.key(srvId, stat.buildId), stat);
+
+        cache().putAll(entries);
+    }
+
+    /**
+     * @param keys Keys, server id and build id combined.
+     */
+    public void removeAll(Set<Long> keys) {
+        cache().removeAll(keys);
+    }
+
+    /**
+     * Appends tests to index, returns updated index.
+     */
+    private static class AddTestsProcessor implements CacheEntryProcessor<Long, ChainTestsIndex, ChainTestsIndex> {
+        /** Suite build type string ID for each test. */
+        private final int[] suites;
+
+        /** Test name string ID for each test. */
+        private final int[] names;
+
+        /** Test ID for each test. */
+        private final long[] testIds;
+
+        /**
+         * @param suites Suite build type string ID for each test.
+         * @param names Test name string ID for each test.
+         * @param testIds Test ID for each test.
+         */
+        AddTestsProcessor(int[] suites, int[] names, long[] testIds) {
+            this.suites = suites;
+            this.names = names;
+            this.testIds = testIds;
+        }
+
+        /** {@inheritDoc} */
+        @Override public ChainTestsIndex process(MutableEntry<Long, ChainTestsIndex> entry,
+            Object... arguments) throws EntryProcessorException {
+            ChainTestsIndex cur = entry.exists() ? entry.getValue() : ChainTestsIndex.empty();
+            ChainTestsIndex res = cur.withTests(suites, names, testIds);
+
+            if (res != cur)
+                entry.setValue(res);
+
+            return res;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Dense index of tests ever failed in builds of a chain: each pair of suite build type and test name gets sequential
+ * index. Failed tests of chain builds are saved as {@link TestsBitmap} of these indexes. Entry is immutable, indexes
+ * are only appended.
+ */
+@Persisted
+public class ChainTestsIndex {
+    /** Empty index. */
+    private static final ChainTestsIndex EMPTY = new ChainTestsIndex(new int[0], new int[0], new long[0]);
+
+    /** Suite build type string ID for each index. */
+    private int[] suites;
+
+    /** Test name string ID for each index. */
+    private int[] names;
+
+    /** Test ID for each index. */
+    private long[] testIds;
+
+    /** Index by suite and test name, lazily built. */
+    private transient volatile Map<Long, Integer> lookup;
+
+    /**
+     * @param suites Suites.
+     * @param names Names.
+     * @param testIds Test IDs.
+     */
+    private ChainTestsIndex(int[] suites, int[] names, long[] testIds) {
+        this.suites = suites;
+        this.names = names;
+        this.testIds = testIds;
+    }
+
+    /**
+     * @return Index without tests.
+     */
+    public static ChainTestsIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return Count of indexed tests.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param idx Index.
+     * @return Suite build type string ID.
+     */
+    public int suite(int idx) {
+        return suites[idx];
+    }
+
+    /**
+     * @param idx Index.
+     * @return Test name string ID.
+     */
+    public int name(int idx) {
+        return names[idx];
+    }
+
+    /**
+     * @param idx Index.
+     * @return Test ID.
+     */
+    public long testId(int idx) {
+        return testIds[idx];
+    }
+
+    /**
+     * @param suite Suite build type string ID.
+     * @param name Test name string ID.
+     * @return Index of test, or -1 if test is not indexed.
+     */
+    public int indexOf(int suite, int name) {
+        Map<Long, Integer> map = lookup;
+
+        if (map == null) {
+            map = new HashMap<>(names.length * 2);
+
+            for (int i = 0; i < names.length; i++)
+                map.put(key(suites[i], names[i]), i);
+
+            lookup = map;
+        }
+
+        Integer idx = map.get(key(suite, name));
+
+        return idx == null ? -1 : idx;
+    }
+
+    /**
+     * @param addSuites Suite build type string IDs.
+     * @param addNames Test name string IDs.
+     * @param addTestIds Test IDs.
+     * @return Copy of this index with tests not indexed yet appended; this index if all tests are indexed.
+     */
+    public ChainTestsIndex withTests(int[] addSuites, int[] addNames, long[] addTestIds) {
+        int[] resSuites = Arrays.copyOf(suites, suites.length + addNames.length);
+        int[] resNames = Arrays.copyOf(names, names.length + addNames.length);
+        long[] resTestIds = Arrays.copyOf(testIds, testIds.length + addNames.length);
+
+        Map<Long, Integer> added = new HashMap<>();
+        int cnt = names.length;
+
+        for (int i = 0; i < addNames.length; i++) {
+            if (indexOf(addSuites[i], addNames[i]) >= 0 || added.containsKey(key(addSuites[i], addNames[i])))
+                continue;
+
+            added.put(key(addSuites[i], addNames[i]), cnt);
+
+            resSuites[cnt] = addSuites[i];
+            resNames[cnt] = addNames[i];
+            resTestIds[cnt] = addTestIds[i];
+
+            cnt++;
+        }
+
+        if (cnt == names.length)
+            return this;
+
+        return new ChainTestsIndex(Arrays.copyOf(resSuites, cnt), Arrays.copyOf(resNames, cnt),
+            Arrays.copyOf(resTestIds, cnt));
+    }
+
+    /**
+     * @param suite Suite.
+     * @param name Name.
+     */
+    private static long key(int suite, int name) {
+        return (long)suite << 32 | name & 0xFFFFFFFFL;
+    }
+}
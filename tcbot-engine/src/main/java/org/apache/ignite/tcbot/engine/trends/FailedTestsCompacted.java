@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import java.util.Arrays;
+import java.util.Objects;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Failed tests of a chain build: bitmap of indexes in {@link ChainTestsIndex} of the chain build type. Tests failed
+ * several times in the chain are listed separately with failures count.
+ */
+@Persisted
+public class FailedTestsCompacted {
+    /** Chain build type string ID. */
+    private int chainBuildTypeId;
+
+    /** Indexes of failed tests. */
+    private TestsBitmap tests;
+
+    /** Indexes of tests failed more than once, sorted ascending. */
+    private int[] repeatedTests;
+
+    /** Failures count for each test failed more than once. */
+    private int[] repeatedCnts;
+
+    /**
+     * @param chainBuildTypeId Chain build type string ID.
+     * @param tests Tests.
+     * @param repeatedTests Repeated tests.
+     * @param repeatedCnts Repeated counts.
+     */
+    private FailedTestsCompacted(int chainBuildTypeId, TestsBitmap tests, int[] repeatedTests, int[] repeatedCnts) {
+        this.chainBuildTypeId = chainBuildTypeId;
+        this.tests = tests;
+        this.repeatedTests = repeatedTests;
+        this.repeatedCnts = repeatedCnts;
+    }
+
+    /**
+     * @param chainBuildTypeId Chain build type string ID.
+     * @param idxs Indexes of failed tests, distinct.
+     * @param cnts Failures count for each test.
+     */
+    public static FailedTestsCompacted of(int chainBuildTypeId, int[] idxs, int[] cnts) {
+        long[] repeated = new long[idxs.length];
+        int repeatedCnt = 0;
+
+        for (int i = 0; i < idxs.length; i++) {
+            if (cnts[i] > 1)
+                repeated[repeatedCnt++] = (long)idxs[i] << 32 | cnts[i];
+        }
+
+        Arrays.sort(repeated, 0, repeatedCnt);
+
+        int[] repeatedTests = new int[repeatedCnt];
+        int[] repeatedCnts = new int[repeatedCnt];
+
+        for (int i = 0; i < repeatedCnt; i++) {
+            repeatedTests[i] = (int)(repeated[i] >>> 32);
+            repeatedCnts[i] = (int)repeated[i];
+        }
+
+        return new FailedTestsCompacted(chainBuildTypeId, TestsBitmap.of(idxs), repeatedTests, repeatedCnts);
+    }
+
+    /**
+     * @return Chain build type string ID.
+     */
+    public int chainBuildTypeId() {
+        return chainBuildTypeId;
+    }
+
+    /**
+     * @return Indexes of failed tests.
+     */
+    public TestsBitmap tests() {
+        return tests;
+    }
+
+    /**
+     * @param idx Test index.
+     * @return Count of test failures in the chain.
+     */
+    public int failures(int idx) {
+        int pos = Arrays.binarySearch(repeatedTests, idx);
+
+        if (pos >= 0)
+            return repeatedCnts[pos];
+
+        return tests.contains(idx) ? 1 : 0;
+    }
+
+    /**
+     * Adds test failures of this chain to counters.
+     *
+     * @param failedBuilds Count of builds test failed in, by test index.
+     * @param failures Count of failures, by test index.
+     */
+    public void addTo(int[] failedBuilds, int[] failures) {
+        tests.forEach(idx -> {
+            failedBuilds[idx]++;
+            failures[idx]++;
+        });
+
+        for (int i = 0; i < repeatedTests.length; i++)
+            failures[repeatedTests[i]] += repeatedCnts[i] - 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof FailedTestsCompacted))
+            return false;
+
+        FailedTestsCompacted that = (FailedTestsCompacted)o;
+
+        return chainBuildTypeId == that.chainBuildTypeId &&
+            Objects.equals(tests, that.tests) &&
+            Arrays.equals(repeatedTests, that.repeatedTests) &&
+            Arrays.equals(repeatedCnts, that.repeatedCnts);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        return Objects.hash(chainBuildTypeId, tests, Arrays.hashCode(repeatedTests), Arrays.hashCode(repeatedCnts));
+    }
+}
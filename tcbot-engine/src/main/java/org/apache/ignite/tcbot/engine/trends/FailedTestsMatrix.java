@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Failed tests of chain builds in a range: tests failed in any and in all builds, and failures counts by test index.
+ * Test names are not required for computation, these are decoded only for tests to be shown.
+ */
+public class FailedTestsMatrix {
+    /** Count of builds. */
+    private final int buildsCnt;
+
+    /** Tests failed in any build. */
+    private final TestsBitmap union;
+
+    /** Tests failed in all builds. */
+    private final TestsBitmap intersection;
+
+    /** Count of builds test failed in, by test index. */
+    private final int[] failedBuilds;
+
+    /** Count of failures, by test index. */
+    private final int[] failures;
+
+    /**
+     * @param builds Failed tests of builds of the same chain build type.
+     */
+    public FailedTestsMatrix(Collection<FailedTestsCompacted> builds) {
+        List<TestsBitmap> bitmaps = builds.stream().map(FailedTestsCompacted::tests).collect(Collectors.toList());
+
+        buildsCnt = builds.size();
+        union = TestsBitmap.orAll(bitmaps);
+        intersection = TestsBitmap.andAll(bitmaps);
+
+        int[] all = union.toArray();
+        int size = all.length == 0 ? 0 : all[all.length - 1] + 1;
+
+        failedBuilds = new int[size];
+        failures = new int[size];
+
+        for (FailedTestsCompacted build : builds)
+            build.addTo(failedBuilds, failures);
+    }
+
+    /**
+     * @return Count of builds.
+     */
+    public int buildsCount() {
+        return buildsCnt;
+    }
+
+    /**
+     * @return Minimal size of tests index containing all tests failed.
+     */
+    public int indexSize() {
+        return failures.length;
+    }
+
+    /**
+     * @return Tests failed in any build.
+     */
+    public TestsBitmap union() {
+        return union;
+    }
+
+    /**
+     * @return Tests failed in all builds.
+     */
+    public TestsBitmap intersection() {
+        return intersection;
+    }
+
+    /**
+     * @param idx Test index.
+     * @return Count of failures of test in all builds.
+     */
+    public int failures(int idx) {
+        return idx < failures.length ? failures[idx] : 0;
+    }
+
+    /**
+     * @param idx Test index.
+     * @return Count of builds test failed in.
+     */
+    public int failedBuilds(int idx) {
+        return idx < failedBuilds.length ? failedBuilds[idx] : 0;
+    }
+
+    /**
+     * @param share Share of builds, [0..1].
+     * @return Tests failed in more than given share of builds.
+     */
+    public TestsBitmap failedInMoreThan(double share) {
+        return TestsBitmap.of(Arrays.stream(union.toArray())
+            .filter(idx -> failedBuilds[idx] > share * buildsCnt)
+            .toArray());
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.engine.trends;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Immutable set of non-negative ints, e.g. dense test indexes of failed tests. Values are split into containers by
+ * high 16 bits. Container with a few values keeps sorted array of low 16 bits, container with more than
+ * {@link #ARRAY_MAX} values keeps 2^16 bits.
+ */
+@Persisted
+public class TestsBitmap {
+    /** Maximal count of values in array container. */
+    static final int ARRAY_MAX = 4096;
+
+    /** Words in bits container. */
+    private static final int WORDS = 1 << 10;
+
+    /** Empty bitmap. */
+    private static final TestsBitmap EMPTY = new TestsBitmap(new char[0], new char[0][], new long[0][], 0);
+
+    /** High 16 bits of values of each container, sorted ascending. */
+    private char[] keys;
+
+    /** Sorted low 16 bits of values of each container, {@code null} for bits container. */
+    private char[][] arrays;
+
+    /** Bits of each container, {@code null} for array container. */
+    private long[][] bits;
+
+    /** Count of values. */
+    private int card;
+
+    /**
+     * @param keys Keys.
+     * @param arrays Arrays.
+     * @param bits Bits.
+     * @param card Count of values.
+     */
+    private TestsBitmap(char[] keys, char[][] arrays, long[][] bits, int card) {
+        this.keys = keys;
+        this.arrays = arrays;
+        this.bits = bits;
+        this.card = card;
+    }
+
+    /**
+     * @return Empty bitmap.
+     */
+    public static TestsBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param vals Non-negative values, may be unsorted and contain duplicates.
+     * @return Bitmap.
+     */
+    public static TestsBitmap of(int... vals) {
+        int[] sorted = vals.clone();
+
+        Arrays.sort(sorted);
+
+        TreeMap<Character, long[]> containers = new TreeMap<>();
+
+        for (int val : sorted) {
+            if (val < 0)
+                throw new IllegalArgumentException("Negative value: " + val);
+
+            set(containers.computeIfAbsent((char)(val >>> 16), k -> new long[WORDS]), (char)val);
+        }
+
+        return compact(containers);
+    }
+
+    /**
+     * @param bitmaps Bitmaps.
+     * @return Union of all bitmaps.
+     */
+    public static TestsBitmap orAll(Collection<TestsBitmap> bitmaps) {
+        TreeMap<Character, long[]> containers = new TreeMap<>();
+
+        for (TestsBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.keys.length; i++) {
+                long[] dst = containers.computeIfAbsent(bitmap.keys[i], k -> new long[WORDS]);
+
+                if (bitmap.bits[i] != null) {
+                    for (int w = 0; w < WORDS; w++)
+                        dst[w] |= bitmap.bits[i][w];
+                }
+                else {
+                    for (char low : bitmap.arrays[i])
+                        set(dst, low);
+                }
+            }
+        }
+
+        return compact(containers);
+    }
+
+    /**
+     * @param bitmaps Bitmaps.
+     * @return Intersection of all bitmaps, empty bitmap if collection is empty.
+     */
+    public static TestsBitmap andAll(Collection<TestsBitmap> bitmaps) {
+        TestsBitmap res = null;
+
+        for (TestsBitmap bitmap : bitmaps)
+            res = res == null ? bitmap : res.and(bitmap);
+
+        return res == null ? EMPTY : res;
+    }
+
+    /**
+     * @param other Other bitmap.
+     * @return Union of this and other bitmap.
+     */
+    public TestsBitmap or(TestsBitmap other) {
+        return orAll(Arrays.asList(this, other));
+    }
+
+    /**
+     * @param other Other bitmap.
+     * @return Intersection of this and other bitmap.
+     */
+    public TestsBitmap and(TestsBitmap other) {
+        TreeMap<Character, long[]> containers = new TreeMap<>();
+
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j])
+                i++;
+            else if (keys[i] > other.keys[j])
+                j++;
+            else {
+                long[] res = new long[WORDS];
+
+                if (bits[i] != null && other.bits[j] != null) {
+                    for (int w = 0; w < WORDS; w++)
+                        res[w] = bits[i][w] & other.bits[j][w];
+                }
+                else {
+                    // At least one container is array: check its values in other container.
+                    boolean thisArr = bits[i] == null;
+                    char[] arr = thisArr ? arrays[i] : other.arrays[j];
+
+                    for (char low : arr) {
+                        if (thisArr ? other.containsLow(j, low) : containsLow(i, low))
+                            set(res, low);
+                    }
+                }
+
+                containers.put(keys[i], res);
+
+                i++;
+                j++;
+            }
+        }
+
+        return compact(containers);
+    }
+
+    /**
+     * @param val Value.
+     * @return {@code true} if bitmap contains value.
+     */
+    public boolean contains(int val) {
+        if (val < 0)
+            return false;
+
+        int idx = Arrays.binarySearch(keys, (char)(val >>> 16));
+
+        return idx >= 0 && containsLow(idx, (char)val);
+    }
+
+    /**
+     * @return Count of values.
+     */
+    public int cardinality() {
+        return card;
+    }
+
+    /**
+     * @return {@code true} if bitmap has no values.
+     */
+    public boolean isEmpty() {
+        return card == 0;
+    }
+
+    /**
+     * @param consumer Consumer of values, values are provided in ascending order.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            int high = keys[i] << 16;
+
+            if (bits[i] != null) {
+                long[] words = bits[i];
+
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+
+                    while (word != 0) {
+                        consumer.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+
+                        word &= word - 1;
+                    }
+                }
+            }
+            else {
+                for (char low : arrays[i])
+                    consumer.accept(high | low);
+            }
+        }
+    }
+
+    /**
+     * @return Values sorted ascending.
+     */
+    public int[] toArray() {
+        int[] res = new int[card];
+        int[] idx = new int[1];
+
+        forEach(val -> res[idx[0]++] = val);
+
+        return res;
+    }
+
+    /**
+     * @param idx Container index.
+     * @param low Low 16 bits of value.
+     */
+    private boolean containsLow(int idx, char low) {
+        if (bits[idx] != null)
+            return (bits[idx][low >>> 6] & (1L << low)) != 0;
+
+        return Arrays.binarySearch(arrays[idx], low) >= 0;
+    }
+
+    /**
+     * @param words Bits container.
+     * @param low Low 16 bits of value.
+     */
+    private static void set(long[] words, char low) {
+        words[low >>> 6] |= 1L << low;
+    }
+
+    /**
+     * @param containers Bits of containers by high 16 bits of values.
+     * @return Bitmap with empty containers removed and sparse containers converted to arrays.
+     */
+    private static TestsBitmap compact(TreeMap<Character, long[]> containers) {
+        containers.values().removeIf(words -> Arrays.stream(words).allMatch(w -> w == 0));
+
+        if (containers.isEmpty())
+            return EMPTY;
+
+        char[] keys = new char[containers.size()];
+        char[][] arrays = new char[containers.size()][];
+        long[][] bits = new long[containers.size()][];
+        int card = 0;
+        int i = 0;
+
+        for (Map.Entry<Character, long[]> e : containers.entrySet()) {
+            long[] words = e.getValue();
+            int cnt = 0;
+
+            for (long word : words)
+                cnt += Long.bitCount(word);
+
+            keys[i] = e.getKey();
+
+            if (cnt > ARRAY_MAX)
+                bits[i] = words;
+            else {
+                char[] arr = new char[cnt];
+                int pos = 0;
+
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+
+                    while (word != 0) {
+                        arr[pos++] = (char)((w << 6) + Long.numberOfTrailingZeros(word));
+
+                        word &= word - 1;
+                    }
+                }
+
+                arrays[i] = arr;
+            }
+
+            card += cnt;
+            i++;
+        }
+
+        return new TestsBitmap(keys, arrays, bits, card);
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof TestsBitmap))
+            return false;
+
+        TestsBitmap that = (TestsBitmap)o;
+
+        return card == that.card && Arrays.equals(toArray(), that.toArray());
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -37,7 +37,6 @@ import org.apache.ignite.tcbot.engine.newtests.NewTestsStorage;
 import org.apache.ignite.tcbot.engine.tracked.DisplayMode;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcignited.ITeamcityIgnited;
-import org.apache.ignite.tcignited.history.IRunHistory;
 import org.apache.ignite.tcservice.model.conf.BuildType;
 
 import static org.apache.ignite.tcbot.engine.ui.DsSuiteUi.createOccurForLogConsumer;
@@ -300,24 +299,12 @@ public class DsChainUi {
         String failRateNormalizedBranch = normalizeBranch(baseBranchTc);
         Integer baseBranchId = compactor.getStringIdIfPresent(failRateNormalizedBranch);
 
-        newTestsUi = ctx
-            .suites()
-            .map((suite) -> {
-                List<ShortTestUi> missingTests = suite.getFilteredTests(test -> {
-                    IRunHistory history = test.history(tcIgnited, baseBranchId, null);
-
-                    if (history == null && !test.isMutedOrIgored()) {
-
-                        if (test.getId() != null &&
-                            newTestsStorage.isNewTest(tcIgnited.serverCode(),
-                                test.getId(), failRateNormalizedBranch, ctx.branchName()))
-                            return true;
-                        else
-                            return false;
-                    }
-                    else
-                        return false;
-                })
+        newTestsUi = newTestsStorage.findNewTests(ctx, tcIgnited, failRateNormalizedBranch, baseBranchId,
+            ctx.branchName(), false)
+            .entrySet()
+            .stream()
+            .map(e -> {
+                List<ShortTestUi> missingTests = e.getValue()
                     .stream()
                     .map(occurrence -> {
                         ShortTestUi tst = new ShortTestUi().initFrom(occurrence, occurrence.isPassed());
@@ -328,7 +315,7 @@ public class DsChainUi {
                 if (!missingTests.isEmpty()) {
                     return new ShortSuiteNewTestsUi()
                         .tests(missingTests)
-                        .initFrom(suite, tcIgnited);
+                        .initFrom(e.getKey(), tcIgnited);
                 }
                 return null;
             })
@@ -16,6 +16,8 @@
  */
 package org.apache.ignite.tcbot.engine.ui;
 
+import java.util.List;
+
 import static org.apache.ignite.tcbot.common.util.TimeUtil.millisToDurationPrintable;
 
 /**
@@ -31,6 +33,9 @@ public class LrTestUi {
 
     public String webLink;
 
+    /** Test duration in recent builds, oldest build goes first; null element if test was not long running. */
+    public List<Long> timeTrend;
+
     public LrTestUi(String name, long time, String webLink) {
         this.name = name;
         this.time = time;
@@ -33,6 +33,9 @@ public class LrTestsSuiteSummaryUi {
 
     public List<LrTestUi> tests;
 
+    /** Average test time in recent builds, oldest build goes first. */
+    public List<Long> testAvgTimeTrend;
+
     public LrTestsSuiteSummaryUi(String name, long testAvgTime, List<LrTestUi> tests) {
         this.name = name;
         this.testAvgTime = testAvgTime;
@@ -45,4 +45,10 @@ public interface IUserStorage {
     public void putSession(String sessId, UserSession userSes);
 
     @Nullable public TcHelperUser findUserByEmail(String email);
+
+    /**
+     * @return Counter of users modifications done by this storage, can be used to detect cached users data is
+     * outdated.
+     */
+    public long usersModificationCount();
 }
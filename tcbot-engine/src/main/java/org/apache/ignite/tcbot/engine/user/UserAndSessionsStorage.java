@@ -17,6 +17,7 @@
 
 package org.apache.ignite.tcbot.engine.user;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
@@ -37,6 +38,9 @@ public class UserAndSessionsStorage implements IUserStorage {
 
     private volatile Ignite ignite;
 
+    /** Users modification counter. */
+    private final AtomicLong usersModCnt = new AtomicLong();
+
     public IgniteCache<String, TcHelperUser> users() {
         return getIgnite().getOrCreateCache(CacheConfigs.<String, TcHelperUser>getCacheV2TxConfig(USERS));
     }
@@ -77,6 +81,13 @@ public class UserAndSessionsStorage implements IUserStorage {
     /** {@inheritDoc} */
     @Override public void putUser(String username, TcHelperUser user) {
         users().put(username, user);
+
+        usersModCnt.incrementAndGet();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long usersModificationCount() {
+        return usersModCnt.get();
     }
 
     /** {@inheritDoc} */
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -73,6 +74,9 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
     /** PPs cache. */
     private IgniteCache<GitHubBranchKey, GitHubBranchShort> branchCache;
 
+    /** Counter of saved changes in PRs and branches. */
+    private final AtomicInteger updateCnt = new AtomicInteger();
+
     /**
      * @param conn Connection.
      */
@@ -115,7 +119,7 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
     /** {@inheritDoc} */
     @AutoProfiling
     @Override public List<PullRequest> getPullRequests() {
-        scheduler.sheduleNamed(taskName("actualizePrs"), this::actualizePrs, 2, TimeUnit.MINUTES);
+        ensureActualizePrsRequested();
 
         return StreamSupport.stream(prCache.spliterator(), false)
             .filter(entry -> entry.getKey() >> 32 == srvIdMaskHigh)
@@ -124,14 +128,18 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
             .collect(Collectors.toList());
     }
 
+    /** {@inheritDoc} */
+    @Override public int updateCounter() {
+        ensureActualizePrsRequested();
+        ensureActualizeBranchesRequested();
+
+        return updateCnt.get();
+    }
+
     /** {@inheritDoc} */
     @AutoProfiling
     @Override public List<String> getBranches() {
-        final int rescanIntervalMins = config().isPreferBranches() ? 5 : 120;
-
-        scheduler.sheduleNamed(taskName("actualizeBranches"),
-                this::actualizeBranches,
-                rescanIntervalMins, TimeUnit.MINUTES);
+        ensureActualizeBranchesRequested();
 
         return StreamSupport.stream(branchCache.spliterator(), false)
             .filter(entry -> entry.getKey().srvId() == srvIdMaskHigh)
@@ -140,6 +148,24 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Schedules sync of PRs, if it was not run recently.
+     */
+    private void ensureActualizePrsRequested() {
+        scheduler.sheduleNamed(taskName("actualizePrs"), this::actualizePrs, 2, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Schedules sync of branches, if it was not run recently.
+     */
+    private void ensureActualizeBranchesRequested() {
+        final int rescanIntervalMins = config().isPreferBranches() ? 5 : 120;
+
+        scheduler.sheduleNamed(taskName("actualizeBranches"),
+                this::actualizeBranches,
+                rescanIntervalMins, TimeUnit.MINUTES);
+    }
+
     private void actualizeBranches() {
         runActualizeBranches(srvCode, true);
     }
@@ -220,6 +246,9 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
             .peek(entry -> prCache.put(entry.getKey(), conn.getPullRequest(entry.getValue().getNumber())))
             .count();
 
+        if (cnt != 0)
+            updateCnt.incrementAndGet();
+
         return "PRs updated for " + srvId + ": " + cnt + " from " + prCache.size();
     }
 
@@ -244,9 +273,12 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
 
         int size = entriesToPut.size();
 
-        if (size != 0)
+        if (size != 0) {
             prCache.putAll(entriesToPut);
 
+            updateCnt.incrementAndGet();
+        }
+
         return size;
     }
 
@@ -309,9 +341,12 @@ class GitHubConnIgnitedImpl implements IGitHubConnIgnited {
 
         int size = entriesToPut.size();
 
-        if (size != 0)
+        if (size != 0) {
             branchCache.putAll(entriesToPut);
 
+            updateCnt.incrementAndGet();
+        }
+
         return size;
     }
 
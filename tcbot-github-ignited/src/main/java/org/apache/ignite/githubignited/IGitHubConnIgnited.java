@@ -47,6 +47,13 @@ public interface IGitHubConnIgnited {
     /** {@inheritDoc} */
     public List<String> getBranches();
 
+    /**
+     * @return Counter of pull requests and branches changes saved for this server. Changed value means results
+     * computed from {@link #getPullRequests()} or {@link #getBranches()} may be outdated. Requests sync of PRs and
+     * branches the same way as reading of the data does.
+     */
+    public int updateCounter();
+
     /**
      * Send POST request with given body.
      *
@@ -17,6 +17,7 @@
 package org.apache.ignite.jiraignited;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
 import org.apache.ignite.jiraservice.Ticket;
 import org.apache.ignite.tcbot.common.conf.IJiraServerConfig;
@@ -32,6 +33,17 @@ public interface IJiraIgnited {
      */
     public Set<Ticket> getTickets();
 
+    /**
+     * @return Ticket key (e.g IGNITE-8331) -> Status text. Map is updated in place when tickets are synced.
+     */
+    public Map<String, String> getTicketStatuses();
+
+    /**
+     * @return Counter of tickets changes saved for this server. Changed value means results computed from
+     * {@link #getTickets()} may be outdated. Requests sync of tickets the same way as reading of the tickets does.
+     */
+    public int updateCounter();
+
     /**
      * @param ticketFullName Ticket full name (e.g IGNITE-8331)
      * @return URL which is used as link to Jira comment with specified id.
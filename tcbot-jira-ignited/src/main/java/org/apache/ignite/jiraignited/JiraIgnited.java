@@ -17,6 +17,7 @@
 package org.apache.ignite.jiraignited;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
 import javax.inject.Inject;
 import org.apache.ignite.jiraservice.IJiraIntegration;
@@ -59,7 +60,22 @@ class JiraIgnited implements IJiraIgnited {
     @Override public Set<Ticket> getTickets() {
         jiraTicketSync.ensureActualizeJiraTickets(srvCode);
 
-        return jiraTicketDao.getTickets(srvIdMaskHigh, jira.config().projectCodeForVisa());
+        return jiraTicketDao.getTickets(srvIdMaskHigh, jira.config().projectCodeForVisa(),
+            jiraTicketDao.updateCounter(srvIdMaskHigh));
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<String, String> getTicketStatuses() {
+        jiraTicketSync.ensureActualizeJiraTickets(srvCode);
+
+        return jiraTicketDao.getTicketStatuses(srvIdMaskHigh, jira.config().projectCodeForVisa());
+    }
+
+    /** {@inheritDoc} */
+    @Override public int updateCounter() {
+        jiraTicketSync.ensureActualizeJiraTickets(srvCode);
+
+        return jiraTicketDao.updateCounter(srvIdMaskHigh);
     }
 
     /** {@inheritDoc} */
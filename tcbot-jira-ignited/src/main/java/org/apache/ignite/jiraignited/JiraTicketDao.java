@@ -19,11 +19,14 @@ package org.apache.ignite.jiraignited;
 
 import com.google.common.base.Preconditions;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import javax.cache.Cache;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
@@ -31,9 +34,11 @@ import org.apache.ignite.IgniteCache;
 import org.apache.ignite.ci.jira.ignited.TicketCompacted;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
 import org.apache.ignite.tcbot.common.interceptor.GuavaCached;
+import org.apache.ignite.jiraservice.JiraTicketStatusCode;
 import org.apache.ignite.jiraservice.Ticket;
 import org.apache.ignite.tcbot.persistence.CacheConfigs;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.ServerScopedCache;
 import org.apache.ignite.internal.util.typedef.F;
 import org.apache.ignite.internal.util.typedef.internal.U;
 
@@ -48,38 +53,98 @@ public class JiraTicketDao {
     @Inject private Provider<Ignite> igniteProvider;
 
     /** JIRA tickets cache : (srvId || ticketNuber) -> Ticket data compacted. */
-    private IgniteCache<Long, TicketCompacted> jiraCache;
+    private ServerScopedCache<TicketCompacted> jiraCache;
 
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
+    /** Counters of saved tickets changes: Server id mask high -> counter. */
+    private final ConcurrentMap<Integer, AtomicInteger> updateCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Ticket statuses: Server id mask high -> Ticket key -> Status text. Built on first request and updated with each
+     * saved chunk of tickets.
+     */
+    private final ConcurrentMap<Integer, Map<String, String>> ticketStatuses = new ConcurrentHashMap<>();
+
     /**
      *
      */
-    public void init() {
-        jiraCache = igniteProvider.get().getOrCreateCache(CacheConfigs.getCache8PartsConfig(TEAMCITY_JIRA_TICKET_CACHE_NAME));
+    public synchronized void init() {
+        if (jiraCache != null)
+            return;
+
+        Ignite ignite = igniteProvider.get();
+
+        IgniteCache<Long, TicketCompacted> cache
+            = ignite.getOrCreateCache(CacheConfigs.getCache8PartsConfig(TEAMCITY_JIRA_TICKET_CACHE_NAME));
+
+        jiraCache = new ServerScopedCache<>(ignite, cache).init();
     }
 
     /**
      * @param srvIdMaskHigh Server id mask high.
      * @param projectCode project code. WIth delim gives Fixed prefix for JIRA tickets.
+     * @param updCnt Value of {@link #updateCounter(int)}, makes cached result outdated after tickets update.
      * @return Jira tickets.
      */
     @GuavaCached(expireAfterWriteSecs = 60, softValues = true)
-    public Set<Ticket> getTickets(int srvIdMaskHigh, String projectCode) {
+    public Set<Ticket> getTickets(int srvIdMaskHigh, String projectCode, int updCnt) {
         Preconditions.checkNotNull(jiraCache, "init() was not called");
-        long srvId = (long)srvIdMaskHigh << 32;
 
         Set<Ticket> res = new HashSet<>();
 
-        for (Cache.Entry<Long, TicketCompacted> entry : jiraCache) {
-            if ((entry.getKey() & srvId) == srvId)
-                res.add(entry.getValue().toTicket(compactor, projectCode));
-        }
+        jiraCache.values(srvIdMaskHigh).forEach(ticket -> res.add(ticket.toTicket(compactor, projectCode)));
 
         return res;
     }
 
+    /**
+     * @param srvIdMaskHigh Server id mask high.
+     * @param projectCode Project code, gives prefix for ticket keys.
+     * @return Ticket key (e.g. IGNITE-8331) -> Status text, see {@link JiraTicketStatusCode#text}.
+     */
+    @AutoProfiling
+    public Map<String, String> getTicketStatuses(int srvIdMaskHigh, String projectCode) {
+        Preconditions.checkNotNull(jiraCache, "init() was not called");
+
+        Map<String, String> statuses = ticketStatuses.computeIfAbsent(srvIdMaskHigh, k -> {
+            Map<String, String> res = new ConcurrentHashMap<>();
+
+            jiraCache.values(srvIdMaskHigh)
+                .forEach(ticket -> res.put(ticketKey(projectCode, ticket), statusText(ticket)));
+
+            return res;
+        });
+
+        return Collections.unmodifiableMap(statuses);
+    }
+
+    /**
+     * @param projectCode Project code.
+     * @param ticket Ticket.
+     */
+    private static String ticketKey(String projectCode, TicketCompacted ticket) {
+        return projectCode + Ticket.PROJECT_DELIM + ticket.igniteId;
+    }
+
+    /**
+     * @param ticket Ticket.
+     */
+    private static String statusText(TicketCompacted ticket) {
+        return JiraTicketStatusCode.text(JiraTicketStatusCode.fromId(ticket.statusCodeId));
+    }
+
+    /**
+     * @param srvIdMaskHigh Server id mask high.
+     * @return Counter of tickets changes saved for the server.
+     */
+    public int updateCounter(int srvIdMaskHigh) {
+        AtomicInteger cnt = updateCounters.get(srvIdMaskHigh);
+
+        return cnt == null ? 0 : cnt.get();
+    }
+
     /**
      * Combine server and project into key for storage.
      *
@@ -88,7 +153,7 @@ public class JiraTicketDao {
      * @return Key from server-project pair.
      */
     public static long ticketToCacheKey(int srvIdMaskHigh, int igniteId) {
-        return (long)igniteId | (long)srvIdMaskHigh << 32;
+        return ServerScopedCache.key(srvIdMaskHigh, igniteId);
     }
 
     /**
@@ -115,7 +180,7 @@ public class JiraTicketDao {
             compactedTickets.put(key, val);
         }
 
-        Map<Long, TicketCompacted> dbVal = jiraCache.getAll(compactedTickets.keySet());
+        Map<Long, TicketCompacted> dbVal = jiraCache.cache().getAll(compactedTickets.keySet());
 
         Map<Long, TicketCompacted> ticketsToUpdate = new HashMap<>(U.capacity(chunk.size()));
 
@@ -126,9 +191,20 @@ public class JiraTicketDao {
                 ticketsToUpdate.put(k, v);
         });
 
-        if (!ticketsToUpdate.isEmpty())
+        if (!ticketsToUpdate.isEmpty()) {
             jiraCache.putAll(ticketsToUpdate);
 
+            // Index is built from cache, so tickets already put are either seen by the build or applied here.
+            ticketStatuses.computeIfPresent(srvIdMaskHigh, (k, statuses) -> {
+                for (TicketCompacted ticket : ticketsToUpdate.values())
+                    statuses.put(ticketKey(projectCode, ticket), statusText(ticket));
+
+                return statuses;
+            });
+
+            updateCounters.computeIfAbsent(srvIdMaskHigh, k -> new AtomicInteger()).incrementAndGet();
+        }
+
         return ticketsToUpdate.size();
     }
 }
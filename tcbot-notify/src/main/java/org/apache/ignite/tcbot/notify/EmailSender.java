@@ -17,7 +17,22 @@
 
 package org.apache.ignite.tcbot.notify;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.html.HtmlEscapers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.mail.Authenticator;
 import javax.mail.Message;
 import javax.mail.MessagingException;
@@ -29,17 +44,317 @@ import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
 /**
- * Class for sending email with configured credentials.
+ * Class for sending email with configured credentials. Emails are queued and sent asynchronously by single thread:
+ * all emails pending are sent through one SMTP connection, emails queued asynchronously for the same recipient are
+ * joined into one, failed asynchronous emails are retried with exponential backoff. Email sent synchronously is never
+ * joined or retried, so caller waits for one attempt only.
  */
 class EmailSender implements IEmailSender {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(EmailSender.class);
+
+    /** Max emails waiting to be sent. */
+    public static final int MAX_PENDING = 1000;
+
+    /** Max attempts to send one email. */
+    public static final int MAX_ATTEMPTS = 5;
+
+    /** Default delay before the first retry, doubled for each next attempt. */
+    public static final long DFLT_RETRY_DELAY_MS = 5000;
+
+    /** Max time to wait for synchronously sent email. */
+    public static final long SYNC_SEND_TIMEOUT_MS = 30_000;
+
+    /** SMTP connect timeout. */
+    public static final int SMTP_CONNECT_TIMEOUT_MS = 10_000;
+
+    /** SMTP socket read timeout. */
+    public static final int SMTP_READ_TIMEOUT_MS = 20_000;
+
+    /** Mail sessions by connection settings. */
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** Pending emails by connection settings and recipient. Guarded by this. */
+    private Map<String, List<PendingEmail>> pending = new LinkedHashMap<>();
+
+    /** Number of pending emails. Guarded by this. */
+    private int pendingCnt;
+
+    /** Sending is scheduled. Guarded by this. */
+    private boolean scheduled;
+
+    /** Sending thread. */
+    private final ScheduledExecutorService executor;
+
+    /** Delay before the first retry. */
+    private final long retryDelayMs;
+
+    /** */
+    EmailSender() {
+        this(DFLT_RETRY_DELAY_MS, Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("email-sender-%d").setDaemon(true).build()));
+    }
+
+    /**
+     * @param retryDelayMs Delay before the first retry.
+     * @param executor Single threaded executor to send emails.
+     */
+    @VisibleForTesting
+    EmailSender(long retryDelayMs, ScheduledExecutorService executor) {
+        this.retryDelayMs = retryDelayMs;
+        this.executor = executor;
+    }
+
     /** {@inheritDoc} */
     @Override public void sendEmail(String to, String subject, String html, String plainText,
         ISendEmailConfig emailConfig) throws MessagingException {
+        CompletableFuture<Void> fut = queue(to, subject, html, plainText, emailConfig, true);
+
+        try {
+            fut.get(SYNC_SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            fut.cancel(false);
+
+            Thread.currentThread().interrupt();
+
+            throw new MessagingException("Interrupted while sending email to [" + to + "]", e);
+        }
+        catch (TimeoutException e) {
+            // Email is skipped if it is still pending.
+            fut.cancel(false);
+
+            throw new MessagingException("Timeout while sending email to [" + to + "]", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof MessagingException)
+                throw (MessagingException)cause;
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+
+            throw new MessagingException(cause.getMessage(), cause instanceof Exception ? (Exception)cause : null);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public CompletableFuture<Void> sendEmailAsync(String to, String subject, String html, String plainText,
+        ISendEmailConfig emailConfig) {
+        return queue(to, subject, html, plainText, emailConfig, false);
+    }
+
+    /**
+     * @param to Recipient.
+     * @param subject Subject.
+     * @param html Html.
+     * @param plainText Plain text.
+     * @param emailConfig Email config.
+     * @param sync Caller waits for the email: it is sent alone and only once.
+     * @return Future completed when email is sent or all attempts to send it failed.
+     */
+    private CompletableFuture<Void> queue(String to, String subject, String html, String plainText,
+        ISendEmailConfig emailConfig, boolean sync) {
+        CompletableFuture<Void> fut = new CompletableFuture<>();
+
+        PendingEmail email;
+
+        try {
+            email = new PendingEmail(sessionKey(emailConfig), emailConfig, to, subject, html, plainText, fut);
+
+            email.sync = sync;
+        }
+        catch (RuntimeException e) {
+            fut.completeExceptionally(e);
+
+            return fut;
+        }
+
+        if (!enqueue(email))
+            fut.completeExceptionally(new MessagingException("Email queue is full, email to [" + to + "] is not sent"));
+
+        return fut;
+    }
+
+    /**
+     * @param email Email.
+     * @return {@code False} if queue is full.
+     */
+    private synchronized boolean enqueue(PendingEmail email) {
+        if (pendingCnt >= MAX_PENDING)
+            return false;
+
+        pending.computeIfAbsent(email.sesKey + '\n' + email.to, k -> new ArrayList<>()).add(email);
+
+        pendingCnt++;
+
+        if (!scheduled) {
+            scheduled = true;
+
+            executor.execute(this::sendPending);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Number of emails waiting to be sent.
+     */
+    @VisibleForTesting
+    synchronized int pendingCount() {
+        return pendingCnt;
+    }
+
+    /**
+     * Sends all pending emails, emails using the same SMTP server are sent through one connection.
+     */
+    private void sendPending() {
+        Map<String, List<PendingEmail>> emails;
+
+        synchronized (this) {
+            emails = pending;
+
+            pending = new LinkedHashMap<>();
+            pendingCnt = 0;
+            scheduled = false;
+        }
+
+        Map<String, List<PendingEmail>> bySrv = new LinkedHashMap<>();
+
+        for (List<PendingEmail> recipientEmails : emails.values()) {
+            List<PendingEmail> joinable = new ArrayList<>();
+            List<PendingEmail> toSnd = new ArrayList<>();
+
+            for (PendingEmail email : recipientEmails) {
+                if (email.sync || email.joined)
+                    toSnd.add(email);
+                else
+                    joinable.add(email);
+            }
+
+            if (!joinable.isEmpty())
+                toSnd.add(PendingEmail.join(joinable));
+
+            for (PendingEmail email : toSnd)
+                bySrv.computeIfAbsent(email.sesKey, k -> new ArrayList<>()).add(email);
+        }
+
+        bySrv.values().forEach(this::send);
+    }
+
+    /**
+     * @param emails Emails using the same SMTP server.
+     */
+    private void send(List<PendingEmail> emails) {
+        Transport transport = null;
+
+        try {
+            for (PendingEmail email : emails) {
+                // Synchronous caller stopped waiting.
+                if (email.futs.stream().allMatch(CompletableFuture::isDone))
+                    continue;
+
+                try {
+                    Session ses = session(email.cfg);
+
+                    if (transport == null || !transport.isConnected()) {
+                        closeQuietly(transport);
+
+                        transport = ses.getTransport("smtp");
+
+                        transport.connect();
+                    }
+
+                    MimeMessage msg = message(ses, email);
+
+                    transport.sendMessage(msg, msg.getAllRecipients());
+
+                    logger.info("Sent message successfully to [" + email.to + "]...");
+
+                    email.futs.forEach(f -> f.complete(null));
+                }
+                catch (Exception e) {
+                    logger.warn("Failed to send email to [" + email.to + "], attempt " + (email.attempt + 1), e);
+
+                    // Reconnect for the next email.
+                    closeQuietly(transport);
+                    transport = null;
+
+                    retryOrFail(email, e);
+                }
+            }
+        }
+        finally {
+            closeQuietly(transport);
+        }
+    }
+
+    /**
+     * @param email Email failed.
+     * @param e Failure.
+     */
+    private void retryOrFail(PendingEmail email, Exception e) {
+        email.attempt++;
+
+        if (email.sync || email.attempt >= MAX_ATTEMPTS) {
+            email.futs.forEach(f -> f.completeExceptionally(e));
+
+            return;
+        }
+
+        executor.schedule(() -> {
+            if (!enqueue(email))
+                email.futs.forEach(f -> f.completeExceptionally(e));
+        }, retryDelayMs << (email.attempt - 1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param transport Transport.
+     */
+    private static void closeQuietly(Transport transport) {
+        if (transport == null)
+            return;
+
+        try {
+            transport.close();
+        }
+        catch (MessagingException e) {
+            logger.warn("Failed to close SMTP connection", e);
+        }
+    }
+
+    /**
+     * @param emailConfig Email config.
+     * @return Key of connection settings.
+     */
+    private static String sessionKey(ISendEmailConfig emailConfig) {
+        Boolean authRequired = emailConfig.isAuthRequired();
+        boolean auth = authRequired == null || authRequired;
 
+        return emailConfig.smtpHost() + ":" + emailConfig.smtpPort() + ":" + emailConfig.isSmtpSsl() + ":" + auth
+            + ":" + emailConfig.usernameMandatory()
+            + ":" + (auth ? emailConfig.passwordClearMandatory().hashCode() : 0);
+    }
+
+    /**
+     * @param emailConfig Email config.
+     * @return Cached session for the config.
+     */
+    private Session session(ISendEmailConfig emailConfig) {
+        return sessions.computeIfAbsent(sessionKey(emailConfig), k -> createSession(emailConfig));
+    }
+
+    /**
+     * @param emailConfig Email config.
+     */
+    private static Session createSession(ISendEmailConfig emailConfig) {
         String user = emailConfig.usernameMandatory();
 
         Authenticator authenticator;
@@ -76,26 +391,34 @@ class EmailSender implements IEmailSender {
 
         props.put("mail.smtp.auth", Boolean.toString(auth));
         props.put("mail.smtp.port", smtpPort);
+        props.put("mail.smtp.connectiontimeout", Integer.toString(SMTP_CONNECT_TIMEOUT_MS));
+        props.put("mail.smtp.timeout", Integer.toString(SMTP_READ_TIMEOUT_MS));
 
-        Session ses = Session.getInstance(props, authenticator);
+        return Session.getInstance(props, authenticator);
+    }
 
+    /**
+     * @param ses Session.
+     * @param email Email.
+     */
+    private static MimeMessage message(Session ses, PendingEmail email) throws MessagingException {
         // Create a default MimeMessage object.
         MimeMessage msg = new MimeMessage(ses);
 
         // Set From: header field of the header.
-        msg.setFrom(new InternetAddress(user));
+        msg.setFrom(new InternetAddress(email.cfg.usernameMandatory()));
 
         // Set To: header field of the header.
-        msg.addRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        msg.addRecipient(Message.RecipientType.TO, new InternetAddress(email.to));
 
         // Set Subject: header field
-        msg.setSubject(subject);
+        msg.setSubject(email.subject);
 
         final MimeBodyPart textPart = new MimeBodyPart();
-        textPart.setContent(plainText, "text/plain");
+        textPart.setContent(email.plainText, "text/plain");
         // HTML version
         final MimeBodyPart htmlPart = new MimeBodyPart();
-        htmlPart.setContent(html, "text/html");
+        htmlPart.setContent(email.html, "text/html");
 
         // Create the Multipart.  Add BodyParts to it.
         final Multipart mp = new MimeMultipart("alternative");
@@ -104,9 +427,103 @@ class EmailSender implements IEmailSender {
         // Set Multipart as the message's content
         msg.setContent(mp);
 
-        // Send message
-        Transport.send(msg);
+        msg.saveChanges();
+
+        return msg;
+    }
+
+    /**
+     * Email waiting to be sent.
+     */
+    private static class PendingEmail {
+        /** Connection settings key. */
+        private final String sesKey;
+
+        /** Email config. */
+        private final ISendEmailConfig cfg;
+
+        /** Recipient. */
+        private final String to;
+
+        /** Subject. */
+        private final String subject;
+
+        /** Html. */
+        private final String html;
+
+        /** Plain text. */
+        private final String plainText;
+
+        /** Futures to be completed when email is sent. */
+        private final List<CompletableFuture<Void>> futs = new ArrayList<>();
+
+        /** Failed attempts. */
+        private int attempt;
+
+        /** Caller waits for this email, it is not joined with other emails and not retried. */
+        private boolean sync;
 
-        System.out.println("Sent message successfully to [" + to + "]...");
+        /** Email is joined from several emails, it is not joined again on retry. */
+        private boolean joined;
+
+        /**
+         * @param sesKey Connection settings key.
+         * @param cfg Email config.
+         * @param to Recipient.
+         * @param subject Subject.
+         * @param html Html.
+         * @param plainText Plain text.
+         * @param fut Future, may be null.
+         */
+        PendingEmail(String sesKey, ISendEmailConfig cfg, String to, String subject, String html, String plainText,
+            CompletableFuture<Void> fut) {
+            this.sesKey = sesKey;
+            this.cfg = cfg;
+            this.to = to;
+            this.subject = subject;
+            this.html = html;
+            this.plainText = plainText;
+
+            if (fut != null)
+                futs.add(fut);
+        }
+
+        /**
+         * @param emails Emails to the same recipient, neither synchronous nor joined.
+         * @return One email containing all emails provided, subject of each email is kept as heading of its part.
+         */
+        static PendingEmail join(List<PendingEmail> emails) {
+            if (emails.size() == 1)
+                return emails.get(0);
+
+            PendingEmail first = emails.get(0);
+
+            StringBuilder html = new StringBuilder();
+            StringBuilder plainText = new StringBuilder();
+            int attempt = 0;
+
+            for (PendingEmail email : emails) {
+                if (html.length() > 0) {
+                    html.append("<hr>");
+                    plainText.append("\n\n");
+                }
+
+                html.append("<h3>").append(HtmlEscapers.htmlEscaper().escape(email.subject)).append("</h3>")
+                    .append(email.html);
+                plainText.append(email.subject).append("\n\n").append(email.plainText);
+
+                attempt = Math.max(attempt, email.attempt);
+            }
+
+            PendingEmail res = new PendingEmail(first.sesKey, first.cfg, first.to,
+                first.subject + " (and " + (emails.size() - 1) + " more)", html.toString(), plainText.toString(), null);
+
+            emails.forEach(email -> res.futs.addAll(email.futs));
+
+            res.attempt = attempt;
+            res.joined = true;
+
+            return res;
+        }
     }
 }
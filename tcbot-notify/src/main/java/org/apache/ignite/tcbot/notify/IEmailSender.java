@@ -17,9 +17,18 @@
 
 package org.apache.ignite.tcbot.notify;
 
+import java.util.concurrent.CompletableFuture;
 import javax.mail.MessagingException;
 
 public interface IEmailSender {
     public void sendEmail(String to, String subject, String html, String plainText,
         ISendEmailConfig notifications) throws MessagingException;
+
+    /**
+     * Queues email to be sent, emails queued to the same address may be joined.
+     *
+     * @return Future completed when email is sent or all attempts to send it failed.
+     */
+    public CompletableFuture<Void> sendEmailAsync(String to, String subject, String html, String plainText,
+        ISendEmailConfig notifications);
 }
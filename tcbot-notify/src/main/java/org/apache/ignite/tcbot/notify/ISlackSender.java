@@ -17,6 +17,7 @@
 package org.apache.ignite.tcbot.notify;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  *
@@ -28,4 +29,14 @@ public interface ISlackSender {
      * @param cfg Config with Slack token.
      */
     public void sendMessage(String addr, String msg, ISlackBotConfig cfg) throws IOException;
+
+    /**
+     * Queues message to be sent, messages queued to the same address may be joined.
+     *
+     * @param addr Address, if starts from "#" - channel is notified, otherwise - user
+     * @param msg Message text.
+     * @param cfg Config with Slack token.
+     * @return Future completed when message is sent or all attempts to send it failed.
+     */
+    public CompletableFuture<Void> sendMessageAsync(String addr, String msg, ISlackBotConfig cfg);
 }
@@ -17,7 +17,9 @@
 
 package org.apache.ignite.tcbot.notify;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.ullink.slack.simpleslackapi.SlackChannel;
 import com.ullink.slack.simpleslackapi.SlackMessageHandle;
 import com.ullink.slack.simpleslackapi.SlackSession;
@@ -25,49 +27,388 @@ import com.ullink.slack.simpleslackapi.SlackUser;
 import com.ullink.slack.simpleslackapi.impl.SlackSessionFactory;
 import com.ullink.slack.simpleslackapi.replies.SlackMessageReply;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
 /**
- *
+ * Sends Slack messages through one long-lived session per auth token. Messages are queued per recipient and sent
+ * asynchronously by single thread: messages pending for the same recipient are joined, each recipient gets not more
+ * than one message per {@link #DFLT_MIN_SEND_INTERVAL_MS}, failed sends are retried with exponential backoff.
  */
 public class SlackSender implements ISlackSender {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(SlackSender.class);
+
+    /** Default minimal interval between messages to the same recipient, Slack allows about 1 message per second. */
+    public static final long DFLT_MIN_SEND_INTERVAL_MS = 1100;
+
+    /** Default delay before the first retry, doubled for each next attempt. */
+    public static final long DFLT_RETRY_DELAY_MS = 1000;
+
+    /** Max attempts to send one message. */
+    public static final int MAX_ATTEMPTS = 5;
+
+    /** Max length of text produced by joining pending messages. */
+    public static final int MAX_COALESCED_LENGTH = 3000;
+
+    /** Sessions by auth token. */
+    private final ConcurrentMap<String, Connection> connections = new ConcurrentHashMap<>();
+
+    /** Recipients queues by auth token and address. */
+    private final ConcurrentMap<String, Recipient> recipients = new ConcurrentHashMap<>();
+
+    /** Sending thread. */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("slack-sender-%d").setDaemon(true).build());
+
+    /** Minimal interval between messages to the same recipient. */
+    private final long minSndIntervalMs;
+
+    /** Delay before the first retry. */
+    private final long retryDelayMs;
+
+    /** */
+    public SlackSender() {
+        this(DFLT_MIN_SEND_INTERVAL_MS, DFLT_RETRY_DELAY_MS);
+    }
+
+    /**
+     * @param minSndIntervalMs Minimal interval between messages to the same recipient.
+     * @param retryDelayMs Delay before the first retry.
+     */
+    @VisibleForTesting
+    SlackSender(long minSndIntervalMs, long retryDelayMs) {
+        this.minSndIntervalMs = minSndIntervalMs;
+        this.retryDelayMs = retryDelayMs;
+    }
+
     /** {@inheritDoc} */
     @Override public void sendMessage(String addr, String msg,
         ISlackBotConfig cfg) throws IOException {
+        try {
+            sendMessageAsync(addr, msg, cfg).get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while sending message to [" + addr + "]", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+
+            throw new IOException(cause);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public CompletableFuture<Void> sendMessageAsync(String addr, String msg, ISlackBotConfig cfg) {
         String authTok = cfg.slackAuthToken();
         Preconditions.checkState(!isNullOrEmpty(authTok), "notifications:\"{}\" property should be filled in branches.json");
 
-        SlackSession ses = SlackSessionFactory.createWebSocketSlackSession(authTok);
+        Recipient recipient = recipients.computeIfAbsent(authTok + '\n' + addr, k -> new Recipient(authTok, addr));
+
+        CompletableFuture<Void> fut = new CompletableFuture<>();
+
+        synchronized (recipient) {
+            recipient.pending.add(new PendingMessage(msg, fut));
 
-        ses.connect();
+            if (!recipient.scheduled) {
+                recipient.scheduled = true;
+
+                schedule(recipient, recipient.nextSndTs - System.currentTimeMillis());
+            }
+        }
+
+        return fut;
+    }
+
+    /**
+     * Creates not connected session.
+     *
+     * @param authTok Auth token.
+     */
+    protected SlackSession createSession(String authTok) {
+        return SlackSessionFactory.getSlackSessionBuilder(authTok)
+            .withAutoreconnectOnDisconnection(true)
+            .build();
+    }
+
+    /**
+     * @param recipient Recipient.
+     * @param delayMs Delay.
+     */
+    private void schedule(Recipient recipient, long delayMs) {
+        executor.schedule(() -> sendPending(recipient), Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends pending messages of the recipient joined into one message, reschedules itself if more messages remain.
+     *
+     * @param recipient Recipient.
+     */
+    private void sendPending(Recipient recipient) {
+        List<PendingMessage> batch = new ArrayList<>();
+        int attempt;
+
+        synchronized (recipient) {
+            int len = 0;
+
+            while (!recipient.pending.isEmpty()) {
+                PendingMessage next = recipient.pending.peek();
+
+                if (!batch.isEmpty() && len + 1 + next.msg.length() > MAX_COALESCED_LENGTH)
+                    break;
+
+                batch.add(recipient.pending.poll());
+
+                len += next.msg.length() + (batch.size() > 1 ? 1 : 0);
+            }
+
+            attempt = recipient.attempt;
+        }
+
+        if (batch.isEmpty()) {
+            synchronized (recipient) {
+                recipient.scheduled = false;
+            }
+
+            return;
+        }
+
+        String text = batch.size() == 1 ? batch.get(0).msg : joinMessages(batch);
+
+        Throwable err = null;
+        boolean retry = false;
 
         try {
-            if (addr.startsWith("#")) {
-                String ch = addr.substring(1);
+            send(recipient, text);
+        }
+        catch (RecipientNotFoundException e) {
+            err = e;
+        }
+        catch (Exception e) {
+            logger.warn("Failed to send message to [" + recipient.addr + "], attempt " + (attempt + 1), e);
 
-                SlackChannel slackCh = ses.findChannelByName(ch);
+            invalidate(recipient.authTok);
 
-                if (slackCh == null)
-                    throw new RuntimeException("Failed to find channel [" + addr + "]: Notification not send [" + msg + "]");
+            err = e;
+            retry = attempt + 1 < MAX_ATTEMPTS;
+        }
 
-                SlackMessageHandle<SlackMessageReply> handle = ses.sendMessage(slackCh, msg);
+        synchronized (recipient) {
+            long delayMs;
 
-                System.out.println("Message to channel " + addr + " " + msg + "; acked: " + handle.isAcked());
+            if (retry) {
+                for (int i = batch.size() - 1; i >= 0; i--)
+                    recipient.pending.addFirst(batch.get(i));
+
+                recipient.attempt++;
+
+                delayMs = retryDelayMs << (recipient.attempt - 1);
             }
             else {
-                SlackUser user = ses.findUserByUserName(addr); //make sure bot is a member of the user.
+                recipient.attempt = 0;
+                recipient.nextSndTs = System.currentTimeMillis() + minSndIntervalMs;
 
-                if (user == null)
-                    throw new RuntimeException("Failed to find user [" + addr + "]: Notification not send [" + msg + "]");
+                delayMs = minSndIntervalMs;
+            }
 
-                SlackMessageHandle<SlackMessageReply> handle = ses.sendMessageToUser(user, msg, null);
+            if (recipient.pending.isEmpty())
+                recipient.scheduled = false;
+            else
+                schedule(recipient, delayMs);
+        }
 
-                System.out.println("Message to user " + addr + " " + msg + "; acked: " + handle.isAcked());
+        if (!retry) {
+            for (PendingMessage msg : batch) {
+                if (err == null)
+                    msg.fut.complete(null);
+                else
+                    msg.fut.completeExceptionally(err);
             }
         }
-        finally {
-            ses.disconnect();
+    }
+
+    /**
+     * @param batch Messages.
+     */
+    private static String joinMessages(List<PendingMessage> batch) {
+        StringBuilder sb = new StringBuilder();
+
+        for (PendingMessage msg : batch) {
+            if (sb.length() > 0)
+                sb.append('\n');
+
+            sb.append(msg.msg);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param recipient Recipient.
+     * @param msg Message.
+     */
+    private void send(Recipient recipient, String msg) throws IOException {
+        Connection conn = connection(recipient.authTok);
+        String addr = recipient.addr;
+
+        SlackMessageHandle<SlackMessageReply> handle;
+
+        if (addr.startsWith("#")) {
+            SlackChannel slackCh = conn.channels.computeIfAbsent(addr.substring(1), conn.ses::findChannelByName);
+
+            if (slackCh == null)
+                throw new RecipientNotFoundException("Failed to find channel [" + addr + "]: Notification not send [" + msg + "]");
+
+            handle = conn.ses.sendMessage(slackCh, msg);
+        }
+        else {
+            //make sure bot is a member of the user.
+            SlackUser user = conn.users.computeIfAbsent(addr, conn.ses::findUserByUserName);
+
+            if (user == null)
+                throw new RecipientNotFoundException("Failed to find user [" + addr + "]: Notification not send [" + msg + "]");
+
+            handle = conn.ses.sendMessageToUser(user, msg, null);
+        }
+
+        logger.info("Message to " + addr + " " + msg + "; acked: " + (handle != null && handle.isAcked()));
+    }
+
+    /**
+     * @param authTok Auth token.
+     * @return Connected session for the token, session is created if absent.
+     */
+    private Connection connection(String authTok) throws IOException {
+        Connection conn = connections.computeIfAbsent(authTok, tok -> new Connection(createSession(tok)));
+
+        if (!conn.ses.isConnected())
+            conn.ses.connect();
+
+        return conn;
+    }
+
+    /**
+     * Drops session after failure, next message will be sent using new session.
+     *
+     * @param authTok Auth token.
+     */
+    private void invalidate(String authTok) {
+        Connection conn = connections.remove(authTok);
+
+        if (conn == null)
+            return;
+
+        try {
+            conn.ses.disconnect();
+        }
+        catch (Exception e) {
+            logger.warn("Failed to disconnect Slack session", e);
+        }
+    }
+
+    /**
+     * Slack session with channels and users found by name.
+     */
+    private static class Connection {
+        /** Session. */
+        private final SlackSession ses;
+
+        /** Channels by name. */
+        private final ConcurrentMap<String, SlackChannel> channels = new ConcurrentHashMap<>();
+
+        /** Users by name. */
+        private final ConcurrentMap<String, SlackUser> users = new ConcurrentHashMap<>();
+
+        /**
+         * @param ses Session.
+         */
+        Connection(SlackSession ses) {
+            this.ses = ses;
+        }
+    }
+
+    /**
+     * Messages queue of one address.
+     */
+    private static class Recipient {
+        /** Auth token. */
+        private final String authTok;
+
+        /** Address. */
+        private final String addr;
+
+        /** Pending messages. */
+        private final Deque<PendingMessage> pending = new ArrayDeque<>();
+
+        /** Time next message may be sent. */
+        private long nextSndTs;
+
+        /** Failed attempts to send first pending message. */
+        private int attempt;
+
+        /** Sending is scheduled. */
+        private boolean scheduled;
+
+        /**
+         * @param authTok Auth token.
+         * @param addr Address.
+         */
+        Recipient(String authTok, String addr) {
+            this.authTok = authTok;
+            this.addr = addr;
+        }
+    }
+
+    /**
+     * Message waiting to be sent.
+     */
+    private static class PendingMessage {
+        /** Text. */
+        private final String msg;
+
+        /** Future to be completed when message is sent. */
+        private final CompletableFuture<Void> fut;
+
+        /**
+         * @param msg Text.
+         * @param fut Future.
+         */
+        PendingMessage(String msg, CompletableFuture<Void> fut) {
+            this.msg = msg;
+            this.fut = fut;
+        }
+    }
+
+    /**
+     * Channel or user was not found, sending is not retried.
+     */
+    private static class RecipientNotFoundException extends RuntimeException {
+        /**
+         * @param msg Message.
+         */
+        RecipientNotFoundException(String msg) {
+            super(msg);
         }
     }
 }
@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.notify;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.mail.MessagingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks email sender against local SMTP server.
+ */
+public class EmailSenderTest {
+    /** Server. */
+    private LocalSmtpServer srv;
+
+    /** Executor. */
+    private ScheduledExecutorService executor;
+
+    /** Sender. */
+    private EmailSender snd;
+
+    /** */
+    @Before
+    public void start() throws IOException {
+        srv = new LocalSmtpServer();
+        executor = Executors.newSingleThreadScheduledExecutor();
+        snd = new EmailSender(20, executor);
+    }
+
+    /** */
+    @After
+    public void stop() throws IOException {
+        executor.shutdownNow();
+        srv.close();
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testBatchUsesOneConnectionAndJoinsEmails() throws Exception {
+        // Hold sending thread while emails are queued.
+        CountDownLatch latch = holdSender();
+
+        List<CompletableFuture<Void>> futs = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            String to = "dev" + (i % 5) + "@ignite.apache.org";
+
+            futs.add(snd.sendEmailAsync(to, "Failures " + i, "<b>Failure " + i + "</b>", "Failure " + i, cfg()));
+        }
+
+        latch.countDown();
+
+        CompletableFuture.allOf(futs.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, srv.connections.get());
+        assertEquals(5, srv.messages.size());
+
+        for (int i = 0; i < 20; i++) {
+            String text = "Failure " + i;
+            String heading = "<h3>Failures " + i + "</h3>";
+
+            assertEquals(1, srv.messages.stream().filter(m -> m.contains(text + "\r\n") || m.contains(text + "<")).count());
+            assertEquals(1, srv.messages.stream().filter(m -> m.contains(heading)).count());
+        }
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testJoinedEmailIsNotJoinedAgainOnRetry() throws Exception {
+        CountDownLatch latch = holdSender();
+
+        srv.failures.set(1);
+
+        CompletableFuture<Void> fut1 = snd.sendEmailAsync("dev@ignite.apache.org", "First", "<b>1</b>", "1", cfg());
+        CompletableFuture<Void> fut2 = snd.sendEmailAsync("dev@ignite.apache.org", "Second", "<b>2</b>", "2", cfg());
+
+        latch.countDown();
+
+        CompletableFuture.allOf(fut1, fut2).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, srv.messages.size());
+
+        String msg = srv.messages.get(0);
+
+        assertTrue(msg, msg.contains("Subject: First (and 1 more)\r\n"));
+        assertTrue(msg, msg.contains("<h3>Second</h3>"));
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testSyncEmailFailsOnFirstError() throws Exception {
+        srv.failures.set(Integer.MAX_VALUE);
+
+        try {
+            snd.sendEmail("dev@ignite.apache.org", "Test", "Test", "Test", cfg());
+
+            fail("Exception expected");
+        }
+        catch (MessagingException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Try again later"));
+        }
+
+        assertEquals(1, srv.connections.get());
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testSyncEmailIsNotJoined() throws Exception {
+        CountDownLatch latch = holdSender();
+
+        CompletableFuture<Void> fut = snd.sendEmailAsync("dev@ignite.apache.org", "Failures", "<b>Failure</b>",
+            "Failure", cfg());
+
+        CompletableFuture<Void> syncFut = CompletableFuture.runAsync(() -> {
+            try {
+                snd.sendEmail("dev@ignite.apache.org", "Test", "Test", "Test", cfg());
+            }
+            catch (MessagingException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // Wait for synchronous email to be queued.
+        while (snd.pendingCount() < 2)
+            Thread.sleep(10);
+
+        latch.countDown();
+
+        CompletableFuture.allOf(fut, syncFut).get(30, TimeUnit.SECONDS);
+
+        assertEquals(2, srv.messages.size());
+        assertEquals(1, srv.messages.stream().filter(m -> m.contains("Subject: Test\r\n")).count());
+        assertEquals(1, srv.messages.stream().filter(m -> m.contains("Subject: Failures\r\n")).count());
+    }
+
+    /**
+     * @return Latch holding sending thread until count down.
+     */
+    private CountDownLatch holdSender() {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            try {
+                latch.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        return latch;
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testFailedEmailIsRetriedWithoutBlockingCaller() throws Exception {
+        srv.failures.set(2);
+
+        CompletableFuture<Void> fut = snd.sendEmailAsync("dev@ignite.apache.org", "Failures", "<b>Failure</b>", "Failure",
+            cfg());
+
+        assertFalse(fut.isDone());
+
+        fut.get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, srv.messages.size());
+        assertEquals("Reconnect expected after each failure", 3, srv.connections.get());
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testEmailFailsAfterAllAttempts() throws Exception {
+        srv.failures.set(Integer.MAX_VALUE);
+
+        CompletableFuture<Void> fut = snd.sendEmailAsync("dev@ignite.apache.org", "Failures", "<b>Failure</b>", "Failure",
+            cfg());
+
+        try {
+            fut.get(30, TimeUnit.SECONDS);
+
+            fail("Exception expected");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("Try again later"));
+        }
+
+        assertEquals(EmailSender.MAX_ATTEMPTS, srv.connections.get());
+        assertTrue(srv.messages.isEmpty());
+    }
+
+    /**
+     * @return Config of local server without SSL and authentication.
+     */
+    private ISendEmailConfig cfg() {
+        return new ISendEmailConfig() {
+            @Nonnull @Override public String usernameMandatory() {
+                return "tcbot@ignite.apache.org";
+            }
+
+            @Nonnull @Override public String passwordClearMandatory() {
+                return "";
+            }
+
+            @Nullable @Override public Boolean isAuthRequired() {
+                return false;
+            }
+
+            @Nullable @Override public Boolean isSmtpSsl() {
+                return false;
+            }
+
+            @Nullable @Override public String smtpHost() {
+                return "127.0.0.1";
+            }
+
+            @Nullable @Override public Integer smtpPort() {
+                return srv.port();
+            }
+        };
+    }
+
+    /**
+     * Minimal SMTP server, accepts all messages and stores them in memory.
+     */
+    private static class LocalSmtpServer implements AutoCloseable {
+        /** Server socket. */
+        private final ServerSocket srvSock;
+
+        /** Connections accepted. */
+        private final AtomicInteger connections = new AtomicInteger();
+
+        /** Messages received. */
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        /** Number of messages to be rejected. */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /** */
+        LocalSmtpServer() throws IOException {
+            srvSock = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+            Thread acceptor = new Thread(this::accept, "local-smtp");
+
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        /** */
+        int port() {
+            return srvSock.getLocalPort();
+        }
+
+        /** */
+        private void accept() {
+            while (!srvSock.isClosed()) {
+                try {
+                    Socket sock = srvSock.accept();
+
+                    connections.incrementAndGet();
+
+                    Thread worker = new Thread(() -> serve(sock), "local-smtp-conn");
+
+                    worker.setDaemon(true);
+                    worker.start();
+                }
+                catch (IOException ignored) {
+                    // Server closed.
+                }
+            }
+        }
+
+        /**
+         * @param sock Client socket.
+         */
+        private void serve(Socket sock) {
+            try (Socket s = sock;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+                OutputStream out = s.getOutputStream();
+
+                reply(out, "220 localhost ESMTP");
+
+                String line;
+
+                while ((line = in.readLine()) != null) {
+                    String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+
+                    if ("DATA".equals(cmd)) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+
+                        StringBuilder data = new StringBuilder();
+
+                        while ((line = in.readLine()) != null && !".".equals(line))
+                            data.append(line).append("\r\n");
+
+                        if (failures.getAndDecrement() > 0)
+                            reply(out, "451 Try again later");
+                        else {
+                            messages.add(data.toString());
+
+                            reply(out, "250 OK");
+                        }
+                    }
+                    else if ("QUIT".equals(cmd)) {
+                        reply(out, "221 Bye");
+
+                        return;
+                    }
+                    else
+                        reply(out, "250 OK");
+                }
+            }
+            catch (IOException ignored) {
+                // Client disconnected.
+            }
+        }
+
+        /**
+         * @param out Output.
+         * @param reply Reply line.
+         */
+        private static void reply(OutputStream out, String reply) throws IOException {
+            out.write((reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        /** {@inheritDoc} */
+        @Override public void close() throws IOException {
+            srvSock.close();
+        }
+    }
+}
@@ -25,13 +25,19 @@ import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 
 /**
  * Field is included into bigger entries, so it is placed in backward compatible package.
@@ -43,6 +49,39 @@ public class StringFieldCompacted {
     public static final int FLAG_UNCOMPRESSED = 0;
     public static final int FLAG_SNAPPY = 1;
     public static final int FLAG_GZIP = 2;
+
+    /**
+     * Zlib stream compressed using preset dictionary {@link #DICTIONARY_RESOURCE}, prefixed with uncompressed length in varint format.
+     */
+    public static final int FLAG_DEFLATE_DICT = 3;
+
+    /**
+     * Dictionary for {@link #FLAG_DEFLATE_DICT}, trained on stack traces and test details. Stored values refer to the
+     * dictionary, so it should never be changed: a new dictionary requires a new flag and a new resource.
+     */
+    public static final String DICTIONARY_RESOURCE = "stacktrace-v1.dict";
+
+    /** Values shorter than this are not compressed: codec headers eat the gain. */
+    public static final int MIN_COMPRESS_LEN = 32;
+
+    /**
+     * Values longer than this are compressed using Snappy: dictionary matters only for the first window of a large
+     * value, and Snappy is several times faster than Deflate.
+     */
+    public static final int MAX_DEFLATE_LEN = 256 * 1024;
+
+    /** Max size of the buffer kept by a thread for reuse. */
+    private static final int MAX_POOLED_BUF = 1024 * 1024;
+
+    /** Preset dictionary, {@code null} if it was not loaded. */
+    @Nullable private static final byte[] DICTIONARY = loadDictionary();
+
+    /** Adler-32 of the dictionary, it is written to zlib header and checked on decompression. */
+    private static final int DICTIONARY_ID = DICTIONARY == null ? 0 : adler32(DICTIONARY);
+
+    /** Per thread codecs and buffer. */
+    private static final ThreadLocal<Codecs> CODECS = ThreadLocal.withInitial(Codecs::new);
+
     byte flag;
     byte data[];
 
@@ -78,24 +117,107 @@ public class StringFieldCompacted {
                 return null;
             }
         }
+        else if (flag == FLAG_DEFLATE_DICT) {
+            try {
+                return inflateToString(data);
+            }
+            catch (Exception e) {
+                logger.error("Inflate with dictionary failed: " + e.getMessage(), e);
+                return null;
+            }
+        }
         else
             return null;
     }
 
+    /**
+     * Decompresses GZip data into a buffer of exact size taken from the GZip trailer.
+     *
+     * @param data GZip member.
+     */
     @Nonnull
     public static String unzipToString(byte[] data) throws IOException {
-        final ByteArrayInputStream in = new ByteArrayInputStream(data);
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try (final GZIPInputStream gzi = new GZIPInputStream(in)) {
-            byte[] outbuf = new byte[data.length];
-            int len;
-            while ((len = gzi.read(outbuf, 0, outbuf.length)) != -1)
-                bos.write(outbuf, 0, len);
+        // ISIZE: uncompressed length modulo 2^32, little endian.
+        int len = data.length < 18 ? -1 : (data[data.length - 4] & 0xFF)
+            | (data[data.length - 3] & 0xFF) << 8
+            | (data[data.length - 2] & 0xFF) << 16
+            | (data[data.length - 1] & 0xFF) << 24;
+
+        if (len < 0) {
+            try (final GZIPInputStream gzi = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                return new String(readFully(gzi), StandardCharsets.UTF_8);
+            }
+        }
+
+        byte[] buf = CODECS.get().buffer(len);
+        int off = 0;
+
+        try (final GZIPInputStream gzi = new GZIPInputStream(new ByteArrayInputStream(data), 512)) {
+            int read;
+            while (off < len && (read = gzi.read(buf, off, len - off)) != -1)
+                off += read;
+
+            if (off < len || gzi.read() != -1)
+                throw new IOException("Unexpected GZip content length, expected " + len);
+        }
+
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decompresses {@link #FLAG_DEFLATE_DICT} data into a buffer of exact size.
+     *
+     * @param data Uncompressed length and zlib stream.
+     */
+    @Nonnull
+    public static String inflateToString(byte[] data) throws DataFormatException {
+        int len = 0;
+        int pos = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos++];
+
+            len |= (b & 0x7F) << shift;
+
+            if (b >= 0)
+                break;
+        }
+
+        Codecs codecs = CODECS.get();
+        Inflater inflater = codecs.inflater;
+        byte[] buf = codecs.buffer(len);
+        int off = 0;
+
+        inflater.reset();
+        inflater.setInput(data, pos, data.length - pos);
+
+        while (off < len) {
+            int read = inflater.inflate(buf, off, len - off);
+
+            off += read;
+
+            if (read > 0)
+                continue;
+
+            if (!inflater.needsDictionary())
+                throw new DataFormatException("Unexpected end of stream, expected length " + len + ", found " + off);
+
+            if (DICTIONARY == null || inflater.getAdler() != DICTIONARY_ID)
+                throw new DataFormatException("Unknown dictionary: " + Integer.toHexString(inflater.getAdler()));
+
+            inflater.setDictionary(DICTIONARY);
         }
 
-        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Compresses value using codec selected by value length: short values are stored as is, large values are
+     * compressed with Snappy, others with Deflate using preset dictionary. Compressed data is used only if it is
+     * smaller than the value.
+     *
+     * @param str Value.
+     */
     public void setValue(String str) {
         if (Strings.isNullOrEmpty(str)) {
             this.data = null;
@@ -103,8 +225,6 @@ public class StringFieldCompacted {
         }
 
         byte[] uncompressed;
-        byte[] snappy = null;
-        byte[] gzip = null;
         try {
             uncompressed = str.getBytes(StandardCharsets.UTF_8);
         }
@@ -113,39 +233,75 @@ public class StringFieldCompacted {
             return;
         }
 
-        try {
-            snappy = Snappy.compress(uncompressed);
-        }
-        catch (Exception e) {
-            logger.error("Snappy.compress failed: " + e.getMessage(), e);
-        }
+        flag = FLAG_UNCOMPRESSED;
+        data = uncompressed;
 
-        try {
-            gzip = zipBytes(uncompressed);
+        if (uncompressed.length < MIN_COMPRESS_LEN)
+            return;
+
+        if (uncompressed.length <= MAX_DEFLATE_LEN && DICTIONARY != null) {
+            byte[] deflated = deflateWithDictionary(uncompressed);
+
+            if (deflated != null) {
+                flag = FLAG_DEFLATE_DICT;
+                data = deflated;
+            }
         }
-        catch (Exception e) {
-            logger.error("Snappy.compress failed: " + e.getMessage(), e);
+        else {
+            try {
+                byte[] snappy = Snappy.compress(uncompressed);
+
+                if (snappy.length < uncompressed.length) {
+                    flag = FLAG_SNAPPY;
+                    data = snappy;
+                }
+            }
+            catch (Exception e) {
+                logger.error("Snappy.compress failed: " + e.getMessage(), e);
+            }
         }
 
-        final int snappyLen = snappy != null ? snappy.length : -1;
-        final int gzipLen = gzip != null ? gzip.length : -1;
+        if (logger.isDebugEnabled())
+            logger.debug("U " + uncompressed.length + " C " + data.length + ": F (" + flag + ")");
+    }
 
-        flag = FLAG_UNCOMPRESSED;
-        //uncompressed
-        data = uncompressed;
+    /**
+     * @param uncompressed Uncompressed bytes.
+     * @return Data in {@link #FLAG_DEFLATE_DICT} format or {@code null} if it is not smaller than uncompressed bytes or
+     * the dictionary is not available.
+     */
+    @Nullable
+    public static byte[] deflateWithDictionary(byte[] uncompressed) {
+        if (DICTIONARY == null || uncompressed.length < MIN_COMPRESS_LEN)
+            return null;
 
-        if (snappyLen > 0 && snappyLen < data.length) {
-            flag = FLAG_SNAPPY;
-            data = snappy;
-        }
+        Codecs codecs = CODECS.get();
+        Deflater deflater = codecs.deflater;
+
+        // Output is limited by uncompressed length: incompressible data is detected without completing compression.
+        int limit = uncompressed.length;
+        byte[] buf = codecs.buffer(limit);
+        int off = 0;
+
+        for (int len = uncompressed.length; ; len >>>= 7) {
+            if ((len & ~0x7F) == 0) {
+                buf[off++] = (byte)len;
 
-        if (gzipLen > 0 && gzipLen < data.length) {
-            flag = FLAG_GZIP;
-            data = gzip;
+                break;
+            }
+
+            buf[off++] = (byte)(len & 0x7F | 0x80);
         }
 
-        logger.debug("U " + uncompressed.length + " S " + snappyLen + " Z " + gzipLen + ": F (" +
-            flag + ")");
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(uncompressed);
+        deflater.finish();
+
+        while (!deflater.finished() && off < limit)
+            off += deflater.deflate(buf, off, limit - off);
+
+        return deflater.finished() && off < limit ? Arrays.copyOf(buf, off) : null;
     }
 
     public static byte[] zipBytes(byte[] uncompressed) throws IOException {
@@ -176,4 +332,79 @@ public class StringFieldCompacted {
     public boolean isFilled() {
         return data != null;
     }
+
+    /**
+     * @return Dictionary bytes or {@code null} if the resource is not available.
+     */
+    @Nullable private static byte[] loadDictionary() {
+        try (InputStream is = StringFieldCompacted.class.getResourceAsStream(DICTIONARY_RESOURCE)) {
+            if (is == null) {
+                logger.error("Compression dictionary " + DICTIONARY_RESOURCE + " not found, Snappy will be used");
+
+                return null;
+            }
+
+            return readFully(is);
+        }
+        catch (IOException e) {
+            logger.error("Compression dictionary " + DICTIONARY_RESOURCE + " load failed, Snappy will be used", e);
+
+            return null;
+        }
+    }
+
+    /**
+     * @param is Input stream.
+     */
+    private static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int len;
+
+        while ((len = is.read(buf)) != -1)
+            bos.write(buf, 0, len);
+
+        return bos.toByteArray();
+    }
+
+    /**
+     * @param bytes Bytes.
+     */
+    private static int adler32(byte[] bytes) {
+        Adler32 adler32 = new Adler32();
+
+        adler32.update(bytes, 0, bytes.length);
+
+        return (int)adler32.getValue();
+    }
+
+    /**
+     * Codecs and buffer reused by a thread: Deflater and Inflater allocate native memory on creation.
+     */
+    private static class Codecs {
+        /** Deflater. */
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+        /** Inflater. */
+        private final Inflater inflater = new Inflater();
+
+        /** Buffer. */
+        private byte[] buf = new byte[4096];
+
+        /**
+         * @param size Required size.
+         * @return Buffer of at least required size, buffers larger than {@link #MAX_POOLED_BUF} are not reused.
+         */
+        private byte[] buffer(int size) {
+            if (size <= buf.length)
+                return buf;
+
+            if (size > MAX_POOLED_BUF)
+                return new byte[size];
+
+            buf = new byte[Math.max(size, Math.min(buf.length * 2, MAX_POOLED_BUF))];
+
+            return buf;
+        }
+    }
 }
@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcbot.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.tcbot.common.util.GridIntList;
+
+/**
+ * Cache with keys combined from server ID and entity ID: {@code id | (long)srvId << 32}. Keeps sorted set of
+ * entity IDs for each server, so entries of one server are read by keys instead of scanning whole cache.
+ * <p>
+ * ID sets are rebuilt by a partition-parallel scan of keys in {@link #init()} and are updated by the modification
+ * methods of this class. Modifications done using the underlying cache directly are not tracked, reads skip IDs of
+ * removed entries.
+ *
+ * @param <V> Value type.
+ */
+public class ServerScopedCache<V> {
+    /** Default count of keys requested by one getAll. */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /** Ignite. */
+    private final Ignite ignite;
+
+    /** Cache. */
+    private final IgniteCache<Long, V> cache;
+
+    /** Count of keys requested by one getAll. */
+    private final int chunkSize;
+
+    /** Server ID -> sorted IDs of entries. */
+    private final ConcurrentMap<Integer, IdSet> srvIds = new ConcurrentHashMap<>();
+
+    /**
+     * @param ignite Ignite.
+     * @param cache Cache.
+     */
+    public ServerScopedCache(Ignite ignite, IgniteCache<Long, V> cache) {
+        this(ignite, cache, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param cache Cache.
+     * @param chunkSize Count of keys requested by one getAll.
+     */
+    public ServerScopedCache(Ignite ignite, IgniteCache<Long, V> cache, int chunkSize) {
+        this.ignite = ignite;
+        this.cache = cache;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Rebuilds ID sets using parallel scan of cache partitions.
+     *
+     * @return {@code this} for chaining.
+     */
+    public ServerScopedCache<V> init() {
+        srvIds.clear();
+
+        IgniteCache<Long, Object> binCache = cache.withKeepBinary();
+        int parts = ignite.affinity(cache.getName()).partitions();
+
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            Map<Integer, GridIntList> partIds = new HashMap<>();
+
+            try (QueryCursor<Long> cursor = binCache.query(new ScanQuery<Long, Object>(part), Cache.Entry::getKey)) {
+                for (Long key : cursor)
+                    partIds.computeIfAbsent(srvId(key), k -> new GridIntList()).add(id(key));
+            }
+
+            partIds.forEach((srvId, ids) -> idSet(srvId).addAll(ids.array()));
+        });
+
+        return this;
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @param id Entity ID.
+     * @return Cache key, same as {@code (long)id | (long)srvId << 32} for not negative IDs.
+     */
+    public static long key(int srvId, int id) {
+        return id & 0xFFFFFFFFL | (long)srvId << 32;
+    }
+
+    /**
+     * @param key Cache key.
+     * @return Server ID.
+     */
+    public static int srvId(long key) {
+        return (int)(key >> 32);
+    }
+
+    /**
+     * @param key Cache key.
+     * @return Entity ID.
+     */
+    public static int id(long key) {
+        return (int)key;
+    }
+
+    /**
+     * @return Underlying cache, should be used only for reading.
+     */
+    public IgniteCache<Long, V> cache() {
+        return cache;
+    }
+
+    /**
+     * @param key Cache key.
+     */
+    @Nullable public V get(long key) {
+        return cache.get(key);
+    }
+
+    /**
+     * @param key Cache key.
+     * @param val Value.
+     */
+    public void put(long key, V val) {
+        cache.put(key, val);
+
+        idSet(srvId(key)).add(id(key));
+    }
+
+    /**
+     * @param entries Entries.
+     */
+    public void putAll(Map<Long, ? extends V> entries) {
+        if (entries.isEmpty())
+            return;
+
+        cache.putAll(entries);
+
+        groupBySrv(entries.keySet()).forEach((srvId, ids) -> idSet(srvId).addAll(ids.array()));
+    }
+
+    /**
+     * @param key Cache key.
+     * @return {@code True} if entry was removed.
+     */
+    public boolean remove(long key) {
+        boolean rmv = cache.remove(key);
+
+        IdSet set = srvIds.get(srvId(key));
+
+        if (set != null)
+            set.remove(id(key));
+
+        return rmv;
+    }
+
+    /**
+     * @param keys Cache keys.
+     */
+    public void removeAll(Set<Long> keys) {
+        if (keys.isEmpty())
+            return;
+
+        cache.removeAll(keys);
+
+        groupBySrv(keys).forEach((srvId, ids) -> {
+            IdSet set = srvIds.get(srvId);
+
+            if (set != null)
+                set.removeAll(ids.array());
+        });
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @return Sorted IDs of server entries.
+     */
+    public int[] ids(int srvId) {
+        return idsInRange(srvId, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @param id Exclusive lower bound.
+     * @return Sorted IDs of server entries greater than {@code id}.
+     */
+    public int[] idsGreaterThan(int srvId, int id) {
+        if (id == Integer.MAX_VALUE)
+            return new int[0];
+
+        return idsInRange(srvId, id + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @param from Inclusive lower bound.
+     * @param to Inclusive upper bound.
+     * @return Sorted IDs of server entries in range.
+     */
+    public int[] idsInRange(int srvId, int from, int to) {
+        IdSet set = srvIds.get(srvId);
+
+        return set == null || from > to ? new int[0] : set.range(from, to);
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @return Entries of the server ordered by ID, loaded by chunks.
+     */
+    @Nonnull public Stream<V> values(int srvId) {
+        return getAll(srvId, ids(srvId));
+    }
+
+    /**
+     * @param srvId Server ID.
+     * @param ids Entity IDs.
+     * @return Existing entries in order of {@code ids}, each chunk of IDs is loaded by one getAll when the stream
+     * reaches it.
+     */
+    @Nonnull public Stream<V> getAll(int srvId, int[] ids) {
+        int chunks = (ids.length + chunkSize - 1) / chunkSize;
+
+        return IntStream.range(0, chunks).mapToObj(chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(from + chunkSize, ids.length);
+
+            Set<Long> keys = new HashSet<>();
+
+            for (int i = from; i < to; i++)
+                keys.add(key(srvId, ids[i]));
+
+            Map<Long, V> loaded = cache.getAll(keys);
+            List<V> res = new ArrayList<>(loaded.size());
+
+            for (int i = from; i < to; i++) {
+                V val = loaded.get(key(srvId, ids[i]));
+
+                if (val != null)
+                    res.add(val);
+            }
+
+            return res;
+        }).flatMap(List::stream);
+    }
+
+    /**
+     * @param srvId Server ID.
+     */
+    private IdSet idSet(int srvId) {
+        return srvIds.computeIfAbsent(srvId, k -> new IdSet());
+    }
+
+    /**
+     * @param keys Cache keys.
+     * @return Server ID -> entity IDs.
+     */
+    private static Map<Integer, GridIntList> groupBySrv(Iterable<Long> keys) {
+        Map<Integer, GridIntList> res = new HashMap<>();
+
+        for (Long key : keys)
+            res.computeIfAbsent(srvId(key), k -> new GridIntList()).add(id(key));
+
+        return res;
+    }
+
+    /**
+     * Sorted set of int values stored as bitmaps of 64K values.
+     */
+    static class IdSet {
+        /** Bits of value stored in the bitmap. */
+        private static final int BITMAP_BITS = 16;
+
+        /** Bitmap words. */
+        private static final int BITMAP_WORDS = (1 << BITMAP_BITS) / Long.SIZE;
+
+        /** High bits of value -> bitmap of low bits. */
+        private final TreeMap<Integer, long[]> bitmaps = new TreeMap<>();
+
+        /**
+         * @param val Value.
+         */
+        synchronized void add(int val) {
+            bitmaps.computeIfAbsent(val >> BITMAP_BITS, k -> new long[BITMAP_WORDS])[word(val)] |= bit(val);
+        }
+
+        /**
+         * @param vals Values.
+         */
+        synchronized void addAll(int[] vals) {
+            for (int val : vals)
+                add(val);
+        }
+
+        /**
+         * @param val Value.
+         */
+        synchronized void remove(int val) {
+            long[] bitmap = bitmaps.get(val >> BITMAP_BITS);
+
+            if (bitmap == null)
+                return;
+
+            bitmap[word(val)] &= ~bit(val);
+
+            for (long w : bitmap) {
+                if (w != 0)
+                    return;
+            }
+
+            bitmaps.remove(val >> BITMAP_BITS);
+        }
+
+        /**
+         * @param vals Values.
+         */
+        synchronized void removeAll(int[] vals) {
+            for (int val : vals)
+                remove(val);
+        }
+
+        /**
+         * @param from Inclusive lower bound.
+         * @param to Inclusive upper bound.
+         * @return Sorted values in range.
+         */
+        synchronized int[] range(int from, int to) {
+            GridIntList res = new GridIntList(16);
+
+            bitmaps.subMap(from >> BITMAP_BITS, true, to >> BITMAP_BITS, true).forEach((high, bitmap) -> {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = bitmap[w];
+
+                    while (word != 0) {
+                        int val = high << BITMAP_BITS | w * Long.SIZE + Long.numberOfTrailingZeros(word);
+
+                        if (val >= from && val <= to)
+                            res.add(val);
+
+                        word &= word - 1;
+                    }
+                }
+            });
+
+            return res.array();
+        }
+
+        /**
+         * @param val Value.
+         */
+        private static int word(int val) {
+            return (val & ((1 << BITMAP_BITS) - 1)) >>> 6;
+        }
+
+        /**
+         * @param val Value.
+         */
+        private static long bit(int val) {
+            return 1L << val;
+        }
+    }
+}
@@ -23,7 +23,6 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -32,6 +31,7 @@ import org.apache.ignite.IgniteCache;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
 import org.apache.ignite.tcservice.model.conf.bt.BuildTypeFull;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.ServerScopedCache;
 
 import static org.apache.ignite.tcbot.persistence.CacheConfigs.getCache8PartsConfig;
 
@@ -45,11 +45,35 @@ public class BuildTypeDao {
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
+    /** BuildTypes cache, created on first use. */
+    private volatile ServerScopedCache<BuildTypeCompacted> buildTypes;
+
     /**
      * BuildTypes cache.
      */
     private IgniteCache<Long, BuildTypeCompacted> buildTypesCache() {
-        return ignite.getOrCreateCache(getCache8PartsConfig(TEAMCITY_FAT_BUILD_TYPES_CACHE_NAME));
+        return buildTypes().cache();
+    }
+
+    /**
+     * BuildTypes cache with IDs of buildTypes of each server.
+     */
+    private ServerScopedCache<BuildTypeCompacted> buildTypes() {
+        ServerScopedCache<BuildTypeCompacted> res = buildTypes;
+
+        if (res != null)
+            return res;
+
+        synchronized (this) {
+            if (buildTypes == null) {
+                IgniteCache<Long, BuildTypeCompacted> cache
+                    = ignite.getOrCreateCache(getCache8PartsConfig(TEAMCITY_FAT_BUILD_TYPES_CACHE_NAME));
+
+                buildTypes = new ServerScopedCache<>(ignite, cache).init();
+            }
+
+            return buildTypes;
+        }
     }
 
     /**
@@ -70,7 +94,7 @@ public class BuildTypeDao {
 
 
         if (existingBuildType == null || !existingBuildType.equals(newBuildType)) {
-            buildTypesCache().put(buildTypeIdToCacheKey(srvIdMaskHigh, buildType.getId()), newBuildType);
+            buildTypes().put(buildTypeIdToCacheKey(srvIdMaskHigh, buildType.getId()), newBuildType);
 
             return newBuildType;
         }
@@ -89,7 +113,7 @@ public class BuildTypeDao {
         BuildTypeCompacted buildTypePersisted = buildTypesCache().get(cacheKey);
 
         if (buildTypePersisted == null || !buildTypePersisted.equals(refCompacted)) {
-            buildTypesCache().put(cacheKey, refCompacted);
+            buildTypes().put(cacheKey, refCompacted);
 
             return true;
         }
@@ -179,20 +203,10 @@ public class BuildTypeDao {
 
     /**
      * @param srvIdMaskHigh Server id mask high.
-     * @return All buildTypes for a server, full scan.
+     * @return All buildTypes for a server.
      */
     @Nonnull protected Stream<BuildTypeCompacted> compactedFatBuildTypesStreamForServer(int srvIdMaskHigh) {
-        return StreamSupport.stream(buildTypesCache().spliterator(), false)
-            .filter(entry -> isKeyForServer(entry.getKey(), srvIdMaskHigh))
-            .map(javax.cache.Cache.Entry::getValue);
-    }
-
-    /**
-     * @param key Key.
-     * @param srvIdMaskHigh Server id mask high.
-     */
-    private boolean isKeyForServer(Long key, int srvIdMaskHigh) {
-        return key!=null && key >> 32 == srvIdMaskHigh;
+        return buildTypes().values(srvIdMaskHigh);
     }
 
     /**
@@ -210,7 +224,7 @@ public class BuildTypeDao {
      * @param buildTypeStrId BuildType stringId.
      */
     public static long buildTypeStringIdToCacheKey(int srvIdMaskHigh, int buildTypeStrId) {
-        return (long)buildTypeStrId | (long)srvIdMaskHigh << 32;
+        return ServerScopedCache.key(srvIdMaskHigh, buildTypeStrId);
     }
 
     /**
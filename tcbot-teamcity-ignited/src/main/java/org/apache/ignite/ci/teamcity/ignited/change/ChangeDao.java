@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
@@ -86,6 +87,22 @@ public class ChangeDao {
         return false;
     }
 
+    /**
+     * @param srvId Server id.
+     * @param changes Changes by change id.
+     */
+    @AutoProfiling
+    public void saveAll(int srvId, Map<Integer, ChangeCompacted> changes) {
+        if (changes.isEmpty())
+            return;
+
+        Map<Long, ChangeCompacted> entries = new TreeMap<>();
+
+        changes.forEach((changeId, change) -> entries.put(changeIdToCacheKey(srvId, changeId), change));
+
+        changesCache.putAll(entries);
+    }
+
     public ChangeCompacted load(int srvId, int changeId) {
         return changesCache.get(changeIdToCacheKey(srvId, changeId));
     }
@@ -17,19 +17,27 @@
 package org.apache.ignite.ci.teamcity.ignited.change;
 
 import com.google.common.base.Throwables;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import org.apache.ignite.tcbot.common.exeption.ExceptionUtil;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
-import org.apache.ignite.tcservice.model.changes.Change;
+import org.apache.ignite.tcbot.common.util.FutureUtil;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcservice.ITeamcityConn;
-import org.apache.ignite.tcbot.common.exeption.ExceptionUtil;
+import org.apache.ignite.tcservice.model.changes.Change;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXParseException;
 
-import javax.annotation.Nonnull;
-import javax.inject.Inject;
-import java.io.FileNotFoundException;
-
 public class ChangeSync {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(ChangeSync.class);
@@ -39,6 +47,9 @@ public class ChangeSync {
 
     @Inject private IStringCompactor compactor;
 
+    /** Changes being loaded from TeamCity: cache key -> future for change. */
+    private final ConcurrentMap<Long, CompletableFuture<ChangeCompacted>> inFlight = new ConcurrentHashMap<>();
+
     public ChangeCompacted change(int srvId, int changeId, ITeamcityConn conn) {
         final ChangeCompacted load = changeDao.load(srvId, changeId);
 
@@ -48,6 +59,149 @@ public class ChangeSync {
         return reloadChange(srvId, changeId, conn);
     }
 
+    /**
+     * Batched version of {@link #change(int, int, ITeamcityConn)}.
+     *
+     * @param srvId Server id.
+     * @param changeIds Change ids.
+     * @param conn Connection.
+     * @return Changes by change id.
+     */
+    @AutoProfiling
+    public Map<Integer, ChangeCompacted> changes(int srvId, int[] changeIds, ITeamcityConn conn) {
+        Map<Integer, ChangeCompacted> changes = changeDao.getAll(srvId, changeIds);
+        List<Integer> toReload = new ArrayList<>();
+
+        for (int changeId : changeIds) {
+            ChangeCompacted change = changes.get(changeId);
+
+            if (change == null || change.isOutdatedEntityVersion())
+                toReload.add(changeId);
+        }
+
+        if (!toReload.isEmpty())
+            changes.putAll(loadChanges(srvId, toReload, conn));
+
+        return changes;
+    }
+
+    /**
+     * Loads changes missing or outdated in the DAO from TeamCity by {@link ITeamcityConn#MAX_CHANGES_PER_REQUEST}
+     * changes per request and saves them. If some of the changes are being loaded by another thread, waits for its
+     * result instead of requesting them again.
+     *
+     * @param srvId Server id.
+     * @param changeIds Change ids.
+     * @param conn Connection.
+     * @return Changes by change id.
+     */
+    @AutoProfiling
+    public Map<Integer, ChangeCompacted> loadChanges(int srvId, List<Integer> changeIds, ITeamcityConn conn) {
+        Map<Integer, CompletableFuture<ChangeCompacted>> futs = new LinkedHashMap<>();
+        Map<Integer, CompletableFuture<ChangeCompacted>> ownFuts = new LinkedHashMap<>();
+
+        for (Integer changeId : changeIds) {
+            CompletableFuture<ChangeCompacted> fut = new CompletableFuture<>();
+            CompletableFuture<ChangeCompacted> prev = inFlight.putIfAbsent(cacheKey(srvId, changeId), fut);
+
+            if (prev == null)
+                ownFuts.put(changeId, fut);
+
+            futs.put(changeId, prev == null ? fut : prev);
+        }
+
+        try {
+            if (!ownFuts.isEmpty()) {
+                List<Integer> toLoad = new ArrayList<>();
+
+                // Changes could be saved by a concurrent load completed before futures were registered.
+                Map<Integer, ChangeCompacted> saved
+                    = changeDao.getAll(srvId, ownFuts.keySet().stream().mapToInt(Integer::intValue).toArray());
+
+                ownFuts.forEach((changeId, fut) -> {
+                    ChangeCompacted change = saved.get(changeId);
+
+                    if (change != null && !change.isOutdatedEntityVersion())
+                        fut.complete(change);
+                    else
+                        toLoad.add(changeId);
+                });
+
+                if (!toLoad.isEmpty()) {
+                    requestChanges(srvId, toLoad, conn)
+                        .forEach((changeId, change) -> ownFuts.get(changeId).complete(change));
+                }
+            }
+        }
+        catch (RuntimeException | Error e) {
+            ownFuts.values().forEach(fut -> fut.completeExceptionally(e));
+
+            throw e;
+        }
+        finally {
+            ownFuts.forEach((changeId, fut) -> inFlight.remove(cacheKey(srvId, changeId), fut));
+        }
+
+        Map<Integer, ChangeCompacted> res = new HashMap<>();
+
+        futs.forEach((changeId, fut) -> res.put(changeId, FutureUtil.getResult(fut)));
+
+        return res;
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param changeIds Change ids.
+     * @param conn Connection.
+     * @return Loaded changes by change id.
+     */
+    private Map<Integer, ChangeCompacted> requestChanges(int srvId, List<Integer> changeIds, ITeamcityConn conn) {
+        Map<Integer, ChangeCompacted> res = new HashMap<>();
+
+        for (int i = 0; i < changeIds.size(); i += ITeamcityConn.MAX_CHANGES_PER_REQUEST) {
+            List<Integer> batch = changeIds.subList(i,
+                Math.min(i + ITeamcityConn.MAX_CHANGES_PER_REQUEST, changeIds.size()));
+
+            Map<Integer, ChangeCompacted> loaded = new HashMap<>();
+
+            try {
+                for (Change change : conn.getChanges(batch)) {
+                    ChangeCompacted compacted = new ChangeCompacted(compactor, change);
+
+                    loaded.put(compacted.id(), compacted);
+                }
+            }
+            catch (Exception e) {
+                Throwable cause = Throwables.getRootCause(e);
+
+                if (!(cause instanceof FileNotFoundException) && !(cause instanceof SAXParseException))
+                    throw ExceptionUtil.propagateException(e);
+
+                logger.info("Loading changes " + batch + " for server [" + conn.serverCode() + "] failed, " +
+                    "changes will be loaded one by one: " + e.getMessage(), e);
+            }
+
+            changeDao.saveAll(srvId, loaded);
+
+            // Changes not returned by the batch request are requested separately to save stubs for missing ones.
+            for (Integer changeId : batch) {
+                ChangeCompacted change = loaded.get(changeId);
+
+                res.put(changeId, change != null ? change : reloadChange(srvId, changeId, conn));
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param changeId Change id.
+     */
+    private long cacheKey(int srvId, int changeId) {
+        return changeDao.changeIdToCacheKey(srvId, changeId);
+    }
+
     @Nonnull
     @AutoProfiling
     public ChangeCompacted reloadChange(int srvId, int changeId, ITeamcityConn conn) {
@@ -44,6 +44,7 @@ import org.apache.ignite.tcbot.persistence.IVersionedEntity;
 import org.apache.ignite.tcbot.persistence.Persisted;
 import org.apache.ignite.tcignited.build.ITest;
 import org.apache.ignite.tcignited.build.TestCompactedV2;
+import org.apache.ignite.tcignited.build.TestsBlock;
 import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
 import org.apache.ignite.tcservice.ITeamcity;
 import org.apache.ignite.tcservice.model.conf.BuildType;
@@ -64,9 +65,12 @@ import org.apache.ignite.tcservice.model.vcs.VcsRootInstance;
 
 /**
  * Composed data from {@link Build} and other classes, compressed for storage.
+ * <p>
+ * Tests, parameters and problems of a build are stored separately from its {@link #header()}, builds read from the DB
+ * load these parts on the first access using {@link PartsLoader}.
  */
 @Persisted
-public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEntity {
+public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEntity, Cloneable {
     /** Latest version. */
     public static final short LATEST_VERSION = 6;
 
@@ -116,8 +120,12 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     @SuppressWarnings("unused")
     @Nullable private List<TestCompacted> tests;
 
+    //field is still present for older DB records, replaced by testsBlock on read
     @Nullable private List<ITest> testsV2;
 
+    /** Tests stored in columns. */
+    @Nullable private TestsBlock testsBlock;
+
     @Nullable private int snapshotDeps[];
 
     private BitSet flags = new BitSet();
@@ -135,6 +143,18 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     /** Build parameters compacted, excluding dynamic parameters. */
     @Nullable private ParametersCompacted buildParameters;
 
+    /** Loader of parts stored separately, {@code null} if all parts are in this object. */
+    @Nullable private transient PartsLoader partsLoader;
+
+    /** Tests were loaded using {@link #partsLoader}. */
+    private transient boolean testsLoaded;
+
+    /** Parameters were loaded using {@link #partsLoader}. */
+    private transient boolean parametersLoaded;
+
+    /** Problems were loaded using {@link #partsLoader}. */
+    private transient boolean problemsLoaded;
+
     /** {@inheritDoc} */
     @Override public int version() {
         return _ver;
@@ -288,10 +308,12 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         type.setProjectId(projectId(compactor));
         res.setBuildType(type);
 
-        if (testsV2 != null) {
+        loadTests();
+
+        if (testsBlock != null || testsV2 != null) {
             TestOccurrencesRef testOccurrencesRef = new TestOccurrencesRef();
             testOccurrencesRef.href = "/app/rest/latest/testOccurrences?locator=build:(id:" + id() + ")";
-            testOccurrencesRef.count = testsV2.size();
+            testOccurrencesRef.count = getTestsCount();
             res.testOccurrences = testOccurrencesRef;
         }
 
@@ -353,6 +375,8 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
             }).collect(Collectors.toList()));
         }
 
+        ParametersCompacted buildParameters = parameters();
+
         if (buildParameters != null) {
             List<Property> props = new ArrayList<>();
 
@@ -369,14 +393,16 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
      */
     public FatBuildCompacted addTests(IStringCompactor compactor, List<TestOccurrenceFull> page,
         ILogProductSpecific specific) {
-        for (TestOccurrenceFull next : page) {
-            TestCompactedV2 compacted = new TestCompactedV2(compactor, next, specific);
+        if (page.isEmpty())
+            return this;
 
-            if (testsV2 == null)
-                testsV2 = new ArrayList<>();
+        List<ITest> tests = getAllTests().collect(Collectors.toCollection(ArrayList::new));
 
-            testsV2.add(compacted);
-        }
+        for (TestOccurrenceFull next : page)
+            tests.add(new TestCompactedV2(compactor, next, specific));
+
+        testsBlock = new TestsBlock(tests);
+        testsV2 = null;
 
         return this;
     }
@@ -410,13 +436,14 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
      * @param compactor Compactor.
      */
     public TestOccurrencesFull getTestOcurrences(IStringCompactor compactor) {
-        if (testsV2 == null)
-            return new TestOccurrencesFull();
+        loadTests();
 
-        List<TestOccurrenceFull> res = new ArrayList<>();
+        if (testsBlock == null && testsV2 == null)
+            return new TestOccurrencesFull();
 
-        for (ITest compacted : testsV2)
-            res.add(TestCompactedV2.toTestOccurrence(compacted, compactor, id()));
+        List<TestOccurrenceFull> res = getAllTests()
+            .map(compacted -> TestCompactedV2.toTestOccurrence(compacted, compactor, id()))
+            .collect(Collectors.toList());
 
         TestOccurrencesFull testOccurrences = new TestOccurrencesFull();
 
@@ -444,6 +471,8 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         if (!super.equals(o))
             return false;
         FatBuildCompacted that = (FatBuildCompacted)o;
+        loadParts();
+        that.loadParts();
         return _ver == that._ver &&
             startDate == that.startDate &&
             finishDate == that.finishDate &&
@@ -452,6 +481,7 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
             name == that.name &&
             Objects.equals(tests, that.tests) &&
             Objects.equals(testsV2, that.testsV2) &&
+            Objects.equals(testsBlock, that.testsBlock) &&
             Arrays.equals(snapshotDeps, that.snapshotDeps) &&
             Objects.equals(flags, that.flags) &&
             Objects.equals(problems, that.problems) &&
@@ -464,8 +494,9 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
 
     /** {@inheritDoc} */
     @Override public int hashCode() {
+        loadParts();
         int res = Objects.hash(super.hashCode(), _ver, startDate, finishDate, queuedDate, projectId, name, tests,
-            testsV2, flags, problems, statistics, triggered, buildParameters);
+            testsV2, testsBlock, flags, problems, statistics, triggered, buildParameters);
         res = 31 * res + Arrays.hashCode(snapshotDeps);
         res = 31 * res + Arrays.hashCode(changesIds);
         res = 31 * res + Arrays.hashCode(revisions);
@@ -503,6 +534,11 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     public Stream<ITest> getFailedNotMutedTests(IStringCompactor compactor) {
+        loadTests();
+
+        if (testsBlock != null)
+            return testsBlock.failedNotMutedTests(TestCompactedV2.statusSuccessCid(compactor));
+
         return getAllTests()
                 .filter(t -> t.isFailedButNotMuted(compactor));
     }
@@ -512,6 +548,11 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     public Stream<ITest> getAllTests() {
+        loadTests();
+
+        if (testsBlock != null)
+            return testsBlock.tests();
+
         if (testsV2 != null)
             return testsV2.stream();
 
@@ -522,6 +563,11 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     public int getTestsCount() {
+        loadTests();
+
+        if (testsBlock != null)
+            return testsBlock.size();
+
         if (testsV2 != null)
             return testsV2.size();
 
@@ -549,6 +595,8 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     public List<ProblemOccurrence> problems(IStringCompactor compactor) {
+        loadProblems();
+
         if (this.problems == null)
              return Collections.emptyList();
 
@@ -558,6 +606,8 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     public List<ProblemCompacted> problems() {
+        loadProblems();
+
         if (this.problems == null)
             return Collections.emptyList();
 
@@ -569,6 +619,8 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         if (occurrences.isEmpty())
             return;
 
+        loadProblems();
+
         if (this.problems == null)
             this.problems = new ArrayList<>();
 
@@ -621,6 +673,13 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         return changesIds;
     }
 
+    /**
+     * @return Triggering info, allows to check triggering user without conversion to {@link Build}.
+     */
+    @Nullable public TriggeredCompacted triggered() {
+        return triggered;
+    }
+
     public int[] snapshotDependencies() {
         if (snapshotDeps == null)
             return EMPTY;
@@ -640,6 +699,7 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
             .add("name", name)
             .add("tests", tests)
             .add("testsV2", testsV2)
+            .add("testsBlock", testsBlock)
             .add("snapshotDeps", snapshotDeps)
             .add("flags", flags)
             .add("problems", problems)
@@ -713,10 +773,14 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     @Nullable public ParametersCompacted parameters() {
+        loadParameters();
+
         return buildParameters;
     }
 
     public boolean hasBuildProblemType(int id) {
+        loadProblems();
+
         if (problems == null)
             return false;
 
@@ -729,6 +793,11 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     }
 
     public int totalNotMutedTests() {
+        loadTests();
+
+        if (testsBlock != null)
+            return testsBlock.notMutedTestsCount();
+
         return (int)getAllTests().filter(next -> !next.isMutedTest() && !next.isIgnoredTest()).count();
     }
 
@@ -736,26 +805,160 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         return finishDate;
     }
 
+    /**
+     * Converts tests stored in formats of previous versions to {@link TestsBlock}. Block has its own version, so build
+     * is not reloaded from the server because of the migration.
+     *
+     * @param specific Log product specific.
+     * @return {@code True} if build was changed and should be saved.
+     */
     public boolean migrateTests(ILogProductSpecific specific) {
-        if (tests == null || tests.isEmpty())
-            return false;
+        loadTests();
 
-        if (testsV2 != null)
+        if (testsBlock != null)
             return false;
 
-        testsV2 = tests.stream()
-            .map(t -> new TestCompactedV2().copyFrom(t, specific))
-            .collect(Collectors.toList());
+        if (testsV2 == null) {
+            if (tests == null || tests.isEmpty())
+                return false;
+
+            testsV2 = tests.stream()
+                .map(t -> new TestCompactedV2().copyFrom(t, specific))
+                .collect(Collectors.toList());
+        }
 
-        tests.clear();
+        testsBlock = new TestsBlock(testsV2);
+        testsV2 = null;
         tests = null;
+
         return true;
     }
 
+    /**
+     * @return Tests to be stored separately from the build header. Tests of the oldest format are kept in the header
+     * until {@link #migrateTests(ILogProductSpecific)} is applied.
+     */
+    @Nullable public TestsBlock testsBlock() {
+        loadTests();
+
+        if (testsBlock == null && testsV2 != null)
+            return new TestsBlock(testsV2);
+
+        return testsBlock;
+    }
+
+    /**
+     * @return Problems to be stored separately from the build header.
+     */
+    @Nullable public List<ProblemCompacted> problemsList() {
+        loadProblems();
+
+        return problems;
+    }
+
+    /**
+     * @return Copy of this build to be stored without parts saved separately: tests, parameters and problems.
+     */
+    public FatBuildCompacted header() {
+        FatBuildCompacted hdr;
+
+        try {
+            hdr = (FatBuildCompacted)clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        hdr.testsV2 = null;
+        hdr.testsBlock = null;
+        hdr.buildParameters = null;
+        hdr.problems = null;
+        hdr.partsLoader = null;
+
+        return hdr;
+    }
+
+    /**
+     * @param partsLoader Loader of parts stored separately.
+     */
+    public FatBuildCompacted partsLoader(PartsLoader partsLoader) {
+        this.partsLoader = partsLoader;
+
+        return this;
+    }
+
+    /**
+     * Loads all parts stored separately.
+     */
+    private void loadParts() {
+        loadTests();
+        loadParameters();
+        loadProblems();
+    }
+
+    /**
+     * Loads tests if these are not stored in this object.
+     */
+    private synchronized void loadTests() {
+        if (partsLoader == null || testsLoaded)
+            return;
+
+        if (tests == null && testsV2 == null && testsBlock == null)
+            testsBlock = partsLoader.tests();
+
+        testsLoaded = true;
+    }
+
+    /**
+     * Loads parameters if these are not stored in this object.
+     */
+    private synchronized void loadParameters() {
+        if (partsLoader == null || parametersLoaded)
+            return;
+
+        if (buildParameters == null)
+            buildParameters = partsLoader.parameters();
+
+        parametersLoaded = true;
+    }
+
+    /**
+     * Loads problems if these are not stored in this object.
+     */
+    private synchronized void loadProblems() {
+        if (partsLoader == null || problemsLoaded)
+            return;
+
+        if (problems == null)
+            problems = partsLoader.problems();
+
+        problemsLoaded = true;
+    }
+
     void oldTestsFmtAdd(TestCompacted  compacted) {
         if ( tests == null)
              tests = new ArrayList<>();
 
         tests.add(compacted);
     }
+
+    /**
+     * Loader of build parts stored separately from the build header.
+     */
+    public interface PartsLoader {
+        /**
+         * @return Tests or {@code null} if build has no tests.
+         */
+        @Nullable TestsBlock tests();
+
+        /**
+         * @return Parameters or {@code null} if build has no parameters.
+         */
+        @Nullable ParametersCompacted parameters();
+
+        /**
+         * @return Problems or {@code null} if build has no problems.
+         */
+        @Nullable List<ProblemCompacted> problems();
+    }
 }
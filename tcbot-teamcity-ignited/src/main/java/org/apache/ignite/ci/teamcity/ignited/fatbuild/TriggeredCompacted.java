@@ -18,6 +18,8 @@ package org.apache.ignite.ci.teamcity.ignited.fatbuild;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import javax.annotation.Nullable;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
 
 /**
  * Triggered build information type/date/user
@@ -44,6 +46,25 @@ public class TriggeredCompacted {
      */
     public int buildId;
 
+    /**
+     * @param compactor Compactor.
+     * @return Type of triggering.
+     */
+    @Nullable public String type(IStringCompactor compactor) {
+        return compactor.getStringFromId(type);
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @return Username of triggering user or {@code null} if build was not triggered by user, e.g. by VCS trigger.
+     */
+    @Nullable public String username(IStringCompactor compactor) {
+        if (userId <= 0)
+            return null;
+
+        return compactor.getStringFromId(userUsername);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
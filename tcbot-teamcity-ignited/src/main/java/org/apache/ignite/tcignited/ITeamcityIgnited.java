@@ -33,10 +33,13 @@ import org.apache.ignite.ci.teamcity.ignited.buildtype.BuildTypeRefCompacted;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
 import org.apache.ignite.ci.teamcity.ignited.change.RevisionCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TriggeredCompacted;
 import org.apache.ignite.internal.util.typedef.T2;
 import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
+import org.apache.ignite.tcignited.build.LrTestsSuiteStat;
 import org.apache.ignite.tcignited.history.IRunHistory;
 import org.apache.ignite.tcignited.history.ISuiteRunHistory;
+import org.apache.ignite.tcignited.mute.MuteSnapshot;
 import org.apache.ignite.tcservice.model.agent.Agent;
 import org.apache.ignite.tcservice.model.mute.MuteInfo;
 import org.apache.ignite.tcservice.model.result.Build;
@@ -71,6 +74,33 @@ public interface ITeamcityIgnited {
             @Nullable String buildTypeId,
             @Nullable String branchName);
 
+    /**
+     * Batched version of {@link #getAllBuildsCompacted(String, String)} for several branches of the same suite.
+     *
+     * @param buildTypeId Build type identifier.
+     * @param branchNames Branch names.
+     * @return Map from requested branch name to its builds, branches without builds are not included.
+     */
+    public Map<String, List<BuildRefCompacted>> getBuildsForBranches(
+            @Nullable String buildTypeId,
+            Collection<String> branchNames);
+
+    /**
+     * Return all builds for branch and its equivalents, for all suites. Result filtered by suite is the same list as
+     * {@link #getAllBuildsCompacted(String, String)} returns.
+     *
+     * @param branchName Branch name.
+     * @return list of builds in history, includes all statuses: queued, running, etc
+     */
+    public List<BuildRefCompacted> getAllBuildsForBranch(@Nullable String branchName);
+
+    /**
+     * @param branchNames Branch names.
+     * @return Update counters of builds in the branches and its equivalents: branch name ID from compactor -> counter.
+     * Changed value (or new branch name ID) means builds of branches were changed.
+     */
+    public Map<Integer, Integer> getBranchUpdateCounters(Collection<String> branchNames);
+
     /**
      * Return queued and running builds for branch and suite, without relation to its status.
      *
@@ -86,12 +116,19 @@ public interface ITeamcityIgnited {
     public Set<MuteInfo> getMutes(String projectId);
 
     /**
-     * Return all builds for branch and suite with finish status.
+     * @param projectId Project id.
+     * @return Immutable snapshot of mutes for associated server and given project pair.
+     */
+    public MuteSnapshot getMutesSnapshot(String projectId);
+
+    /**
+     * Return all builds for branch and suite with finish status. If date range is specified, builds are found by start
+     * date using index of saved builds.
      *
      * @param buildTypeId Build type identifier.
      * @param branchName Branch name.
-     * @param sinceDate Since date.
-     * @param untilDate Until date.
+     * @param sinceDate Since date, inclusive.
+     * @param untilDate Until date, inclusive.
      * @return list of builds in history in finish status.
      */
     public List<BuildRefCompacted> getFinishedBuildsCompacted(
@@ -274,5 +311,33 @@ public interface ITeamcityIgnited {
 
     public Long getBuildStartTime(int buildId);
 
+    /**
+     * Provides triggering info for builds saved in the DB without loading whole builds. Triggering info does not
+     * change after build was queued, so queued and running builds are not reloaded from TC.
+     *
+     * @param buildIds Build IDs.
+     * @return Map from build ID to triggering info. Builds not saved in DB or saved without this info are skipped.
+     */
+    public Map<Integer, TriggeredCompacted> getTriggered(Collection<Integer> buildIds);
+
+    /**
+     * Provides long running tests of finished builds saved in the DB without loading whole builds.
+     *
+     * @param buildIds Build IDs.
+     * @return Map from build ID to long running tests of recent builds of the same suite and branch, including this
+     * build. Builds not registered in long running tests index are skipped.
+     */
+    public Map<Integer, LrTestsSuiteStat> getLongRunningTests(Collection<Integer> buildIds);
+
+    /**
+     * Provides actual state and status of several builds in one lookup. Finished builds are taken from build
+     * references saved in the DB, queued and running builds (or builds not saved yet) are actualized as for
+     * {@link #getFatBuild(int)}.
+     *
+     * @param buildIds Build IDs.
+     * @return Map from build ID to build reference, fake stub is returned for builds not existing in TC.
+     */
+    public Map<Integer, BuildRefCompacted> getBuildRefs(Collection<Integer> buildIds);
+
     public Integer getBorderForAgeForBuildId(int days);
 }
@@ -17,12 +17,13 @@
 package org.apache.ignite.tcignited;
 
 import java.io.File;
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -30,7 +31,6 @@ import java.util.Objects;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -48,6 +48,7 @@ import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeDao;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeSync;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TriggeredCompacted;
 import org.apache.ignite.internal.util.typedef.T2;
 import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
@@ -56,7 +57,9 @@ import org.apache.ignite.tcbot.common.interceptor.MonitoredTask;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.tcbot.persistence.scheduler.IScheduler;
 import org.apache.ignite.tcignited.build.FatBuildDao;
+import org.apache.ignite.tcignited.build.LrTestsSuiteStat;
 import org.apache.ignite.tcignited.build.ProactiveFatBuildSync;
+import org.apache.ignite.tcignited.build.UpdateCountersStorage;
 import org.apache.ignite.tcignited.buildlog.BuildLogCheckResultDao;
 import org.apache.ignite.tcignited.buildref.BranchEquivalence;
 import org.apache.ignite.tcignited.buildref.BuildRefDao;
@@ -67,6 +70,7 @@ import org.apache.ignite.tcignited.history.IRunHistory;
 import org.apache.ignite.tcignited.history.ISuiteRunHistory;
 import org.apache.ignite.tcignited.history.SuiteInvocationHistoryDao;
 import org.apache.ignite.tcignited.mute.MuteDao;
+import org.apache.ignite.tcignited.mute.MuteSnapshot;
 import org.apache.ignite.tcignited.mute.MuteSync;
 import org.apache.ignite.tcservice.ITeamcityConn;
 import org.apache.ignite.tcservice.model.agent.Agent;
@@ -154,6 +158,9 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
 
     @Inject private BranchEquivalence branchEquivalence;
 
+    /** Update Counters for branch-related changes storage. */
+    @Inject private UpdateCountersStorage countersStorage;
+
     /** Server ID mask for cache Entries. */
     private int srvIdMaskHigh;
 
@@ -194,164 +201,47 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
     }
 
     /** {@inheritDoc} */
+    @AutoProfiling
     @Override public List<BuildRefCompacted> getFinishedBuildsCompacted(
         @Nullable String buildTypeId,
         @Nullable String branchName,
         @Nullable Date sinceDate,
         @Nullable Date untilDate) {
-        final int allDatesOutOfBounds = -1;
-        final int someDatesOutOfBounds = -2;
-        final int invalidVal = -3;
         final int unknownStatus = compactor.getStringId(STATUS_UNKNOWN);
 
-        Integer minBuildId;
-        if (sinceDate != null) {
-            int ageDays = (int)Duration.ofMillis(System.currentTimeMillis() - sinceDate.getTime()).toDays();
-            minBuildId = buildStartTimeStorage.getBorderForAgeForBuildId(srvIdMaskHigh, ageDays + 1);
-        }
-        else
-            minBuildId = null;
+        Stream<BuildRefCompacted> builds;
 
-        List<BuildRefCompacted> buildRefs = getAllBuildsCompacted(buildTypeId, branchName)
-            .stream()
-            .filter(b -> b.isFinished(compactor))
-            .filter(b -> b.status() != unknownStatus) //check build is not cancelled
-            .filter(buildRefCompacted -> minBuildId == null || buildRefCompacted.id() > minBuildId)
-            .sorted(Comparator.comparing(BuildRefCompacted::id))
-            .collect(Collectors.toList());
+        if (sinceDate == null && untilDate == null)
+            builds = getAllBuildsCompacted(buildTypeId, branchName).stream();
+        else {
+            ensureActualizeRequested();
 
-        if (buildRefs.isEmpty())
-            return Collections.emptyList();
+            Integer buildTypeIdId = compactor.getStringIdIfPresent(buildTypeId);
+            if (buildTypeIdId == null)
+                return Collections.emptyList();
 
-        int idSince = 0;
-        int idUntil = buildRefs.size() - 1;
+            Set<Integer> branchNameIds = branchEquivalence.branchIdsForQuery(branchName, compactor);
 
-        if (sinceDate != null) {
-            idSince = binarySearchDate(buildRefs, 0, buildRefs.size(), sinceDate, true);
-            idSince = (idSince == someDatesOutOfBounds) ? 0 : idSince;
-        }
+            if (branchNameIds.isEmpty())
+                return Collections.emptyList();
 
-        if (untilDate != null) {
-            idUntil = (idSince < 0) ? allDatesOutOfBounds :
-                binarySearchDate(buildRefs, idSince, buildRefs.size(), untilDate, false);
-            idUntil = (idUntil == someDatesOutOfBounds) ? buildRefs.size() - 1 : idUntil;
-        }
+            int[] ids = fatBuildDao.getBuildIdsStartedBetween(srvIdMaskHigh, buildTypeIdId, branchNameIds,
+                sinceDate == null ? Long.MIN_VALUE : sinceDate.getTime(),
+                untilDate == null ? Long.MAX_VALUE : untilDate.getTime());
 
-        if (idSince == invalidVal || idUntil == invalidVal) {
-            AtomicBoolean stopFilter = new AtomicBoolean();
-            AtomicBoolean addBuild = new AtomicBoolean();
-
-            return buildRefs.stream()
-                .filter(b -> {
-                    if (stopFilter.get())
-                        return addBuild.get();
-
-                    Date date = getBuildStartDate(b.id());
-
-                    if (date == null)
-                        return false;
-
-                    if (sinceDate != null && untilDate != null)
-                        if ((date.after(sinceDate) || date.equals(sinceDate)) &&
-                            (date.before(untilDate) || date.equals(untilDate)))
-                            return true;
-                        else {
-                            if (date.after(untilDate)) {
-                                stopFilter.set(true);
-                                addBuild.set(false);
-                            }
-
-                            return false;
-                        }
-                    else if (sinceDate != null) {
-                        if (date.after(sinceDate) || date.equals(sinceDate)) {
-                            stopFilter.set(true);
-                            addBuild.set(true);
-
-                            return true;
-                        }
-
-                        return false;
-                    }
-                    else {
-                        if (date.after(untilDate)) {
-                            stopFilter.set(true);
-                            addBuild.set(false);
-
-                            return false;
-                        }
-
-                        return true;
-                    }
-                })
-                .collect(Collectors.toList());
-        } else if (idSince == allDatesOutOfBounds || idUntil == allDatesOutOfBounds)
-            return Collections.emptyList();
-        else
-            return buildRefs.subList(idSince, idUntil + 1);
-    }
+            if (ids.length == 0)
+                return Collections.emptyList();
 
-    /**
-     * @param buildRefs Build refs list.
-     * @param fromIdx From index.
-     * @param toIdx To index.
-     * @param key Key.
-     * @param since {@code true} If key is sinceDate, {@code false} is untilDate.
-     *
-     * @return {@value >= 0} Build id from list with min interval between key. If since {@code true}, min interval
-     * between key and same day or later. If since {@code false}, min interval between key and same day or earlier;
-     * {@value -1} All dates out of bounds. If sinceDate after last list element date or untilDate before first list
-     * element;
-     * {@value -2} Some dates out of bounds. If sinceDate before first list element or untilDate after last list
-     * element;
-     * {@value -3} Invalid value. If method get null or fake stub build.
-     */
-    private int binarySearchDate(List<BuildRefCompacted> buildRefs, int fromIdx, int toIdx, Date key, boolean since) {
-        final int allDatesOutOfBounds = -1;
-        final int someDatesOutOfBounds = -2;
-        final int invalidVal = -3;
-
-        int low = fromIdx;
-        int high = toIdx - 1;
-        long minDiff = key.getTime();
-        int minDiffId = since ? low : high;
-        long temp;
-
-        Date highBuildStartDate = getBuildStartDate(buildRefs.get(high).id());
-        Date lowBuildStartDate = getBuildStartDate(buildRefs.get(low).id());
-
-        if (highBuildStartDate != null) {
-            if (highBuildStartDate.before(key))
-                return since ? allDatesOutOfBounds : someDatesOutOfBounds;
-        }
+            List<Integer> idsList = Arrays.stream(ids).boxed().collect(Collectors.toList());
 
-        if (lowBuildStartDate != null) {
-            if (lowBuildStartDate.after(key))
-                return since ? someDatesOutOfBounds : allDatesOutOfBounds;
+            builds = buildRefDao.getAll(srvIdMaskHigh, idsList).values().stream();
         }
 
-        while (low <= high) {
-            int mid = (low + high) >>> 1;
-            Date midValStartDate = getBuildStartDate(buildRefs.get(mid).id());
-
-            if (midValStartDate != null) {
-                if (midValStartDate.after(key))
-                    high = mid - 1;
-                else if (midValStartDate.before(key))
-                    low = mid + 1;
-                else
-                    return mid;
-
-                temp = midValStartDate.getTime() - key.getTime();
-
-                if ((temp > 0 == since) && (Math.abs(temp) < minDiff)) {
-                    minDiff = Math.abs(temp);
-                    minDiffId = mid;
-                }
-            } else
-                return invalidVal;
-        }
-        return minDiffId;
+        return builds
+            .filter(b -> b.isFinished(compactor))
+            .filter(b -> b.status() != unknownStatus) //check build is not cancelled
+            .sorted(Comparator.comparing(BuildRefCompacted::id))
+            .collect(Collectors.toList());
     }
 
     /** {@inheritDoc} */
@@ -373,6 +263,75 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
         return buildRefDao.getAllBuildsCompacted(srvIdMaskHigh, buildTypeIdId, branchNameIds);
     }
 
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public Map<String, List<BuildRefCompacted>> getBuildsForBranches(
+            @Nullable String buildTypeId,
+            Collection<String> branchNames) {
+        ensureActualizeRequested();
+
+        Integer buildTypeIdId = compactor.getStringIdIfPresent(buildTypeId);
+        if (buildTypeIdId == null)
+            return Collections.emptyMap();
+
+        Map<String, Set<Integer>> branchNameIds = new HashMap<>();
+        Set<Integer> allBranchNameIds = new HashSet<>();
+
+        for (String branchName : branchNames) {
+            Set<Integer> ids = branchEquivalence.branchIdsForQuery(branchName, compactor);
+
+            if (ids.isEmpty())
+                continue;
+
+            branchNameIds.put(branchName, ids);
+            allBranchNameIds.addAll(ids);
+        }
+
+        Map<Integer, List<BuildRefCompacted>> buildsByBranch
+            = buildRefDao.getBuildsForBranches(srvIdMaskHigh, buildTypeIdId, allBranchNameIds);
+
+        Map<String, List<BuildRefCompacted>> res = new HashMap<>();
+
+        branchNameIds.forEach((branchName, ids) -> {
+            List<BuildRefCompacted> builds = new ArrayList<>();
+
+            for (Integer id : ids)
+                builds.addAll(buildsByBranch.getOrDefault(id, Collections.emptyList()));
+
+            if (!builds.isEmpty())
+                res.put(branchName, builds);
+        });
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public List<BuildRefCompacted> getAllBuildsForBranch(@Nullable String branchName) {
+        ensureActualizeRequested();
+
+        List<BuildRefCompacted> res = new ArrayList<>();
+
+        for (Integer branchNameId : branchEquivalence.branchIdsForQuery(branchName, compactor))
+            res.addAll(buildRefDao.getBuildsForBranch(srvIdMaskHigh, branchNameId));
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<Integer, Integer> getBranchUpdateCounters(Collection<String> branchNames) {
+        ensureActualizeRequested();
+
+        Map<Integer, Integer> res = new HashMap<>();
+
+        for (String branchName : branchNames) {
+            for (Integer id : branchEquivalence.branchIdsForQuery(branchName, compactor))
+                res.put(id, countersStorage.getIntegerForEntry(id).get());
+        }
+
+        return res;
+    }
+
     /** {@inheritDoc} */
     @AutoProfiling
     @Override public List<BuildRefCompacted> getQueuedAndRunningBuildsCompacted(
@@ -409,9 +368,14 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
 
     /** {@inheritDoc} */
     @Override public Set<MuteInfo> getMutes(String projectId) {
+        return getMutesSnapshot(projectId).mutes();
+    }
+
+    /** {@inheritDoc} */
+    @Override public MuteSnapshot getMutesSnapshot(String projectId) {
         muteSync.ensureActualizeMutes(taskName("actualizeMutes"), projectId, srvIdMaskHigh, conn);
 
-        return muteDao.getMutes(srvIdMaskHigh);
+        return muteSync.snapshot(projectId, srvIdMaskHigh);
     }
 
 
@@ -596,6 +560,43 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
         return histCollector.getBuildStartTime(srvIdMaskHigh, buildId);
     }
 
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public Map<Integer, TriggeredCompacted> getTriggered(Collection<Integer> buildIds) {
+        ensureActualizeRequested();
+
+        return fatBuildDao.getTriggered(srvIdMaskHigh, buildIds);
+    }
+
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public Map<Integer, LrTestsSuiteStat> getLongRunningTests(Collection<Integer> buildIds) {
+        ensureActualizeRequested();
+
+        return fatBuildDao.getLongRunningTests(srvIdMaskHigh, buildRefDao.getAll(srvIdMaskHigh, buildIds).values());
+    }
+
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public Map<Integer, BuildRefCompacted> getBuildRefs(Collection<Integer> buildIds) {
+        ensureActualizeRequested();
+
+        Map<Integer, BuildRefCompacted> refs = buildRefDao.getAll(srvIdMaskHigh, buildIds);
+
+        Map<Integer, BuildRefCompacted> res = new HashMap<>();
+
+        for (Integer id : buildIds) {
+            BuildRefCompacted ref = refs.get(id);
+
+            if (ref == null || !ref.isFinished(compactor))
+                ref = getFatBuild(id, SyncMode.RELOAD_QUEUED);
+
+            res.put(id, ref);
+        }
+
+        return res;
+    }
+
     /** {@inheritDoc} */
     @Override public Integer getBorderForAgeForBuildId(int days) {
         return buildStartTimeStorage.getBorderForAgeForBuildId(srvIdMaskHigh, days);
@@ -633,15 +634,16 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
     @AutoProfiling
     @Override public Collection<ChangeCompacted> getAllChanges(int[] changeIds) {
         final Map<Integer, ChangeCompacted> changes = changesDao.getAll(srvIdMaskHigh, changeIds);
+        final List<Integer> missing = new ArrayList<>();
 
         for (int changeId : changeIds) {
-            if (!changes.containsKey(changeId)) {
-                final ChangeCompacted change = changeSync.reloadChange(srvIdMaskHigh, changeId, conn);
-
-                changes.put(changeId, change);
-            }
+            if (!changes.containsKey(changeId))
+                missing.add(changeId);
         }
 
+        if (!missing.isEmpty())
+            changes.putAll(changeSync.loadChanges(srvIdMaskHigh, missing, conn));
+
         return changes.values();
     }
 
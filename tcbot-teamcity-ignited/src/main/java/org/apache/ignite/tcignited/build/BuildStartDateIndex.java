@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.cache.Cache;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.tcbot.persistence.CacheConfigs;
+import org.apache.ignite.tcignited.buildref.BuildRefDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of fat builds by start date. Entry key is server ID (high 32 bits) and the day build was started (low 32 bits),
+ * value is sorted array of build IDs. Allows finding old builds without scanning and deserializing fat builds.
+ */
+public class BuildStartDateIndex {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(BuildStartDateIndex.class);
+
+    /** Cache name. */
+    public static final String BUILD_START_DATE_IDX_CACHE_NAME = "teamcityBuildStartDateIdx";
+
+    /** Millis in day. */
+    private static final long MILLIS_IN_DAY = Duration.ofDays(1).toMillis();
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Day buckets cache. */
+    private IgniteCache<Long, int[]> idxCache;
+
+    /**
+     *
+     */
+    public BuildStartDateIndex init() {
+        idxCache = indexCache(igniteProvider.get());
+
+        return this;
+    }
+
+    /**
+     * @param ignite Ignite.
+     */
+    public static IgniteCache<Long, int[]> indexCache(Ignite ignite) {
+        return ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(BUILD_START_DATE_IDX_CACHE_NAME));
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param startDate Build start timestamp.
+     */
+    public static long bucketKey(int srvId, long startDate) {
+        return startDate / MILLIS_IN_DAY | (long)srvId << 32;
+    }
+
+    /**
+     * @param bucketKey Bucket key.
+     * @return Server id mask high.
+     */
+    public static int bucketKeyToSrvId(long bucketKey) {
+        return (int)(bucketKey >> 32);
+    }
+
+    /**
+     * @param bucketKey Bucket key.
+     * @return Timestamp of the bucket's day end (exclusive).
+     */
+    public static long bucketKeyToDayEnd(long bucketKey) {
+        return ((bucketKey & 0xFFFFFFFFL) + 1) * MILLIS_IN_DAY;
+    }
+
+    /**
+     * Registers build in the index, builds which were not started yet are ignored.
+     *
+     * @param srvId Server id mask high.
+     * @param buildId Build id.
+     * @param startDate Build start timestamp.
+     */
+    public void add(int srvId, int buildId, long startDate) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        if (startDate <= 0)
+            return;
+
+        idxCache.invoke(bucketKey(srvId, startDate), new AddBuildsProcessor(new int[] {buildId}));
+    }
+
+    /**
+     * Finds builds of all servers, which were started at days fully before threshold, oldest days go first.
+     *
+     * @param thresholdDate Threshold timestamp.
+     * @param limit Maximum number of builds to return, the last day returned may be included partially.
+     * @return Bucket key to build IDs started that day.
+     */
+    public Map<Long, int[]> oldBuilds(long thresholdDate, int limit) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        ScanQuery<Long, int[]> scan = new ScanQuery<>((key, ids) -> bucketKeyToDayEnd(key) <= thresholdDate);
+
+        TreeMap<Long, List<Long>> bucketsByDay = new TreeMap<>();
+
+        try (QueryCursor<Long> cursor = idxCache.query(scan, Cache.Entry::getKey)) {
+            for (Long key : cursor)
+                bucketsByDay.computeIfAbsent(key & 0xFFFFFFFFL, k -> new ArrayList<>()).add(key);
+        }
+
+        Map<Long, int[]> res = new HashMap<>();
+        int cnt = 0;
+
+        for (List<Long> dayBuckets : bucketsByDay.values()) {
+            if (cnt >= limit)
+                break;
+
+            for (Map.Entry<Long, int[]> e : idxCache.getAll(new HashSet<>(dayBuckets)).entrySet()) {
+                if (cnt >= limit)
+                    break;
+
+                int[] ids = e.getValue();
+
+                if (cnt + ids.length > limit)
+                    ids = Arrays.copyOf(ids, limit - cnt);
+
+                res.put(e.getKey(), ids);
+
+                cnt += ids.length;
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Removes builds from the index, empty buckets are removed.
+     *
+     * @param removed Bucket key to IDs of builds removed.
+     */
+    public void removeAll(Map<Long, int[]> removed) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        Map<Long, RemoveBuildsProcessor> processors = new HashMap<>();
+
+        removed.forEach((key, ids) -> {
+            if (ids.length > 0)
+                processors.put(key, new RemoveBuildsProcessor(ids));
+        });
+
+        if (!processors.isEmpty())
+            idxCache.invokeAll(processors);
+    }
+
+    /**
+     * Fills index for builds already saved, partition by partition, reading only build start date.
+     *
+     * @param ignite Ignite.
+     * @return Number of builds indexed.
+     */
+    public static long fill(Ignite ignite) {
+        if (ignite.cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME) == null)
+            return 0;
+
+        int parts = ignite.affinity(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).partitions();
+        long cnt = 0;
+
+        for (int p = 0; p < parts; p++) {
+            cnt += fillPartition(ignite, p);
+
+            logger.info("Build start date index: partition " + p + " of " + parts + " processed, " +
+                cnt + " builds indexed");
+        }
+
+        return cnt;
+    }
+
+    /**
+     * Fills index for builds of one partition of fat builds cache. Partitions may be filled concurrently and
+     * repeatedly.
+     *
+     * @param ignite Ignite.
+     * @param part Partition of fat builds cache.
+     * @return Number of builds indexed.
+     */
+    public static long fillPartition(Ignite ignite, int part) {
+        IgniteCache<Long, BinaryObject> builds
+            = ignite.<Long, BinaryObject>cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).withKeepBinary();
+
+        IgniteCache<Long, int[]> idx = indexCache(ignite);
+
+        ScanQuery<Long, BinaryObject> scan = new ScanQuery<Long, BinaryObject>().setPartition(part);
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+
+        try (QueryCursor<long[]> cursor = builds.query(scan, e -> {
+            Long startDate = e.getValue().field("startDate");
+
+            return new long[] {e.getKey(), startDate == null ? 0 : startDate};
+        })) {
+            for (long[] keyAndStart : cursor) {
+                if (keyAndStart[1] <= 0)
+                    continue;
+
+                int srvId = (int)(keyAndStart[0] >> 32);
+
+                buckets.computeIfAbsent(bucketKey(srvId, keyAndStart[1]), k -> new ArrayList<>())
+                    .add(BuildRefDao.cacheKeyToBuildId(keyAndStart[0]));
+            }
+        }
+
+        // Sorted keys: concurrent fills of partitions lock buckets in the same order.
+        Map<Long, AddBuildsProcessor> processors = new TreeMap<>();
+
+        buckets.forEach((key, ids) -> processors.put(key,
+            new AddBuildsProcessor(ids.stream().mapToInt(Integer::intValue).toArray())));
+
+        if (!processors.isEmpty())
+            idx.invokeAll(processors);
+
+        return buckets.values().stream().mapToInt(Collection::size).sum();
+    }
+
+    /**
+     * @param a Sorted array.
+     * @param b Sorted array.
+     * @return Sorted union without duplicates.
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] res = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+
+        while (i < a.length || j < b.length) {
+            int next;
+
+            if (j == b.length || (i < a.length && a[i] <= b[j]))
+                next = a[i++];
+            else
+                next = b[j++];
+
+            if (k == 0 || res[k - 1] != next)
+                res[k++] = next;
+        }
+
+        return k == res.length ? res : Arrays.copyOf(res, k);
+    }
+
+    /**
+     * Adds build IDs to bucket.
+     */
+    private static class AddBuildsProcessor implements CacheEntryProcessor<Long, int[], Void> {
+        /** Build IDs. */
+        private final int[] ids;
+
+        /**
+         * @param ids Build IDs.
+         */
+        AddBuildsProcessor(int[] ids) {
+            this.ids = ids;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<Long, int[]> entry,
+            Object... arguments) throws EntryProcessorException {
+            int[] add = ids.clone();
+
+            Arrays.sort(add);
+
+            int[] cur = entry.getValue();
+            int[] res = cur == null ? union(add, new int[0]) : union(cur, add);
+
+            if (cur == null || res.length != cur.length)
+                entry.setValue(res);
+
+            return null;
+        }
+    }
+
+    /**
+     * Removes build IDs from bucket, removes bucket if it becomes empty.
+     */
+    private static class RemoveBuildsProcessor implements CacheEntryProcessor<Long, int[], Void> {
+        /** Build IDs. */
+        private final int[] ids;
+
+        /**
+         * @param ids Build IDs.
+         */
+        RemoveBuildsProcessor(int[] ids) {
+            this.ids = ids;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<Long, int[]> entry,
+            Object... arguments) throws EntryProcessorException {
+            int[] cur = entry.getValue();
+
+            if (cur == null)
+                return null;
+
+            Set<Integer> rmv = new HashSet<>();
+
+            for (int id : ids)
+                rmv.add(id);
+
+            int[] res = Arrays.stream(cur).filter(id -> !rmv.contains(id)).toArray();
+
+            if (res.length == 0)
+                entry.remove();
+            else if (res.length != cur.length)
+                entry.setValue(res);
+
+            return null;
+        }
+    }
+}
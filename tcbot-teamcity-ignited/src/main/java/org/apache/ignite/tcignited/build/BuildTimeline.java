@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Started builds of a suite in a branch ordered by start timestamp, builds started at the same time are ordered by ID.
+ * Entry is immutable, modification methods return a copy.
+ */
+@Persisted
+public class BuildTimeline {
+    /** Empty timeline. */
+    private static final BuildTimeline EMPTY = new BuildTimeline(new long[0], new int[0]);
+
+    /** Build start timestamps, sorted ascending. */
+    private long[] startTs;
+
+    /** Build IDs, build ID for each start timestamp. */
+    private int[] ids;
+
+    /**
+     * @param startTs Start timestamps.
+     * @param ids Build IDs.
+     */
+    private BuildTimeline(long[] startTs, int[] ids) {
+        this.startTs = startTs;
+        this.ids = ids;
+    }
+
+    /**
+     * @return Timeline without builds.
+     */
+    public static BuildTimeline empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return Builds count.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Merges builds into timeline, the whole timeline is sorted again, so this is used for bulk updates, e.g. filling
+     * of index. One build is added by {@link #withBuild(int, long)}.
+     *
+     * @param buildIds Build IDs.
+     * @param buildStartTs Start timestamp for each build.
+     * @return Copy of this timeline with builds added, builds already added with another start time are moved; this
+     * timeline if nothing was changed.
+     */
+    public BuildTimeline withBuilds(int[] buildIds, long[] buildStartTs) {
+        if (buildIds.length == 1)
+            return withBuild(buildIds[0], buildStartTs[0]);
+
+        Map<Integer, Long> byId = new HashMap<>();
+
+        for (int i = 0; i < ids.length; i++)
+            byId.put(ids[i], startTs[i]);
+
+        boolean changed = false;
+
+        for (int i = 0; i < buildIds.length; i++) {
+            Long prev = byId.put(buildIds[i], buildStartTs[i]);
+
+            if (prev == null || prev != buildStartTs[i])
+                changed = true;
+        }
+
+        if (!changed)
+            return this;
+
+        long[] resTs = new long[byId.size()];
+        int[] resIds = new int[byId.size()];
+        int idx = 0;
+
+        List<Map.Entry<Integer, Long>> sorted = byId.entrySet().stream()
+            .sorted(Comparator.<Map.Entry<Integer, Long>>comparingLong(Map.Entry::getValue)
+                .thenComparingInt(Map.Entry::getKey))
+            .collect(Collectors.toList());
+
+        for (Map.Entry<Integer, Long> e : sorted) {
+            resTs[idx] = e.getValue();
+            resIds[idx] = e.getKey();
+
+            idx++;
+        }
+
+        return new BuildTimeline(resTs, resIds);
+    }
+
+    /**
+     * Adds one build without rebuilding of the whole timeline: the build is inserted at the position found by binary
+     * search.
+     *
+     * @param buildId Build ID.
+     * @param buildStartTs Build start timestamp.
+     * @return Copy of this timeline with build added, build already added with another start time is moved; this
+     * timeline if nothing was changed.
+     */
+    public BuildTimeline withBuild(int buildId, long buildStartTs) {
+        long[] curTs = startTs;
+        int[] curIds = ids;
+
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != buildId)
+                continue;
+
+            if (startTs[i] == buildStartTs)
+                return this;
+
+            curTs = new long[ids.length - 1];
+            curIds = new int[ids.length - 1];
+
+            System.arraycopy(startTs, 0, curTs, 0, i);
+            System.arraycopy(startTs, i + 1, curTs, i, ids.length - i - 1);
+            System.arraycopy(ids, 0, curIds, 0, i);
+            System.arraycopy(ids, i + 1, curIds, i, ids.length - i - 1);
+
+            break;
+        }
+
+        int pos = insertionIndex(curTs, curIds, buildStartTs, buildId);
+
+        long[] resTs = new long[curTs.length + 1];
+        int[] resIds = new int[curIds.length + 1];
+
+        System.arraycopy(curTs, 0, resTs, 0, pos);
+        System.arraycopy(curTs, pos, resTs, pos + 1, curTs.length - pos);
+        System.arraycopy(curIds, 0, resIds, 0, pos);
+        System.arraycopy(curIds, pos, resIds, pos + 1, curIds.length - pos);
+
+        resTs[pos] = buildStartTs;
+        resIds[pos] = buildId;
+
+        return new BuildTimeline(resTs, resIds);
+    }
+
+    /**
+     * @param startTs Start timestamps, sorted ascending.
+     * @param ids Build IDs, sorted ascending for the same start timestamp.
+     * @param ts Start timestamp of build to insert.
+     * @param id ID of build to insert.
+     * @return Index of the first build started after timestamp, or started at timestamp and having greater ID.
+     */
+    private static int insertionIndex(long[] startTs, int[] ids, long ts, int id) {
+        int low = 0;
+        int high = startTs.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (startTs[mid] < ts || (startTs[mid] == ts && ids[mid] < id))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    /**
+     * @param buildIds Build IDs to remove.
+     * @return Copy of this timeline without builds; this timeline if nothing was changed.
+     */
+    public BuildTimeline withoutBuilds(int[] buildIds) {
+        Set<Integer> rmv = new HashSet<>();
+
+        for (int id : buildIds)
+            rmv.add(id);
+
+        long[] resTs = new long[ids.length];
+        int[] resIds = new int[ids.length];
+        int cnt = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+            if (rmv.contains(ids[i]))
+                continue;
+
+            resTs[cnt] = startTs[i];
+            resIds[cnt] = ids[i];
+
+            cnt++;
+        }
+
+        if (cnt == ids.length)
+            return this;
+
+        return new BuildTimeline(Arrays.copyOf(resTs, cnt), Arrays.copyOf(resIds, cnt));
+    }
+
+    /**
+     * @param sinceTs Minimal start timestamp, inclusive.
+     * @param untilTs Maximal start timestamp, inclusive.
+     * @return IDs of builds started in range, ordered by start timestamp.
+     */
+    public int[] buildIds(long sinceTs, long untilTs) {
+        if (sinceTs > untilTs)
+            return new int[0];
+
+        int from = firstIndex(sinceTs, false);
+        int to = firstIndex(untilTs, true);
+
+        return Arrays.copyOfRange(ids, from, to);
+    }
+
+    /**
+     * @param ts Timestamp.
+     * @param after {@code true} to find first build started strictly after timestamp, {@code false} to find first
+     * build started at timestamp or later.
+     * @return Index of first build found, or builds count if there is no such build.
+     */
+    private int firstIndex(long ts, boolean after) {
+        int low = 0;
+        int high = startTs.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (startTs[mid] < ts || (after && startTs[mid] == ts))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+}
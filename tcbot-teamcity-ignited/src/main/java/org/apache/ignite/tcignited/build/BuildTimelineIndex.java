@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.runhist.RunHistKey;
+import org.apache.ignite.tcbot.persistence.CacheConfigs;
+import org.apache.ignite.tcignited.buildref.BuildRefDao;
+
+/**
+ * Index of started builds by start time. Entry key is server, suite build type and branch, value is
+ * {@link BuildTimeline}. Index is updated when fat build is saved, so builds started in date range are found using
+ * binary search without loading of builds start dates.
+ */
+public class BuildTimelineIndex {
+    /** Cache name. */
+    public static final String BUILD_TIMELINE_IDX_CACHE_NAME = "teamcityBuildTimelineIdx";
+
+    /** Keys order for batch updates: concurrent updates lock entries in the same order. */
+    private static final Comparator<RunHistKey> KEYS_ORDER = Comparator.comparingInt(RunHistKey::srvId)
+        .thenComparingInt(RunHistKey::testNameOrSuite)
+        .thenComparingInt(RunHistKey::branch);
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Timelines cache. */
+    private IgniteCache<RunHistKey, BuildTimeline> idxCache;
+
+    /**
+     *
+     */
+    public BuildTimelineIndex init() {
+        idxCache = indexCache(igniteProvider.get());
+
+        return this;
+    }
+
+    /**
+     * @param ignite Ignite.
+     */
+    public static IgniteCache<RunHistKey, BuildTimeline> indexCache(Ignite ignite) {
+        return ignite.getOrCreateCache(CacheConfigs.getCache8PartsConfig(BUILD_TIMELINE_IDX_CACHE_NAME));
+    }
+
+    /**
+     * Registers build in the index, builds which were not started yet are ignored.
+     *
+     * @param srvId Server id mask high.
+     * @param buildId Build id.
+     * @param build Build.
+     */
+    public void add(int srvId, int buildId, FatBuildCompacted build) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        if (build.isFakeStub() || build.getStartDateTs() <= 0)
+            return;
+
+        RunHistKey key = new RunHistKey(srvId, build.buildTypeId(), build.branchName());
+
+        idxCache.invoke(key, new AddBuildsProcessor(new int[] {buildId}, new long[] {build.getStartDateTs()}));
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param buildTypeId Build type ID from compactor.
+     * @param branchIds Branch name IDs from compactor.
+     * @param sinceTs Minimal start timestamp, inclusive.
+     * @param untilTs Maximal start timestamp, inclusive.
+     * @return IDs of builds started in range, sorted ascending.
+     */
+    public int[] buildIds(int srvId, int buildTypeId, Collection<Integer> branchIds, long sinceTs, long untilTs) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        Set<RunHistKey> keys = new HashSet<>();
+
+        for (Integer branchId : branchIds)
+            keys.add(new RunHistKey(srvId, buildTypeId, branchId));
+
+        return idxCache.getAll(keys).values().stream()
+            .flatMapToInt(timeline -> IntStream.of(timeline.buildIds(sinceTs, untilTs)))
+            .sorted()
+            .distinct()
+            .toArray();
+    }
+
+    /**
+     * Removes builds from the index.
+     *
+     * @param refs References of builds removed, by fat build cache key.
+     */
+    public void removeAll(Map<Long, BuildRefCompacted> refs) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        Map<RunHistKey, Set<Integer>> removed = new HashMap<>();
+
+        refs.forEach((key, ref) -> removed.computeIfAbsent(
+            new RunHistKey(BuildRefDao.cacheKeyToSrvId(key), ref.buildTypeId(), ref.branchName()),
+            k -> new HashSet<>()).add(ref.id()));
+
+        Map<RunHistKey, RemoveBuildsProcessor> processors = new TreeMap<>(KEYS_ORDER);
+
+        removed.forEach((key, ids) -> processors.put(key,
+            new RemoveBuildsProcessor(ids.stream().mapToInt(Integer::intValue).toArray())));
+
+        if (!processors.isEmpty())
+            idxCache.invokeAll(processors);
+    }
+
+    /**
+     * Fills index for builds of one partition of fat builds cache reading only build type, branch and start date.
+     * Partitions may be filled concurrently and repeatedly.
+     *
+     * @param ignite Ignite.
+     * @param part Partition of fat builds cache.
+     * @return Number of builds indexed.
+     */
+    public static long fillPartition(Ignite ignite, int part) {
+        IgniteCache<Long, BinaryObject> builds
+            = ignite.<Long, BinaryObject>cache(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME).withKeepBinary();
+
+        ScanQuery<Long, BinaryObject> scan = new ScanQuery<Long, BinaryObject>().setPartition(part);
+
+        Map<RunHistKey, Map<Integer, Long>> timelines = new HashMap<>();
+
+        try (QueryCursor<long[]> cursor = builds.query(scan, e -> {
+            BinaryObject build = e.getValue();
+            Long startDate = build.field("startDate");
+            Integer buildTypeId = build.field("buildTypeId");
+            Integer branchName = build.field("branchName");
+
+            return new long[] {
+                e.getKey(),
+                startDate == null ? 0 : startDate,
+                buildTypeId == null ? -1 : buildTypeId,
+                branchName == null ? -1 : branchName};
+        })) {
+            for (long[] fields : cursor) {
+                if (fields[1] <= 0)
+                    continue;
+
+                RunHistKey key = new RunHistKey(BuildRefDao.cacheKeyToSrvId(fields[0]), (int)fields[2],
+                    (int)fields[3]);
+
+                timelines.computeIfAbsent(key, k -> new HashMap<>())
+                    .put(BuildRefDao.cacheKeyToBuildId(fields[0]), fields[1]);
+            }
+        }
+
+        Map<RunHistKey, AddBuildsProcessor> processors = new TreeMap<>(KEYS_ORDER);
+
+        timelines.forEach((key, startTsById) -> {
+            int[] ids = new int[startTsById.size()];
+            long[] startTs = new long[startTsById.size()];
+            int idx = 0;
+
+            for (Map.Entry<Integer, Long> e : startTsById.entrySet()) {
+                ids[idx] = e.getKey();
+                startTs[idx] = e.getValue();
+
+                idx++;
+            }
+
+            processors.put(key, new AddBuildsProcessor(ids, startTs));
+        });
+
+        if (!processors.isEmpty())
+            indexCache(ignite).invokeAll(processors);
+
+        return timelines.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Adds builds to timeline.
+     */
+    private static class AddBuildsProcessor implements CacheEntryProcessor<RunHistKey, BuildTimeline, Void> {
+        /** Build IDs. */
+        private final int[] ids;
+
+        /** Start timestamp for each build. */
+        private final long[] startTs;
+
+        /**
+         * @param ids Build IDs.
+         * @param startTs Start timestamp for each build.
+         */
+        AddBuildsProcessor(int[] ids, long[] startTs) {
+            this.ids = ids;
+            this.startTs = startTs;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<RunHistKey, BuildTimeline> entry,
+            Object... arguments) throws EntryProcessorException {
+            BuildTimeline cur = entry.exists() ? entry.getValue() : BuildTimeline.empty();
+            BuildTimeline res = cur.withBuilds(ids, startTs);
+
+            if (res != cur)
+                entry.setValue(res);
+
+            return null;
+        }
+    }
+
+    /**
+     * Removes builds from timeline, removes timeline if it becomes empty.
+     */
+    private static class RemoveBuildsProcessor implements CacheEntryProcessor<RunHistKey, BuildTimeline, Void> {
+        /** Build IDs. */
+        private final int[] ids;
+
+        /**
+         * @param ids Build IDs.
+         */
+        RemoveBuildsProcessor(int[] ids) {
+            this.ids = ids;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<RunHistKey, BuildTimeline> entry,
+            Object... arguments) throws EntryProcessorException {
+            if (!entry.exists())
+                return null;
+
+            BuildTimeline cur = entry.getValue();
+            BuildTimeline res = cur.withoutBuilds(ids);
+
+            if (res.size() == 0)
+                entry.remove();
+            else if (res != cur)
+                entry.setValue(res);
+
+            return null;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.google.common.collect.Iterables;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -45,8 +46,13 @@ import org.apache.ignite.IgniteCache;
 import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.cache.CacheEntryProcessor;
 import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.buildtype.ParametersCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.ProblemCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TriggeredCompacted;
 import org.apache.ignite.lang.IgniteBiPredicate;
 import org.apache.ignite.lang.IgniteBiTuple;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
@@ -72,8 +78,21 @@ public class FatBuildDao {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(FatBuildDao.class);
 
-    /** Cache name */
+    /** Cache name, contains build headers. */
     public static final String TEAMCITY_FAT_BUILD_CACHE_NAME = "teamcityFatBuild";
+
+    /** Cache name for tests of builds. */
+    public static final String TEAMCITY_FAT_BUILD_TESTS_CACHE_NAME = "teamcityFatBuildTests";
+
+    /** Cache name for parameters of builds. */
+    public static final String TEAMCITY_FAT_BUILD_PARAMETERS_CACHE_NAME = "teamcityFatBuildParameters";
+
+    /** Cache name for problems of builds. */
+    public static final String TEAMCITY_FAT_BUILD_PROBLEMS_CACHE_NAME = "teamcityFatBuildProblems";
+
+    /** Builds saved in one batch by migration. */
+    private static final int SPLIT_BATCH = 64;
+
     public static final int MAX_FAT_BUILD_CHUNK = 32 * 10;
 
     /** Ignite provider. */
@@ -82,6 +101,9 @@ public class FatBuildDao {
     /** Builds cache. */
     private IgniteCache<Long, FatBuildCompacted> buildsCache;
 
+    /** Builds caches: headers and parts. */
+    private BuildCaches caches;
+
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
@@ -94,11 +116,27 @@ public class FatBuildDao {
     /** Update Counters for branch-related changes storage. */
     @Inject private UpdateCountersStorage countersStorage;
 
+    /** Builds start date index. */
+    @Inject private BuildStartDateIndex startDateIdx;
+
+    /** Long running tests index. */
+    @Inject private LongRunningTestsIndex lrTestsIdx;
+
+    /** Builds start time index by suite and branch. */
+    @Inject private BuildTimelineIndex timelineIdx;
+
     /**
      *
      */
     public FatBuildDao init() {
-        buildsCache = igniteProvider.get().getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_FAT_BUILD_CACHE_NAME));
+        caches = new BuildCaches(igniteProvider.get());
+        buildsCache = caches.builds;
+
+        startDateIdx.init();
+
+        lrTestsIdx.init();
+
+        timelineIdx.init();
 
         return this;
     }
@@ -127,8 +165,10 @@ public class FatBuildDao {
 
         FatBuildCompacted newBuild = new FatBuildCompacted(compactor, build);
 
-        for (TestOccurrencesFull next : tests)
-            newBuild.addTests(compactor, next.getTests(), logProductSpecific);
+        // All pages are added at once: tests block is built once.
+        newBuild.addTests(compactor,
+            tests.stream().flatMap(page -> page.getTests().stream()).collect(Collectors.toList()),
+            logProductSpecific);
 
         if (problems != null)
             newBuild.addProblems(compactor, problems);
@@ -150,11 +190,79 @@ public class FatBuildDao {
 
     @AutoProfiling
     public void putFatBuild(int srvIdMaskHigh, int buildId, FatBuildCompacted newBuild) {
-        buildsCache.put(buildIdToCacheKey(srvIdMaskHigh, buildId), newBuild);
+        putFatBuilds(srvIdMaskHigh, Collections.singletonMap(buildId, newBuild));
+    }
+
+    /**
+     * Saves builds, tests of previous formats are migrated. Each part of builds is saved in one batch.
+     *
+     * @param srvIdMaskHigh Server id mask high.
+     * @param builds Builds by build ID.
+     */
+    public void putFatBuilds(int srvIdMaskHigh, Map<Integer, FatBuildCompacted> builds) {
+        Map<Long, FatBuildCompacted> entries = new HashMap<>();
+
+        builds.forEach((buildId, build) -> {
+            build.migrateTests(logProductSpecific);
+
+            entries.put(buildIdToCacheKey(srvIdMaskHigh, buildId), build);
+        });
+
+        caches.putAll(entries);
+
+        builds.forEach((buildId, build) -> {
+            startDateIdx.add(srvIdMaskHigh, buildId, build.getStartDateTs());
+
+            lrTestsIdx.add(srvIdMaskHigh, build);
+
+            timelineIdx.add(srvIdMaskHigh, buildId, build);
 
-        histCollector.invalidateHistoryInMem(srvIdMaskHigh, newBuild);
+            histCollector.invalidateHistoryInMem(srvIdMaskHigh, build);
 
-        countersStorage.increment(newBuild.branchName());
+            countersStorage.increment(build.branchName());
+        });
+    }
+
+    /**
+     * Moves tests, parameters and problems of builds saved by previous versions from build headers into separate
+     * caches. Tests of the oldest format are kept in headers, these are migrated on read.
+     *
+     * @param ignite Ignite.
+     * @param part Partition of fat builds cache.
+     * @return Number of builds processed.
+     */
+    public static long splitPartition(Ignite ignite, int part) {
+        BuildCaches caches = new BuildCaches(ignite);
+
+        ScanQuery<Long, BinaryObject> scan = new ScanQuery<Long, BinaryObject>().setPartition(part);
+        Map<Long, FatBuildCompacted> batch = new HashMap<>();
+        long cnt = 0;
+
+        try (QueryCursor<Cache.Entry<Long, BinaryObject>> cursor = caches.builds.withKeepBinary().query(scan)) {
+            for (Cache.Entry<Long, BinaryObject> entry : cursor) {
+                BinaryObject build = entry.getValue();
+
+                if (build.field("testsBlock") == null && build.field("testsV2") == null
+                    && build.field("buildParameters") == null && build.field("problems") == null)
+                    continue;
+
+                batch.put(entry.getKey(), build.deserialize());
+
+                if (batch.size() >= SPLIT_BATCH) {
+                    cnt += batch.size();
+
+                    caches.putAll(batch);
+
+                    batch.clear();
+                }
+            }
+        }
+
+        cnt += batch.size();
+
+        caches.putAll(batch);
+
+        return cnt;
     }
 
     public static int[] extractChangeIds(@Nonnull ChangesList changesList) {
@@ -197,7 +305,13 @@ public class FatBuildDao {
     public FatBuildCompacted getFatBuild(int srvIdMaskHigh, int buildId) {
         Preconditions.checkNotNull(buildsCache, "init() was not called");
 
-        return buildsCache.get(buildIdToCacheKey(srvIdMaskHigh, buildId));
+        long key = buildIdToCacheKey(srvIdMaskHigh, buildId);
+        FatBuildCompacted build = buildsCache.get(key);
+
+        if (build != null)
+            build.partsLoader(new PartsBatch(Collections.singleton(key)).loader(key));
+
+        return build;
     }
 
     /**
@@ -209,7 +323,21 @@ public class FatBuildDao {
 
         Set<Long> ids = buildsIdsToCacheKeys(srvIdMaskHigh, buildsIds);
 
-        return buildsCache.getAll(ids);
+        return withPartsLoaders(buildsCache.getAll(ids));
+    }
+
+    /**
+     * Parts of builds read together are loaded together on the first access to a part of any of these builds.
+     *
+     * @param builds Builds by cache key.
+     * @return Same map.
+     */
+    private Map<Long, FatBuildCompacted> withPartsLoaders(Map<Long, FatBuildCompacted> builds) {
+        PartsBatch batch = new PartsBatch(builds.keySet());
+
+        builds.forEach((key, build) -> build.partsLoader(batch.loader(key)));
+
+        return builds;
     }
 
     /**
@@ -223,7 +351,9 @@ public class FatBuildDao {
     public Stream<Cache.Entry<Long, FatBuildCompacted>> outdatedVersionEntries(int srvId) {
         return StreamSupport.stream(buildsCache.spliterator(), false)
             .filter(entry -> entry.getValue().isOutdatedEntityVersion())
-            .filter(entry -> isKeyForServer(entry.getKey(), srvId));
+            .filter(entry -> isKeyForServer(entry.getKey(), srvId))
+            .peek(entry -> entry.getValue()
+                .partsLoader(new PartsBatch(Collections.singleton(entry.getKey())).loader(entry.getKey())));
     }
 
     private static Set<Long> buildsIdsToCacheKeys(int srvId, Collection<Integer> stream) {
@@ -276,6 +406,56 @@ public class FatBuildDao {
         return res;
     }
 
+    /**
+     * Reads triggering info of builds without deserialization of whole build.
+     *
+     * @param srvId Server id.
+     * @param ids Build Ids.
+     * @return Triggering info for builds saved and having this info.
+     */
+    public Map<Integer, TriggeredCompacted> getTriggered(int srvId, Collection<Integer> ids) {
+        IgniteCache<Long, BinaryObject> cacheBin = buildsCache.withKeepBinary();
+        Set<Long> keys = buildsIdsToCacheKeys(srvId, ids);
+        Map<Integer, TriggeredCompacted> res = new HashMap<>();
+
+        Iterables.partition(keys, MAX_FAT_BUILD_CHUNK).forEach(
+            chunk -> {
+                Map<Long, EntryProcessorResult<TriggeredCompacted>> map
+                    = cacheBin.invokeAll(new HashSet<>(chunk), new GetTriggeredProc());
+
+                map.forEach((k, r) -> {
+                    TriggeredCompacted triggered = r.get();
+                    if (triggered != null)
+                        res.put(BuildRefDao.cacheKeyToBuildId(k), triggered);
+                });
+            }
+        );
+
+        return res;
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param refs Build references.
+     * @return Map from build ID to long running tests of its suite, for builds found in index.
+     */
+    public Map<Integer, LrTestsSuiteStat> getLongRunningTests(int srvId, Collection<BuildRefCompacted> refs) {
+        return lrTestsIdx.getAll(srvId, refs);
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param buildTypeId Build type ID from compactor.
+     * @param branchIds Branch name IDs from compactor.
+     * @param sinceTs Minimal start timestamp, inclusive.
+     * @param untilTs Maximal start timestamp, inclusive.
+     * @return IDs of saved builds started in range, sorted ascending.
+     */
+    public int[] getBuildIdsStartedBetween(int srvId, int buildTypeId, Collection<Integer> branchIds, long sinceTs,
+        long untilTs) {
+        return timelineIdx.buildIds(srvId, buildTypeId, branchIds, sinceTs, untilTs);
+    }
+
     public BuildTimeResult loadBuildTimeResult(int ageDays, List<Long> idsToCheck) {
         int stateRunning = compactor.getStringId(BuildRef.STATE_RUNNING);
         Integer buildDurationId = compactor.getStringIdIfPresent(Statistics.BUILD_DURATION);
@@ -287,7 +467,7 @@ public class FatBuildDao {
         Iterables.partition(idsToCheck, MAX_FAT_BUILD_CHUNK).forEach(
                 chunk -> {
                     HashSet<Long> keys = new HashSet<>(chunk);
-                    Map<Long, FatBuildCompacted> all = buildsCache.getAll(keys);
+                    Map<Long, FatBuildCompacted> all = withPartsLoaders(buildsCache.getAll(keys));
                     all.forEach((key, build) -> {
                         if (build.isComposite())
                             return;
@@ -418,39 +598,181 @@ public class FatBuildDao {
         }
     }
 
-    public Set<Long> getOldBuilds(long thresholdDate, int numOfItemsToDel) {
-        IgniteCache<Long, BinaryObject> cacheWithBinary = buildsCache.withKeepBinary();
-
-        ScanQuery<Long, BinaryObject> scan = new ScanQuery<>((key, fatBuild) -> {
-                Long startDate = 0L;
-
-                if (fatBuild.hasField("startDate"))
-                    startDate = fatBuild.<Long>field("startDate");
+    private static class GetTriggeredProc implements CacheEntryProcessor<Long, BinaryObject, TriggeredCompacted> {
+        /** {@inheritDoc} */
+        @Override public TriggeredCompacted process(MutableEntry<Long, BinaryObject> entry,
+            Object... arguments) throws EntryProcessorException {
+            if (entry.getValue() == null)
+                return null;
 
-                return (startDate > 0 && startDate < thresholdDate) ||
-                    !fatBuild.hasField("startDate");
-            }
-        );
+            Object triggered = entry.getValue().field("triggered");
 
-        Set<Long> oldBuildsKeys = new HashSet<>(numOfItemsToDel);
+            if (triggered instanceof BinaryObject)
+                return ((BinaryObject)triggered).deserialize();
 
-        for (Cache.Entry<Long, BinaryObject> entry : cacheWithBinary.query(scan)) {
-            if (numOfItemsToDel > 0) {
-                numOfItemsToDel--;
-                oldBuildsKeys.add(entry.getKey());
-            }
-            else
-                break;
+            return (TriggeredCompacted)triggered;
         }
-        return oldBuildsKeys;
     }
 
     public void remove(long key) {
-        buildsCache.remove(key);
+        removeAll(Collections.singleton(key));
     }
 
     public void removeAll(Set<Long> keys) {
         buildsCache.removeAll(keys);
+
+        caches.tests.removeAll(keys);
+        caches.parameters.removeAll(keys);
+        caches.problems.removeAll(keys);
+    }
+
+    /**
+     * Caches for build headers and parts of builds stored separately, all caches have the same keys.
+     */
+    private static class BuildCaches {
+        /** Build headers. */
+        private final IgniteCache<Long, FatBuildCompacted> builds;
+
+        /** Tests. */
+        private final IgniteCache<Long, TestsBlock> tests;
+
+        /** Parameters. */
+        private final IgniteCache<Long, ParametersCompacted> parameters;
+
+        /** Problems. */
+        private final IgniteCache<Long, List<ProblemCompacted>> problems;
+
+        /**
+         * @param ignite Ignite.
+         */
+        BuildCaches(Ignite ignite) {
+            builds = ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_FAT_BUILD_CACHE_NAME));
+            tests = ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_FAT_BUILD_TESTS_CACHE_NAME));
+            parameters
+                = ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_FAT_BUILD_PARAMETERS_CACHE_NAME));
+            problems = ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_FAT_BUILD_PROBLEMS_CACHE_NAME));
+        }
+
+        /**
+         * Saves parts first and headers then, so a header is not saved without its parts.
+         *
+         * @param builds Builds by cache key.
+         */
+        void putAll(Map<Long, FatBuildCompacted> builds) {
+            if (builds.isEmpty())
+                return;
+
+            Map<Long, FatBuildCompacted> headers = new HashMap<>();
+            Map<Long, TestsBlock> testsToPut = new HashMap<>();
+            Map<Long, ParametersCompacted> parametersToPut = new HashMap<>();
+            Map<Long, List<ProblemCompacted>> problemsToPut = new HashMap<>();
+            Set<Long> noTests = new HashSet<>();
+            Set<Long> noParameters = new HashSet<>();
+            Set<Long> noProblems = new HashSet<>();
+
+            builds.forEach((key, build) -> {
+                putOrRemove(key, build.testsBlock(), testsToPut, noTests);
+                putOrRemove(key, build.parameters(), parametersToPut, noParameters);
+                putOrRemove(key, build.problemsList(), problemsToPut, noProblems);
+
+                headers.put(key, build.header());
+            });
+
+            tests.putAll(testsToPut);
+            tests.removeAll(noTests);
+            parameters.putAll(parametersToPut);
+            parameters.removeAll(noParameters);
+            problems.putAll(problemsToPut);
+            problems.removeAll(noProblems);
+
+            this.builds.putAll(headers);
+        }
+
+        /**
+         * @param key Key.
+         * @param val Value.
+         * @param toPut Values to put.
+         * @param toRmv Keys to remove.
+         */
+        private static <V> void putOrRemove(Long key, @Nullable V val, Map<Long, V> toPut, Set<Long> toRmv) {
+            if (val != null)
+                toPut.put(key, val);
+            else
+                toRmv.add(key);
+        }
+    }
+
+    /**
+     * Loads a part of all builds of the batch on the first access to this part of any build.
+     */
+    private class PartsBatch {
+        /** Keys of builds. */
+        private final Set<Long> keys;
+
+        /** Tests not yet requested by builds. */
+        private Map<Long, TestsBlock> tests;
+
+        /** Parameters not yet requested by builds. */
+        private Map<Long, ParametersCompacted> parameters;
+
+        /** Problems not yet requested by builds. */
+        private Map<Long, List<ProblemCompacted>> problems;
+
+        /**
+         * @param keys Keys of builds.
+         */
+        PartsBatch(Set<Long> keys) {
+            this.keys = new HashSet<>(keys);
+        }
+
+        /**
+         * @param key Build key.
+         */
+        FatBuildCompacted.PartsLoader loader(long key) {
+            return new FatBuildCompacted.PartsLoader() {
+                @Override public TestsBlock tests() {
+                    return loadTests(key);
+                }
+
+                @Override public ParametersCompacted parameters() {
+                    return loadParameters(key);
+                }
+
+                @Override public List<ProblemCompacted> problems() {
+                    return loadProblems(key);
+                }
+            };
+        }
+
+        /**
+         * @param key Build key.
+         */
+        synchronized TestsBlock loadTests(long key) {
+            if (tests == null)
+                tests = new HashMap<>(caches.tests.getAll(keys));
+
+            return tests.remove(key);
+        }
+
+        /**
+         * @param key Build key.
+         */
+        synchronized ParametersCompacted loadParameters(long key) {
+            if (parameters == null)
+                parameters = new HashMap<>(caches.parameters.getAll(keys));
+
+            return parameters.remove(key);
+        }
+
+        /**
+         * @param key Build key.
+         */
+        synchronized List<ProblemCompacted> loadProblems(long key) {
+            if (problems == null)
+                problems = new HashMap<>(caches.problems.getAll(keys));
+
+            return problems.remove(key);
+        }
     }
 
     /**
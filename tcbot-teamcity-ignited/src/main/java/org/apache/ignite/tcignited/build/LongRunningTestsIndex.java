@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheEntryProcessor;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.runhist.RunHistKey;
+import org.apache.ignite.tcbot.persistence.CacheConfigs;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+
+/**
+ * Long running tests of recent finished builds. Entry key is server, suite build type and branch, value is
+ * {@link LrTestsSuiteStat}. Index is updated when fat build is saved, so long running tests report does not require
+ * loading of builds with all tests.
+ */
+public class LongRunningTestsIndex {
+    /** Cache name. */
+    public static final String LR_TESTS_IDX_CACHE_NAME = "teamcityLrTestsIdx";
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Compactor. */
+    @Inject private IStringCompactor compactor;
+
+    /** Suites cache. */
+    private IgniteCache<RunHistKey, LrTestsSuiteStat> idxCache;
+
+    /**
+     *
+     */
+    public LongRunningTestsIndex init() {
+        idxCache = igniteProvider.get().getOrCreateCache(CacheConfigs.getCache8PartsConfig(LR_TESTS_IDX_CACHE_NAME));
+
+        return this;
+    }
+
+    /**
+     * Registers build in the index, builds which are not finished yet are ignored.
+     *
+     * @param srvId Server id mask high.
+     * @param build Build.
+     */
+    public void add(int srvId, FatBuildCompacted build) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        if (build.isFakeStub() || !build.isFinished(compactor))
+            return;
+
+        RunHistKey key = new RunHistKey(srvId, build.buildTypeId(), build.branchName());
+
+        idxCache.invoke(key, new AddBuildProcessor(LrTestsBuildStat.of(build, compactor)));
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param refs Build references.
+     * @return Map from build ID to suite stat containing this build. Builds not found in index are skipped.
+     */
+    public Map<Integer, LrTestsSuiteStat> getAll(int srvId, Collection<BuildRefCompacted> refs) {
+        Preconditions.checkNotNull(idxCache, "init() was not called");
+
+        Set<RunHistKey> keys = new HashSet<>();
+
+        for (BuildRefCompacted ref : refs)
+            keys.add(new RunHistKey(srvId, ref.buildTypeId(), ref.branchName()));
+
+        Map<RunHistKey, LrTestsSuiteStat> suites = idxCache.getAll(keys);
+        Map<Integer, LrTestsSuiteStat> res = new HashMap<>();
+
+        for (BuildRefCompacted ref : refs) {
+            LrTestsSuiteStat suite = suites.get(new RunHistKey(srvId, ref.buildTypeId(), ref.branchName()));
+
+            if (suite != null && suite.build(ref.id()) != null)
+                res.put(ref.id(), suite);
+        }
+
+        return res;
+    }
+
+    /**
+     * Adds or replaces build in suite stat.
+     */
+    private static class AddBuildProcessor implements CacheEntryProcessor<RunHistKey, LrTestsSuiteStat, Void> {
+        /** Build stat. */
+        private final LrTestsBuildStat stat;
+
+        /**
+         * @param stat Stat.
+         */
+        AddBuildProcessor(LrTestsBuildStat stat) {
+            this.stat = stat;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<RunHistKey, LrTestsSuiteStat> entry,
+            Object... arguments) throws EntryProcessorException {
+            LrTestsSuiteStat suite = entry.getValue();
+
+            if (suite != null && stat.equals(suite.build(stat.buildId())))
+                return null;
+
+            entry.setValue((suite == null ? new LrTestsSuiteStat() : suite).withBuild(stat));
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import com.google.common.base.MoreObjects;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Long running tests of one build: top of tests by duration, and data required to build long running tests report
+ * without loading the build itself.
+ */
+@Persisted
+public class LrTestsBuildStat {
+    /** Minimal duration of test to be considered as long running. */
+    public static final int LONG_RUNNING_TEST_MS = 60 * 1000;
+
+    /** Maximal number of long running tests saved for a build. */
+    public static final int TOP_K = 100;
+
+    /** Build ID. */
+    private int buildId;
+
+    /** Build type name, compacted string ID. */
+    private int buildTypeName;
+
+    /** Build is composite. */
+    private boolean composite;
+
+    /** Tests count. */
+    private int testsCnt;
+
+    /** Build duration, or {@code -1} if it is unknown. */
+    private long buildDuration = -1;
+
+    /** Snapshot dependencies. */
+    @Nullable private int[] snapshotDeps;
+
+    /** Long running tests names, sorted by duration descending. */
+    private int[] testNames;
+
+    /** Durations of long running tests. */
+    private int[] durations;
+
+    /**
+     * @param build Build.
+     * @param compactor Compactor.
+     */
+    public static LrTestsBuildStat of(FatBuildCompacted build, IStringCompactor compactor) {
+        LrTestsBuildStat res = new LrTestsBuildStat();
+
+        res.buildId = build.id();
+        res.buildTypeName = build.buildTypeName();
+        res.composite = build.isComposite();
+        res.testsCnt = build.getTestsCount();
+
+        Long duration = build.buildDuration(compactor);
+        if (duration != null)
+            res.buildDuration = duration;
+
+        int[] deps = build.snapshotDependencies();
+        res.snapshotDeps = deps.length == 0 ? null : deps;
+
+        // Min-heap of tests (index in build, name, duration), the shortest and the latest test is removed first.
+        PriorityQueue<int[]> top = new PriorityQueue<>(
+            (t0, t1) -> t0[2] != t1[2] ? Integer.compare(t0[2], t1[2]) : Integer.compare(t1[0], t0[0]));
+
+        int[] idx = new int[1];
+
+        build.getAllTests().forEach(t -> {
+            int testIdx = idx[0]++;
+            Integer testDuration = t.getDuration();
+
+            if (testDuration == null || testDuration <= LONG_RUNNING_TEST_MS)
+                return;
+
+            top.add(new int[] {testIdx, t.testName(), testDuration});
+
+            if (top.size() > TOP_K)
+                top.poll();
+        });
+
+        int cnt = top.size();
+
+        res.testNames = new int[cnt];
+        res.durations = new int[cnt];
+
+        for (int i = cnt - 1; i >= 0; i--) {
+            int[] t = top.poll();
+
+            res.testNames[i] = t[1];
+            res.durations[i] = t[2];
+        }
+
+        return res;
+    }
+
+    /** */
+    public int buildId() {
+        return buildId;
+    }
+
+    /**
+     * @param compactor Compactor.
+     */
+    public String buildTypeName(IStringCompactor compactor) {
+        return compactor.getStringFromId(buildTypeName);
+    }
+
+    /** */
+    public boolean isComposite() {
+        return composite;
+    }
+
+    /** */
+    public int testsCount() {
+        return testsCnt;
+    }
+
+    /** */
+    public int[] snapshotDependencies() {
+        return snapshotDeps == null ? new int[0] : snapshotDeps.clone();
+    }
+
+    /**
+     * @return Average test time, build duration divided by tests count.
+     */
+    public long testAvgTime() {
+        return testsCnt == 0 || buildDuration < 0 ? 0 : buildDuration / testsCnt;
+    }
+
+    /**
+     * @return Count of long running tests.
+     */
+    public int longRunningTestsCount() {
+        return testNames.length;
+    }
+
+    /**
+     * @param i Index of test, tests are sorted by duration descending.
+     * @return Test name, compacted string ID.
+     */
+    public int testName(int i) {
+        return testNames[i];
+    }
+
+    /**
+     * @param i Index of test, tests are sorted by duration descending.
+     * @return Test duration.
+     */
+    public int duration(int i) {
+        return durations[i];
+    }
+
+    /**
+     * @param testName Test name.
+     * @return Test duration if test was long running in this build.
+     */
+    @Nullable public Integer durationOf(int testName) {
+        for (int i = 0; i < testNames.length; i++) {
+            if (testNames[i] == testName)
+                return durations[i];
+        }
+
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        LrTestsBuildStat stat = (LrTestsBuildStat)o;
+
+        return buildId == stat.buildId &&
+            buildTypeName == stat.buildTypeName &&
+            composite == stat.composite &&
+            testsCnt == stat.testsCnt &&
+            buildDuration == stat.buildDuration &&
+            Arrays.equals(snapshotDeps, stat.snapshotDeps) &&
+            Arrays.equals(testNames, stat.testNames) &&
+            Arrays.equals(durations, stat.durations);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = Objects.hash(buildId, buildTypeName, composite, testsCnt, buildDuration);
+
+        res = 31 * res + Arrays.hashCode(snapshotDeps);
+        res = 31 * res + Arrays.hashCode(testNames);
+        res = 31 * res + Arrays.hashCode(durations);
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("buildId", buildId)
+            .add("composite", composite)
+            .add("testsCnt", testsCnt)
+            .add("buildDuration", buildDuration)
+            .add("lrTests", testNames.length)
+            .toString();
+    }
+}
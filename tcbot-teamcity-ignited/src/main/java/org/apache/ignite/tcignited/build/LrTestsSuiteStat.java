@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Long running tests of last finished builds of a suite in a branch, newest build goes first.
+ */
+@Persisted
+public class LrTestsSuiteStat {
+    /** Maximal number of builds saved for trend. */
+    public static final int MAX_BUILDS = 10;
+
+    /** Builds, sorted by build ID descending. */
+    private List<LrTestsBuildStat> builds = new ArrayList<>();
+
+    /**
+     * @param stat Build stat.
+     * @return Copy of this suite stat with build added or replaced.
+     */
+    public LrTestsSuiteStat withBuild(LrTestsBuildStat stat) {
+        LrTestsSuiteStat res = new LrTestsSuiteStat();
+
+        boolean added = false;
+
+        for (LrTestsBuildStat next : builds) {
+            if (!added && stat.buildId() >= next.buildId()) {
+                res.builds.add(stat);
+
+                added = true;
+            }
+
+            if (next.buildId() != stat.buildId())
+                res.builds.add(next);
+        }
+
+        if (!added)
+            res.builds.add(stat);
+
+        while (res.builds.size() > MAX_BUILDS)
+            res.builds.remove(res.builds.size() - 1);
+
+        return res;
+    }
+
+    /**
+     * @param buildId Build ID.
+     * @return Stat of the build if it was not evicted.
+     */
+    @Nullable public LrTestsBuildStat build(int buildId) {
+        for (LrTestsBuildStat next : builds) {
+            if (next.buildId() == buildId)
+                return next;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param buildId Build ID, trend contains this build and builds before it.
+     * @param testName Test name.
+     * @return Test durations, oldest build goes first; {@code null} if test was not long running in a build.
+     */
+    public List<Long> testTimeTrend(int buildId, int testName) {
+        List<Long> res = new ArrayList<>();
+
+        for (int i = builds.size() - 1; i >= 0; i--) {
+            LrTestsBuildStat next = builds.get(i);
+
+            if (next.buildId() > buildId)
+                break;
+
+            Integer duration = next.durationOf(testName);
+
+            res.add(duration == null ? null : duration.longValue());
+        }
+
+        return res;
+    }
+
+    /**
+     * @param buildId Build ID, trend contains this build and builds before it.
+     * @return Average test time, oldest build goes first.
+     */
+    public List<Long> testAvgTimeTrend(int buildId) {
+        List<Long> res = new ArrayList<>();
+
+        for (int i = builds.size() - 1; i >= 0; i--) {
+            LrTestsBuildStat next = builds.get(i);
+
+            if (next.buildId() > buildId)
+                break;
+
+            res.add(next.testAvgTime());
+        }
+
+        return res;
+    }
+}
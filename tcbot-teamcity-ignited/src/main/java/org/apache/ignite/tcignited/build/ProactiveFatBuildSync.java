@@ -143,18 +143,25 @@ public class ProactiveFatBuildSync {
         int partitions = affinity.partitions();
         int checkBatchSize = 1000;
 
+        GridIntList[] partIds = new GridIntList[partitions];
+
+        for (int buildId : buildRefDao.getAllIds(srvIdMaskHigh)) {
+            int part = affinity.partition(FatBuildDao.buildIdToCacheKey(srvIdMaskHigh, buildId));
+
+            if (partIds[part] == null)
+                partIds[part] = new GridIntList();
+
+            partIds[part].add(buildId);
+        }
+
         GridIntList keysToCheck = new GridIntList();
         for (int p = 0; p < partitions; p++) {
             int curPart = p;
 
-            buildRefDao.compactedBuildsForServer(srvIdMaskHigh, bref -> true)
-                .filter(
-                    bref -> {
-                        long fatBuildKey = FatBuildDao.buildIdToCacheKey(srvIdMaskHigh, bref.id());
-                        int part = affinity.partition(fatBuildKey);
-                        return part == curPart;
-                    }
-                )
+            if (partIds[p] == null)
+                continue;
+
+            buildRefDao.compactedBuilds(srvIdMaskHigh, partIds[p].array())
                 .forEach(buildRef -> {
                     int buildId = buildRef.id();
 
@@ -410,11 +417,8 @@ public class ProactiveFatBuildSync {
             if (build.changesRef != null) {
                 changesList = conn.getChangesList(buildId);
 
-                for (int changeId : FatBuildDao.extractChangeIds(changesList)) {
-                    // consult change sync for provided changes data
-
-                    changeSync.change(srvIdMask, changeId, conn);
-                }
+                // consult change sync for provided changes data
+                changeSync.changes(srvIdMask, FatBuildDao.extractChangeIds(changesList), conn);
             }
         }
         catch (Exception e) {
@@ -257,6 +257,13 @@ public class TestCompactedV2 implements ITest {
         return details.getValue();
     }
 
+    /**
+     * @return Compressed details.
+     */
+    @Nullable StringFieldCompacted details() {
+        return details;
+    }
+
     public void setDetails(String details, @Nullable ILogProductSpecific logSpecific) {
         this.details = null;
 
@@ -325,6 +332,14 @@ public class TestCompactedV2 implements ITest {
     }
 
     public int statusSuccess(IStringCompactor compactor) {
+        return statusSuccessCid(compactor);
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @return Success status string ID.
+     */
+    public static int statusSuccessCid(IStringCompactor compactor) {
         //Each time compactor should give same result, so no locking applied
         if (STATUS_SUCCESS_CID == -1)
             STATUS_SUCCESS_CID = compactor.getStringId(TestOccurrence.STATUS_SUCCESS);
@@ -0,0 +1,580 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import com.google.common.base.MoreObjects;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.apache.ignite.ci.tcbot.common.StringFieldCompacted;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.IVersionedEntity;
+import org.apache.ignite.tcbot.persistence.Persisted;
+
+/**
+ * Tests of a build stored in columns instead of a list of {@link TestCompactedV2}: a build with thousands of tests is
+ * deserialized into several arrays instead of an object per test. Columns are encoded as zigzag varints, identifiers
+ * increasing within a build are delta encoded. Details are stored only for tests having them.
+ * <p>
+ * Tests are accessed using lightweight {@link ITest} views referring to the block and test index, column arrays are
+ * decoded on the first access.
+ */
+@Persisted
+public class TestsBlock implements IVersionedEntity {
+    /** Latest version. */
+    public static final short LATEST_VERSION = 1;
+
+    /** Entity fields version. */
+    @SuppressWarnings("FieldCanBeLocal")
+    private short _ver = LATEST_VERSION;
+
+    /** Count of tests. */
+    private int cnt;
+
+    /** Delta encoded IDs in build. */
+    private byte[] idsInBuild;
+
+    /** Test names. */
+    private byte[] names;
+
+    /** Distinct statuses. */
+    private int[] statusesDict;
+
+    /** Indexes in {@link #statusesDict}. */
+    private byte[] statuses;
+
+    /** Durations, -1 for unknown. */
+    private byte[] durations;
+
+    /** Flags in {@link TestCompactedV2} format. */
+    private byte[] flags;
+
+    /** Test global IDs. */
+    private long[] testIds;
+
+    /** Delta encoded actual build IDs. */
+    private byte[] actualBuildIds;
+
+    /** Indexes of tests having details, ascending. */
+    @Nullable private int[] detailsIdxs;
+
+    /** Details of tests from {@link #detailsIdxs}. */
+    @Nullable private StringFieldCompacted[] details;
+
+    /** Decoded columns, lazily initialized. */
+    @Nullable private transient volatile Columns cols;
+
+    /**
+     * Default constructor.
+     */
+    public TestsBlock() {
+    }
+
+    /**
+     * @param tests Tests.
+     */
+    public TestsBlock(List<? extends ITest> tests) {
+        cnt = tests.size();
+
+        ByteArrayOutputStream idsInBuild = new ByteArrayOutputStream(cnt);
+        ByteArrayOutputStream names = new ByteArrayOutputStream(cnt * 3);
+        ByteArrayOutputStream statuses = new ByteArrayOutputStream(cnt);
+        ByteArrayOutputStream durations = new ByteArrayOutputStream(cnt * 2);
+        ByteArrayOutputStream actualBuildIds = new ByteArrayOutputStream(cnt);
+        Map<Integer, Integer> statusesDict = new HashMap<>();
+        List<Integer> detailsIdxs = new ArrayList<>();
+        List<StringFieldCompacted> details = new ArrayList<>();
+
+        flags = new byte[cnt];
+        testIds = new long[cnt];
+
+        int prevIdInBuild = 0;
+        int prevActualBuildId = 0;
+
+        for (int i = 0; i < cnt; i++) {
+            ITest test = tests.get(i);
+
+            writeVarInt(idsInBuild, test.idInBuild() - prevIdInBuild);
+            prevIdInBuild = test.idInBuild();
+
+            writeVarInt(names, test.testName());
+            writeVarInt(statuses, statusesDict.computeIfAbsent(test.status(), s -> statusesDict.size()));
+
+            Integer duration = test.getDuration();
+            writeVarInt(durations, duration == null ? -1 : duration);
+
+            writeVarInt(actualBuildIds, test.getActualBuildId() - prevActualBuildId);
+            prevActualBuildId = test.getActualBuildId();
+
+            flags[i] = (byte)flags(test);
+
+            testIds[i] = rawTestId(test);
+
+            StringFieldCompacted testDetails = details(test);
+
+            if (testDetails != null) {
+                detailsIdxs.add(i);
+                details.add(testDetails);
+            }
+        }
+
+        this.idsInBuild = idsInBuild.toByteArray();
+        this.names = names.toByteArray();
+        this.statuses = statuses.toByteArray();
+        this.durations = durations.toByteArray();
+        this.actualBuildIds = actualBuildIds.toByteArray();
+
+        this.statusesDict = new int[statusesDict.size()];
+        statusesDict.forEach((status, idx) -> this.statusesDict[idx] = status);
+
+        if (!details.isEmpty()) {
+            this.detailsIdxs = detailsIdxs.stream().mapToInt(Integer::intValue).toArray();
+            this.details = details.toArray(new StringFieldCompacted[0]);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public int version() {
+        return _ver;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int latestVersion() {
+        return LATEST_VERSION;
+    }
+
+    /**
+     * @return Tests count.
+     */
+    public int size() {
+        return cnt;
+    }
+
+    /**
+     * @param idx Test index.
+     * @return View of the test.
+     */
+    public ITest get(int idx) {
+        return new TestView(this, idx);
+    }
+
+    /**
+     * @return All tests.
+     */
+    public Stream<ITest> tests() {
+        return IntStream.range(0, cnt).mapToObj(this::get);
+    }
+
+    /**
+     * Selects tests by columns without creating views for other tests.
+     *
+     * @param successStatus Success status code.
+     * @return Failed tests, which are neither muted nor ignored.
+     */
+    public Stream<ITest> failedNotMutedTests(int successStatus) {
+        Columns cols = columns();
+
+        return IntStream.range(0, cnt)
+            .filter(i -> cols.statuses[i] != successStatus && !isMutedOrIgnored(flags[i]))
+            .mapToObj(this::get);
+    }
+
+    /**
+     * @return Count of tests, which are neither muted nor ignored.
+     */
+    public int notMutedTestsCount() {
+        int res = 0;
+
+        for (byte f : flags) {
+            if (!isMutedOrIgnored(f))
+                res++;
+        }
+
+        return res;
+    }
+
+    /**
+     * @param flags Test flags.
+     */
+    private static boolean isMutedOrIgnored(byte flags) {
+        return getFlag(flags, TestCompactedV2.MUTED_F) == Boolean.TRUE
+            || getFlag(flags, TestCompactedV2.IGNORED_F) == Boolean.TRUE;
+    }
+
+    /**
+     * @param flags Test flags.
+     * @param off Flag offset.
+     */
+    @Nullable private static Boolean getFlag(byte flags, int off) {
+        if ((flags & (1 << off)) == 0)
+            return null;
+
+        return (flags & (1 << (off + 1))) != 0;
+    }
+
+    /**
+     * @param test Test.
+     * @return Flags in {@link TestCompactedV2} format.
+     */
+    private static int flags(ITest test) {
+        if (test instanceof TestView)
+            return ((TestView)test).block.flags[((TestView)test).idx];
+
+        return flag(TestCompactedV2.MUTED_F, test.getMutedFlag())
+            | flag(TestCompactedV2.CUR_MUTED_F, test.getCurrentlyMuted())
+            | flag(TestCompactedV2.CUR_INV_F, test.getCurrInvestigatedFlag())
+            | flag(TestCompactedV2.IGNORED_F, test.getIgnoredFlag());
+    }
+
+    /**
+     * @param off Flag offset.
+     * @param val Value.
+     */
+    private static int flag(int off, @Nullable Boolean val) {
+        if (val == null)
+            return 0;
+
+        return (1 << off) | (val ? 1 << (off + 1) : 0);
+    }
+
+    /**
+     * @param test Test.
+     * @return Test ID as it is stored by the test.
+     */
+    private static long rawTestId(ITest test) {
+        if (test instanceof TestView)
+            return ((TestView)test).block.testIds[((TestView)test).idx];
+
+        Long testId = test.getTestId();
+
+        return testId == null ? 0 : testId;
+    }
+
+    /**
+     * @param test Test.
+     * @return Compressed details, allows to avoid recompression of details already compressed.
+     */
+    @Nullable private static StringFieldCompacted details(ITest test) {
+        if (test instanceof TestCompactedV2)
+            return ((TestCompactedV2)test).details();
+
+        if (test instanceof TestView)
+            return ((TestView)test).block.details(((TestView)test).idx);
+
+        String text = test.getDetailsText();
+
+        return text == null ? null : new StringFieldCompacted(text);
+    }
+
+    /**
+     * @param idx Test index.
+     */
+    @Nullable private StringFieldCompacted details(int idx) {
+        if (detailsIdxs == null)
+            return null;
+
+        int pos = Arrays.binarySearch(detailsIdxs, idx);
+
+        return pos < 0 ? null : details[pos];
+    }
+
+    /**
+     * @return Decoded columns.
+     */
+    private Columns columns() {
+        Columns res = cols;
+
+        if (res == null) {
+            res = new Columns();
+
+            res.idsInBuild = readVarInts(idsInBuild, cnt, true);
+            res.names = readVarInts(names, cnt, false);
+            res.durations = readVarInts(durations, cnt, false);
+            res.actualBuildIds = readVarInts(actualBuildIds, cnt, true);
+
+            int[] statusIdxs = readVarInts(statuses, cnt, false);
+
+            for (int i = 0; i < cnt; i++)
+                statusIdxs[i] = statusesDict[statusIdxs[i]];
+
+            res.statuses = statusIdxs;
+
+            cols = res;
+        }
+
+        return res;
+    }
+
+    /**
+     * Writes value in zigzag varint format.
+     *
+     * @param out Output.
+     * @param val Value.
+     */
+    private static void writeVarInt(ByteArrayOutputStream out, int val) {
+        int zigzag = (val << 1) ^ (val >> 31);
+
+        while ((zigzag & ~0x7F) != 0) {
+            out.write((zigzag & 0x7F) | 0x80);
+
+            zigzag >>>= 7;
+        }
+
+        out.write(zigzag);
+    }
+
+    /**
+     * @param in Zigzag varints.
+     * @param cnt Values count.
+     * @param delta Values are delta encoded.
+     */
+    private static int[] readVarInts(byte[] in, int cnt, boolean delta) {
+        int[] res = new int[cnt];
+        int pos = 0;
+        int prev = 0;
+
+        for (int i = 0; i < cnt; i++) {
+            int zigzag = 0;
+
+            for (int shift = 0; ; shift += 7) {
+                byte b = in[pos++];
+
+                zigzag |= (b & 0x7F) << shift;
+
+                if (b >= 0)
+                    break;
+            }
+
+            int val = (zigzag >>> 1) ^ -(zigzag & 1);
+
+            if (delta) {
+                val += prev;
+                prev = val;
+            }
+
+            res[i] = val;
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        TestsBlock block = (TestsBlock)o;
+        return _ver == block._ver &&
+            cnt == block.cnt &&
+            Arrays.equals(idsInBuild, block.idsInBuild) &&
+            Arrays.equals(names, block.names) &&
+            Arrays.equals(statusesDict, block.statusesDict) &&
+            Arrays.equals(statuses, block.statuses) &&
+            Arrays.equals(durations, block.durations) &&
+            Arrays.equals(flags, block.flags) &&
+            Arrays.equals(testIds, block.testIds) &&
+            Arrays.equals(actualBuildIds, block.actualBuildIds) &&
+            Arrays.equals(detailsIdxs, block.detailsIdxs) &&
+            Arrays.equals(details, block.details);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = Objects.hash(_ver, cnt);
+        res = 31 * res + Arrays.hashCode(names);
+        res = 31 * res + Arrays.hashCode(statuses);
+        res = 31 * res + Arrays.hashCode(flags);
+        res = 31 * res + Arrays.hashCode(testIds);
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("_ver", _ver)
+            .add("cnt", cnt)
+            .add("tests", tests().toArray())
+            .toString();
+    }
+
+    /**
+     * Decoded columns.
+     */
+    private static class Columns {
+        /** IDs in build. */
+        int[] idsInBuild;
+
+        /** Names. */
+        int[] names;
+
+        /** Statuses. */
+        int[] statuses;
+
+        /** Durations. */
+        int[] durations;
+
+        /** Actual build IDs. */
+        int[] actualBuildIds;
+    }
+
+    /**
+     * Test view over columns of the block.
+     */
+    private static class TestView implements ITest {
+        /** Block. */
+        private final TestsBlock block;
+
+        /** Test index. */
+        private final int idx;
+
+        /**
+         * @param block Block.
+         * @param idx Test index.
+         */
+        TestView(TestsBlock block, int idx) {
+            this.block = block;
+            this.idx = idx;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int testName() {
+            return block.columns().names[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override public String testName(IStringCompactor compactor) {
+            return compactor.getStringFromId(testName());
+        }
+
+        /** {@inheritDoc} */
+        @Override public int status() {
+            return block.columns().statuses[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isInvestigated() {
+            return getCurrInvestigatedFlag() == Boolean.TRUE;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getCurrentlyMuted() {
+            return getFlag(block.flags[idx], TestCompactedV2.CUR_MUTED_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getCurrInvestigatedFlag() {
+            return getFlag(block.flags[idx], TestCompactedV2.CUR_INV_F);
+        }
+
+        /** {@inheritDoc} */
+        @Nullable @Override public Integer getDuration() {
+            int duration = block.columns().durations[idx];
+
+            return duration < 0 ? null : duration;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isFailedTest(IStringCompactor compactor) {
+            return isFailedTest(TestCompactedV2.statusSuccessCid(compactor));
+        }
+
+        /** {@inheritDoc} */
+        @Override public String getDetailsText() {
+            StringFieldCompacted details = block.details(idx);
+
+            return details == null ? null : details.getValue();
+        }
+
+        /** {@inheritDoc} */
+        @Override public Long getTestId() {
+            long testId = block.testIds[idx];
+
+            return testId != 0 ? testId : null;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isFailedButNotMuted(IStringCompactor compactor) {
+            return isFailedButNotMuted(TestCompactedV2.statusSuccessCid(compactor));
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getIgnoredFlag() {
+            return getFlag(block.flags[idx], TestCompactedV2.IGNORED_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getMutedFlag() {
+            return getFlag(block.flags[idx], TestCompactedV2.MUTED_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int getActualBuildId() {
+            return block.columns().actualBuildIds[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override public int idInBuild() {
+            return block.columns().idsInBuild[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            TestView view = (TestView)o;
+            return idInBuild() == view.idInBuild() &&
+                testName() == view.testName() &&
+                status() == view.status() &&
+                Objects.equals(getDuration(), view.getDuration()) &&
+                block.flags[idx] == view.block.flags[view.idx] &&
+                block.testIds[idx] == view.block.testIds[view.idx] &&
+                getActualBuildId() == view.getActualBuildId() &&
+                Objects.equals(block.details(idx), view.block.details(view.idx));
+        }
+
+        /** {@inheritDoc} */
+        @Override public int hashCode() {
+            return Objects.hash(idInBuild(), testName(), status(), getDuration(), block.flags[idx],
+                block.testIds[idx], getActualBuildId());
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("idInBuild", idInBuild())
+                .add("name", testName())
+                .add("status", status())
+                .add("duration", getDuration())
+                .add("flags", block.flags[idx])
+                .add("testId", block.testIds[idx])
+                .add("actualBuildId", getActualBuildId())
+                .add("details", block.details(idx))
+                .toString() + "\n";
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,7 +31,6 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.cache.Cache;
@@ -40,7 +40,6 @@ import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.cache.QueryEntity;
 import org.apache.ignite.cache.query.QueryCursor;
-import org.apache.ignite.cache.query.ScanQuery;
 import org.apache.ignite.cache.query.SqlQuery;
 import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
 import org.apache.ignite.ci.teamcity.ignited.runhist.RunHistKey;
@@ -52,6 +51,7 @@ import org.apache.ignite.tcbot.common.exeption.ExceptionUtil;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
 import org.apache.ignite.tcbot.persistence.CacheConfigs;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.ServerScopedCache;
 import org.apache.ignite.tcignited.build.UpdateCountersStorage;
 import org.apache.ignite.tcservice.model.hist.BuildRef;
 
@@ -62,12 +62,18 @@ public class BuildRefDao {
     /** Cache name */
     public static final String TEAMCITY_BUILD_CACHE_NAME = "teamcityBuildRef";
 
+    /** Max count of branches requested in one SQL query. */
+    private static final int BRANCHES_QRY_CHUNK = 500;
+
     /** Ignite provider. */
     @Inject private Provider<Ignite> igniteProvider;
 
     /** Builds (Refs) cache: Long(ServerId||BuildId)-> Build reference */
     private IgniteCache<Long, BuildRefCompacted> buildRefsCache;
 
+    /** Builds (Refs) cache with IDs of builds of each server, all modifications should be done using it. */
+    private ServerScopedCache<BuildRefCompacted> buildRefs;
+
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
@@ -96,36 +102,44 @@ public class BuildRefDao {
         .build();
 
     /** */
-    public BuildRefDao init() {
+    public synchronized BuildRefDao init() {
+        if (buildRefs != null)
+            return this;
+
         CacheConfiguration<Long, BuildRefCompacted> cfg = CacheConfigs.getCacheV2Config(TEAMCITY_BUILD_CACHE_NAME);
 
         cfg.setQueryEntities(Collections.singletonList(new QueryEntity(Long.class, BuildRefCompacted.class)));
 
-        buildRefsCache = igniteProvider.get().getOrCreateCache(cfg);
+        Ignite ignite = igniteProvider.get();
+
+        buildRefsCache = ignite.getOrCreateCache(cfg);
+        buildRefs = new ServerScopedCache<>(ignite, buildRefsCache).init();
 
         return this;
     }
 
     /**
      * @param srvId Server id.
-     * @return all builds for a server, full scan.
+     * @param filter Filter.
+     * @return all builds for a server ordered by ID.
      */
     @Nonnull
     public Stream<BuildRefCompacted> compactedBuildsForServer(
         final int srvId,
         @Nullable final IgnitePredicate<BuildRefCompacted> filter) {
-        QueryCursor<Cache.Entry<Long, BuildRefCompacted>> qry
-            = buildRefsCache.query(
-                new ScanQuery<Long, BuildRefCompacted>().setFilter(
-                    (k, v) -> {
-                        if (!isKeyForServer(k, srvId))
-                            return false;
-
-                        return filter == null || filter.apply(v);
-                    }));
-
-        return StreamSupport.stream(qry.spliterator(), false)
-            .map(javax.cache.Cache.Entry::getValue);
+        Stream<BuildRefCompacted> builds = buildRefs.values(srvId);
+
+        return filter == null ? builds : builds.filter(filter::apply);
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param buildIds Build ids.
+     * @return Existing builds in order of {@code buildIds}, loaded by chunks.
+     */
+    @Nonnull
+    public Stream<BuildRefCompacted> compactedBuilds(int srvId, int[] buildIds) {
+        return buildRefs.getAll(srvId, buildIds);
     }
 
     /**
@@ -164,7 +178,7 @@ public class BuildRefDao {
 
         int size = entriesToPut.size();
         if (size != 0) {
-            buildRefsCache.putAll(entriesToPut);
+            buildRefs.putAll(entriesToPut);
 
             invalidateHistoryInMem(srvId, entriesToPut.values().stream());
         }
@@ -255,6 +269,65 @@ public class BuildRefDao {
         return res;
     }
 
+    /**
+     * Batched version of {@link #getAllBuildsCompacted(int, int, Collection)}: branches missing in the in-memory
+     * cache are loaded using one SQL query per {@link #BRANCHES_QRY_CHUNK} branches.
+     *
+     * @param srvId Server id.
+     * @param buildTypeIdId Build type ID - ID from compactor.
+     * @param branchNameIds Branch name IDs from compactor.
+     * @return Map from branch name ID to builds of the suite in this branch.
+     */
+    @AutoProfiling
+    @Nonnull public Map<Integer, List<BuildRefCompacted>> getBuildsForBranches(int srvId,
+        int buildTypeIdId,
+        Collection<Integer> branchNameIds) {
+        Map<Integer, List<BuildRefCompacted>> res = new HashMap<>();
+        List<Integer> notCached = new ArrayList<>();
+
+        for (Integer branchNameId : branchNameIds) {
+            List<BuildRefCompacted> cached
+                = buildRefsInMemCache.getIfPresent(new RunHistKey(srvId, buildTypeIdId, branchNameId));
+
+            if (cached != null)
+                res.put(branchNameId, cached);
+            else
+                notCached.add(branchNameId);
+        }
+
+        for (int i = 0; i < notCached.size(); i += BRANCHES_QRY_CHUNK) {
+            List<Integer> chunk = notCached.subList(i, Math.min(i + BRANCHES_QRY_CHUNK, notCached.size()));
+
+            Map<Integer, List<BuildRefCompacted>> loaded = new HashMap<>();
+            chunk.forEach(branchNameId -> loaded.put(branchNameId, new ArrayList<>()));
+
+            String qry = "branchName in (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (QueryCursor<Cache.Entry<Long, BuildRefCompacted>> qryCursor = buildRefsCache.query(
+                new SqlQuery<Long, BuildRefCompacted>(BuildRefCompacted.class, qry).setArgs(chunk.toArray()))) {
+                for (Cache.Entry<Long, BuildRefCompacted> next : qryCursor) {
+                    BuildRefCompacted ref = next.getValue();
+
+                    if (!isKeyForServer(next.getKey(), srvId) || ref.buildTypeId() != buildTypeIdId)
+                        continue;
+
+                    List<BuildRefCompacted> builds = loaded.get(ref.branchName());
+
+                    if (builds != null)
+                        builds.add(ref);
+                }
+            }
+
+            loaded.forEach((branchNameId, builds) -> {
+                buildRefsInMemCache.put(new RunHistKey(srvId, buildTypeIdId, branchNameId), builds);
+
+                res.put(branchNameId, builds);
+            });
+        }
+
+        return res;
+    }
+
     /**
      * @param srvId Server id.
      */
@@ -331,7 +404,7 @@ public class BuildRefDao {
         BuildRefCompacted buildPersisted = buildRefsCache.get(cacheKey);
 
         if (buildPersisted == null || !buildPersisted.equals(refCompacted)) {
-            buildRefsCache.put(cacheKey, refCompacted);
+            buildRefs.put(cacheKey, refCompacted);
             invalidateHistoryInMem(srvId, Stream.of(refCompacted));
 
             return true;
@@ -340,21 +413,12 @@ public class BuildRefDao {
         return false;
     }
 
-    @AutoProfiling
+    /**
+     * @param srvId Server id.
+     * @return Sorted IDs of server builds.
+     */
     public int[] getAllIds(int srvId) {
-        GridIntList res = new GridIntList(buildRefsCache.size());
-
-        getAllBuildRefs(srvId)
-                .map(Cache.Entry::getKey)
-                .map(BuildRefDao::cacheKeyToBuildId)
-                .forEach(res::add);
-
-        return res.array();
-    }
-
-    @Nonnull public Stream<Cache.Entry<Long, BuildRefCompacted>> getAllBuildRefs(int srvId) {
-        return StreamSupport.stream(buildRefsCache.spliterator(), false)
-                .filter(entry -> isKeyForServer(entry.getKey(), srvId));
+        return buildRefs.ids(srvId);
     }
 
     public IgniteCache<Long, BuildRefCompacted> buildRefsCache() {
@@ -365,11 +429,25 @@ public class BuildRefDao {
         return buildRefsCache.get(buildIdToCacheKey(srvId, buildId));
     }
 
+    /**
+     * @param srvId Server id.
+     * @param buildIds Build ids.
+     * @return Build references found, by build ID.
+     */
+    public Map<Integer, BuildRefCompacted> getAll(int srvId, Collection<Integer> buildIds) {
+        Set<Long> keys = buildIds.stream().map(id -> buildIdToCacheKey(srvId, id)).collect(Collectors.toSet());
+        Map<Integer, BuildRefCompacted> res = new HashMap<>();
+
+        buildRefsCache.getAll(keys).forEach((k, ref) -> res.put(cacheKeyToBuildId(k), ref));
+
+        return res;
+    }
+
     public void remove(long key) {
-        buildRefsCache.remove(key);
+        buildRefs.remove(key);
     }
 
     public void removeAll(Set<Long> keys) {
-        buildRefsCache.removeAll(keys);
+        buildRefs.removeAll(keys);
     }
 }
@@ -16,8 +16,6 @@
  */
 package org.apache.ignite.tcignited.history;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
@@ -102,8 +100,90 @@ public abstract class AbstractRunHist implements IRunHistory {
         return statusChange;
     }
 
+    /**
+     * @return Count of invocations in history.
+     */
+    protected abstract int invocationsCount();
+
+    /**
+     * @param idx Index of invocation, invocations are sorted by build ID.
+     * @return Status of invocation.
+     */
+    protected abstract byte statusAt(int idx);
+
+    /**
+     * @param idx Index of invocation, invocations are sorted by build ID.
+     * @return Build ID of invocation.
+     */
+    protected abstract int buildIdAt(int idx);
+
+    /** {@inheritDoc} */
+    @Override public DetectionWatermark watermark() {
+        int cnt = invocationsCount();
+
+        return cnt == 0
+            ? new DetectionWatermark(-1, -1, 0)
+            : new DetectionWatermark(buildIdAt(0), buildIdAt(cnt - 1), cnt);
+    }
+
+    /** {@inheritDoc} */
     @Nullable
-    public Integer detectTemplate(IEventTemplate t) {
+    @Override public Integer detectTemplate(IEventTemplate t) {
+        int idx = findTemplate(t, 0);
+
+        return idx < 0 ? null : checkFirstNonMissing(t, idx);
+    }
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override public Integer detectTemplate(IEventTemplate t, @Nullable DetectionWatermark prev,
+        DetectionWatermark cur) {
+        Integer res;
+
+        int newInvIdx = prev != null && prev.isChecked(t) ? firstInvocationAfter(prev) : -1;
+
+        if (newInvIdx < 0)
+            res = detectTemplate(t);
+        else {
+            // Most recent match in old invocations is already known, so only windows with new invocations are checked.
+            int idx = newInvIdx == invocationsCount() ? -1 : findTemplate(t, newInvIdx);
+
+            res = idx < 0 ? prev.detected(t) : checkFirstNonMissing(t, idx);
+        }
+
+        cur.register(t, res);
+
+        return res;
+    }
+
+    /**
+     * @param prev Previous watermark.
+     * @return Index of the first invocation added after watermark, or -1 if this history is not an extension of
+     * watermarked history, e.g. old invocations were evicted or out of order build was added.
+     */
+    private int firstInvocationAfter(DetectionWatermark prev) {
+        int cnt = invocationsCount();
+
+        if (cnt == 0 || prev.count() == 0 || buildIdAt(0) != prev.firstBuildId())
+            return -1;
+
+        int idx = cnt;
+
+        while (idx > 0 && buildIdAt(idx - 1) > prev.lastBuildId())
+            idx--;
+
+        return idx == prev.count() ? idx : -1;
+    }
+
+    /**
+     * Searches template over statuses in place starting from the most recent invocations.
+     *
+     * @param t Template.
+     * @param fromIdx Index of invocation, which should be covered by the window checked. Windows consisting of older
+     * invocations only are skipped.
+     * @return Index of central event invocation for the most recent window matched, or -1.
+     */
+    private int findTemplate(IEventTemplate t, int fromIdx) {
         int centralEvtBuild = t.beforeEvent().length;
 
         int[] template = concatArr(t.beforeEvent(), t.eventAndAfter());
@@ -112,36 +192,61 @@ public abstract class AbstractRunHist implements IRunHistory {
         assert centralEvtBuild >= 0;
 
         boolean includeMissing = t.includeMissing();
+        int cnt = invocationsCount();
+
+        // Latest window start: window should fit into history.
+        int maxStart = cnt;
 
-        List<Invocation> histAsArr = new ArrayList<>();
-        for (Invocation invocation : invocations()) {
-            if (includeMissing || invocation.status() != InvocationData.MISSING)
-                histAsArr.add(invocation);
+        for (int applicable = 0; applicable < template.length; ) {
+            if (--maxStart < 0)
+                return -1;
+
+            if (includeMissing || statusAt(maxStart) != InvocationData.MISSING)
+                applicable++;
         }
 
-        if (histAsArr.size() < template.length)
-            return null;
+        // Earliest window start: window should include invocation at fromIdx or later.
+        int minStart = fromIdx;
+
+        for (int applicable = 0; minStart > 0 && applicable < template.length - 1; ) {
+            minStart--;
+
+            if (includeMissing || statusAt(minStart) != InvocationData.MISSING)
+                applicable++;
+        }
 
-        Integer detectedAt = null;
+        for (int start = maxStart; start >= minStart; start--) {
+            if (!includeMissing && statusAt(start) == InvocationData.MISSING)
+                continue;
 
-        //startIgnite from the end to find most recent
-        for (int idx = histAsArr.size() - template.length; idx >= 0; idx--) {
-            detectedAt = checkTemplateAtPos(template, centralEvtBuild, histAsArr, idx);
+            int centralIdx = checkTemplateAtPos(template, centralEvtBuild, includeMissing, start, cnt);
 
-            if (detectedAt != null)
-                break;
+            if (centralIdx >= 0)
+                return centralIdx;
         }
 
-        if (detectedAt != null && t.shouldBeFirstNonMissing()) {
-            for (Invocation invocation : invocations()) {
-                if (invocation.status() != InvocationData.MISSING)
-                    return invocation.buildId() != detectedAt ? null : detectedAt;
-            }
+        return -1;
+    }
 
-            return null;
+    /**
+     * @param t Template.
+     * @param idx Index of central event detected.
+     * @return Build ID of central event or null if template requires it to be the first non missing invocation.
+     */
+    @Nullable private Integer checkFirstNonMissing(IEventTemplate t, int idx) {
+        int detectedAt = buildIdAt(idx);
+
+        if (!t.shouldBeFirstNonMissing())
+            return detectedAt;
+
+        int cnt = invocationsCount();
+
+        for (int i = 0; i < cnt; i++) {
+            if (statusAt(i) != InvocationData.MISSING)
+                return buildIdAt(i) != detectedAt ? null : detectedAt;
         }
 
-        return detectedAt;
+        return null;
     }
 
     private static int[] concatArr(int[] arr1, int[] arr2) {
@@ -152,26 +257,41 @@ public abstract class AbstractRunHist implements IRunHistory {
         return arr1and2;
     }
 
-    @Nullable
-    private static Integer checkTemplateAtPos(int[] template, int centralEvtBuild, List<Invocation> histAsArr,
-        int idx) {
-        for (int tIdx = 0; tIdx < template.length; tIdx++) {
-            Invocation curStatus = histAsArr.get(idx + tIdx);
+    /**
+     * @param template Template statuses.
+     * @param centralEvtBuild Central event index in template.
+     * @param includeMissing Include missing invocations into matching, if false missing ones are skipped.
+     * @param start Window start index.
+     * @param cnt Invocations count.
+     * @return Index of central event invocation if window matched, or -1.
+     */
+    private int checkTemplateAtPos(int[] template, int centralEvtBuild, boolean includeMissing, int start, int cnt) {
+        int centralIdx = -1;
+        int pos = start;
+
+        for (int tIdx = 0; tIdx < template.length; tIdx++, pos++) {
+            if (!includeMissing) {
+                while (pos < cnt && statusAt(pos) == InvocationData.MISSING)
+                    pos++;
+            }
 
-            if (curStatus == null)
-                break;
+            if (pos >= cnt)
+                return -1;
 
-            RunStatus tmpl = RunStatus.byCode(template[tIdx]);
+            byte status = statusAt(pos);
+            int tmpl = template[tIdx];
 
-            if ((tmpl == RunStatus.RES_OK_OR_FAILURE && (curStatus.status() == InvocationData.OK || curStatus.status() == InvocationData.FAILURE))
-                || curStatus.status() == tmpl.getCode()) {
-                if (tIdx == template.length - 1)
-                    return histAsArr.get(idx + centralEvtBuild).buildId();
-            }
-            else
-                break;
+            boolean match = tmpl == RunStatus.RES_OK_OR_FAILURE.getCode()
+                ? status == InvocationData.OK || status == InvocationData.FAILURE
+                : status == tmpl;
+
+            if (!match)
+                return -1;
+
+            if (tIdx == centralEvtBuild)
+                centralIdx = pos;
         }
 
-        return null;
+        return centralIdx;
     }
 }
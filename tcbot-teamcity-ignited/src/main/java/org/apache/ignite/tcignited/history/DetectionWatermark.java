@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.history;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Snapshot of run history bounds with results of event templates detection. Watermark taken at previous detection
+ * pass allows to examine only invocations added since, see {@link IRunHistory#detectTemplate(IEventTemplate,
+ * DetectionWatermark, DetectionWatermark)}. Instances are not thread safe.
+ */
+public class DetectionWatermark {
+    /** Build ID of the first invocation in history, history size is limited so old invocations are evicted. */
+    private final int firstBuildId;
+
+    /** Build ID of the last invocation evaluated. */
+    private final int lastBuildId;
+
+    /** Invocations count. */
+    private final int cnt;
+
+    /** Template -> build ID of central event detected, null value means template was checked but not found. */
+    private final Map<IEventTemplate, Integer> detected = new HashMap<>();
+
+    /**
+     * @param firstBuildId First build id.
+     * @param lastBuildId Last build id.
+     * @param cnt Invocations count.
+     */
+    DetectionWatermark(int firstBuildId, int lastBuildId, int cnt) {
+        this.firstBuildId = firstBuildId;
+        this.lastBuildId = lastBuildId;
+        this.cnt = cnt;
+    }
+
+    /**
+     * @param prev Previous watermark.
+     * @return {@code True} if history was not changed since previous watermark.
+     */
+    public boolean sameHistory(@Nullable DetectionWatermark prev) {
+        return prev != null
+            && prev.firstBuildId == firstBuildId
+            && prev.lastBuildId == lastBuildId
+            && prev.cnt == cnt;
+    }
+
+    /**
+     * @return {@code True} if at least one of checked templates was detected.
+     */
+    public boolean anyDetected() {
+        return detected.values().stream().anyMatch(Objects::nonNull);
+    }
+
+    /**
+     * @return Build ID of the first invocation.
+     */
+    int firstBuildId() {
+        return firstBuildId;
+    }
+
+    /**
+     * @return Build ID of the last invocation.
+     */
+    int lastBuildId() {
+        return lastBuildId;
+    }
+
+    /**
+     * @return Invocations count.
+     */
+    int count() {
+        return cnt;
+    }
+
+    /**
+     * @param t Template.
+     */
+    boolean isChecked(IEventTemplate t) {
+        return detected.containsKey(t);
+    }
+
+    /**
+     * @param t Template.
+     */
+    @Nullable Integer detected(IEventTemplate t) {
+        return detected.get(t);
+    }
+
+    /**
+     * @param t Template.
+     * @param buildId Build ID of central event, or null if template was not found.
+     */
+    void register(IEventTemplate t, @Nullable Integer buildId) {
+        detected.put(t, buildId);
+    }
+}
@@ -40,6 +40,24 @@ public interface IRunHistory {
     @Nullable
     public Integer detectTemplate(IEventTemplate t);
 
+    /**
+     * @return Snapshot of history bounds, to be used for incremental templates detection.
+     */
+    public DetectionWatermark watermark();
+
+    /**
+     * Incremental version of {@link #detectTemplate(IEventTemplate)}. If this history is the watermarked history
+     * extended with newer builds, only windows including new invocations are checked. Otherwise whole history is
+     * checked.
+     *
+     * @param t Template.
+     * @param prev Watermark taken from previous version of this history, or null.
+     * @param cur Watermark of this history, result of detection is registered in it.
+     * @return Build ID of central event for the most recent match.
+     */
+    @Nullable
+    public Integer detectTemplate(IEventTemplate t, @Nullable DetectionWatermark prev, DetectionWatermark cur);
+
     public default String getCriticalFailPercentPrintable() {
         return getPercentPrintable(getCriticalFailRate() * 100.0f);
     }
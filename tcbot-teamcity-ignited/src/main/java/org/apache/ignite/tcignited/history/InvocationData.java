@@ -128,7 +128,14 @@ public class InvocationData {
     public Invocation getInvocationAt(int idx) {
         int size = invocationList.size();
         Preconditions.checkState(idx < size,
-            "Requested invocation outside suite history [" + idx + "] size [" + size + "]");
+            "Requested invocation outside suite history [%s] size [%s]", idx, size);
         return invocationList.get(idx);
     }
+
+    /**
+     * @return Invocations count.
+     */
+    public int size() {
+        return invocationList.size();
+    }
 }
@@ -57,6 +57,21 @@ public class RunHistCompacted extends AbstractRunHist {
         return data.invocationsIterable();
     }
 
+    /** {@inheritDoc} */
+    @Override protected int invocationsCount() {
+        return data.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override protected byte statusAt(int idx) {
+        return data.getInvocationAt(idx).status();
+    }
+
+    /** {@inheritDoc} */
+    @Override protected int buildIdAt(int idx) {
+        return data.getInvocationAt(idx).buildId();
+    }
+
     public Set<Integer> buildIds() {
         return data.buildIdsMapping().keySet();
     }
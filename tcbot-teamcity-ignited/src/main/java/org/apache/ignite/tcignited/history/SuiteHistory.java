@@ -142,7 +142,7 @@ public class SuiteHistory implements ISuiteRunHistory {
             this.testInvStatuses = testInvStatuses;
             this.suiteHist = suiteHist;
 
-            Preconditions.checkState(testInvStatuses.length == suiteHist.getInvocations().count());
+            Preconditions.checkState(testInvStatuses.length == suiteHist.invocationsCount());
         }
 
         /** {@inheritDoc} */
@@ -193,6 +193,21 @@ public class SuiteHistory implements ISuiteRunHistory {
         @Override public Iterable<Invocation> invocations() {
             return () -> new TestUltraCompactRunHistIterator(testInvStatuses, suiteHist);
         }
+
+        /** {@inheritDoc} */
+        @Override protected int invocationsCount() {
+            return testInvStatuses.length;
+        }
+
+        /** {@inheritDoc} */
+        @Override protected byte statusAt(int idx) {
+            return testInvStatuses[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override protected int buildIdAt(int idx) {
+            return suiteHist.buildIdAt(idx);
+        }
     }
 
 
@@ -22,7 +22,6 @@ import java.util.HashMap;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import javax.cache.Cache;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
@@ -30,6 +29,7 @@ import org.apache.ignite.IgniteCache;
 import org.apache.ignite.ci.teamcity.ignited.mute.MuteInfoCompacted;
 import org.apache.ignite.tcbot.common.interceptor.AutoProfiling;
 import org.apache.ignite.tcbot.persistence.CacheConfigs;
+import org.apache.ignite.tcbot.persistence.ServerScopedCache;
 import org.apache.ignite.tcservice.model.mute.MuteInfo;
 import org.apache.ignite.tcbot.persistence.IStringCompactor;
 import org.apache.ignite.internal.util.typedef.F;
@@ -45,8 +45,8 @@ public class MuteDao {
     /** Ignite provider. */
     @Inject private Provider<Ignite> igniteProvider;
 
-    /** Builds cache. */
-    private IgniteCache<Long, MuteInfoCompacted> muteCache;
+    /** Mutes cache. */
+    private ServerScopedCache<MuteInfoCompacted> muteCache;
 
     /** Compactor. */
     @Inject private IStringCompactor compactor;
@@ -54,8 +54,16 @@ public class MuteDao {
     /**
      *
      */
-    public void init() {
-        muteCache = igniteProvider.get().getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_MUTE_CACHE_NAME));
+    public synchronized void init() {
+        if (muteCache != null)
+            return;
+
+        Ignite ignite = igniteProvider.get();
+
+        IgniteCache<Long, MuteInfoCompacted> cache
+            = ignite.getOrCreateCache(CacheConfigs.getCacheV2Config(TEAMCITY_MUTE_CACHE_NAME));
+
+        muteCache = new ServerScopedCache<>(ignite, cache).init();
     }
 
     /**
@@ -65,14 +73,10 @@ public class MuteDao {
     @AutoProfiling
     public SortedSet<MuteInfo> getMutes(int srvIdMaskHigh) {
         Preconditions.checkNotNull(muteCache, "init() was not called");
-        long srvId = (long) srvIdMaskHigh << 32;
 
         TreeSet<MuteInfo> res = new TreeSet<>();
 
-        for (Cache.Entry<Long, MuteInfoCompacted> entry : muteCache) {
-            if ((entry.getKey() & srvId) == srvId)
-                res.add(entry.getValue().toMuteInfo(compactor));
-        }
+        muteCache.values(srvIdMaskHigh).forEach(mute -> res.add(mute.toMuteInfo(compactor)));
 
         return res;
     }
@@ -85,7 +89,7 @@ public class MuteDao {
      * @return Key from server-project pair.
      */
     private static long muteIdToCacheKey(int srvIdMaskHigh, int muteId) {
-        return (long) muteId | (long) srvIdMaskHigh << 32;
+        return ServerScopedCache.key(srvIdMaskHigh, muteId);
     }
 
     /**
@@ -127,16 +131,10 @@ public class MuteDao {
      */
     public int removeAllAfter(int srvIdMaskHigh, int startId) {
         int rmv = 0;
-        long srvId = (long) srvIdMaskHigh << 32;
-
-        for (Cache.Entry<Long, MuteInfoCompacted> entry : muteCache) {
-            if ((srvId & entry.getKey()) != srvId)
-                continue;
 
-            if (entry.getValue().id() > startId) {
-                if (muteCache.remove(entry.getKey()))
-                    rmv++;
-            }
+        for (int muteId : muteCache.idsGreaterThan(srvIdMaskHigh, startId)) {
+            if (muteCache.remove(muteIdToCacheKey(srvIdMaskHigh, muteId)))
+                rmv++;
         }
 
         return rmv;
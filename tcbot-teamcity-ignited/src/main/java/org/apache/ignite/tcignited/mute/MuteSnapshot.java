@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.mute;
+
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.apache.ignite.internal.util.typedef.F;
+import org.apache.ignite.tcservice.model.mute.MuteAssignment;
+import org.apache.ignite.tcservice.model.mute.MuteInfo;
+
+/**
+ * Immutable snapshot of server mutes, rebuilt after each mutes sync. Mutes of snapshot are never modified, readers
+ * get copies which can be decorated before sending them to UI.
+ */
+public class MuteSnapshot {
+    /** Mutes sorted by ID. */
+    private final MuteInfo[] mutes;
+
+    /** Ticket keys extracted from mutes comments for the last requested browse URL. */
+    @Nullable private volatile TicketKeys ticketKeys;
+
+    /**
+     * @param mutes Mutes, snapshot takes ownership of provided instances.
+     */
+    public MuteSnapshot(SortedSet<MuteInfo> mutes) {
+        this.mutes = mutes.toArray(new MuteInfo[0]);
+    }
+
+    /**
+     * @return Count of mutes in snapshot.
+     */
+    public int size() {
+        return mutes.length;
+    }
+
+    /**
+     * @return Copies of snapshot mutes.
+     */
+    public SortedSet<MuteInfo> mutes() {
+        TreeSet<MuteInfo> res = new TreeSet<>();
+
+        for (MuteInfo mute : mutes)
+            res.add(copy(mute));
+
+        return res;
+    }
+
+    /**
+     * Returns copies of snapshot mutes with ticket status filled for mutes having link to ticket as a tail of comment.
+     *
+     * @param browseUrl JIRA URL for browsing tickets, e.g. https://issues.apache.org/jira/browse/
+     * @param ticketStatuses Ticket key -> Ticket status text.
+     * @return Copies of snapshot mutes with ticket status.
+     */
+    public SortedSet<MuteInfo> mutesWithTicketStatus(String browseUrl, Map<String, String> ticketStatuses) {
+        String[] keys = ticketKeys(browseUrl);
+
+        TreeSet<MuteInfo> res = new TreeSet<>();
+
+        for (int i = 0; i < mutes.length; i++) {
+            MuteInfo mute = copy(mutes[i]);
+
+            if (keys[i] != null)
+                mute.ticketStatus = ticketStatuses.get(keys[i]);
+
+            res.add(mute);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param browseUrl Browse url.
+     * @return Ticket key for each mute, {@code null} if mute comment doesn't contain link to ticket.
+     */
+    private String[] ticketKeys(String browseUrl) {
+        TicketKeys keys = ticketKeys;
+
+        if (keys != null && keys.browseUrl.equals(browseUrl))
+            return keys.keys;
+
+        String[] res = new String[mutes.length];
+
+        for (int i = 0; i < mutes.length; i++)
+            res[i] = ticketKey(mutes[i], browseUrl);
+
+        ticketKeys = new TicketKeys(browseUrl, res);
+
+        return res;
+    }
+
+    /**
+     * @param mute Mute.
+     * @param browseUrl Browse url.
+     * @return Rest of mute comment after first occurrence of browse URL.
+     */
+    @Nullable private static String ticketKey(MuteInfo mute, String browseUrl) {
+        if (mute.assignment == null || F.isEmpty(mute.assignment.text))
+            return null;
+
+        String text = mute.assignment.text;
+
+        int pos = text.indexOf(browseUrl);
+
+        if (pos == -1)
+            return null;
+
+        return text.substring(pos + browseUrl.length());
+    }
+
+    /**
+     * Copies mute and its assignment, other parts are shared and are not expected to be modified.
+     *
+     * @param mute Mute.
+     */
+    private static MuteInfo copy(MuteInfo mute) {
+        MuteInfo res = new MuteInfo();
+
+        res.id = mute.id;
+        res.scope = mute.scope;
+        res.target = mute.target;
+        res.ticketStatus = mute.ticketStatus;
+
+        if (mute.assignment != null) {
+            res.assignment = new MuteAssignment();
+
+            res.assignment.muteDate = mute.assignment.muteDate;
+            res.assignment.text = mute.assignment.text;
+        }
+
+        return res;
+    }
+
+    /**
+     * Ticket keys extracted for browse URL.
+     */
+    private static class TicketKeys {
+        /** Browse url. */
+        private final String browseUrl;
+
+        /** Keys. */
+        private final String[] keys;
+
+        /**
+         * @param browseUrl Browse url.
+         * @param keys Keys.
+         */
+        private TicketKeys(String browseUrl, String[] keys) {
+            this.browseUrl = browseUrl;
+            this.keys = keys;
+        }
+    }
+}
@@ -18,6 +18,8 @@
 package org.apache.ignite.tcignited.mute;
 
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.inject.Inject;
@@ -38,6 +40,9 @@ public class MuteSync {
     /** Mute DAO. */
     @Inject private MuteDao muteDao;
 
+    /** Mutes snapshots: server id mask high and project id -> snapshot. */
+    private final ConcurrentMap<String, MuteSnapshot> snapshots = new ConcurrentHashMap<>();
+
     /**
      * Start named task to refresh mutes for given project.
      */
@@ -45,6 +50,24 @@ public class MuteSync {
         scheduler.sheduleNamed(taskName, () -> actualizeMuteRefs(projectId, srvIdMaskHigh, conn), 15, TimeUnit.MINUTES);
     }
 
+    /**
+     * @param projectId Project id.
+     * @param srvIdMaskHigh Server id mask high.
+     * @return Mutes snapshot built by last sync, or loaded from DB if mutes were not synced yet.
+     */
+    public MuteSnapshot snapshot(String projectId, int srvIdMaskHigh) {
+        return snapshots.computeIfAbsent(snapshotKey(projectId, srvIdMaskHigh),
+            k -> new MuteSnapshot(muteDao.getMutes(srvIdMaskHigh)));
+    }
+
+    /**
+     * @param projectId Project id.
+     * @param srvIdMaskHigh Server id mask high.
+     */
+    private static String snapshotKey(String projectId, int srvIdMaskHigh) {
+        return srvIdMaskHigh + ":" + projectId;
+    }
+
     /**
      * Refresh mutes for given project.
      *
@@ -86,6 +109,8 @@ public class MuteSync {
 
         mutesDeleted += muteDao.removeAllAfter(srvIdMaskHigh, lastId);
 
+        snapshots.put(snapshotKey(projectId, srvIdMaskHigh), new MuteSnapshot(muteDao.getMutes(srvIdMaskHigh)));
+
         return "Mutes saved " + mutesSaved + ", removed " + mutesDeleted + " for " + projectId;
     }
 
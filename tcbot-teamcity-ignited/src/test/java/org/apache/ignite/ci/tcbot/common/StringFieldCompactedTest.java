@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.tcbot.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Adler32;
+import org.junit.Test;
+import org.xerial.snappy.Snappy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks compression codec selection and compatibility with stored data.
+ */
+public class StringFieldCompactedTest {
+    /** Adler-32 of the dictionary, values compressed using it become unreadable if the dictionary is changed. */
+    private static final long DICTIONARY_ADLER32 = 0xb9508ee8L;
+
+    /**
+     *
+     */
+    @Test
+    public void testDictionaryNotChanged() throws IOException {
+        Adler32 adler32 = new Adler32();
+
+        String rsrc = StringFieldCompacted.DICTIONARY_RESOURCE;
+
+        try (InputStream is = StringFieldCompacted.class.getResourceAsStream(rsrc)) {
+            assertNotNull(is);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int len;
+
+            while ((len = is.read(buf)) != -1)
+                bos.write(buf, 0, len);
+
+            adler32.update(bos.toByteArray());
+        }
+
+        assertEquals(DICTIONARY_ADLER32, adler32.getValue());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testCodecSelectedBySize() {
+        checkRoundTrip("", StringFieldCompacted.FLAG_UNCOMPRESSED);
+        checkRoundTrip("Test failed", StringFieldCompacted.FLAG_UNCOMPRESSED);
+
+        String trace = stackTrace(new Random(42), 30);
+
+        checkRoundTrip(trace, StringFieldCompacted.FLAG_DEFLATE_DICT);
+        checkRoundTrip("Значения не совпадают ≠ " + trace, StringFieldCompacted.FLAG_DEFLATE_DICT);
+
+        StringBuilder threadDump = new StringBuilder();
+        Random rnd = new Random(42);
+
+        while (threadDump.length() <= StringFieldCompacted.MAX_DEFLATE_LEN)
+            threadDump.append(stackTrace(rnd, 20));
+
+        checkRoundTrip(threadDump.toString(), StringFieldCompacted.FLAG_SNAPPY);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testDictionaryImprovesRatio() throws IOException {
+        String trace = stackTrace(new Random(42), 10);
+        byte[] bytes = trace.getBytes(StandardCharsets.UTF_8);
+
+        StringFieldCompacted field = new StringFieldCompacted(trace);
+
+        assertTrue(field.data.length < StringFieldCompacted.zipBytes(bytes).length);
+        assertTrue(field.data.length < Snappy.compress(bytes).length);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testIncompressibleValueNotDeflated() {
+        byte[] rndBytes = new byte[1000];
+
+        new Random(42).nextBytes(rndBytes);
+
+        assertNull(StringFieldCompacted.deflateWithDictionary(rndBytes));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testPreviouslyStoredFormatsReadable() throws IOException {
+        String trace = stackTrace(new Random(42), 30);
+        byte[] bytes = trace.getBytes(StandardCharsets.UTF_8);
+
+        StringFieldCompacted snappy = new StringFieldCompacted();
+
+        snappy.flag = StringFieldCompacted.FLAG_SNAPPY;
+        snappy.data = Snappy.compress(bytes);
+
+        assertEquals(trace, snappy.getValue());
+
+        StringFieldCompacted gzip = new StringFieldCompacted();
+
+        gzip.flag = StringFieldCompacted.FLAG_GZIP;
+        gzip.data = StringFieldCompacted.zipBytes(bytes);
+
+        assertEquals(trace, gzip.getValue());
+        assertEquals(trace, StringFieldCompacted.unzipToString(gzip.data));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testCorruptedValueNotReturned() {
+        StringFieldCompacted field = new StringFieldCompacted(stackTrace(new Random(42), 30));
+
+        assertEquals(StringFieldCompacted.FLAG_DEFLATE_DICT, field.flag);
+
+        field.data = Arrays.copyOf(field.data, field.data.length / 2);
+
+        assertNull(field.getValue());
+    }
+
+    /**
+     * @param val Value.
+     * @param expFlag Expected codec.
+     */
+    private void checkRoundTrip(String val, int expFlag) {
+        StringFieldCompacted field = new StringFieldCompacted(val);
+
+        assertEquals(val, field.getValue());
+        assertEquals(!val.isEmpty(), field.isFilled());
+
+        if (field.isFilled()) {
+            assertEquals(expFlag, field.flag);
+
+            if (expFlag != StringFieldCompacted.FLAG_UNCOMPRESSED)
+                assertTrue(field.data.length < val.getBytes(StandardCharsets.UTF_8).length);
+        }
+
+        assertFalse(field.equals(new StringFieldCompacted(val + "1")));
+        assertEquals(field, new StringFieldCompacted(val));
+    }
+
+    /**
+     * @param rnd Random.
+     * @param depth Frames count.
+     */
+    private static String stackTrace(Random rnd, int depth) {
+        String[] classes = {
+            "org.apache.ignite.internal.processors.cache.GridCacheAdapter",
+            "org.apache.ignite.internal.processors.cache.distributed.dht.GridDhtTxPrepareFuture",
+            "org.apache.ignite.internal.processors.cache.persistence.GridCacheDatabaseSharedManager",
+            "org.apache.ignite.internal.util.future.GridFutureAdapter",
+            "java.util.concurrent.ThreadPoolExecutor"
+        };
+
+        StringBuilder sb = new StringBuilder("java.lang.AssertionError: Values are not equal [key=")
+            .append(rnd.nextInt(100000)).append("]\n");
+
+        for (int i = 0; i < depth; i++) {
+            String cls = classes[rnd.nextInt(classes.length)];
+
+            sb.append("\tat ").append(cls).append(".method").append(rnd.nextInt(20)).append('(')
+                .append(cls.substring(cls.lastIndexOf('.') + 1)).append(".java:").append(20 + rnd.nextInt(3000))
+                .append(")\n");
+        }
+
+        return sb.append("\tat java.lang.Thread.run(Thread.java:748)\n").toString();
+    }
+}
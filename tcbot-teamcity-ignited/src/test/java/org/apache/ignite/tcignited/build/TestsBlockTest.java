@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.build;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.tcbot.persistence.IStringCompactor;
+import org.apache.ignite.tcbot.persistence.InMemoryStringCompactor;
+import org.apache.ignite.tcignited.buildlog.ILogProductSpecific;
+import org.apache.ignite.tcservice.model.hist.BuildRef;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrence;
+import org.apache.ignite.tcservice.model.result.tests.TestOccurrenceFull;
+import org.apache.ignite.tcservice.model.result.tests.TestRef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks tests stored in columns are equal to tests stored as objects.
+ */
+public class TestsBlockTest {
+    /** Build ID. */
+    private static final int BUILD_ID = 1_000_000;
+
+    /** Compactor. */
+    private final IStringCompactor compactor = new InMemoryStringCompactor();
+
+    /** Log specific, keeps all details. */
+    private final ILogProductSpecific logSpecific = Mockito.mock(ILogProductSpecific.class);
+
+    /** */
+    @Before
+    public void setUp() {
+        TestCompactedV2.resetCached();
+
+        when(logSpecific.needWarn(anyString())).thenReturn(true);
+    }
+
+    /** */
+    @After
+    public void tearDown() {
+        TestCompactedV2.resetCached();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testViewsEqualToTests() {
+        List<TestOccurrenceFull> occurrences = occurrences(new Random(42), 5000);
+        List<ITest> tests = occurrences.stream()
+            .map(occurrence -> new TestCompactedV2(compactor, occurrence, logSpecific))
+            .collect(Collectors.toList());
+
+        TestsBlock block = new TestsBlock(tests);
+
+        assertEquals(tests.size(), block.size());
+
+        for (int i = 0; i < tests.size(); i++)
+            assertTestEquals(tests.get(i), block.get(i));
+
+        int successStatus = TestCompactedV2.statusSuccessCid(compactor);
+
+        assertEquals(
+            tests.stream().filter(t -> t.isFailedButNotMuted(compactor)).map(ITest::idInBuild)
+                .collect(Collectors.toList()),
+            block.failedNotMutedTests(successStatus).map(ITest::idInBuild).collect(Collectors.toList()));
+
+        assertEquals(tests.stream().filter(t -> !t.isMutedOrIgnored()).count(), block.notMutedTestsCount());
+
+        TestsBlock copy = new TestsBlock(block.tests().collect(Collectors.toList()));
+
+        assertEquals(block, copy);
+        assertEquals(block.hashCode(), copy.hashCode());
+        assertEquals(block.get(7), copy.get(7));
+        assertNotEquals(block.get(7), copy.get(8));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testBuildTestsStoredInBlock() {
+        List<TestOccurrenceFull> occurrences = occurrences(new Random(7), 2500);
+
+        FatBuildCompacted byPages = new FatBuildCompacted();
+
+        for (int i = 0; i < occurrences.size(); i += 1000)
+            byPages.addTests(compactor, occurrences.subList(i, Math.min(i + 1000, occurrences.size())), logSpecific);
+
+        FatBuildCompacted atOnce = new FatBuildCompacted().addTests(compactor, occurrences, logSpecific);
+
+        assertEquals(atOnce, byPages);
+        assertEquals(occurrences.size(), atOnce.getTestsCount());
+
+        List<ITest> tests = occurrences.stream()
+            .map(occurrence -> new TestCompactedV2(compactor, occurrence, logSpecific))
+            .collect(Collectors.toList());
+
+        List<ITest> stored = atOnce.getAllTests().collect(Collectors.toList());
+
+        for (int i = 0; i < tests.size(); i++)
+            assertTestEquals(tests.get(i), stored.get(i));
+
+        assertEquals(
+            tests.stream().filter(t -> t.isFailedButNotMuted(compactor)).count(),
+            atOnce.getFailedNotMutedTests(compactor).count());
+
+        assertEquals(tests.stream().filter(t -> !t.isMutedTest() && !t.isIgnoredTest()).count(),
+            atOnce.totalNotMutedTests());
+
+        assertEquals(atOnce, new FatBuildCompacted().addTests(compactor, Collections.emptyList(), logSpecific)
+            .addTests(compactor, occurrences, logSpecific));
+        assertEquals(new FatBuildCompacted(),
+            new FatBuildCompacted().addTests(compactor, Collections.emptyList(), logSpecific));
+    }
+
+    /**
+     * @param exp Expected.
+     * @param act Actual.
+     */
+    private void assertTestEquals(ITest exp, ITest act) {
+        String msg = exp.toString();
+
+        assertEquals(msg, exp.idInBuild(), act.idInBuild());
+        assertEquals(msg, exp.testName(), act.testName());
+        assertEquals(msg, exp.testName(compactor), act.testName(compactor));
+        assertEquals(msg, exp.status(), act.status());
+        assertEquals(msg, exp.getDuration(), act.getDuration());
+        assertEquals(msg, exp.getMutedFlag(), act.getMutedFlag());
+        assertEquals(msg, exp.getCurrentlyMuted(), act.getCurrentlyMuted());
+        assertEquals(msg, exp.getCurrInvestigatedFlag(), act.getCurrInvestigatedFlag());
+        assertEquals(msg, exp.getIgnoredFlag(), act.getIgnoredFlag());
+        assertEquals(msg, exp.isInvestigated(), act.isInvestigated());
+        assertEquals(msg, exp.getTestId(), act.getTestId());
+        assertEquals(msg, exp.getActualBuildId(), act.getActualBuildId());
+        assertEquals(msg, exp.getDetailsText(), act.getDetailsText());
+        assertEquals(msg, exp.isFailedTest(compactor), act.isFailedTest(compactor));
+        assertEquals(msg, exp.isFailedButNotMuted(compactor), act.isFailedButNotMuted(compactor));
+    }
+
+    /**
+     * @param rnd Random.
+     * @param cnt Count.
+     */
+    private static List<TestOccurrenceFull> occurrences(Random rnd, int cnt) {
+        String[] statuses = {TestOccurrence.STATUS_SUCCESS, TestOccurrence.STATUS_FAILURE, "UNKNOWN"};
+        List<TestOccurrenceFull> res = new ArrayList<>();
+
+        for (int i = 0; i < cnt; i++) {
+            TestOccurrenceFull occurrence = new TestOccurrenceFull();
+
+            // IDs in build mostly increase, but not always.
+            int idInBuild = rnd.nextInt(10) == 0 ? rnd.nextInt(cnt * 2) : 2000 + i * 3;
+
+            occurrence.setId("id:" + idInBuild + ",build:(id:" + BUILD_ID + ")");
+            occurrence.name = "org.apache.ignite.TestSuite: org.apache.ignite.SomeTest.test" + rnd.nextInt(cnt);
+            occurrence.status = rnd.nextInt(5) == 0 ? statuses[1 + rnd.nextInt(2)] : statuses[0];
+            occurrence.duration = rnd.nextInt(10) == 0 ? null : rnd.nextInt(rnd.nextBoolean() ? 100 : 1_000_000);
+            occurrence.muted = flag(rnd);
+            occurrence.currentlyMuted = flag(rnd);
+            occurrence.currentlyInvestigated = flag(rnd);
+            occurrence.ignored = flag(rnd);
+
+            if (rnd.nextInt(3) > 0) {
+                occurrence.test = new TestRef();
+                occurrence.test.id = rnd.nextBoolean() ? String.valueOf(rnd.nextLong()) : "-8530421345237045543";
+            }
+
+            if (rnd.nextInt(4) > 0) {
+                occurrence.build = new BuildRef();
+                occurrence.build.setId(rnd.nextBoolean() ? BUILD_ID : BUILD_ID - rnd.nextInt(100_000));
+            }
+
+            if (occurrence.status.equals(TestOccurrence.STATUS_FAILURE))
+                occurrence.details = "java.lang.AssertionError: expected " + rnd.nextInt() + "\n\tat Test.test()";
+
+            res.add(occurrence);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param rnd Random.
+     */
+    private static Boolean flag(Random rnd) {
+        int val = rnd.nextInt(4);
+
+        return val == 0 ? null : val == 1;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.tcignited.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.ignite.ci.teamcity.ignited.runhist.Invocation;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks in place and incremental templates detection is equivalent to full detection over invocations list.
+ */
+public class DetectionWatermarkTest {
+    /** Ok. */
+    private static final int OK = RunStatus.RES_OK.getCode();
+
+    /** Failure. */
+    private static final int FAIL = RunStatus.RES_FAILURE.getCode();
+
+    /** Missing. */
+    private static final int MISSING = RunStatus.RES_MISSING.getCode();
+
+    /** Critical failure. */
+    private static final int CRITICAL = RunStatus.RES_CRITICAL_FAILURE.getCode();
+
+    /** Ok or failure. */
+    private static final int OK_OR_FAILURE = RunStatus.RES_OK_OR_FAILURE.getCode();
+
+    /** Templates, same as used by issue detection. */
+    private static final List<IEventTemplate> TEMPLATES = new ArrayList<>();
+
+    static {
+        TEMPLATES.add(template(new int[] {OK, OK, OK, OK, OK}, new int[] {FAIL, FAIL, FAIL, FAIL}, false, false));
+        TEMPLATES.add(template(new int[] {OK_OR_FAILURE}, new int[] {CRITICAL, CRITICAL, CRITICAL}, false, false));
+        TEMPLATES.add(template(new int[] {MISSING, MISSING, MISSING, MISSING}, new int[] {FAIL, FAIL, FAIL, FAIL},
+            true, true));
+        TEMPLATES.add(template(new int[] {FAIL, FAIL, FAIL}, new int[] {FAIL, FAIL, FAIL}, false, false));
+        TEMPLATES.add(template(new int[] {}, new int[] {FAIL}, false, false));
+    }
+
+    /**
+     * Random histories with new invocations appended are checked by full and incremental detection.
+     */
+    @Test
+    public void testIncrementalDetectionIsEquivalentToFull() {
+        Random rnd = new Random(42);
+
+        for (int iter = 0; iter < 2000; iter++) {
+            int[] statuses = randomStatuses(rnd, 1 + rnd.nextInt(60));
+            int prevCnt = rnd.nextInt(statuses.length + 1);
+
+            RunHistCompacted prevHist = history(statuses, 0, prevCnt);
+            RunHistCompacted hist = history(statuses, 0, statuses.length);
+
+            DetectionWatermark prev = prevHist.watermark();
+
+            for (IEventTemplate t : TEMPLATES)
+                assertEquals(detectReference(prevHist, t), prevHist.detectTemplate(t, null, prev));
+
+            DetectionWatermark cur = hist.watermark();
+
+            for (IEventTemplate t : TEMPLATES) {
+                Integer exp = detectReference(hist, t);
+
+                assertEquals(exp, hist.detectTemplate(t));
+                assertEquals("Iteration " + iter, exp, hist.detectTemplate(t, prev, cur));
+            }
+        }
+    }
+
+    /**
+     * Evicted old invocations make watermark not applicable, so history is checked in full.
+     */
+    @Test
+    public void testEvictedInvocationsCauseFullCheck() {
+        int[] statuses = {OK, OK, OK, OK, OK, FAIL, FAIL, FAIL, FAIL, OK, OK};
+
+        RunHistCompacted prevHist = history(statuses, 0, 9);
+        DetectionWatermark prev = prevHist.watermark();
+
+        IEventTemplate newFailure = TEMPLATES.get(0);
+
+        assertEquals(Integer.valueOf(1005), prevHist.detectTemplate(newFailure, null, prev));
+
+        RunHistCompacted hist = history(statuses, 2, statuses.length);
+        DetectionWatermark cur = hist.watermark();
+
+        assertEquals(null, hist.detectTemplate(newFailure, prev, cur));
+        assertFalse(cur.sameHistory(prev));
+        assertTrue(cur.sameHistory(hist.watermark()));
+    }
+
+    /**
+     * @param statuses Statuses.
+     * @param from First index.
+     * @param to Last index, exclusive.
+     * @return History with build IDs starting from 1000.
+     */
+    private static RunHistCompacted history(int[] statuses, int from, int to) {
+        RunHistCompacted hist = new RunHistCompacted();
+
+        for (int i = from; i < to; i++)
+            hist.addInvocation(new Invocation(1000 + i).withStatus(statuses[i]));
+
+        return hist;
+    }
+
+    /**
+     * @param rnd Random.
+     * @param len Length.
+     */
+    private static int[] randomStatuses(Random rnd, int len) {
+        int[] res = new int[len];
+        int[] codes = {OK, OK, OK, FAIL, FAIL, MISSING, CRITICAL};
+
+        int missingPrefix = rnd.nextBoolean() ? rnd.nextInt(len + 1) : 0;
+
+        for (int i = 0; i < len; i++)
+            res[i] = i < missingPrefix ? MISSING : codes[rnd.nextInt(codes.length)];
+
+        return res;
+    }
+
+    /**
+     * Straightforward detection over copied list of invocations.
+     *
+     * @param hist History.
+     * @param t Template.
+     */
+    private static Integer detectReference(RunHistCompacted hist, IEventTemplate t) {
+        int centralEvt = t.beforeEvent().length;
+        List<Integer> template = new ArrayList<>();
+
+        for (int s : t.beforeEvent())
+            template.add(s);
+
+        for (int s : t.eventAndAfter())
+            template.add(s);
+
+        List<Invocation> list = new ArrayList<>();
+
+        for (Invocation inv : hist.invocations()) {
+            if (t.includeMissing() || inv.status() != MISSING)
+                list.add(inv);
+        }
+
+        Integer detectedAt = null;
+
+        for (int idx = list.size() - template.size(); idx >= 0 && detectedAt == null; idx--) {
+            boolean match = true;
+
+            for (int tIdx = 0; tIdx < template.size() && match; tIdx++) {
+                int status = list.get(idx + tIdx).status();
+                int tmpl = template.get(tIdx);
+
+                match = tmpl == OK_OR_FAILURE ? status == OK || status == FAIL : status == tmpl;
+            }
+
+            if (match)
+                detectedAt = list.get(idx + centralEvt).buildId();
+        }
+
+        if (detectedAt != null && t.shouldBeFirstNonMissing()) {
+            for (Invocation inv : hist.invocations()) {
+                if (inv.status() != MISSING)
+                    return inv.buildId() == detectedAt ? detectedAt : null;
+            }
+
+            return null;
+        }
+
+        return detectedAt;
+    }
+
+    /**
+     * @param before Before event.
+     * @param evtAndAfter Event and after.
+     * @param includeMissing Include missing.
+     * @param firstNonMissing Should be first non missing.
+     */
+    private static IEventTemplate template(int[] before, int[] evtAndAfter, boolean includeMissing,
+        boolean firstNonMissing) {
+        return new IEventTemplate() {
+            @Override public int[] beforeEvent() {
+                return before;
+            }
+
+            @Override public int[] eventAndAfter() {
+                return evtAndAfter;
+            }
+
+            @Override public boolean includeMissing() {
+                return includeMissing;
+            }
+
+            @Override public boolean shouldBeFirstNonMissing() {
+                return firstNonMissing;
+            }
+        };
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.ignite.tcservice;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.UncheckedIOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -54,6 +55,9 @@ import org.apache.ignite.tcbot.common.conf.ITcServerConfig;
  * <li>{@link UncheckedIOException} in case communication failed.</ul>
  */
 public interface ITeamcityConn {
+    /** Max count of changes requested by {@link #getChanges(Collection)}. */
+    public static final int MAX_CHANGES_PER_REQUEST = 100;
+
     /**
      * @return Internal server ID as string
      */
@@ -142,6 +146,14 @@ public interface ITeamcityConn {
      */
     public Change getChange(int changeId);
 
+    /**
+     * @param changeIds Change ids, should not exceed {@link #MAX_CHANGES_PER_REQUEST}.
+     * @return Changes found, changes not existing on the server are not included.
+     *
+     * @throws RuntimeException in case loading failed, see details in {@link ITeamcityConn}.
+     */
+    public List<Change> getChanges(Collection<Integer> changeIds);
+
     /**
      * List of project suites.
      *
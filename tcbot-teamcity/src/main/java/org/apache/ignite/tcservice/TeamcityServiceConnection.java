@@ -17,6 +17,7 @@
 
 package org.apache.ignite.tcservice;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import java.io.File;
 import java.io.IOException;
@@ -24,6 +25,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +49,7 @@ import org.apache.ignite.tcservice.http.ITeamcityHttpConnection;
 import org.apache.ignite.tcservice.model.agent.Agent;
 import org.apache.ignite.tcservice.model.agent.AgentsRef;
 import org.apache.ignite.tcservice.model.changes.Change;
+import org.apache.ignite.tcservice.model.changes.ChangesFull;
 import org.apache.ignite.tcservice.model.changes.ChangesList;
 import org.apache.ignite.tcservice.model.conf.BuildType;
 import org.apache.ignite.tcservice.model.conf.Project;
@@ -262,6 +266,26 @@ public class TeamcityServiceConnection implements ITeamcity {
         return getJaxbUsingHref(href, Change.class);
     }
 
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public List<Change> getChanges(Collection<Integer> changeIds) {
+        Preconditions.checkArgument(changeIds.size() <= MAX_CHANGES_PER_REQUEST,
+            "Too many changes requested: " + changeIds.size());
+
+        if (changeIds.isEmpty())
+            return Collections.emptyList();
+
+        String locator = changeIds.stream()
+            .map(id -> "item:(id:" + id + ")")
+            .collect(Collectors.joining(","));
+
+        String href = "app/rest/latest/changes" +
+            "?locator=" + locator +
+            "&fields=change(id,version,username,date,webUrl,user(id,username,name))";
+
+        return getJaxbUsingHref(href, ChangesFull.class).changes();
+    }
+
     /** {@inheritDoc} */
     @Override public List<Project> getProjects() {
         return sendGetXmlParseJaxb(host() + "app/rest/latest/projects", ProjectsList.class).projects();